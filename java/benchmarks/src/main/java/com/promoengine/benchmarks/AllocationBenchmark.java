@@ -0,0 +1,91 @@
+// ABOUTME: JMH benchmark for building an order-level discount allocated across every cart line.
+// ABOUTME: Compares a boxed Map<Sku, Money> with compact Allocations, and times the proportional split of the discount.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Quantity;
+import com.promoengine.domain.Sku;
+import com.promoengine.pricing.Allocations;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ProportionalAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+    private static final PromotionId PROMOTION = new PromotionId("PROMO-ORDER");
+
+    @Param({"10", "300"})
+    public int lineCount;
+
+    private Sku[] skus;
+    private long[] cents;
+    private CartAnalysis cart;
+    private int[] lines;
+    private Money orderDiscount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        skus = new Sku[lineCount];
+        cents = new long[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            skus[i] = new Sku("SKU-" + i);
+            cents[i] = 100 + i;
+        }
+        List<LineItem> items = new ArrayList<>(lineCount);
+        lines = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            Product product = new Product(skus[i], "Product " + i, "category-" + (i % 10));
+            items.add(new LineItem(product, new Quantity(1 + i % 3), Money.cents(199 + 37L * i)));
+            lines[i] = i;
+        }
+        cart = CartAnalysis.of(new Cart(items));
+        cart.subtotal();
+        orderDiscount = Money.euros("12.34");
+    }
+
+    @Benchmark
+    public long boxedMap() {
+        Map<Sku, Money> allocations = new HashMap<>();
+        for (int i = 0; i < lineCount; i++) {
+            allocations.put(skus[i], Money.cents(cents[i]));
+        }
+        AppliedDiscount discount = new AppliedDiscount(PROMOTION, Money.cents(1), "cart", "Order", Map.copyOf(allocations));
+        return discount.allocations().get(skus[lineCount - 1]).toCents();
+    }
+
+    @Benchmark
+    public long compact() {
+        Allocations.Builder allocations = Allocations.builder(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            allocations.add(skus[i], cents[i]);
+        }
+        AppliedDiscount discount = new AppliedDiscount(PROMOTION, Money.cents(1), "cart", "Order", allocations.build());
+        return discount.compactAllocations().centsOf(skus[lineCount - 1]);
+    }
+
+    /**
+     * Splits an order discount across every line by line subtotal, as the engine does for
+     * order-level discounts its promotions leave unallocated.
+     */
+    @Benchmark
+    public Allocations proportional() {
+        return ProportionalAllocator.allocate(orderDiscount, cart, lines);
+    }
+}
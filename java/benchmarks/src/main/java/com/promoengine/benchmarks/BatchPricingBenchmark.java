@@ -0,0 +1,59 @@
+// ABOUTME: JMH benchmark comparing per-cart, batch, and parallel batch pricing throughput.
+// ABOUTME: One operation prices the whole batch, so compare scores within the same batch size.
+package com.promoengine.benchmarks;
+
+import com.promoengine.engine.PricingExecutors;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchPricingBenchmark {
+
+    @Param({"10000"})
+    public int batchSize;
+
+    @Param({"20"})
+    public int cartSize;
+
+    @Param({"1000", "50000"})
+    public int promotionCount;
+
+    private PromotionEngine engine;
+    private List<PricingRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.BatchScenario scenario = Fixtures.batchScenario(
+            batchSize, cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        engine = new PromotionEngine(scenario.promotions());
+        requests = scenario.requests();
+    }
+
+    @Benchmark
+    public void onePriceCallPerCart(Blackhole blackhole) {
+        for (PricingRequest request : requests) {
+            blackhole.consume(engine.price(request.cart(), request.context()));
+        }
+    }
+
+    @Benchmark
+    public List<PriceSummary> batch() {
+        return engine.priceAll(requests);
+    }
+
+    @Benchmark
+    public List<PriceSummary> parallelBatch() {
+        return engine.priceAll(requests, PricingExecutors.forkJoin());
+    }
+}
@@ -0,0 +1,35 @@
+// ABOUTME: Entry point of benchmarks.jar that always attaches the GC profiler and writes JSON results.
+// ABOUTME: Accepts the standard JMH command line, e.g. a benchmark regex or -p parameter overrides.
+package com.promoengine.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()
+            || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(commandLine.getResult().orElse(DEFAULT_RESULT_FILE))
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,89 @@
+// ABOUTME: JMH contention benchmark for promotion budget reservations from many threads.
+// ABOUTME: Compares striped PromotionBudgets against a single shared counter and a locked counter.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.engine.BudgetReservation;
+import com.promoengine.engine.PromotionBudgets;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every operation reserves one discount and then settles it. Run with more threads than
+ * the default eight using -t, e.g. -t 32; the baselines show what a single AtomicLong
+ * or a lock costs when every checkout hits the same promotion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class BudgetContentionBenchmark {
+
+    private static final PromotionId PROMOTION = new PromotionId("PROMO-BUDGET");
+    private static final long DISCOUNT_CENTS = 250;
+
+    private PromotionBudgets budgets;
+    private PriceSummary summary;
+    private AtomicLong sharedRemaining;
+    private long lockedRemaining;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // Large enough never to run out within an iteration
+        long cap = Long.MAX_VALUE / 4;
+        budgets = new PromotionBudgets();
+        budgets.define(PROMOTION, Money.cents(cap));
+        AppliedDiscount discount = new AppliedDiscount(PROMOTION, Money.cents(DISCOUNT_CENTS), "cart", "Budgeted");
+        summary = new PriceSummary(Money.euros("100.00"), discount.amount(),
+            Money.euros("100.00").subtract(discount.amount()), List.of(discount));
+        sharedRemaining = new AtomicLong(cap);
+        lockedRemaining = cap;
+    }
+
+    @Benchmark
+    public BudgetReservation stripedReserveAndCommit() {
+        BudgetReservation reservation = budgets.reserve(summary);
+        reservation.commit();
+        return reservation;
+    }
+
+    @Benchmark
+    public BudgetReservation stripedReserveAndRelease() {
+        BudgetReservation reservation = budgets.reserve(summary);
+        reservation.release();
+        return reservation;
+    }
+
+    @Benchmark
+    public boolean sharedAtomicCounter() {
+        while (true) {
+            long remaining = sharedRemaining.get();
+            if (remaining < DISCOUNT_CENTS) {
+                return false;
+            }
+            if (sharedRemaining.compareAndSet(remaining, remaining - DISCOUNT_CENTS)) {
+                return true;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean lockedCounter() {
+        synchronized (this) {
+            if (lockedRemaining < DISCOUNT_CENTS) {
+                return false;
+            }
+            lockedRemaining -= DISCOUNT_CENTS;
+            return true;
+        }
+    }
+}
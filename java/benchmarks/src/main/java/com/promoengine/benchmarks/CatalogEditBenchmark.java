@@ -0,0 +1,69 @@
+// ABOUTME: JMH benchmark for publishing promotion catalog edits and pricing while edits are published.
+// ABOUTME: Compares an incremental replace against rebuilding the whole catalog.
+package com.promoengine.benchmarks;
+
+import com.promoengine.engine.PromotionCatalog;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.engine.StackingPolicy;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.promotions.Promotion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogEditBenchmark {
+
+    @Param({"1000", "50000"})
+    public int promotionCount;
+
+    private Fixtures.Scenario scenario;
+    private PromotionCatalog catalog;
+    private PromotionEngine engine;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scenario = Fixtures.scenario(20, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        catalog = new PromotionCatalog(scenario.promotions());
+        engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+    }
+
+    @Benchmark
+    public long replaceOne() {
+        List<Promotion> promotions = scenario.promotions();
+        return catalog.replace(promotions.get(next++ % promotions.size()));
+    }
+
+    @Benchmark
+    public long reloadAll() {
+        return catalog.reload(scenario.promotions());
+    }
+
+    /**
+     * Pricing on three threads while a fourth publishes edits as fast as it can.
+     */
+    @Benchmark
+    @Group("pricingDuringEdits")
+    @GroupThreads(3)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public PriceSummary price() {
+        return engine.price(scenario.cart(), scenario.context());
+    }
+
+    @Benchmark
+    @Group("pricingDuringEdits")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long edit() {
+        return replaceOne();
+    }
+}
@@ -0,0 +1,79 @@
+// ABOUTME: JMH benchmark for cold start: from promotion definitions to the first priced cart.
+// ABOUTME: Compares compiling and indexing every definition against opening a memory-mapped catalog image.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.Percentage;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.engine.CatalogImage;
+import com.promoengine.engine.PromotionCatalog;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.engine.StackingPolicy;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    @Param({"10000", "100000"})
+    public int promotionCount;
+
+    private List<PromotionDefinition> definitions;
+    private Path image;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(Fixtures.DEFAULT_SEED);
+        List<Product> products = Fixtures.catalog(50_000);
+        definitions = new ArrayList<>(promotionCount);
+        for (int i = 0; i < promotionCount; i++) {
+            Product target = products.get(random.nextInt(products.size()));
+            definitions.add(PromotionDefinition.builder(new PromotionId(String.format("PROMO-%06d", i)),
+                    new Reward.PercentOff(Percentage.of(5 + random.nextInt(26))))
+                .targetSkus(Set.of(target.sku()))
+                .channels(i % 4 == 0 ? Set.of("online") : Set.of())
+                .build());
+        }
+        image = Files.createTempFile("catalog", ".img");
+        CatalogImage.write(definitions, image);
+        cart = Fixtures.cart(products, 20, random);
+        context = Fixtures.context();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(image);
+    }
+
+    @Benchmark
+    public PriceSummary buildFromDefinitions() {
+        PromotionCatalog catalog = new PromotionCatalog(new PromotionCompiler().compileAll(definitions));
+        return new PromotionEngine(catalog, StackingPolicy.STACK).price(cart, context);
+    }
+
+    @Benchmark
+    public PriceSummary openImage() throws IOException {
+        return new PromotionEngine(PromotionCatalog.open(image), StackingPolicy.STACK).price(cart, context);
+    }
+}
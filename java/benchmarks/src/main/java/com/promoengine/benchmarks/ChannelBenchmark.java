@@ -0,0 +1,95 @@
+// ABOUTME: JMH benchmark for pricing against a catalog whose promotions are split across sales channels.
+// ABOUTME: With N channels a request should evaluate about 1/N of the promotions a single channel would.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ContextField;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.Promotion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelBenchmark {
+
+    @Param({"1", "4"})
+    public int channels;
+
+    @Param({"100"})
+    public int cartSize;
+
+    @Param({"50000"})
+    public int promotionCount;
+
+    private PromotionEngine engine;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.Scenario scenario = Fixtures.scenario(cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        List<Promotion> promotions = new ArrayList<>(scenario.promotions().size());
+        for (int i = 0; i < scenario.promotions().size(); i++) {
+            promotions.add(new InChannel(scenario.promotions().get(i), "channel-" + i % channels));
+        }
+        engine = new PromotionEngine(promotions);
+        cart = scenario.cart();
+        PricingContext base = scenario.context();
+        context = new PricingContext(base.now(), "channel-0", base.customerId(), base.customerTags());
+    }
+
+    @Benchmark
+    public PriceSummary price() {
+        return engine.price(cart, context);
+    }
+
+    /**
+     * Restricts a fixture promotion to one channel.
+     */
+    private record InChannel(Promotion promotion, String channel) implements Promotion {
+
+        @Override
+        public PromotionId id() {
+            return promotion.id();
+        }
+
+        @Override
+        public boolean isApplicable(Cart cart, PricingContext context) {
+            return promotion.isApplicable(cart, context);
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(Cart cart, PricingContext context) {
+            return promotion.apply(cart, context);
+        }
+
+        @Override
+        public Set<Sku> targetSkus() {
+            return promotion.targetSkus();
+        }
+
+        @Override
+        public Set<String> channels() {
+            return Set.of(channel);
+        }
+
+        @Override
+        public Set<ContextField> contextReads() {
+            return Set.of();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+// ABOUTME: Deterministic fixture generators for benchmark catalogs, carts, and promotions.
+// ABOUTME: The same seed always yields the same scenario so results are comparable between commits.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.Allocations;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ContextField;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.PricingRequest;
+import com.promoengine.promotions.Promotion;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public final class Fixtures {
+
+    public static final long DEFAULT_SEED = 42L;
+    public static final int CATALOG_SIZE = 100_000;
+
+    private static final String[] CATEGORIES = {
+        "electronics", "books", "toys", "garden", "grocery",
+        "apparel", "shoes", "beauty", "sports", "home"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * A fully built pricing scenario: the engine inputs plus the promotions it was built from.
+     */
+    public record Scenario(List<Promotion> promotions, Cart cart, PricingContext context) {
+    }
+
+    /**
+     * Builds a scenario with the given cart size and promotion count.
+     *
+     * @param cartSize number of distinct line items in the cart
+     * @param promotionCount number of registered promotions
+     * @param applicabilityRatio fraction (0..1) of promotions that target a SKU in the cart
+     * @param seed random seed; equal seeds produce equal scenarios
+     */
+    public static Scenario scenario(int cartSize, int promotionCount, double applicabilityRatio, long seed) {
+        if (applicabilityRatio < 0 || applicabilityRatio > 1) {
+            throw new IllegalArgumentException("Applicability ratio must be between 0 and 1, got: " + applicabilityRatio);
+        }
+        Random random = new Random(seed);
+        List<Product> catalog = catalog(CATALOG_SIZE);
+        Cart cart = cart(catalog, cartSize, random);
+        List<Promotion> promotions = promotions(catalog, cart, promotionCount, applicabilityRatio, random);
+        return new Scenario(promotions, cart, context());
+    }
+
+    /**
+     * Builds {@code carts} pricing requests whose carts share one catalog and promotion set,
+     * with the given applicability ratio measured against the first cart.
+     */
+    public static BatchScenario batchScenario(int carts, int cartSize, int promotionCount,
+                                              double applicabilityRatio, long seed) {
+        Random random = new Random(seed);
+        List<Product> catalog = catalog(CATALOG_SIZE);
+        List<PricingRequest> requests = new ArrayList<>(carts);
+        for (int i = 0; i < carts; i++) {
+            requests.add(new PricingRequest(cart(catalog, cartSize, random), context()));
+        }
+        List<Promotion> promotions = promotions(
+            catalog, requests.get(0).cart(), promotionCount, applicabilityRatio, random);
+        return new BatchScenario(promotions, requests);
+    }
+
+    /**
+     * A batch of requests priced by one engine.
+     */
+    public record BatchScenario(List<Promotion> promotions, List<PricingRequest> requests) {
+    }
+
+    /**
+     * Generates a catalog of products with sequential SKUs spread over a fixed set of categories.
+     */
+    public static List<Product> catalog(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product(
+                new Sku(String.format("SKU-%06d", i)),
+                "Product " + i,
+                CATEGORIES[i % CATEGORIES.length]
+            ));
+        }
+        return products;
+    }
+
+    /**
+     * Picks {@code lines} distinct products from the catalog with random quantities and prices.
+     */
+    public static Cart cart(List<Product> catalog, int lines, Random random) {
+        if (lines > catalog.size()) {
+            throw new IllegalArgumentException("Cart cannot have more lines than the catalog has products");
+        }
+        List<Product> shuffled = new ArrayList<>(catalog);
+        Collections.shuffle(shuffled, random);
+        List<LineItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(new LineItem(
+                shuffled.get(i),
+                new Quantity(1 + random.nextInt(5)),
+                Money.cents(99 + random.nextInt(20_000))
+            ));
+        }
+        return new Cart(items);
+    }
+
+    /**
+     * Generates promotions of which {@code applicabilityRatio} target a SKU present in the cart
+     * and the rest target catalog SKUs that are not in the cart. The order is shuffled.
+     */
+    public static List<Promotion> promotions(List<Product> catalog, Cart cart, int count,
+                                             double applicabilityRatio, Random random) {
+        List<Sku> inCart = new ArrayList<>();
+        Set<Sku> inCartSet = new HashSet<>();
+        for (LineItem line : cart.lines()) {
+            inCart.add(line.product().sku());
+            inCartSet.add(line.product().sku());
+        }
+        List<Sku> notInCart = new ArrayList<>();
+        for (Product product : catalog) {
+            if (!inCartSet.contains(product.sku())) {
+                notInCart.add(product.sku());
+            }
+        }
+
+        int applicable = inCart.isEmpty() ? 0 : (int) Math.round(count * applicabilityRatio);
+        List<Promotion> promotions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Sku target = i < applicable
+                ? inCart.get(random.nextInt(inCart.size()))
+                : notInCart.get(random.nextInt(notInCart.size()));
+            promotions.add(new SkuPercentOffPromotion(
+                new PromotionId(String.format("PROMO-%06d", i)),
+                target,
+                BigDecimal.valueOf(5 + random.nextInt(26), 2)
+            ));
+        }
+        Collections.shuffle(promotions, random);
+        return promotions;
+    }
+
+    public static PricingContext context() {
+        return new PricingContext(
+            Instant.parse("2025-12-18T10:00:00Z"),
+            "online",
+            "CUST001",
+            Set.of("regular")
+        );
+    }
+
+    /**
+     * Minimal promotion taking a fixed fraction off every line of one SKU.
+     */
+    static final class SkuPercentOffPromotion implements Promotion {
+
+        private final PromotionId id;
+        private final Sku sku;
+        private final BigDecimal fraction;
+
+        SkuPercentOffPromotion(PromotionId id, Sku sku, BigDecimal fraction) {
+            this.id = id;
+            this.sku = sku;
+            this.fraction = fraction;
+        }
+
+        @Override
+        public PromotionId id() {
+            return id;
+        }
+
+        @Override
+        public boolean isApplicable(Cart cart, PricingContext context) {
+            for (LineItem line : cart.lines()) {
+                if (line.product().sku().equals(sku)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(Cart cart, PricingContext context) {
+            List<AppliedDiscount> discounts = new ArrayList<>(1);
+            for (LineItem line : cart.lines()) {
+                if (line.product().sku().equals(sku)) {
+                    Money amount = line.subtotal().multiply(fraction);
+                    discounts.add(new AppliedDiscount(id, amount, "line", "Benchmark discount on " + sku,
+                        Allocations.of(sku, amount)));
+                }
+            }
+            return discounts;
+        }
+
+        @Override
+        public Set<Sku> targetSkus() {
+            return Set.of(sku);
+        }
+
+        @Override
+        public Set<ContextField> contextReads() {
+            return Set.of();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// ABOUTME: JMH benchmark for the cost of engine instrumentation, single-threaded and under contention.
+// ABOUTME: NOOP should match PromotionEngineBenchmark; EMPTY isolates the clock reads and METRICS adds recording.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.metrics.EngineInstrumentation;
+import com.promoengine.metrics.PromotionMetrics;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    @Param({"NOOP", "EMPTY", "METRICS"})
+    public String instrumentation;
+
+    @Param({"100"})
+    public int cartSize;
+
+    @Param({"1000", "50000"})
+    public int promotionCount;
+
+    private PromotionEngine engine;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.Scenario scenario = Fixtures.scenario(cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        EngineInstrumentation selected = instrumentation.equals("METRICS") ? new PromotionMetrics()
+            : instrumentation.equals("EMPTY") ? new EngineInstrumentation() { }
+            : EngineInstrumentation.NOOP;
+        engine = new PromotionEngine(scenario.promotions()).withInstrumentation(selected);
+        cart = scenario.cart();
+        context = scenario.context();
+    }
+
+    @Benchmark
+    public PriceSummary price() {
+        return engine.price(cart, context);
+    }
+
+    /**
+     * Every thread prices the same cart, so all of them record into the same promotions' statistics.
+     */
+    @Benchmark
+    @Threads(8)
+    public PriceSummary priceContended() {
+        return engine.price(cart, context);
+    }
+}
@@ -0,0 +1,105 @@
+// ABOUTME: JMH benchmark for PriceCache against uncached pricing on a skewed stream of repeated carts.
+// ABOUTME: A few cart shapes account for most calls, as with polling mini-cart widgets.
+package com.promoengine.benchmarks;
+
+import com.promoengine.engine.PriceCache;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceCacheBenchmark {
+
+    private static final int STREAM_LENGTH = 1 << 16;
+
+    @Param({"2000"})
+    public int distinctCarts;
+
+    @Param({"10"})
+    public int cartSize;
+
+    @Param({"1000", "50000"})
+    public int promotionCount;
+
+    /**
+     * Cache weight as a share of what caching every distinct cart would take.
+     */
+    @Param({"0.25"})
+    public double capacityRatio;
+
+    private PromotionEngine engine;
+    private PriceCache cache;
+    private List<PricingRequest> requests;
+    private int[] stream;
+    private int next;
+
+    /**
+     * Cache hits and misses during each iteration of cached, reported by JMH as secondary results.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lookups {
+        public long hits;
+        public long misses;
+        private PriceCache.Stats start;
+
+        @Setup(Level.Iteration)
+        public void start(PriceCacheBenchmark benchmark) {
+            hits = 0;
+            misses = 0;
+            start = benchmark.cache.stats();
+        }
+
+        @TearDown(Level.Iteration)
+        public void finish(PriceCacheBenchmark benchmark) {
+            PriceCache.Stats end = benchmark.cache.stats();
+            hits = end.hits() - start.hits();
+            misses = end.misses() - start.misses();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.BatchScenario scenario = Fixtures.batchScenario(
+            distinctCarts, cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        engine = new PromotionEngine(scenario.promotions());
+        requests = scenario.requests();
+        // Weight per price is one plus lines plus discounts; allow a couple of discounts per cart
+        cache = new PriceCache(engine, (long) (distinctCarts * (cartSize + 3) * capacityRatio));
+        // Cubing a uniform draw makes low indexes far more frequent than high ones
+        Random random = new Random(Fixtures.DEFAULT_SEED);
+        stream = new int[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            double u = random.nextDouble();
+            stream[i] = (int) (u * u * u * distinctCarts);
+        }
+    }
+
+    @Benchmark
+    public PriceSummary uncached() {
+        PricingRequest request = nextRequest();
+        return engine.price(request.cart(), request.context());
+    }
+
+    @Benchmark
+    public PriceSummary cached(Lookups lookups) {
+        PricingRequest request = nextRequest();
+        return cache.price(request.cart(), request.context());
+    }
+
+    private PricingRequest nextRequest() {
+        int index = stream[next];
+        next = (next + 1) & (STREAM_LENGTH - 1);
+        return requests.get(index);
+    }
+}
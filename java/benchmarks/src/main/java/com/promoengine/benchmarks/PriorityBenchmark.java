@@ -0,0 +1,79 @@
+// ABOUTME: JMH benchmark for EXCLUSIVE_PRIORITY pricing against a catalog dominated by low-priority fallbacks.
+// ABOUTME: Compares stopping at the first applicable promotion per conflict group against evaluating every candidate.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.Percentage;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.engine.StackingPolicy;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriorityBenchmark {
+
+    private static final int PREFERRED = 5;
+
+    @Param({"1000", "5000"})
+    public int fallbackCount;
+
+    private PromotionEngine byPriority;
+    private PromotionEngine stacked;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Fixtures.DEFAULT_SEED);
+        List<Product> products = Fixtures.catalog(10_000);
+        cart = Fixtures.cart(products, 20, random);
+        context = Fixtures.context();
+
+        // Cart-wide fallbacks at the default priority, registered before the preferred ones
+        List<PromotionDefinition> definitions = new ArrayList<>(fallbackCount + PREFERRED);
+        for (int i = 0; i < fallbackCount; i++) {
+            definitions.add(PromotionDefinition.builder(new PromotionId(String.format("FALLBACK-%05d", i)),
+                    new Reward.PercentOff(Percentage.of(1 + random.nextInt(5))))
+                .build());
+        }
+        for (int i = 0; i < PREFERRED; i++) {
+            Product target = cart.lines().get(i).product();
+            definitions.add(PromotionDefinition.builder(new PromotionId("PREFERRED-" + i),
+                    new Reward.PercentOff(Percentage.of(10 + i)))
+                .targetSkus(Set.of(target.sku()))
+                .priority(100 - i)
+                .build());
+        }
+        List<Promotion> promotions = new PromotionCompiler().compileAll(definitions);
+        byPriority = new PromotionEngine(promotions, StackingPolicy.EXCLUSIVE_PRIORITY);
+        stacked = new PromotionEngine(promotions, StackingPolicy.STACK);
+    }
+
+    @Benchmark
+    public PriceSummary exclusivePriority() {
+        return byPriority.price(cart, context);
+    }
+
+    @Benchmark
+    public PriceSummary evaluateAll() {
+        return stacked.price(cart, context);
+    }
+}
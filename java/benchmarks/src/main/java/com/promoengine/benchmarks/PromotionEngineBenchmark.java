@@ -0,0 +1,47 @@
+// ABOUTME: JMH benchmark for PromotionEngine.price across cart sizes, catalog sizes, and applicability ratios.
+// ABOUTME: Each parameter combination is built once per trial from a fixed seed.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromotionEngineBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int cartSize;
+
+    @Param({"10", "1000", "50000"})
+    public int promotionCount;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double applicabilityRatio;
+
+    private PromotionEngine engine;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.Scenario scenario = Fixtures.scenario(
+            cartSize, promotionCount, applicabilityRatio, Fixtures.DEFAULT_SEED);
+        engine = new PromotionEngine(scenario.promotions());
+        cart = scenario.cart();
+        context = scenario.context();
+    }
+
+    @Benchmark
+    public PriceSummary price() {
+        return engine.price(cart, context);
+    }
+}
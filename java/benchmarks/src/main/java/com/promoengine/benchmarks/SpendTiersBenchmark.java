@@ -0,0 +1,96 @@
+// ABOUTME: JMH benchmark for many tiered spend-threshold promotions over the same eligible lines.
+// ABOUTME: Compares promotions sharing one compiled matcher, and so one spend sum, against one matcher each.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.engine.PromotionCatalog;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.engine.StackingPolicy;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpendTiersBenchmark {
+
+    private static final int TIERS = 50;
+    private static final int TARGET_SKUS = 40;
+
+    @Param({"10", "200"})
+    public int promotionCount;
+
+    private PromotionEngine shared;
+    private PromotionEngine separate;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(Fixtures.DEFAULT_SEED);
+        List<Product> products = Fixtures.catalog(10_000);
+        cart = Fixtures.cart(products, 50, random);
+        context = Fixtures.context();
+
+        // Half of the targets are in the cart and half are not
+        Set<Sku> targets = new HashSet<>();
+        for (LineItem line : cart.lines().subList(0, TARGET_SKUS / 2)) {
+            targets.add(line.product().sku());
+        }
+        while (targets.size() < TARGET_SKUS) {
+            targets.add(products.get(random.nextInt(products.size())).sku());
+        }
+
+        List<PromotionDefinition> definitions = new ArrayList<>(promotionCount);
+        for (int i = 0; i < promotionCount; i++) {
+            List<Reward.SpendTiers.Tier> tiers = new ArrayList<>(TIERS);
+            int step = 500 + random.nextInt(5_000);
+            for (int tier = 1; tier <= TIERS; tier++) {
+                tiers.add(new Reward.SpendTiers.Tier(Money.cents((long) tier * step), Money.cents(tier * step / 10)));
+            }
+            definitions.add(PromotionDefinition.builder(new PromotionId(String.format("TIERS-%04d", i)),
+                    new Reward.SpendTiers(tiers))
+                .targetSkus(targets)
+                .conflictGroups(Set.of())
+                .build());
+        }
+
+        shared = new PromotionEngine(new PromotionCatalog(new PromotionCompiler().compileAll(definitions)),
+            StackingPolicy.STACK);
+        List<Promotion> unshared = new ArrayList<>(promotionCount);
+        for (PromotionDefinition definition : definitions) {
+            unshared.add(new PromotionCompiler().compile(definition));
+        }
+        separate = new PromotionEngine(new PromotionCatalog(unshared), StackingPolicy.STACK);
+    }
+
+    @Benchmark
+    public PriceSummary sharedSpend() {
+        return shared.price(cart, context);
+    }
+
+    @Benchmark
+    public PriceSummary spendPerPromotion() {
+        return separate.price(cart, context);
+    }
+}
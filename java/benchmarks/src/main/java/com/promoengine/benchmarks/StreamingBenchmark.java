@@ -0,0 +1,94 @@
+// ABOUTME: JMH benchmark streaming a CSV feed of carts from disk through the engine to a CSV sink.
+// ABOUTME: One operation prices the whole feed; compare with BatchPricingBenchmark to see the parsing and writing cost.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.LineItem;
+import com.promoengine.engine.PricingExecutors;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.io.CsvCartReader;
+import com.promoengine.io.CsvSummaryWriter;
+import com.promoengine.io.StreamingPricer;
+import com.promoengine.io.StreamingReport;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.PricingRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingBenchmark {
+
+    @Param({"10000"})
+    public int carts;
+
+    @Param({"20"})
+    public int cartSize;
+
+    @Param({"1000"})
+    public int promotionCount;
+
+    private PromotionEngine engine;
+    private Path feed;
+
+    /**
+     * Carts and lines streamed, reported by JMH as secondary results next to the feeds per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Streamed {
+        public long carts;
+        public long lines;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Fixtures.BatchScenario scenario = Fixtures.batchScenario(
+            carts, cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        engine = new PromotionEngine(scenario.promotions());
+        feed = Files.createTempFile("carts", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(feed, StandardCharsets.UTF_8)) {
+            writeFeed(scenario.requests(), out);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(feed);
+    }
+
+    @Benchmark
+    public StreamingReport stream(Streamed streamed) throws IOException {
+        try (CsvCartReader reader = CsvCartReader.open(feed);
+             CsvSummaryWriter writer = new CsvSummaryWriter(Writer.nullWriter())) {
+            StreamingReport report = new StreamingPricer(engine, PricingExecutors.forkJoin()).run(reader, writer);
+            streamed.carts += report.carts();
+            streamed.lines += report.lines();
+            return report;
+        }
+    }
+
+    private static void writeFeed(List<PricingRequest> requests, Writer out) throws IOException {
+        out.write("cart_id,timestamp,channel,customer_id,customer_tags,sku,name,category,quantity,unit_price\n");
+        for (int i = 0; i < requests.size(); i++) {
+            PricingContext context = requests.get(i).context();
+            String prefix = "C" + i + "," + context.now() + "," + context.channel() + "," + context.customerId()
+                + "," + String.join("|", context.customerTags()) + ",";
+            for (LineItem line : requests.get(i).cart().lines()) {
+                out.write(prefix + line.product().sku() + "," + line.product().name() + ","
+                    + line.product().category() + "," + line.quantity() + "," + line.unitPrice().amount() + "\n");
+            }
+        }
+    }
+}
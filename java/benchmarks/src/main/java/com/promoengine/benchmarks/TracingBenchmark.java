@@ -0,0 +1,59 @@
+// ABOUTME: JMH benchmark for the cost of evaluation tracing at each trace level.
+// ABOUTME: OFF should match PromotionEngineBenchmark; SAMPLED and ALWAYS show the recording overhead.
+package com.promoengine.benchmarks;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.TraceLevel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+
+    @Param({"OFF", "SAMPLED", "ALWAYS"})
+    public TraceLevel traceLevel;
+
+    @Param({"0.01"})
+    public double sampleRate;
+
+    @Param({"100"})
+    public int cartSize;
+
+    @Param({"1000", "50000"})
+    public int promotionCount;
+
+    private PromotionEngine engine;
+    private Cart cart;
+    private PricingContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Fixtures.Scenario scenario = Fixtures.scenario(cartSize, promotionCount, 0.1, Fixtures.DEFAULT_SEED);
+        engine = new PromotionEngine(scenario.promotions()).withTracing(traceLevel, sampleRate);
+        cart = scenario.cart();
+        context = scenario.context();
+    }
+
+    @Benchmark
+    public PriceSummary price() {
+        return engine.price(cart, context);
+    }
+
+    /**
+     * Reading the trace renders every decision to a message, which pricing itself never does.
+     */
+    @Benchmark
+    public Object priceAndReadTrace() {
+        PriceSummary summary = engine.price(cart, context);
+        return summary.isTraced() ? summary.trace().decisions() : summary;
+    }
+}
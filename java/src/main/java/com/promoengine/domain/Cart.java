@@ -2,7 +2,6 @@
 // ABOUTME: Provides subtotal calculation by summing all line item subtotals.
 package com.promoengine.domain;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Objects;
 
@@ -23,6 +22,6 @@ public record Cart(List<LineItem> lines) {
     public Money subtotal() {
         return lines.stream()
             .map(LineItem::subtotal)
-            .reduce(Money.euros(BigDecimal.ZERO), Money::add);
+            .reduce(Money.ZERO, Money::add);
     }
 }
@@ -0,0 +1,425 @@
+// ABOUTME: Immutable view of a cart's aggregates: line subtotals, totals, and per-SKU and per-category groups.
+// ABOUTME: Computed lazily on first use and shared by every promotion evaluated for the cart.
+package com.promoengine.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * The engine builds one analysis per priced cart and hands it to every promotion, so
+ * lookups a promotion would otherwise do by scanning the lines, such as the quantity of
+ * a SKU or the spend in a category, are computed once per cart rather than once per
+ * promotion. Line-level figures and the SKU and category groups are computed separately,
+ * each the first time one of its lookups is called.
+ *
+ * Lines are identified by the {@link IdDictionary} ids of their SKU and category, looked up
+ * once per cart. Analyzing a cart never interns: only catalogs and compiled promotions do, so
+ * the dictionaries stay bounded by what promotions target however many carts are priced. A
+ * SKU or category no promotion targets has id -1 and no group; lookups by such a key scan the
+ * lines instead. The id variants of the lookups let callers that hold ids, such as compiled
+ * promotions and the engine's indexes, skip hashing strings altogether.
+ *
+ * Safe to share between threads; a figure may be computed twice under a race, never wrongly.
+ */
+public final class CartAnalysis {
+
+    private static final int[] NO_LINES = new int[0];
+    private static final Object[] NO_FIGURES = new Object[0];
+    // Memoized keys scanned linearly before an identity map takes the rest
+    private static final int MEMO_ARRAY_KEYS = 8;
+
+    private final Cart cart;
+    private volatile Totals totals;
+    private volatile LineIds lineIds;
+    private volatile Groups groups;
+    // Alternating keys and figures of memoized(...), replaced as a whole on every addition
+    private volatile Object[] memo = NO_FIGURES;
+    // Figures of keys beyond the array's; null until there are any
+    private volatile Map<Object, Object> memoOverflow;
+
+    private CartAnalysis(Cart cart) {
+        this.cart = cart;
+    }
+
+    public static CartAnalysis of(Cart cart) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        return new CartAnalysis(cart);
+    }
+
+    public Cart cart() {
+        return cart;
+    }
+
+    public int lineCount() {
+        return cart.lines().size();
+    }
+
+    public LineItem line(int index) {
+        return cart.lines().get(index);
+    }
+
+    /**
+     * Returns the subtotal of the line at the index, computed once.
+     */
+    public Money lineSubtotal(int index) {
+        return totals().lineSubtotals[index];
+    }
+
+    public Money subtotal() {
+        return totals().subtotal;
+    }
+
+    /**
+     * Sum of the quantities of all lines.
+     */
+    public long totalQuantity() {
+        return totals().quantity;
+    }
+
+    /**
+     * Returns the SKU id of the line at the index, or -1 if the SKU was never interned.
+     */
+    public int skuId(int index) {
+        return lineIds().skus[index];
+    }
+
+    /**
+     * Returns the category id of the line at the index, or -1 if the category was never interned.
+     */
+    public int categoryId(int index) {
+        return lineIds().categories[index];
+    }
+
+    public boolean contains(Sku sku) {
+        return groupOf(sku) != null;
+    }
+
+    public boolean containsSkuId(int skuId) {
+        return groups().bySku.get(skuId) != null;
+    }
+
+    public boolean containsCategory(String category) {
+        return groupIn(category) != null;
+    }
+
+    public boolean containsCategoryId(int categoryId) {
+        return groups().byCategory.get(categoryId) != null;
+    }
+
+    /**
+     * Total quantity of the lines with the SKU; 0 if there are none.
+     */
+    public long quantityOf(Sku sku) {
+        Group group = groupOf(sku);
+        return group != null ? group.quantity : 0;
+    }
+
+    /**
+     * Sum of the subtotals of the lines with the SKU; zero if there are none.
+     */
+    public Money subtotalOf(Sku sku) {
+        Group group = groupOf(sku);
+        return group != null ? group.subtotal : Money.ZERO;
+    }
+
+    public long quantityOfSkuId(int skuId) {
+        Group group = groups().bySku.get(skuId);
+        return group != null ? group.quantity : 0;
+    }
+
+    public Money subtotalOfSkuId(int skuId) {
+        Group group = groups().bySku.get(skuId);
+        return group != null ? group.subtotal : Money.ZERO;
+    }
+
+    /**
+     * Returns the indexes of the lines with the SKU, in cart order.
+     */
+    public int[] linesOf(Sku sku) {
+        Group group = groupOf(sku);
+        return group != null ? group.lines.clone() : NO_LINES;
+    }
+
+    public int[] linesOfSkuId(int skuId) {
+        Group group = groups().bySku.get(skuId);
+        return group != null ? group.lines.clone() : NO_LINES;
+    }
+
+    /**
+     * Total quantity of the lines in the category; 0 if there are none.
+     */
+    public long quantityIn(String category) {
+        Group group = groupIn(category);
+        return group != null ? group.quantity : 0;
+    }
+
+    /**
+     * Sum of the subtotals of the lines in the category; zero if there are none.
+     */
+    public Money subtotalIn(String category) {
+        Group group = groupIn(category);
+        return group != null ? group.subtotal : Money.ZERO;
+    }
+
+    public long quantityInCategoryId(int categoryId) {
+        Group group = groups().byCategory.get(categoryId);
+        return group != null ? group.quantity : 0;
+    }
+
+    public Money subtotalInCategoryId(int categoryId) {
+        Group group = groups().byCategory.get(categoryId);
+        return group != null ? group.subtotal : Money.ZERO;
+    }
+
+    /**
+     * Returns the indexes of the lines in the category, in cart order.
+     */
+    public int[] linesIn(String category) {
+        Group group = groupIn(category);
+        return group != null ? group.lines.clone() : NO_LINES;
+    }
+
+    public int[] linesInCategoryId(int categoryId) {
+        Group group = groups().byCategory.get(categoryId);
+        return group != null ? group.lines.clone() : NO_LINES;
+    }
+
+    /**
+     * Returns the figure the function computes for the key, computing it only the first time
+     * the key is asked for. Promotions that derive the same figure, such as the spend on the
+     * same targeted lines, pass the same key so the cart is only scanned for the first one.
+     * Keys are compared by identity. The first few are kept in an array scanned without
+     * locking; any further keys go to an identity map, so a cart many keys are asked of still
+     * costs constant time per key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T memoized(Object key, Function<CartAnalysis, ? extends T> figure) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        Object[] current = memo;
+        for (int i = 0; i < current.length; i += 2) {
+            if (current[i] == key) {
+                return (T) current[i + 1];
+            }
+        }
+        Map<Object, Object> overflow = memoOverflow;
+        if (overflow != null) {
+            synchronized (overflow) {
+                Object value = overflow.get(key);
+                if (value != null) {
+                    return (T) value;
+                }
+            }
+        }
+        T value = figure.apply(this);
+        // A figure added concurrently may be lost and later recomputed, never read wrongly
+        if (current.length < 2 * MEMO_ARRAY_KEYS) {
+            Object[] updated = Arrays.copyOf(current, current.length + 2);
+            updated[current.length] = key;
+            updated[current.length + 1] = value;
+            memo = updated;
+        } else {
+            if (overflow == null) {
+                overflow = new IdentityHashMap<>();
+                memoOverflow = overflow;
+            }
+            synchronized (overflow) {
+                overflow.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private Totals totals() {
+        Totals current = totals;
+        if (current == null) {
+            current = new Totals(cart.lines());
+            totals = current;
+        }
+        return current;
+    }
+
+    private Group groupOf(Sku sku) {
+        Groups current = groups();
+        Group group = current.bySku.get(IdDictionary.skus().find(sku));
+        if (group != null || !lineIds().unresolved) {
+            return group;
+        }
+        // Lines whose SKU had no id are in no group; the SKU may be one of them
+        return scan(i -> sku.equals(line(i).product().sku()));
+    }
+
+    private Group groupIn(String category) {
+        Groups current = groups();
+        Group group = current.byCategory.get(IdDictionary.categories().find(category));
+        if (group != null || !lineIds().unresolved) {
+            return group;
+        }
+        return scan(i -> category.equals(line(i).product().category()));
+    }
+
+    private Group scan(IntPredicate matches) {
+        Builder builder = null;
+        for (int i = 0; i < lineCount(); i++) {
+            if (matches.test(i)) {
+                if (builder == null) {
+                    builder = new Builder();
+                }
+                builder.add(i, line(i), lineSubtotal(i));
+            }
+        }
+        return builder != null ? builder.build() : null;
+    }
+
+    private LineIds lineIds() {
+        LineIds current = lineIds;
+        if (current == null) {
+            current = new LineIds(cart.lines());
+            lineIds = current;
+        }
+        return current;
+    }
+
+    private Groups groups() {
+        Groups current = groups;
+        if (current == null) {
+            current = new Groups(cart.lines(), totals(), lineIds());
+            groups = current;
+        }
+        return current;
+    }
+
+    private static final class Totals {
+        final Money[] lineSubtotals;
+        final Money subtotal;
+        final long quantity;
+
+        Totals(List<LineItem> lines) {
+            lineSubtotals = new Money[lines.size()];
+            Money sum = Money.ZERO;
+            long count = 0;
+            for (int i = 0; i < lineSubtotals.length; i++) {
+                LineItem line = lines.get(i);
+                lineSubtotals[i] = line.subtotal();
+                sum = sum.add(lineSubtotals[i]);
+                count += line.quantity().intValue();
+            }
+            subtotal = sum;
+            quantity = count;
+        }
+    }
+
+    private static final class LineIds {
+        final int[] skus;
+        final int[] categories;
+        // True if some line's SKU or category has no id
+        final boolean unresolved;
+
+        LineIds(List<LineItem> lines) {
+            skus = new int[lines.size()];
+            categories = new int[lines.size()];
+            boolean missing = false;
+            for (int i = 0; i < skus.length; i++) {
+                Product product = lines.get(i).product();
+                skus[i] = IdDictionary.skus().find(product.sku());
+                categories[i] = IdDictionary.categories().find(product.category());
+                missing |= skus[i] < 0 || categories[i] < 0;
+            }
+            unresolved = missing;
+        }
+    }
+
+    private static final class Groups {
+        final GroupTable bySku;
+        final GroupTable byCategory;
+
+        Groups(List<LineItem> lines, Totals totals, LineIds ids) {
+            bySku = new GroupTable(lines, totals, ids.skus);
+            byCategory = new GroupTable(lines, totals, ids.categories);
+        }
+    }
+
+    /**
+     * Open-addressing table from id to the group of lines with that id; at most half full.
+     */
+    private static final class GroupTable {
+        // Ids plus one; 0 marks an empty slot
+        private final int[] keys;
+        private final Group[] groups;
+        // Fibonacci hashing: the top bits of id * golden ratio pick the slot
+        private final int shift;
+
+        GroupTable(List<LineItem> lines, Totals totals, int[] lineIds) {
+            int capacity = Integer.highestOneBit(Math.max(lineIds.length, 1) * 4 - 1);
+            keys = new int[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            Builder[] builders = new Builder[capacity];
+            for (int i = 0; i < lineIds.length; i++) {
+                if (lineIds[i] < 0) {
+                    // Not targeted by any promotion, so never looked up by id
+                    continue;
+                }
+                int slot = slotOf(lineIds[i]);
+                if (keys[slot] == 0) {
+                    keys[slot] = lineIds[i] + 1;
+                    builders[slot] = new Builder();
+                }
+                builders[slot].add(i, lines.get(i), totals.lineSubtotals[i]);
+            }
+            groups = new Group[capacity];
+            for (int slot = 0; slot < capacity; slot++) {
+                if (builders[slot] != null) {
+                    groups[slot] = builders[slot].build();
+                }
+            }
+        }
+
+        /**
+         * Returns the group of the id, or null if no line has it; a negative id has none.
+         */
+        Group get(int id) {
+            return id < 0 ? null : groups[slotOf(id)];
+        }
+
+        // The slot holding the id, or the empty slot where it would go
+        private int slotOf(int id) {
+            int mask = keys.length - 1;
+            int slot = (id * 0x9E3779B9) >>> shift & mask;
+            while (keys[slot] != 0 && keys[slot] != id + 1) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    private record Group(long quantity, Money subtotal, int[] lines) {
+    }
+
+    private static final class Builder {
+        private long quantity;
+        private Money subtotal = Money.ZERO;
+        private final List<Integer> lines = new ArrayList<>(1);
+
+        void add(int index, LineItem line, Money lineSubtotal) {
+            quantity += line.quantity().intValue();
+            subtotal = subtotal.add(lineSubtotal);
+            lines.add(index);
+        }
+
+        Group build() {
+            int[] indexes = new int[lines.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = lines.get(i);
+            }
+            return new Group(quantity, subtotal, indexes);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+// ABOUTME: Interns SKUs, categories and promotion IDs to small dense integer ids.
+// ABOUTME: Lets engine tables be arrays indexed by id instead of hash maps keyed by strings.
+package com.promoengine.domain;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe, append-only mapping from key to id. Ids are assigned in first-seen order
+ * starting at zero and never change, so tables built at any time stay valid. Catalogs
+ * intern their targets when they are built and carts their lines when they are analyzed,
+ * so the hot path compares and indexes by id rather than hashing strings.
+ */
+public final class IdDictionary<K> {
+
+    private static final IdDictionary<Sku> SKUS = new IdDictionary<>("SKU");
+    private static final IdDictionary<String> CATEGORIES = new IdDictionary<>("Category");
+    private static final IdDictionary<PromotionId> PROMOTIONS = new IdDictionary<>("Promotion ID");
+
+    private final String kind;
+    private final ConcurrentMap<K, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @param kind What the keys are, for error messages, e.g. "SKU"
+     */
+    public IdDictionary(String kind) {
+        this.kind = kind;
+    }
+
+    public static IdDictionary<Sku> skus() {
+        return SKUS;
+    }
+
+    public static IdDictionary<String> categories() {
+        return CATEGORIES;
+    }
+
+    public static IdDictionary<PromotionId> promotions() {
+        return PROMOTIONS;
+    }
+
+    /**
+     * Returns the id of the key, assigning the next free id on first use.
+     */
+    public int idOf(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(kind + " cannot be null");
+        }
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        return ids.computeIfAbsent(key, k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Returns the id of the key, or -1 if it has never been interned; never assigns one.
+     */
+    public int find(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException(kind + " cannot be null");
+        }
+        Integer id = ids.get(key);
+        return id != null ? id : -1;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -1,20 +1,43 @@
-// ABOUTME: Immutable monetary value using BigDecimal for precision.
-// ABOUTME: Provides arithmetic operations with ROUND_HALF_UP rounding.
+// ABOUTME: Immutable monetary value quantized to cents with ROUND_HALF_UP rounding.
+// ABOUTME: Stores scaled long cents and falls back to BigDecimal only on overflow.
 package com.promoengine.domain;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.Objects;
 
-public record Money(BigDecimal amount) implements Comparable<Money> {
+public final class Money implements Comparable<Money> {
 
-    // Compact constructor for validation and quantization
-    public Money {
+    private static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0L);
+
+    // Amount in cents; only meaningful when big is null
+    private final long cents;
+    // Non-null only when the amount does not fit in a long number of cents
+    private final BigDecimal big;
+
+    // Validation and quantization
+    public Money(BigDecimal amount) {
         if (amount == null) {
             throw new IllegalArgumentException("Amount cannot be null");
         }
         // Quantize to 2 decimal places using ROUND_HALF_UP
-        amount = amount.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal quantized = amount.setScale(SCALE, RoundingMode.HALF_UP);
+        BigInteger unscaled = quantized.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            this.cents = unscaled.longValue();
+            this.big = null;
+        } else {
+            this.cents = 0L;
+            this.big = quantized;
+        }
+    }
+
+    private Money(long cents) {
+        this.cents = cents;
+        this.big = null;
     }
 
     // Factory methods for convenient construction
@@ -32,29 +55,80 @@ public record Money(BigDecimal amount) implements Comparable<Money> {
     }
 
     public static Money cents(long cents) {
-        return new Money(BigDecimal.valueOf(cents).divide(
-            BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+        return cents == 0L ? ZERO : new Money(cents);
+    }
+
+    // Accessors
+
+    /**
+     * Returns the amount as a BigDecimal with scale 2.
+     */
+    public BigDecimal amount() {
+        return big != null ? big : BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Returns the amount in cents.
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public long toCents() {
+        if (big != null) {
+            throw new ArithmeticException("Amount out of long cents range: " + big);
+        }
+        return cents;
+    }
+
+    /**
+     * Returns true if the amount is held as long cents rather than a BigDecimal.
+     */
+    public boolean isCompact() {
+        return big == null;
     }
 
     // Arithmetic operations
 
     public Money add(Money other) {
         Objects.requireNonNull(other, "Cannot add null Money");
-        return new Money(this.amount.add(other.amount));
+        if (big == null && other.big == null) {
+            long sum = cents + other.cents;
+            // Overflow iff both operands have the same sign and the result has the other one
+            if (((cents ^ sum) & (other.cents ^ sum)) >= 0) {
+                return cents(sum);
+            }
+        }
+        return new Money(this.amount().add(other.amount()));
     }
 
     public Money subtract(Money other) {
         Objects.requireNonNull(other, "Cannot subtract null Money");
-        return new Money(this.amount.subtract(other.amount));
+        if (big == null && other.big == null) {
+            long difference = cents - other.cents;
+            // Overflow iff the operands have different signs and the result differs from this
+            if (((cents ^ other.cents) & (cents ^ difference)) >= 0) {
+                return cents(difference);
+            }
+        }
+        return new Money(this.amount().subtract(other.amount()));
     }
 
     public Money multiply(int factor) {
-        return new Money(this.amount.multiply(BigDecimal.valueOf(factor)));
+        if (big == null) {
+            long high = Math.multiplyHigh(cents, factor);
+            long low = cents * factor;
+            if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+                return cents(low);
+            }
+        }
+        return new Money(this.amount().multiply(BigDecimal.valueOf(factor)));
     }
 
     public Money multiply(BigDecimal factor) {
         Objects.requireNonNull(factor, "Cannot multiply by null factor");
-        return new Money(this.amount.multiply(factor));
+        if (big == null && factor.scale() <= 0 && factor.precision() - factor.scale() < 10) {
+            // Whole factor of at most 9 digits: stays on the long path
+            return multiply(factor.intValueExact());
+        }
+        return new Money(this.amount().multiply(factor));
     }
 
     // Comparison
@@ -62,7 +136,10 @@ public record Money(BigDecimal amount) implements Comparable<Money> {
     @Override
     public int compareTo(Money other) {
         Objects.requireNonNull(other, "Cannot compare to null Money");
-        return this.amount.compareTo(other.amount);
+        if (big == null && other.big == null) {
+            return Long.compare(cents, other.cents);
+        }
+        return this.amount().compareTo(other.amount());
     }
 
     public boolean isLessThan(Money other) {
@@ -81,8 +158,27 @@ public record Money(BigDecimal amount) implements Comparable<Money> {
         return this.compareTo(other) >= 0;
     }
 
+    // Equality: every amount has exactly one representation, so fields can be compared directly
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return cents == other.cents && Objects.equals(big, other.big);
+    }
+
+    @Override
+    public int hashCode() {
+        return big != null ? big.hashCode() : Long.hashCode(cents);
+    }
+
     @Override
     public String toString() {
-        return "€" + amount;
+        return "€" + amount();
     }
 }
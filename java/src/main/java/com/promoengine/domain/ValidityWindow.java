@@ -0,0 +1,58 @@
+// ABOUTME: Time window during which a promotion is valid, with optional open ends.
+// ABOUTME: The start is inclusive and the end is exclusive.
+package com.promoengine.domain;
+
+import java.time.Instant;
+
+public record ValidityWindow(Instant validFrom, Instant validTo) {
+
+    public static final ValidityWindow ALWAYS = new ValidityWindow(null, null);
+
+    public ValidityWindow {
+        if (validFrom != null && validTo != null && !validFrom.isBefore(validTo)) {
+            throw new IllegalArgumentException(
+                "Valid from must be before valid to, got: " + validFrom + " - " + validTo);
+        }
+    }
+
+    public static ValidityWindow between(Instant validFrom, Instant validTo) {
+        if (validFrom == null || validTo == null) {
+            throw new IllegalArgumentException("Window bounds cannot be null");
+        }
+        return new ValidityWindow(validFrom, validTo);
+    }
+
+    public static ValidityWindow from(Instant validFrom) {
+        if (validFrom == null) {
+            throw new IllegalArgumentException("Valid from cannot be null");
+        }
+        return new ValidityWindow(validFrom, null);
+    }
+
+    public static ValidityWindow until(Instant validTo) {
+        if (validTo == null) {
+            throw new IllegalArgumentException("Valid to cannot be null");
+        }
+        return new ValidityWindow(null, validTo);
+    }
+
+    /**
+     * Returns true if the instant falls within [validFrom, validTo).
+     */
+    public boolean contains(Instant instant) {
+        return (validFrom == null || !instant.isBefore(validFrom))
+            && (validTo == null || instant.isBefore(validTo));
+    }
+
+    /**
+     * Returns true if the window has neither a start nor an end.
+     */
+    public boolean isUnbounded() {
+        return validFrom == null && validTo == null;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (validFrom == null ? "-∞" : validFrom) + ", " + (validTo == null ? "+∞" : validTo) + ")";
+    }
+}
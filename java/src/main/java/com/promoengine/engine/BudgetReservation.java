@@ -0,0 +1,94 @@
+// ABOUTME: Amounts held against promotion budgets for one priced cart until the order settles.
+// ABOUTME: Committing spends the amounts for good; releasing hands them back to the budgets.
+package com.promoengine.engine;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A reservation is settled exactly once: commit it when the order is placed, release it
+ * when the order is abandoned. Settling is safe from any thread. A rejected reservation
+ * holds nothing; releasing it does nothing and committing it fails.
+ */
+public final class BudgetReservation {
+
+    private static final int PENDING = 0;
+    private static final int COMMITTED = 1;
+    private static final int RELEASED = 2;
+
+    private final PromotionBudgets.Budget[] budgets;
+    private final long[] amounts;
+    private final Set<PromotionId> rejected;
+    private final AtomicInteger state;
+
+    private BudgetReservation(PromotionBudgets.Budget[] budgets, long[] amounts,
+                              Set<PromotionId> rejected, int state) {
+        this.budgets = budgets;
+        this.amounts = amounts;
+        this.rejected = rejected;
+        this.state = new AtomicInteger(state);
+    }
+
+    static BudgetReservation accepted(PromotionBudgets.Budget[] budgets, long[] amounts) {
+        return new BudgetReservation(budgets, amounts, Set.of(), PENDING);
+    }
+
+    static BudgetReservation rejected(Set<PromotionId> rejected) {
+        return new BudgetReservation(new PromotionBudgets.Budget[0], new long[0], Set.copyOf(rejected), RELEASED);
+    }
+
+    public boolean isAccepted() {
+        return rejected.isEmpty();
+    }
+
+    /**
+     * Promotions whose budget could not cover their discounts; empty if accepted.
+     */
+    public Set<PromotionId> rejected() {
+        return rejected;
+    }
+
+    /**
+     * Total reserved across all budgets.
+     */
+    public Money amount() {
+        long total = 0;
+        for (long amount : amounts) {
+            total = Math.addExact(total, amount);
+        }
+        return Money.cents(total);
+    }
+
+    /**
+     * Spends the reserved amounts.
+     * @throws IllegalStateException if the reservation was rejected or already settled
+     */
+    public void commit() {
+        if (!isAccepted()) {
+            throw new IllegalStateException("Cannot commit a rejected reservation");
+        }
+        if (!state.compareAndSet(PENDING, COMMITTED)) {
+            throw new IllegalStateException("Reservation already " + (state.get() == COMMITTED ? "committed" : "released"));
+        }
+        for (int i = 0; i < budgets.length; i++) {
+            budgets[i].commit(amounts[i]);
+        }
+    }
+
+    /**
+     * Returns the reserved amounts to their budgets. Releasing twice does nothing.
+     * @throws IllegalStateException if the reservation was committed
+     */
+    public void release() {
+        if (state.compareAndSet(PENDING, RELEASED)) {
+            for (int i = 0; i < budgets.length; i++) {
+                budgets[i].release(amounts[i]);
+            }
+        } else if (state.get() == COMMITTED) {
+            throw new IllegalStateException("Reservation already committed");
+        }
+    }
+}
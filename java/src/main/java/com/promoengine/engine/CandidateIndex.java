@@ -0,0 +1,32 @@
+// ABOUTME: Lookup from a cart's lines to the slot positions of the promotions that may apply to it.
+// ABOUTME: Implemented on the heap by ChannelIndex and over a mapped catalog image by CatalogImage.
+package com.promoengine.engine;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.Sku;
+
+import java.util.BitSet;
+
+interface CandidateIndex {
+
+    /**
+     * Sets the positions of the promotions that may apply to the cart in the channel: those
+     * targeting a SKU or category of one of its lines, plus every cart-wide promotion.
+     */
+    void collectCandidates(CartAnalysis cart, String channel, BitSet candidates);
+
+    /**
+     * Sets the positions of the promotions of the channel whose outcome may change when a
+     * line with the given SKU and category changes.
+     */
+    void collectAffected(Sku sku, String category, String channel, BitSet affected);
+
+    /**
+     * Returns the positions of the promotions that may apply to the cart in the channel.
+     */
+    default BitSet candidatesFor(CartAnalysis cart, String channel) {
+        BitSet candidates = new BitSet();
+        collectCandidates(cart, channel, candidates);
+        return candidates;
+    }
+}
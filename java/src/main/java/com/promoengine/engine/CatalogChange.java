@@ -0,0 +1,57 @@
+// ABOUTME: One edit to a promotion catalog: adding, removing or replacing a promotion.
+// ABOUTME: Changes are published together with PromotionCatalog.publish as a single new version.
+package com.promoengine.engine;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.promotions.Promotion;
+
+public sealed interface CatalogChange {
+
+    static CatalogChange add(Promotion promotion) {
+        return new Add(promotion);
+    }
+
+    static CatalogChange remove(PromotionId id) {
+        return new Remove(id);
+    }
+
+    static CatalogChange replace(Promotion promotion) {
+        return new Replace(promotion);
+    }
+
+    /**
+     * Adds a promotion with an ID not yet in the catalog, evaluated after all existing ones.
+     */
+    record Add(Promotion promotion) implements CatalogChange {
+
+        public Add {
+            if (promotion == null) {
+                throw new IllegalArgumentException("Promotion cannot be null");
+            }
+        }
+    }
+
+    /**
+     * Removes the promotion with the ID.
+     */
+    record Remove(PromotionId id) implements CatalogChange {
+
+        public Remove {
+            if (id == null) {
+                throw new IllegalArgumentException("Promotion ID cannot be null");
+            }
+        }
+    }
+
+    /**
+     * Replaces the promotion with the same ID, keeping its place in evaluation order.
+     */
+    record Replace(Promotion promotion) implements CatalogChange {
+
+        public Replace {
+            if (promotion == null) {
+                throw new IllegalArgumentException("Promotion cannot be null");
+            }
+        }
+    }
+}
@@ -0,0 +1,760 @@
+// ABOUTME: Compact, versioned binary file of promotion definitions together with their prebuilt indexes.
+// ABOUTME: Opened by memory-mapping; promotions are decoded and compiled one at a time, when first reached.
+package com.promoengine.engine;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Percentage;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.domain.ValidityWindow;
+import com.promoengine.pricing.ContextField;
+import com.promoengine.pricing.TagMask;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Opening an image reads its header and the small sections that every pricing call needs
+ * anyway: conflict group names, the channel directory and the validity index, which is
+ * stored presorted. Everything else stays in the mapped file:
+ * <ul>
+ *   <li>SKU, category and promotion ID lookups probe open-addressing tables in the file,
+ *       comparing keys against the file's string pool without decoding them;</li>
+ *   <li>a promotion is decoded and compiled the first time its slot is read, then kept.</li>
+ * </ul>
+ * A node that opens an image can price immediately, and pays only for the promotions its
+ * traffic reaches. Images are immutable; {@link PromotionCatalog} turns an image-backed
+ * snapshot into an ordinary one on the first edit.
+ *
+ * The layout starts with a fixed header: magic number, format version, promotion count and
+ * the absolute offsets of the sections. Strings are stored once, as a length and UTF-8 bytes,
+ * and referred to by offset. Key hashes are {@link String#hashCode}, which is specified, so
+ * an image reads the same on every JVM. Images are limited to 2 GB, the size of one mapping.
+ */
+public final class CatalogImage {
+
+    static final int INSTANT_BYTES = 12;
+
+    private static final int MAGIC = 0x50434154;
+    private static final int FORMAT_VERSION = 2;
+
+    // Header fields, each an int at this byte offset
+    private static final int VERSION_FIELD = 4;
+    private static final int COUNT_FIELD = 8;
+    private static final int RECORDS_FIELD = 12;
+    private static final int IDS_FIELD = 16;
+    private static final int GROUPS_FIELD = 20;
+    private static final int PARTITIONS_FIELD = 24;
+    private static final int VALIDITY_FIELD = 28;
+    private static final int SUMMARY_FIELD = 32;
+    private static final int LENGTH_FIELD = 36;
+    private static final int HEADER_BYTES = 40;
+
+    private static final byte PERCENT_OFF = 1;
+    private static final byte BUY_X_PAY_Y = 2;
+    private static final byte SPEND_THRESHOLD = 3;
+    private static final byte CHEAPEST_FREE = 4;
+    private static final byte SPEND_TIERS = 5;
+    private static final int HAS_FROM = 1;
+    private static final int HAS_TO = 2;
+
+    // Partition entry: channel, cart-wide list, SKU table, category table
+    private static final int PARTITION_BYTES = 16;
+    // Table entry: key hash, key string, value
+    private static final int ENTRY_BYTES = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final ConflictGroups conflictGroups;
+    private final int sharedPartition;
+    private final Map<String, Integer> partitions;
+    private final ValidityIndex validity;
+    private final Set<ContextField> contextReads;
+    private final TagMask requiredTags;
+    private final AtomicReferenceArray<CatalogSnapshot.Slot> slots;
+    private final PromotionCompiler compiler = new PromotionCompiler();
+    private final Index index = new Index();
+
+    private CatalogImage(ByteBuffer buffer, Object source) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a promotion catalog image: " + source);
+        }
+        int formatVersion = buffer.getInt(VERSION_FIELD);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported catalog image format version " + formatVersion
+                + " in " + source + ", expected " + FORMAT_VERSION);
+        }
+        if (buffer.getInt(LENGTH_FIELD) != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated catalog image: " + source);
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(COUNT_FIELD);
+
+        this.conflictGroups = ConflictGroups.EMPTY.including(new LinkedHashSet<>(stringsAt(buffer.getInt(GROUPS_FIELD))));
+
+        int directory = buffer.getInt(PARTITIONS_FIELD);
+        this.sharedPartition = directory + 4;
+        Map<String, Integer> channels = new HashMap<>();
+        for (int i = 1; i < buffer.getInt(directory); i++) {
+            int partition = directory + 4 + i * PARTITION_BYTES;
+            channels.put(stringAt(buffer.getInt(partition)), partition);
+        }
+        this.partitions = channels;
+
+        this.validity = ValidityIndex.read(buffer, buffer.getInt(VALIDITY_FIELD));
+
+        int summary = buffer.getInt(SUMMARY_FIELD);
+        Set<ContextField> reads = EnumSet.noneOf(ContextField.class);
+        for (String field : stringsAt(summary)) {
+            reads.add(ContextField.valueOf(field));
+        }
+        this.contextReads = reads;
+        this.requiredTags = TagMask.of(stringsAt(afterStrings(summary)).toArray(String[]::new));
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Writes the definitions, in evaluation order, as an image. The file is written next to
+     * the target and moved into place, so a node opening the path never sees a partial image.
+     * @throws IllegalArgumentException if a definition is null or two share an ID
+     */
+    public static void write(List<PromotionDefinition> definitions, Path path) throws IOException {
+        if (definitions == null) {
+            throw new IllegalArgumentException("Definitions cannot be null");
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        ByteBuffer image = encode(definitions);
+        Path target = path.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (image.hasRemaining()) {
+                    channel.write(image);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps the image read-only. The file is not read beyond its header and the sections
+     * described above; the mapping stays valid after the file is replaced or deleted.
+     * @throws IllegalArgumentException if the file is not an image of a supported format version
+     */
+    public static CatalogImage open(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Catalog image too large to map: " + path);
+            }
+            return new CatalogImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, length), path);
+        }
+    }
+
+    /**
+     * Number of promotions in the image.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the definition in the slot; every call decodes it anew.
+     */
+    public PromotionDefinition definitionAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("No promotion at position " + position);
+        }
+        int at = buffer.getInt(buffer.getInt(RECORDS_FIELD) + 4 * position);
+        PromotionId id = new PromotionId(stringAt(buffer.getInt(at)));
+        int priority = buffer.getInt(at + 4);
+        byte kind = buffer.get(at + 8);
+        at += 9;
+        Reward reward;
+        if (kind == PERCENT_OFF) {
+            reward = new Reward.PercentOff(new Percentage(new BigDecimal(stringAt(buffer.getInt(at)))));
+            at += 4;
+        } else if (kind == BUY_X_PAY_Y) {
+            reward = new Reward.BuyXPayY(buffer.getInt(at), buffer.getInt(at + 4));
+            at += 8;
+        } else if (kind == CHEAPEST_FREE) {
+            reward = new Reward.CheapestFree(buffer.getInt(at), buffer.getInt(at + 4));
+            at += 8;
+        } else if (kind == SPEND_THRESHOLD) {
+            reward = new Reward.SpendThreshold(moneyAt(buffer.getInt(at)), moneyAt(buffer.getInt(at + 4)));
+            at += 8;
+        } else if (kind == SPEND_TIERS) {
+            int count = buffer.getInt(at);
+            at += 4;
+            List<Reward.SpendTiers.Tier> tiers = new ArrayList<>(count);
+            for (int i = 0; i < count; i++, at += 8) {
+                tiers.add(new Reward.SpendTiers.Tier(moneyAt(buffer.getInt(at)), moneyAt(buffer.getInt(at + 4))));
+            }
+            reward = new Reward.SpendTiers(tiers);
+        } else {
+            throw new IllegalStateException("Unknown reward kind " + kind + " for promotion " + id);
+        }
+        byte bounds = buffer.get(at++);
+        Instant validFrom = null;
+        Instant validTo = null;
+        if ((bounds & HAS_FROM) != 0) {
+            validFrom = instantAt(buffer, at);
+            at += INSTANT_BYTES;
+        }
+        if ((bounds & HAS_TO) != 0) {
+            validTo = instantAt(buffer, at);
+            at += INSTANT_BYTES;
+        }
+        Set<Sku> targetSkus = new HashSet<>();
+        for (String sku : stringsAt(at)) {
+            targetSkus.add(new Sku(sku));
+        }
+        at = afterStrings(at);
+        List<String> targetCategories = stringsAt(at);
+        at = afterStrings(at);
+        List<String> channels = stringsAt(at);
+        at = afterStrings(at);
+        List<String> requiredTags = stringsAt(at);
+        at = afterStrings(at);
+        List<String> conflictGroups = stringsAt(at);
+        return new PromotionDefinition(id, targetSkus, Set.copyOf(targetCategories), reward,
+            new ValidityWindow(validFrom, validTo), Set.copyOf(channels), Set.copyOf(requiredTags),
+            Set.copyOf(conflictGroups), priority);
+    }
+
+    /**
+     * Returns the priority of the promotion at the position without decoding it.
+     */
+    int priorityAt(int position) {
+        return buffer.getInt(buffer.getInt(buffer.getInt(RECORDS_FIELD) + 4 * position) + 4);
+    }
+
+    /**
+     * Returns the slot at the position, compiling its promotion on first access. Threads
+     * racing on a slot may both compile it; all of them get the slot stored first.
+     */
+    CatalogSnapshot.Slot slot(int position) {
+        CatalogSnapshot.Slot slot = slots.get(position);
+        if (slot == null) {
+            slot = CatalogSnapshot.newSlot(compiler.compile(definitionAt(position)), conflictGroups);
+            if (!slots.compareAndSet(position, null, slot)) {
+                slot = slots.get(position);
+            }
+        }
+        return slot;
+    }
+
+    boolean isDecoded(int position) {
+        return slots.get(position) != null;
+    }
+
+    /**
+     * Returns the position of the promotion with the ID, or -1 if there is none.
+     */
+    int positionOf(PromotionId id) {
+        return lookup(buffer.getInt(IDS_FIELD), id.value());
+    }
+
+    CandidateIndex index() {
+        return index;
+    }
+
+    ValidityIndex validity() {
+        return validity;
+    }
+
+    /**
+     * Union of the context fields the promotions read, summarized when the image was written.
+     */
+    Set<ContextField> contextReads() {
+        return contextReads;
+    }
+
+    /**
+     * Union of the promotions' required customer tags.
+     */
+    TagMask requiredTags() {
+        return requiredTags;
+    }
+
+    /**
+     * Whether any promotion is restricted to particular channels.
+     */
+    boolean hasChannelPartitions() {
+        return !partitions.isEmpty();
+    }
+
+    static Instant instantAt(ByteBuffer image, int offset) {
+        return Instant.ofEpochSecond(image.getLong(offset), image.getInt(offset + 8));
+    }
+
+    private Money moneyAt(int ref) {
+        return new Money(new BigDecimal(stringAt(ref)));
+    }
+
+    private String stringAt(int ref) {
+        byte[] bytes = new byte[buffer.getInt(ref)];
+        buffer.get(ref + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<String> stringsAt(int at) {
+        int count = buffer.getInt(at);
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(stringAt(buffer.getInt(at + 4 + 4 * i)));
+        }
+        return strings;
+    }
+
+    private int afterStrings(int at) {
+        return at + 4 + 4 * buffer.getInt(at);
+    }
+
+    /**
+     * Returns the value stored for the key in the table at the offset, or -1 if there is none.
+     */
+    private int lookup(int table, String key) {
+        int mask = buffer.getInt(table) - 1;
+        int hash = spread(key.hashCode());
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table + 4 + slot * ENTRY_BYTES;
+            int keyRef = buffer.getInt(entry + 4);
+            if (keyRef == 0) {
+                return -1;
+            }
+            if (buffer.getInt(entry) == hash && stringEquals(keyRef, key)) {
+                return buffer.getInt(entry + 8);
+            }
+        }
+    }
+
+    private boolean stringEquals(int ref, String value) {
+        int length = buffer.getInt(ref);
+        // Encoding never takes fewer bytes than chars, and ASCII takes exactly one per char
+        if (length < value.length()) {
+            return false;
+        }
+        if (length == value.length()) {
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    return stringAt(ref).equals(value);
+                }
+                if (buffer.get(ref + 4 + i) != c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return stringAt(ref).equals(value);
+    }
+
+    private void markList(int list, BitSet positions) {
+        if (list < 0) {
+            return;
+        }
+        int count = buffer.getInt(list);
+        for (int i = 0; i < count; i++) {
+            positions.set(buffer.getInt(list + 4 + 4 * i));
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    /**
+     * Channel partitions of the file's SKU and category tables, read in place.
+     */
+    private final class Index implements CandidateIndex {
+
+        @Override
+        public void collectCandidates(CartAnalysis cart, String channel, BitSet candidates) {
+            collectCandidates(sharedPartition, cart, candidates);
+            Integer own = partitions.get(channel);
+            if (own != null) {
+                collectCandidates(own, cart, candidates);
+            }
+        }
+
+        @Override
+        public void collectAffected(Sku sku, String category, String channel, BitSet affected) {
+            collectAffected(sharedPartition, sku, category, affected);
+            Integer own = partitions.get(channel);
+            if (own != null) {
+                collectAffected(own, sku, category, affected);
+            }
+        }
+
+        private void collectCandidates(int partition, CartAnalysis cart, BitSet candidates) {
+            markList(buffer.getInt(partition + 4), candidates);
+            int skus = buffer.getInt(partition + 8);
+            int categories = buffer.getInt(partition + 12);
+            for (int line = 0; line < cart.lineCount(); line++) {
+                Product product = cart.line(line).product();
+                markList(lookup(skus, product.sku().value()), candidates);
+                markList(lookup(categories, product.category()), candidates);
+            }
+        }
+
+        private void collectAffected(int partition, Sku sku, String category, BitSet affected) {
+            markList(buffer.getInt(partition + 4), affected);
+            markList(lookup(buffer.getInt(partition + 8), sku.value()), affected);
+            markList(lookup(buffer.getInt(partition + 12), category), affected);
+        }
+    }
+
+    private static ByteBuffer encode(List<PromotionDefinition> definitions) {
+        Set<PromotionId> ids = new HashSet<>();
+        Set<String> strings = new LinkedHashSet<>();
+        Set<String> groups = new LinkedHashSet<>();
+        Set<String> tags = new LinkedHashSet<>();
+        Map<String, Partition> channels = new TreeMap<>();
+        Partition shared = new Partition();
+        for (int position = 0; position < definitions.size(); position++) {
+            PromotionDefinition definition = definitions.get(position);
+            if (definition == null) {
+                throw new IllegalArgumentException("Definition cannot be null");
+            }
+            if (!ids.add(definition.id())) {
+                throw new IllegalArgumentException("Duplicate promotion ID: " + definition.id());
+            }
+            strings.add(definition.id().value());
+            strings.addAll(rewardStrings(definition.reward()));
+            for (Sku sku : definition.targetSkus()) {
+                strings.add(sku.value());
+            }
+            strings.addAll(definition.targetCategories());
+            strings.addAll(definition.channels());
+            strings.addAll(definition.requiredTags());
+            strings.addAll(definition.conflictGroups());
+            groups.addAll(definition.conflictGroups());
+            tags.addAll(definition.requiredTags());
+
+            if (definition.channels().isEmpty()) {
+                shared.add(position, definition);
+            }
+            for (String channel : definition.channels()) {
+                channels.computeIfAbsent(channel, key -> new Partition()).add(position, definition);
+            }
+        }
+        List<Promotion> promotions = new PromotionCompiler().compileAll(definitions);
+        Set<String> reads = new LinkedHashSet<>();
+        for (Promotion promotion : promotions) {
+            for (ContextField field : promotion.contextReads()) {
+                reads.add(field.name());
+            }
+        }
+        strings.addAll(reads);
+
+        Output out = new Output();
+        out.skip(HEADER_BYTES);
+        Map<String, Integer> refs = new HashMap<>(strings.size() * 2);
+        for (String string : strings) {
+            refs.put(string, out.position());
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length);
+            out.putBytes(bytes);
+        }
+
+        int records = out.position();
+        out.skip(4 * definitions.size());
+        Map<String, Integer> positionsById = new LinkedHashMap<>();
+        for (int position = 0; position < definitions.size(); position++) {
+            PromotionDefinition definition = definitions.get(position);
+            out.putInt(records + 4 * position, out.position());
+            writeRecord(out, refs, definition);
+            positionsById.put(definition.id().value(), position);
+        }
+        int idTable = writeTable(out, refs, positionsById);
+        int groupList = writeStrings(out, refs, groups);
+
+        int[] sharedRefs = shared.writeTo(out, refs);
+        List<int[]> channelRefs = new ArrayList<>();
+        for (Partition partition : channels.values()) {
+            channelRefs.add(partition.writeTo(out, refs));
+        }
+        int directory = out.position();
+        out.putInt(1 + channels.size());
+        out.putInt(0);
+        out.putInts(sharedRefs);
+        int i = 0;
+        for (String channel : channels.keySet()) {
+            out.putInt(refs.get(channel));
+            out.putInts(channelRefs.get(i++));
+        }
+
+        int validity = out.position();
+        new ValidityIndex(promotions).writeTo(out);
+        int summary = writeStrings(out, refs, reads);
+        writeStrings(out, refs, tags);
+
+        out.putInt(0, MAGIC);
+        out.putInt(VERSION_FIELD, FORMAT_VERSION);
+        out.putInt(COUNT_FIELD, definitions.size());
+        out.putInt(RECORDS_FIELD, records);
+        out.putInt(IDS_FIELD, idTable);
+        out.putInt(GROUPS_FIELD, groupList);
+        out.putInt(PARTITIONS_FIELD, directory);
+        out.putInt(VALIDITY_FIELD, validity);
+        out.putInt(SUMMARY_FIELD, summary);
+        out.putInt(LENGTH_FIELD, out.position());
+        return out.finish();
+    }
+
+    private static List<String> rewardStrings(Reward reward) {
+        if (reward instanceof Reward.PercentOff percentOff) {
+            return List.of(percentOff.percentage().value().toPlainString());
+        }
+        if (reward instanceof Reward.SpendThreshold threshold) {
+            return List.of(threshold.threshold().amount().toPlainString(), threshold.discount().amount().toPlainString());
+        }
+        if (reward instanceof Reward.SpendTiers tiers) {
+            List<String> strings = new ArrayList<>(2 * tiers.tiers().size());
+            for (Reward.SpendTiers.Tier tier : tiers.tiers()) {
+                strings.add(tier.threshold().amount().toPlainString());
+                strings.add(tier.discount().amount().toPlainString());
+            }
+            return strings;
+        }
+        return List.of();
+    }
+
+    private static void writeRecord(Output out, Map<String, Integer> refs, PromotionDefinition definition) {
+        out.putInt(refs.get(definition.id().value()));
+        out.putInt(definition.priority());
+        Reward reward = definition.reward();
+        if (reward instanceof Reward.PercentOff percentOff) {
+            out.putByte(PERCENT_OFF);
+            out.putInt(refs.get(percentOff.percentage().value().toPlainString()));
+        } else if (reward instanceof Reward.BuyXPayY buyXPayY) {
+            out.putByte(BUY_X_PAY_Y);
+            out.putInt(buyXPayY.buy());
+            out.putInt(buyXPayY.pay());
+        } else if (reward instanceof Reward.CheapestFree cheapestFree) {
+            out.putByte(CHEAPEST_FREE);
+            out.putInt(cheapestFree.buy());
+            out.putInt(cheapestFree.pay());
+        } else if (reward instanceof Reward.SpendThreshold threshold) {
+            out.putByte(SPEND_THRESHOLD);
+            out.putInt(refs.get(threshold.threshold().amount().toPlainString()));
+            out.putInt(refs.get(threshold.discount().amount().toPlainString()));
+        } else if (reward instanceof Reward.SpendTiers tiers) {
+            out.putByte(SPEND_TIERS);
+            out.putInt(tiers.tiers().size());
+            for (Reward.SpendTiers.Tier tier : tiers.tiers()) {
+                out.putInt(refs.get(tier.threshold().amount().toPlainString()));
+                out.putInt(refs.get(tier.discount().amount().toPlainString()));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported reward: " + reward);
+        }
+        ValidityWindow validity = definition.validity();
+        out.putByte((validity.validFrom() != null ? HAS_FROM : 0) | (validity.validTo() != null ? HAS_TO : 0));
+        if (validity.validFrom() != null) {
+            out.putInstant(validity.validFrom());
+        }
+        if (validity.validTo() != null) {
+            out.putInstant(validity.validTo());
+        }
+        List<String> skus = new ArrayList<>(definition.targetSkus().size());
+        for (Sku sku : definition.targetSkus()) {
+            skus.add(sku.value());
+        }
+        writeStrings(out, refs, skus);
+        writeStrings(out, refs, definition.targetCategories());
+        writeStrings(out, refs, definition.channels());
+        writeStrings(out, refs, definition.requiredTags());
+        writeStrings(out, refs, definition.conflictGroups());
+    }
+
+    private static int writeStrings(Output out, Map<String, Integer> refs, Iterable<String> strings) {
+        int at = out.position();
+        out.putInt(0);
+        int count = 0;
+        for (String string : strings) {
+            out.putInt(refs.get(string));
+            count++;
+        }
+        out.putInt(at, count);
+        return at;
+    }
+
+    private static int writeTable(Output out, Map<String, Integer> refs, Map<String, Integer> values) {
+        // At most half full, so probe sequences stay short and always reach an empty slot
+        int capacity = Integer.highestOneBit(Math.max(values.size(), 1) * 4 - 1);
+        int[] hashes = new int[capacity];
+        int[] keys = new int[capacity];
+        int[] entries = new int[capacity];
+        int mask = capacity - 1;
+        for (Map.Entry<String, Integer> value : values.entrySet()) {
+            int hash = spread(value.getKey().hashCode());
+            int slot = hash & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            keys[slot] = refs.get(value.getKey());
+            entries[slot] = value.getValue();
+        }
+        int at = out.position();
+        out.putInt(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            out.putInt(hashes[slot]);
+            out.putInt(keys[slot]);
+            out.putInt(entries[slot]);
+        }
+        return at;
+    }
+
+    /**
+     * The promotions of one channel partition while an image is written.
+     */
+    private static final class Partition {
+
+        private final List<Integer> cartWide = new ArrayList<>();
+        private final Map<String, List<Integer>> bySku = new LinkedHashMap<>();
+        private final Map<String, List<Integer>> byCategory = new LinkedHashMap<>();
+
+        void add(int position, PromotionDefinition definition) {
+            if (definition.isCartWide()) {
+                cartWide.add(position);
+                return;
+            }
+            for (Sku sku : definition.targetSkus()) {
+                bySku.computeIfAbsent(sku.value(), key -> new ArrayList<>()).add(position);
+            }
+            for (String category : definition.targetCategories()) {
+                byCategory.computeIfAbsent(category, key -> new ArrayList<>()).add(position);
+            }
+        }
+
+        /**
+         * Writes the position lists and tables; returns the cart-wide, SKU and category offsets.
+         */
+        int[] writeTo(Output out, Map<String, Integer> refs) {
+            int cartWideList = writeList(out, cartWide);
+            return new int[]{cartWideList, writeLists(out, refs, bySku), writeLists(out, refs, byCategory)};
+        }
+
+        private static int writeLists(Output out, Map<String, Integer> refs, Map<String, List<Integer>> lists) {
+            Map<String, Integer> offsets = new LinkedHashMap<>(lists.size() * 2);
+            lists.forEach((key, positions) -> offsets.put(key, writeList(out, positions)));
+            return writeTable(out, refs, offsets);
+        }
+
+        private static int writeList(Output out, List<Integer> positions) {
+            int at = out.position();
+            out.putInt(positions.size());
+            for (int position : positions) {
+                out.putInt(position);
+            }
+            return at;
+        }
+    }
+
+    /**
+     * Growable buffer an image is assembled in; offsets are absolute positions in the image.
+     */
+    static final class Output {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        int position() {
+            return buffer.position();
+        }
+
+        void skip(int bytes) {
+            ensure(bytes);
+            buffer.position(buffer.position() + bytes);
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putInt(int at, int value) {
+            buffer.putInt(at, value);
+        }
+
+        void putInts(int[] values) {
+            for (int value : values) {
+                putInt(value);
+            }
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putInstant(Instant instant) {
+            putLong(instant.getEpochSecond());
+            putInt(instant.getNano());
+        }
+
+        void putBytes(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        ByteBuffer finish() {
+            return buffer.flip();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            long needed = (long) buffer.position() + bytes;
+            if (needed > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Catalog image would exceed 2 GB");
+            }
+            int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * buffer.capacity()));
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+// ABOUTME: Immutable, versioned view of a promotion catalog together with the indexes built over it.
+// ABOUTME: Edits derive a new snapshot that shares every slot chunk and index partition they do not touch.
+package com.promoengine.engine;
+
+import com.promoengine.domain.IdDictionary;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.TagMask;
+import com.promoengine.promotions.Promotion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Promotions live in numbered slots, and slot order is evaluation order. Added promotions
+ * take a new slot at the end, a replacement keeps the slot of the promotion it replaces,
+ * and a removal leaves the slot empty so no other position shifts. Slots are stored in
+ * fixed-size chunks, so an edit copies one chunk and the chunk table rather than every slot.
+ *
+ * A snapshot opened from a {@link CatalogImage} reads its slots and indexes from the image
+ * instead, decoding promotions as they are reached. Its first edit derives an ordinary
+ * snapshot from all of its promotions, after which edits work as above.
+ *
+ * Snapshots are immutable and safe to share between threads; a pricing call that reads
+ * one snapshot sees one consistent catalog from start to end.
+ */
+public final class CatalogSnapshot {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long version;
+    private final Slot[][] chunks;
+    private final int slotCount;
+    private final int size;
+    // Slot positions by promotion ID dictionary id
+    private final DenseTable<Integer> slotsById;
+    private final ChannelIndex index;
+    private final ValidityIndex validity;
+    private final ConflictGroups conflictGroups;
+    // Backs the slots and indexes instead of the fields above when not null
+    private final CatalogImage image;
+    // Built on first use, or carried over from the snapshot this one was derived from
+    private volatile PriorityOrder priorityOrder;
+
+    /**
+     * A promotion with the per-slot data the engine needs on every call, resolved once.
+     */
+    record Slot(Promotion promotion, TagMask requiredTags, long[] conflictMask) {
+    }
+
+    private CatalogSnapshot(long version, Slot[][] chunks, int slotCount, int size,
+                            DenseTable<Integer> slotsById, ChannelIndex index,
+                            ValidityIndex validity, ConflictGroups conflictGroups, CatalogImage image) {
+        this.version = version;
+        this.chunks = chunks;
+        this.slotCount = slotCount;
+        this.size = size;
+        this.slotsById = slotsById;
+        this.index = index;
+        this.validity = validity;
+        this.conflictGroups = conflictGroups;
+        this.image = image;
+    }
+
+    /**
+     * Builds a snapshot with one slot per promotion, in list order, and all indexes from scratch.
+     */
+    static CatalogSnapshot of(long version, List<Promotion> promotions) {
+        if (promotions == null) {
+            throw new IllegalArgumentException("Promotions cannot be null");
+        }
+        Map<Integer, Integer> slotsById = new HashMap<>();
+        ConflictGroups groups = ConflictGroups.EMPTY;
+        for (int position = 0; position < promotions.size(); position++) {
+            Promotion promotion = promotions.get(position);
+            if (promotion == null) {
+                throw new IllegalArgumentException("Promotion cannot be null");
+            }
+            if (slotsById.putIfAbsent(IdDictionary.promotions().idOf(promotion.id()), position) != null) {
+                throw new IllegalArgumentException("Duplicate promotion ID: " + promotion.id());
+            }
+            groups = groups.including(promotion.conflictGroups());
+        }
+
+        int size = promotions.size();
+        Slot[][] chunks = new Slot[chunkCount(size)][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Slot[CHUNK_SIZE];
+        }
+        for (int position = 0; position < size; position++) {
+            chunks[position >>> CHUNK_BITS][position & CHUNK_MASK] = newSlot(promotions.get(position), groups);
+        }
+        return new CatalogSnapshot(version, chunks, size, size, DenseTable.of(slotsById),
+            new ChannelIndex(promotions), new ValidityIndex(promotions), groups, null);
+    }
+
+    /**
+     * Returns a snapshot reading its promotions and indexes from the image.
+     */
+    static CatalogSnapshot of(long version, CatalogImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("Image cannot be null");
+        }
+        return new CatalogSnapshot(version, null, image.size(), image.size(), null, null, image.validity(),
+            null, image);
+    }
+
+    /**
+     * Catalog version this snapshot was published as; increases with every publication.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Number of promotions in the catalog.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the promotions in evaluation order.
+     */
+    public List<Promotion> promotions() {
+        List<Promotion> promotions = new ArrayList<>(size);
+        for (int position = 0; position < slotCount; position++) {
+            Promotion promotion = promotionAt(position);
+            if (promotion != null) {
+                promotions.add(promotion);
+            }
+        }
+        return promotions;
+    }
+
+    public Optional<Promotion> find(PromotionId id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        int position = slotOf(id);
+        return position >= 0 ? Optional.of(promotionAt(position)) : Optional.empty();
+    }
+
+    /**
+     * Number of slots, including empty ones; positions range over [0, slotCount).
+     */
+    int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Returns the promotion in the slot, or null if the slot is empty.
+     */
+    Promotion promotionAt(int position) {
+        Slot slot = slotAt(position);
+        return slot != null ? slot.promotion() : null;
+    }
+
+    /**
+     * Returns the slot position of the promotion with the ID, or -1 if there is none.
+     */
+    int slotOf(PromotionId id) {
+        if (image != null) {
+            return image.positionOf(id);
+        }
+        Integer position = slotsById.get(IdDictionary.promotions().find(id));
+        return position != null ? position : -1;
+    }
+
+    Slot slotAt(int position) {
+        if (image != null) {
+            return image.slot(position);
+        }
+        return chunks[position >>> CHUNK_BITS][position & CHUNK_MASK];
+    }
+
+    CandidateIndex index() {
+        return image != null ? image.index() : index;
+    }
+
+    ValidityIndex validity() {
+        return validity;
+    }
+
+    /**
+     * Returns the positions ranked by priority, building the ranking on first use. Edits
+     * that leave the ranking valid, such as removals, hand it on to the derived snapshot.
+     */
+    PriorityOrder priorityOrder() {
+        PriorityOrder current = priorityOrder;
+        if (current == null) {
+            if (image != null) {
+                current = PriorityOrder.of(slotCount, image::priorityAt);
+            } else {
+                current = PriorityOrder.of(slotCount, position -> {
+                    Promotion promotion = promotionAt(position);
+                    return promotion != null ? promotion.priority() : null;
+                });
+            }
+            priorityOrder = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the image the snapshot reads from, or null if it was built in memory.
+     */
+    CatalogImage image() {
+        return image;
+    }
+
+    CatalogSnapshot withVersion(long version) {
+        CatalogSnapshot published = new CatalogSnapshot(
+            version, chunks, slotCount, size, slotsById, index, validity, conflictGroups, image);
+        published.priorityOrder = priorityOrder;
+        return published;
+    }
+
+    CatalogSnapshot withAdded(Promotion promotion) {
+        if (promotion == null) {
+            throw new IllegalArgumentException("Promotion cannot be null");
+        }
+        if (image != null) {
+            return materialized().withAdded(promotion);
+        }
+        int promotionId = IdDictionary.promotions().idOf(promotion.id());
+        if (slotsById.get(promotionId) != null) {
+            throw new IllegalArgumentException("Duplicate promotion ID: " + promotion.id());
+        }
+        int position = slotCount;
+        return withSlot(position, null, promotion, slotCount + 1, size + 1,
+            slotsById.with(promotionId, position));
+    }
+
+    CatalogSnapshot withRemoved(PromotionId id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        if (image != null) {
+            return materialized().withRemoved(id);
+        }
+        int position = positionOf(id);
+        return withSlot(position, promotionAt(position), null, slotCount, size - 1,
+            slotsById.with(IdDictionary.promotions().find(id), null));
+    }
+
+    CatalogSnapshot withReplaced(Promotion promotion) {
+        if (promotion == null) {
+            throw new IllegalArgumentException("Promotion cannot be null");
+        }
+        if (image != null) {
+            return materialized().withReplaced(promotion);
+        }
+        int position = positionOf(promotion.id());
+        return withSlot(position, promotionAt(position), promotion, slotCount, size, slotsById);
+    }
+
+    private CatalogSnapshot materialized() {
+        return of(version, promotions());
+    }
+
+    private int positionOf(PromotionId id) {
+        Integer position = slotsById.get(IdDictionary.promotions().find(id));
+        if (position == null) {
+            throw new IllegalArgumentException("Unknown promotion ID: " + id);
+        }
+        return position;
+    }
+
+    private CatalogSnapshot withSlot(int position, Promotion previous, Promotion next, int slotCount, int size,
+                                     DenseTable<Integer> slotsById) {
+        ConflictGroups groups = next != null ? conflictGroups.including(next.conflictGroups()) : conflictGroups;
+
+        int chunk = position >>> CHUNK_BITS;
+        Slot[][] updatedChunks = chunk < chunks.length ? chunks.clone() : Arrays.copyOf(chunks, chunk + 1);
+        Slot[] updatedChunk = chunk < chunks.length ? chunks[chunk].clone() : new Slot[CHUNK_SIZE];
+        updatedChunk[position & CHUNK_MASK] = next != null ? newSlot(next, groups) : null;
+        updatedChunks[chunk] = updatedChunk;
+
+        CatalogSnapshot edited = new CatalogSnapshot(
+            version,
+            updatedChunks,
+            slotCount,
+            size,
+            slotsById,
+            index.with(position, previous, next),
+            validity.with(position, previous != null ? previous.validity() : null,
+                next != null ? next.validity() : null),
+            groups,
+            null
+        );
+        PriorityOrder order = priorityOrder;
+        if (order != null) {
+            edited.priorityOrder = order.afterEdit(previous, next);
+        }
+        return edited;
+    }
+
+    static Slot newSlot(Promotion promotion, ConflictGroups groups) {
+        return new Slot(promotion, promotion.requiredTags(), groups.maskOf(promotion.conflictGroups()));
+    }
+
+    private static int chunkCount(int slots) {
+        return (slots + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+    }
+}
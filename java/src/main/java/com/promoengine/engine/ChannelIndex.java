@@ -0,0 +1,137 @@
+// ABOUTME: Promotion indexes partitioned by sales channel, plus one shared by channel-agnostic promotions.
+// ABOUTME: A cart priced for one channel only reaches that channel's promotions and the shared ones.
+package com.promoengine.engine;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.Sku;
+import com.promoengine.promotions.Promotion;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every partition is a {@link PromotionIndex} over the same slot positions, holding only
+ * the promotions of its channel; promotions restricted to several channels are in each of
+ * their partitions. Immutable; {@link #with} rebuilds only the partitions of the channels
+ * the changed slot belonged or now belongs to.
+ */
+final class ChannelIndex implements CandidateIndex {
+
+    private final PromotionIndex shared;
+    private final Map<String, PromotionIndex> byChannel;
+
+    ChannelIndex(List<Promotion> promotions) {
+        Map<String, Promotion[]> channelSlots = new HashMap<>();
+        Promotion[] sharedSlots = new Promotion[promotions.size()];
+        for (int position = 0; position < promotions.size(); position++) {
+            Promotion promotion = promotions.get(position);
+            if (promotion == null) {
+                continue;
+            }
+            if (promotion.channels().isEmpty()) {
+                sharedSlots[position] = promotion;
+            }
+            for (String channel : promotion.channels()) {
+                channelSlots.computeIfAbsent(channel, key -> new Promotion[promotions.size()])[position] = promotion;
+            }
+        }
+        this.shared = new PromotionIndex(Arrays.asList(sharedSlots));
+        Map<String, PromotionIndex> indexes = new HashMap<>();
+        channelSlots.forEach((channel, slots) -> indexes.put(channel, new PromotionIndex(Arrays.asList(slots))));
+        this.byChannel = Map.copyOf(indexes);
+    }
+
+    private ChannelIndex(PromotionIndex shared, Map<String, PromotionIndex> byChannel) {
+        this.shared = shared;
+        this.byChannel = byChannel;
+    }
+
+    /**
+     * Returns the index with the slot at the position changed from one promotion to another.
+     * Either may be null for an empty slot.
+     */
+    ChannelIndex with(int position, Promotion previous, Promotion next) {
+        PromotionIndex updatedShared = shared;
+        if (isShared(previous) || isShared(next)) {
+            updatedShared = shared.with(position, isShared(previous) ? previous : null, isShared(next) ? next : null);
+        }
+
+        Set<String> touched = new HashSet<>();
+        if (previous != null) {
+            touched.addAll(previous.channels());
+        }
+        if (next != null) {
+            touched.addAll(next.channels());
+        }
+        if (touched.isEmpty()) {
+            return new ChannelIndex(updatedShared, byChannel);
+        }
+        Map<String, PromotionIndex> updated = new HashMap<>(byChannel);
+        for (String channel : touched) {
+            PromotionIndex index = byChannel.get(channel);
+            if (index == null) {
+                index = new PromotionIndex(List.of());
+            }
+            updated.put(channel, index.with(position,
+                inChannel(previous, channel) ? previous : null, inChannel(next, channel) ? next : null));
+        }
+        return new ChannelIndex(updatedShared, Map.copyOf(updated));
+    }
+
+    @Override
+    public BitSet candidatesFor(CartAnalysis cart, String channel) {
+        BitSet candidates = new BitSet(shared.size());
+        collectCandidates(cart, channel, candidates);
+        return candidates;
+    }
+
+    /**
+     * Sets the candidate positions for the cart in the channel: the shared partition's and
+     * the channel's own.
+     */
+    @Override
+    public void collectCandidates(CartAnalysis cart, String channel, BitSet candidates) {
+        shared.collectCandidates(cart, candidates);
+        PromotionIndex own = byChannel.get(channel);
+        if (own != null) {
+            own.collectCandidates(cart, candidates);
+        }
+    }
+
+    @Override
+    public void collectAffected(Sku sku, String category, String channel, BitSet affected) {
+        shared.collectAffected(sku, category, affected);
+        PromotionIndex own = byChannel.get(channel);
+        if (own != null) {
+            own.collectAffected(sku, category, affected);
+        }
+    }
+
+    PromotionIndex shared() {
+        return shared;
+    }
+
+    /**
+     * Returns the partition of the channel, or null if no promotion is restricted to it.
+     */
+    PromotionIndex forChannel(String channel) {
+        return byChannel.get(channel);
+    }
+
+    Set<String> channels() {
+        return byChannel.keySet();
+    }
+
+    private static boolean isShared(Promotion promotion) {
+        return promotion != null && promotion.channels().isEmpty();
+    }
+
+    private static boolean inChannel(Promotion promotion, String channel) {
+        return promotion != null && promotion.channels().contains(channel);
+    }
+}
@@ -0,0 +1,83 @@
+// ABOUTME: Numbering of conflict group names as bits, so conflict checks are word-wide ANDs.
+// ABOUTME: Immutable; a catalog edit naming new groups derives an extended numbering.
+package com.promoengine.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Existing group numbers never change when groups are added, so masks computed from
+ * an older numbering stay valid against a newer one.
+ */
+final class ConflictGroups {
+
+    static final ConflictGroups EMPTY = new ConflictGroups(Map.of());
+
+    private final Map<String, Integer> ids;
+
+    private ConflictGroups(Map<String, Integer> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Returns a numbering that also covers the given groups; this one if it already does.
+     */
+    ConflictGroups including(Set<String> groups) {
+        Map<String, Integer> extended = null;
+        for (String group : groups) {
+            if (!ids.containsKey(group)) {
+                if (extended == null) {
+                    extended = new HashMap<>(ids);
+                }
+                extended.putIfAbsent(group, extended.size());
+            }
+        }
+        return extended == null ? this : new ConflictGroups(extended);
+    }
+
+    /**
+     * Returns the mask of the groups, which must all be numbered; empty if there are none.
+     */
+    long[] maskOf(Set<String> groups) {
+        int max = -1;
+        int[] groupIds = new int[groups.size()];
+        int count = 0;
+        for (String group : groups) {
+            int id = ids.get(group);
+            groupIds[count++] = id;
+            max = Math.max(max, id);
+        }
+        long[] mask = new long[max < 0 ? 0 : (max >>> 6) + 1];
+        for (int id : groupIds) {
+            mask[id >>> 6] |= 1L << id;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns true if the masks share a group; an empty mask shares none.
+     */
+    static boolean intersect(long[] mask, long[] other) {
+        int words = Math.min(mask.length, other.length);
+        for (int i = 0; i < words; i++) {
+            if ((mask[i] & other[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the groups of the other mask to the mask, in place when it is long enough.
+     * @return The mask holding both, which may be a new array
+     */
+    static long[] union(long[] mask, long[] other) {
+        long[] result = other.length > mask.length ? Arrays.copyOf(mask, other.length) : mask;
+        for (int i = 0; i < other.length; i++) {
+            result[i] |= other[i];
+        }
+        return result;
+    }
+}
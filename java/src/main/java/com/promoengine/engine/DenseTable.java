@@ -0,0 +1,104 @@
+// ABOUTME: Immutable table indexed by dense IdDictionary ids, stored as fixed-size chunks of an array.
+// ABOUTME: Lookups are two array reads; updates copy only the chunks holding the changed ids.
+package com.promoengine.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Replaces hash maps keyed by SKU, category or promotion ID in the engine's indexes. A chunk
+ * is only allocated once it holds a value, so a table over a few ids scattered across a large
+ * dictionary stays small. An update copies the chunk table and each touched chunk and shares
+ * every other chunk with the original, so older tables stay valid for readers.
+ */
+final class DenseTable<V> {
+
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final DenseTable<?> EMPTY = new DenseTable<>(new Object[0][]);
+
+    private final Object[][] chunks;
+
+    private DenseTable(Object[][] chunks) {
+        this.chunks = chunks;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> DenseTable<V> empty() {
+        return (DenseTable<V>) EMPTY;
+    }
+
+    static <V> DenseTable<V> of(Map<Integer, V> entries) {
+        return DenseTable.<V>empty().withAll(entries);
+    }
+
+    /**
+     * Returns the value of the id, or null if it has none; negative ids never have one.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int id) {
+        int chunk = id >>> CHUNK_BITS;
+        if (id < 0 || chunk >= chunks.length) {
+            return null;
+        }
+        Object[] values = chunks[chunk];
+        return values != null ? (V) values[id & CHUNK_MASK] : null;
+    }
+
+    /**
+     * Returns a table with the id bound to the value, or unbound if the value is null.
+     */
+    DenseTable<V> with(int id, V value) {
+        return withAll(Collections.singletonMap(id, value));
+    }
+
+    /**
+     * Applies several updates, copying each touched chunk once. A null value unbinds the id.
+     */
+    DenseTable<V> withAll(Map<Integer, ? extends V> updates) {
+        if (updates.isEmpty()) {
+            return this;
+        }
+        int maxChunk = chunks.length - 1;
+        for (Map.Entry<Integer, ? extends V> update : updates.entrySet()) {
+            int id = update.getKey();
+            if (id < 0) {
+                throw new IllegalArgumentException("Id cannot be negative, got: " + id);
+            }
+            if (update.getValue() != null) {
+                maxChunk = Math.max(maxChunk, id >>> CHUNK_BITS);
+            }
+        }
+        Object[][] updated = Arrays.copyOf(chunks, maxChunk + 1);
+        boolean[] copied = new boolean[updated.length];
+        for (Map.Entry<Integer, ? extends V> update : updates.entrySet()) {
+            int id = update.getKey();
+            int chunk = id >>> CHUNK_BITS;
+            if (chunk >= updated.length) {
+                continue;
+            }
+            if (!copied[chunk]) {
+                updated[chunk] = chunks.length > chunk && chunks[chunk] != null
+                    ? chunks[chunk].clone()
+                    : new Object[CHUNK_SIZE];
+                copied[chunk] = true;
+            }
+            updated[chunk][id & CHUNK_MASK] = update.getValue();
+        }
+        return new DenseTable<>(updated);
+    }
+
+    /**
+     * Returns true if the chunk at the index is the same instance in both tables.
+     */
+    boolean sharesChunk(DenseTable<V> other, int chunk) {
+        return chunk < chunks.length && chunk < other.chunks.length && chunks[chunk] == other.chunks[chunk];
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+}
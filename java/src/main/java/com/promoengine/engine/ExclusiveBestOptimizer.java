@@ -0,0 +1,214 @@
+// ABOUTME: Branch-and-bound search for the largest total discount among mutually conflicting promotions.
+// ABOUTME: Prunes with per-group upper bounds and stops at a time budget with the best combination found so far.
+package com.promoengine.engine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Candidates are the applicable promotions, each with its total discount in cents and the
+ * bit mask of its conflict group ids. Two candidates conflict when their masks intersect.
+ * Picking the best non-conflicting combination is a maximum-weight independent set problem,
+ * so the search is exponential in the worst case; in practice the bound prunes hard.
+ *
+ * The search tries candidates in decreasing amount order, starting from the greedy solution.
+ * A candidate's primary group is its lowest group id; at most one candidate per primary group
+ * can be chosen, so the sum over groups of the largest compatible remaining amount in each
+ * primary group bounds what the rest of the search can still add. Totals saturate at
+ * Long.MAX_VALUE, so combinations worth more than that are all treated as equally good.
+ */
+final class ExclusiveBestOptimizer {
+
+    // How many search nodes to visit between clock reads
+    private static final int NODES_PER_CLOCK_CHECK = 1024;
+
+    private final long budgetNanos;
+
+    ExclusiveBestOptimizer(Duration budget) {
+        if (budget == null || budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Search budget must be positive, got: " + budget);
+        }
+        this.budgetNanos = budget.toNanos();
+    }
+
+    /**
+     * The chosen candidates and whether the search proved them optimal before the budget ran out.
+     */
+    record Result(BitSet chosen, long total, boolean optimal) {
+    }
+
+    /**
+     * @param amounts Discount in cents of each candidate
+     * @param groups Conflict group mask of each candidate; an empty mask conflicts with nothing
+     * @return The chosen candidate indices
+     */
+    Result optimize(long[] amounts, long[][] groups) {
+        return new Search(amounts, groups, System.nanoTime() + budgetNanos).run();
+    }
+
+    private static final class Search {
+
+        private final long[] amounts;
+        private final long[][] groups;
+        private final long deadline;
+        private final int[] order;
+        private final int[] primaryGroup;
+        private final long[] bestPerGroup;
+        private final long[] chosenMask;
+        private final int[] chosen;
+        private int chosenCount;
+        private long bestTotal;
+        private int[] best;
+        private long nodes;
+        private boolean timedOut;
+
+        Search(long[] amounts, long[][] groups, long deadline) {
+            this.amounts = amounts;
+            this.groups = groups;
+            this.deadline = deadline;
+            this.order = IntStream.range(0, amounts.length)
+                .filter(i -> amounts[i] > 0 && groups[i].length > 0)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(i -> -amounts[i]).thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+            int words = 0;
+            for (long[] mask : groups) {
+                words = Math.max(words, mask.length);
+            }
+            this.primaryGroup = new int[amounts.length];
+            for (int i : order) {
+                primaryGroup[i] = lowestGroup(groups[i]);
+            }
+            this.bestPerGroup = new long[words * Long.SIZE];
+            this.chosenMask = new long[words];
+            this.chosen = new int[order.length];
+            this.best = new int[0];
+        }
+
+        Result run() {
+            greedy();
+            search(0, 0L);
+
+            BitSet result = new BitSet(amounts.length);
+            long total = bestTotal;
+            for (int i : best) {
+                result.set(i);
+            }
+            // Candidates without groups conflict with nothing and always pay off
+            for (int i = 0; i < amounts.length; i++) {
+                if (amounts[i] > 0 && groups[i].length == 0) {
+                    result.set(i);
+                    total = plus(total, amounts[i]);
+                }
+            }
+            return new Result(result, total, !timedOut);
+        }
+
+        private void greedy() {
+            long total = 0;
+            int count = 0;
+            int[] picked = new int[order.length];
+            long[] mask = new long[chosenMask.length];
+            for (int i : order) {
+                if (!intersects(mask, groups[i])) {
+                    or(mask, groups[i]);
+                    picked[count++] = i;
+                    total = plus(total, amounts[i]);
+                }
+            }
+            bestTotal = total;
+            best = Arrays.copyOf(picked, count);
+        }
+
+        private void search(int k, long total) {
+            if (total > bestTotal) {
+                bestTotal = total;
+                best = Arrays.copyOf(chosen, chosenCount);
+            }
+            if (k == order.length || outOfTime()) {
+                return;
+            }
+            if (plus(total, upperBound(k)) <= bestTotal) {
+                return;
+            }
+            int candidate = order[k];
+            if (!intersects(chosenMask, groups[candidate])) {
+                or(chosenMask, groups[candidate]);
+                chosen[chosenCount++] = candidate;
+                search(k + 1, plus(total, amounts[candidate]));
+                chosenCount--;
+                xor(chosenMask, groups[candidate]);
+            }
+            search(k + 1, total);
+        }
+
+        // Amounts are positive, so a sum that overflows saturates instead of wrapping negative
+        private static long plus(long total, long amount) {
+            long sum = total + amount;
+            return sum < total ? Long.MAX_VALUE : sum;
+        }
+
+        private long upperBound(int k) {
+            long bound = 0;
+            for (int j = k; j < order.length; j++) {
+                int candidate = order[j];
+                if (!intersects(chosenMask, groups[candidate])) {
+                    int group = primaryGroup[candidate];
+                    // Candidates are sorted by amount, so the first compatible one per group is its largest
+                    if (bestPerGroup[group] == 0) {
+                        bestPerGroup[group] = amounts[candidate];
+                        bound = plus(bound, amounts[candidate]);
+                    }
+                }
+            }
+            for (int j = k; j < order.length; j++) {
+                bestPerGroup[primaryGroup[order[j]]] = 0;
+            }
+            return bound;
+        }
+
+        private boolean outOfTime() {
+            if (timedOut) {
+                return true;
+            }
+            if (++nodes % NODES_PER_CLOCK_CHECK == 0 && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+            }
+            return timedOut;
+        }
+
+        private static int lowestGroup(long[] mask) {
+            for (int word = 0; word < mask.length; word++) {
+                if (mask[word] != 0) {
+                    return word * Long.SIZE + Long.numberOfTrailingZeros(mask[word]);
+                }
+            }
+            throw new IllegalArgumentException("Group mask cannot be empty");
+        }
+
+        private static boolean intersects(long[] mask, long[] other) {
+            for (int word = 0; word < other.length; word++) {
+                if ((mask[word] & other[word]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void or(long[] mask, long[] other) {
+            for (int word = 0; word < other.length; word++) {
+                mask[word] |= other[word];
+            }
+        }
+
+        private static void xor(long[] mask, long[] other) {
+            for (int word = 0; word < other.length; word++) {
+                mask[word] ^= other[word];
+            }
+        }
+    }
+}
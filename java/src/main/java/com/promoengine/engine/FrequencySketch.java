@@ -0,0 +1,69 @@
+// ABOUTME: Count-min sketch of 4-bit counters estimating how often each key was requested recently.
+// ABOUTME: Counters are halved periodically so the estimate follows changing popularity.
+package com.promoengine.engine;
+
+/**
+ * Each long holds sixteen 4-bit counters. A key maps to one counter in each of four rows,
+ * and its frequency is the smallest of them, so collisions can only overestimate. After
+ * ten additions per table slot every counter is halved. Not safe for concurrent use.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long HALF_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedKeys) {
+        long size = Long.highestOneBit(Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        this.table = new long[(int) size];
+        this.sampleSize = 10 * table.length;
+    }
+
+    int frequency(long hash) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long h = rehash(hash, row);
+            int shift = (int) (h >>> 60) << 2;
+            frequency = Math.min(frequency, (int) (table[slotOf(h)] >>> shift) & MAX_COUNT);
+        }
+        return frequency;
+    }
+
+    void increment(long hash) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long h = rehash(hash, row);
+            int slot = slotOf(h);
+            int shift = (int) (h >>> 60) << 2;
+            if (((table[slot] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[slot] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALF_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int slotOf(long h) {
+        return (int) h & (table.length - 1);
+    }
+
+    private static long rehash(long hash, int row) {
+        long h = (hash ^ SEEDS[row]) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 31);
+    }
+}
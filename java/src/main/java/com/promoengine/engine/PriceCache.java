@@ -0,0 +1,533 @@
+// ABOUTME: Optional cache of pricing results in front of a PromotionEngine, for carts that are priced repeatedly.
+// ABOUTME: Keys combine the cart lines with only the context fields promotions read; eviction is weighted W-TinyLFU.
+package com.promoengine.engine;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Sku;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ContextField;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.TagMask;
+import com.promoengine.promotions.Promotion;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cached price is reused for a later call whose cart has the same lines, comparing each
+ * line's SKU, category, quantity and unit price but not the product name, and whose context
+ * agrees on what pricing depends on:
+ * <ul>
+ *   <li>the segment between validity window boundaries that contains context.now, rather
+ *       than the instant itself, unless some promotion reads {@link ContextField#NOW};</li>
+ *   <li>the customer tags some promotion requires, rather than all of them, unless some
+ *       promotion reads {@link ContextField#CUSTOMER_TAGS};</li>
+ *   <li>the channel, only if some promotion reads it or is restricted to channels;</li>
+ *   <li>the customer ID, only if some promotion reads it.</li>
+ * </ul>
+ * Every catalog publication empties the cache. While any promotion has a budget, exhaustion
+ * changes prices without a publication, so calls go straight to the engine; so do calls
+ * the engine traces, whose traces are not shared. Cache hits are neither traced nor
+ * reported to the engine's instrumentation.
+ *
+ * Lines in another order reuse a price only if it cannot reflect line order: no promotion
+ * gave more than one discount. The engine breaks ties between lines by SKU, so only the
+ * order of a promotion's several discounts follows the lines; promotions are assumed not to
+ * read line order otherwise. A price that can reflect it is reused for the same order only,
+ * and is replaced when the same lines come in another.
+ *
+ * The cache is split into shards with a lock each. Each shard follows W-TinyLFU: new
+ * entries enter a small LRU window, and an entry leaving the window replaces the main
+ * region's eviction victim only if a frequency sketch says it was requested more often,
+ * so a burst of one-off carts cannot flush the carts that are repriced all the time.
+ */
+public final class PriceCache {
+
+    // Shards are only split while each keeps at least this much weight
+    private static final int MIN_SHARD_WEIGHT = 1024;
+    private static final int SHARDS_PER_PROCESSOR = 4;
+
+    private final PromotionEngine engine;
+    private final long maximumWeight;
+    private final Shard[] shards;
+    private final Object planLock = new Object();
+    private volatile KeyPlan plan;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param engine Engine pricing cache misses
+     * @param maximumWeight Upper bound on the total weight of cached prices, where a price
+     *        weighs one plus the number of its cart's lines plus the number of its discounts
+     */
+    public PriceCache(PromotionEngine engine, long maximumWeight) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine cannot be null");
+        }
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be positive, got: " + maximumWeight);
+        }
+        this.engine = engine;
+        this.maximumWeight = maximumWeight;
+        int target = Runtime.getRuntime().availableProcessors() * SHARDS_PER_PROCESSOR;
+        int count = 1;
+        while (count < target && maximumWeight / (count * 2L) >= MIN_SHARD_WEIGHT) {
+            count *= 2;
+        }
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(maximumWeight / count, evictions);
+        }
+    }
+
+    /**
+     * Returns what engine.price(cart, context) returns, from the cache when an equivalent
+     * call was priced against the current catalog version.
+     */
+    public PriceSummary price(Cart cart, PricingContext context) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+        CatalogSnapshot snapshot = engine.catalog().snapshot();
+        KeyPlan current = planFor(snapshot);
+        if (current == null || !engine.budgets().isEmpty()) {
+            bypasses.increment();
+            return engine.price(snapshot, cart, context);
+        }
+
+        List<LineKey> lines = LineKey.of(cart.lines());
+        Key key = current.keyOf(snapshot, LineKey.sorted(lines), context);
+        Shard shard = shards[(int) (key.hash >>> 32) & (shards.length - 1)];
+        PriceSummary cached = shard.get(key, snapshot.version(), lines);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        PriceSummary summary = engine.price(snapshot, cart, context);
+        if (summary.isTraced()) {
+            bypasses.increment();
+        } else {
+            misses.increment();
+            shard.put(key, summary, reflectsLineOrder(summary) ? lines : null, snapshot.version(),
+                1 + cart.lines().size() + summary.appliedDiscounts().size());
+        }
+        return summary;
+    }
+
+    /**
+     * Drops every cached price.
+     */
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+        invalidations.increment();
+    }
+
+    public PromotionEngine engine() {
+        return engine;
+    }
+
+    public long maximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns counts since the cache was created; concurrent calls may be partly reflected.
+     */
+    public Stats stats() {
+        long size = 0;
+        long weight = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.entries.size();
+                weight += shard.weight();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), bypasses.sum(), evictions.sum(), invalidations.sum(),
+            size, weight);
+    }
+
+    /**
+     * @param hits Calls answered from the cache
+     * @param misses Calls priced by the engine and cached
+     * @param bypasses Calls priced by the engine without caching: while budgets are defined,
+     *        for traced calls, and for calls racing a catalog publication
+     * @param evictions Prices dropped to stay within the maximum weight or because their
+     *        catalog version was superseded
+     * @param invalidations Times the whole cache was emptied, by catalog publications or invalidateAll
+     * @param size Cached prices
+     * @param weight Total weight of cached prices
+     */
+    public record Stats(long hits, long misses, long bypasses, long evictions, long invalidations,
+                        long size, long weight) {
+
+        /**
+         * Share of cacheable calls answered from the cache, or 0 before the first one.
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Returns true if some promotion gave several discounts, whose order follows the lines.
+     */
+    private static boolean reflectsLineOrder(PriceSummary summary) {
+        List<AppliedDiscount> discounts = summary.appliedDiscounts();
+        // Discounts of one promotion are adjacent
+        for (int i = 1; i < discounts.size(); i++) {
+            if (discounts.get(i).promotionId().equals(discounts.get(i - 1).promotionId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the key plan of the snapshot's version, emptying the cache when the catalog
+     * moved on; null if the snapshot is older than the plan, so its prices must not be cached.
+     */
+    private KeyPlan planFor(CatalogSnapshot snapshot) {
+        KeyPlan current = plan;
+        if (current != null && current.version == snapshot.version()) {
+            return current;
+        }
+        synchronized (planLock) {
+            current = plan;
+            if (current == null || current.version < snapshot.version()) {
+                boolean stale = current != null;
+                current = KeyPlan.of(snapshot);
+                plan = current;
+                if (stale) {
+                    invalidateAll();
+                }
+            }
+        }
+        return current.version == snapshot.version() ? current : null;
+    }
+
+    /**
+     * What the promotions of one catalog version read from a context.
+     */
+    private static final class KeyPlan {
+        final long version;
+        final boolean readsNow;
+        final boolean readsChannel;
+        final boolean readsCustomerId;
+        final boolean readsCustomerTags;
+        final TagMask requiredTags;
+
+        private KeyPlan(long version, Set<ContextField> reads, TagMask requiredTags) {
+            this.version = version;
+            this.readsNow = reads.contains(ContextField.NOW);
+            this.readsChannel = reads.contains(ContextField.CHANNEL);
+            this.readsCustomerId = reads.contains(ContextField.CUSTOMER_ID);
+            this.readsCustomerTags = reads.contains(ContextField.CUSTOMER_TAGS);
+            this.requiredTags = requiredTags;
+        }
+
+        static KeyPlan of(CatalogSnapshot snapshot) {
+            Set<ContextField> reads = EnumSet.noneOf(ContextField.class);
+            TagMask requiredTags = TagMask.EMPTY;
+            CatalogImage image = snapshot.image();
+            if (image != null) {
+                // Summarized when the image was written, so no promotion is decoded here
+                reads.addAll(image.contextReads());
+                if (image.hasChannelPartitions()) {
+                    reads.add(ContextField.CHANNEL);
+                }
+                return new KeyPlan(snapshot.version(), reads, image.requiredTags());
+            }
+            for (Promotion promotion : snapshot.promotions()) {
+                reads.addAll(promotion.contextReads());
+                if (!promotion.channels().isEmpty()) {
+                    // The engine itself reads the channel to pick the promotions to evaluate
+                    reads.add(ContextField.CHANNEL);
+                }
+                requiredTags = requiredTags.or(promotion.requiredTags());
+            }
+            return new KeyPlan(snapshot.version(), reads, requiredTags);
+        }
+
+        Key keyOf(CatalogSnapshot snapshot, List<LineKey> lines, PricingContext context) {
+            Instant now = readsNow ? context.now() : null;
+            int segment = readsNow ? -1 : snapshot.validity().segmentNumberAt(context.now());
+            Object tags = readsCustomerTags
+                ? context.customerTags()
+                : context.customerTagMask().and(requiredTags);
+            return new Key(
+                lines,
+                segment,
+                new ContextKey(now, readsChannel ? context.channel() : null,
+                    readsCustomerId ? context.customerId() : null, tags)
+            );
+        }
+    }
+
+    /**
+     * What pricing reads of a line: everything but the product name.
+     */
+    private record LineKey(Sku sku, String category, int quantity, Money unitPrice) {
+
+        // Any total order of the fields would do; the SKU comes first so that typical carts,
+        // whose SKUs differ, are ordered by it alone
+        static final Comparator<LineKey> ORDER = Comparator
+            .comparing((LineKey line) -> line.sku().value())
+            .thenComparing(LineKey::category)
+            .thenComparingInt(LineKey::quantity)
+            .thenComparing(LineKey::unitPrice);
+
+        static List<LineKey> of(List<LineItem> lines) {
+            LineKey[] keys = new LineKey[lines.size()];
+            for (int i = 0; i < keys.length; i++) {
+                LineItem line = lines.get(i);
+                keys[i] = new LineKey(line.product().sku(), line.product().category(),
+                    line.quantity().intValue(), line.unitPrice());
+            }
+            return List.of(keys);
+        }
+
+        /**
+         * Returns the lines in SKU order, the given list if they already are.
+         */
+        static List<LineKey> sorted(List<LineKey> lines) {
+            for (int i = 1; i < lines.size(); i++) {
+                if (ORDER.compare(lines.get(i - 1), lines.get(i)) > 0) {
+                    List<LineKey> sorted = new ArrayList<>(lines);
+                    sorted.sort(ORDER);
+                    return List.copyOf(sorted);
+                }
+            }
+            return lines;
+        }
+    }
+
+    private record ContextKey(Instant now, String channel, String customerId, Object tags) {
+    }
+
+    private static final class Key {
+        final List<LineKey> lines;
+        final int segment;
+        final ContextKey context;
+        final long hash;
+
+        Key(List<LineKey> lines, int segment, ContextKey context) {
+            this.lines = lines;
+            this.segment = segment;
+            this.context = context;
+            long h = lines.hashCode() * 0x9E3779B97F4A7C15L;
+            h = (h ^ segment) * 0xBF58476D1CE4E5B9L;
+            h = (h ^ context.hashCode()) * 0x94D049BB133111EBL;
+            this.hash = h ^ (h >>> 31);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && segment == other.segment
+                && context.equals(other.context) && lines.equals(other.lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) hash;
+        }
+    }
+
+    /**
+     * One lock's worth of cache: a hash map over three intrusive LRU lists, the window,
+     * probation and protected regions, each bounded by weight.
+     */
+    private static final class Shard {
+
+        private static final int WINDOW = 0;
+        private static final int PROBATION = 1;
+        private static final int PROTECTED = 2;
+
+        final Map<Key, Node> entries = new HashMap<>();
+        private final FrequencySketch sketch;
+        private final Node[] regions = {Node.sentinel(), Node.sentinel(), Node.sentinel()};
+        private final long[] weights = new long[3];
+        private final long windowCapacity;
+        private final long mainCapacity;
+        private final long protectedCapacity;
+        private final LongAdder evictions;
+
+        Shard(long capacity, LongAdder evictions) {
+            // About 1% for the window, and 80% of the rest for entries requested more than once
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(1, capacity - windowCapacity);
+            this.protectedCapacity = mainCapacity * 4 / 5;
+            this.sketch = new FrequencySketch(capacity / 2);
+            this.evictions = evictions;
+        }
+
+        /**
+         * @param lines The caller's lines in their order, matched against an entry that reflects line order
+         */
+        synchronized PriceSummary get(Key key, long version, List<LineKey> lines) {
+            sketch.increment(key.hash);
+            Node node = entries.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.lines != null && !node.lines.equals(lines)) {
+                // Priced for another order; the caller's price will replace it
+                return null;
+            }
+            if (node.version != version) {
+                remove(node);
+                evictions.increment();
+                return null;
+            }
+            if (node.region == PROBATION) {
+                move(node, PROTECTED);
+                while (weights[PROTECTED] > protectedCapacity) {
+                    move(regions[PROTECTED].next, PROBATION);
+                }
+            } else {
+                move(node, node.region);
+            }
+            return node.summary;
+        }
+
+        /**
+         * @param lines The lines in the order they were priced in if the price reflects it, otherwise null
+         */
+        synchronized void put(Key key, PriceSummary summary, List<LineKey> lines, long version, int weight) {
+            if (weight > mainCapacity) {
+                return;
+            }
+            Node existing = entries.get(key);
+            if (existing != null) {
+                remove(existing);
+            }
+            Node node = new Node(key, summary, lines, version, weight);
+            entries.put(key, node);
+            link(node, WINDOW);
+            while (weights[WINDOW] > windowCapacity) {
+                Node candidate = regions[WINDOW].next;
+                move(candidate, PROBATION);
+                admit(candidate);
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            for (int region = 0; region < regions.length; region++) {
+                Node sentinel = regions[region];
+                sentinel.next = sentinel;
+                sentinel.prev = sentinel;
+                weights[region] = 0;
+            }
+        }
+
+        long weight() {
+            return weights[WINDOW] + weights[PROBATION] + weights[PROTECTED];
+        }
+
+        /**
+         * Makes room in the main region for a candidate that just left the window, evicting
+         * whichever of it and the main region's least recently used entry is requested less.
+         */
+        private void admit(Node candidate) {
+            while (weights[PROBATION] + weights[PROTECTED] > mainCapacity) {
+                Node victim = regions[PROBATION].next;
+                if (victim == candidate) {
+                    // The candidate is the only probation entry
+                    victim = regions[PROTECTED].next;
+                }
+                if (victim.summary == null || sketch.frequency(candidate.hash()) <= sketch.frequency(victim.hash())) {
+                    remove(candidate);
+                    evictions.increment();
+                    return;
+                }
+                remove(victim);
+                evictions.increment();
+            }
+        }
+
+        private void move(Node node, int region) {
+            unlink(node);
+            link(node, region);
+        }
+
+        private void remove(Node node) {
+            unlink(node);
+            entries.remove(node.key);
+        }
+
+        private void link(Node node, int region) {
+            Node sentinel = regions[region];
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+            node.region = region;
+            weights[region] += node.weight;
+        }
+
+        private void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            weights[node.region] -= node.weight;
+        }
+    }
+
+    private static final class Node {
+        final Key key;
+        final PriceSummary summary;
+        // Null unless the price holds only for lines in this order
+        final List<LineKey> lines;
+        final long version;
+        final int weight;
+        int region;
+        Node prev;
+        Node next;
+
+        Node(Key key, PriceSummary summary, List<LineKey> lines, long version, int weight) {
+            this.key = key;
+            this.summary = summary;
+            this.lines = lines;
+            this.version = version;
+            this.weight = weight;
+        }
+
+        // Sentinels head each region's list; they hold no price and weigh nothing
+        static Node sentinel() {
+            Node sentinel = new Node(null, null, null, 0, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        long hash() {
+            return key.hash;
+        }
+    }
+}
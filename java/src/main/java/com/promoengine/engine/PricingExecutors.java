@@ -0,0 +1,43 @@
+// ABOUTME: Factory for executors suited to parallel batch pricing.
+// ABOUTME: Offers virtual threads for promotions that block, falling back to platform threads before Java 21.
+package com.promoengine.engine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class PricingExecutors {
+
+    private PricingExecutors() {
+    }
+
+    /**
+     * Returns the common ForkJoin pool, the right choice for CPU-bound promotions.
+     * Do not shut it down.
+     */
+    public static ExecutorService forkJoin() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Returns a new executor starting one virtual thread per task, for promotions that
+     * do blocking lookups. Virtual threads need Java 21; on older runtimes this returns
+     * a cached pool of daemon platform threads instead. The caller owns the executor
+     * and must shut it down.
+     */
+    public static ExecutorService forBlockingPromotions() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "pricing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
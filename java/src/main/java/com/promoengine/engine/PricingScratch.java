@@ -0,0 +1,102 @@
+// ABOUTME: Reusable per-thread working buffers for one or more pricing calls.
+// ABOUTME: Lets batch pricing avoid reallocating candidate sets and discount lists for every cart.
+package com.promoengine.engine;
+
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.TraceBuffer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Not thread-safe: each thread pricing carts needs its own instance.
+ */
+final class PricingScratch {
+
+    // Validity segments looked up so far; batches rarely span more than a few
+    private static final int MAX_SEGMENTS = 8;
+
+    final BitSet candidates;
+    // Positions left out of every call priced with this scratch; not cleared by reset
+    final BitSet excluded = new BitSet();
+    final PromotionResults results = new PromotionResults();
+    final List<AppliedDiscount> discounts = new ArrayList<>();
+    // Candidates of an EXCLUSIVE_PRIORITY call, as priority ranks
+    final BitSet ranked = new BitSet();
+    private final List<ValidityIndex.Segment> segments = new ArrayList<>(MAX_SEGMENTS);
+    // Conflict groups of the promotions applied so far under EXCLUSIVE_PRIORITY
+    private long[] takenGroups = new long[1];
+    // Allocated on the first traced call only
+    private TraceBuffer trace;
+    private int[] resultDecisions;
+
+    PricingScratch(int promotionCount) {
+        this.candidates = new BitSet(promotionCount);
+    }
+
+    /**
+     * Returns the promotions active at the instant, reusing segments already resolved
+     * by this scratch before asking the index.
+     */
+    BitSet activeAt(ValidityIndex validity, Instant now) {
+        for (int i = 0; i < segments.size(); i++) {
+            ValidityIndex.Segment segment = segments.get(i);
+            if (segment.contains(now)) {
+                return segment.active();
+            }
+        }
+        ValidityIndex.Segment segment = validity.segmentAt(now);
+        if (segments.size() == MAX_SEGMENTS) {
+            segments.remove(0);
+        }
+        segments.add(segment);
+        return segment.active();
+    }
+
+    /**
+     * Returns this scratch's trace buffer, cleared.
+     */
+    TraceBuffer traceBuffer() {
+        if (trace == null) {
+            trace = new TraceBuffer();
+            resultDecisions = new int[16];
+        }
+        trace.reset();
+        return trace;
+    }
+
+    /**
+     * Remembers which trace decision belongs to the result at the index.
+     */
+    void recordDecision(int resultIndex, int decision) {
+        if (resultIndex == resultDecisions.length) {
+            resultDecisions = Arrays.copyOf(resultDecisions, resultIndex * 2);
+        }
+        resultDecisions[resultIndex] = decision;
+    }
+
+    int decisionOf(int resultIndex) {
+        return resultDecisions[resultIndex];
+    }
+
+    /**
+     * Returns true if a promotion applied earlier in this call shares a group with the mask.
+     */
+    boolean isTaken(long[] conflictMask) {
+        return ConflictGroups.intersect(conflictMask, takenGroups);
+    }
+
+    void take(long[] conflictMask) {
+        takenGroups = ConflictGroups.union(takenGroups, conflictMask);
+    }
+
+    void reset() {
+        candidates.clear();
+        Arrays.fill(takenGroups, 0L);
+        results.clear();
+        discounts.clear();
+    }
+}
@@ -0,0 +1,238 @@
+// ABOUTME: Incremental pricing of a cart that changes one line at a time.
+// ABOUTME: Keeps per-promotion results and re-evaluates only promotions affected by the changed SKU or category.
+package com.promoengine.engine;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.Quantity;
+import com.promoengine.domain.Sku;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.Promotion;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A promotion that targets SKUs or categories is assumed to depend only on the cart lines
+ * it targets, so a change to a line only re-evaluates the promotions targeting that line's
+ * SKU or category, plus the cart-wide ones. Subtotal and discount total are updated from
+ * the differences rather than recomputed; exclusive stacking policies then choose again
+ * among the applicable promotions. After every change the summary equals what
+ * {@link PromotionEngine#price} returns for the current cart and the session's context,
+ * with the catalog as it was when the session started: catalog edits published later
+ * do not affect a running session.
+ *
+ * Sessions are not thread-safe.
+ */
+public final class PricingSession {
+
+    private final PromotionEngine engine;
+    private final CatalogSnapshot snapshot;
+    private final PricingContext context;
+    private final BitSet active;
+    private final List<LineItem> lines;
+    private final Map<Sku, Integer> linesPerSku = new HashMap<>();
+    private final Map<String, Integer> linesPerCategory = new HashMap<>();
+    private final List<List<AppliedDiscount>> results;
+    private final BitSet applied;
+
+    private Cart cart;
+    private CartAnalysis analysis;
+    private Money subtotal;
+    private Money discountTotal = Money.ZERO;
+    private PriceSummary summary;
+
+    PricingSession(PromotionEngine engine, CatalogSnapshot snapshot, Cart cart, PricingContext context) {
+        int size = snapshot.slotCount();
+        this.engine = engine;
+        this.snapshot = snapshot;
+        this.context = context;
+        this.active = snapshot.validity().activeAt(context.now());
+        this.lines = new ArrayList<>(cart.lines());
+        this.results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(null);
+        }
+        this.applied = new BitSet(size);
+        this.cart = cart;
+        this.analysis = CartAnalysis.of(cart);
+        this.subtotal = cart.subtotal();
+        for (LineItem line : lines) {
+            count(line.product(), 1);
+        }
+
+        BitSet candidates = snapshot.index().candidatesFor(analysis, context.channel());
+        candidates.and(active);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            reevaluate(i);
+        }
+        this.summary = buildSummary();
+    }
+
+    /**
+     * Adds a line to the cart and reprices.
+     * @return The updated summary
+     */
+    public PriceSummary addLine(LineItem line) {
+        if (line == null) {
+            throw new IllegalArgumentException("Line cannot be null");
+        }
+        lines.add(line);
+        count(line.product(), 1);
+        subtotal = subtotal.add(line.subtotal());
+        return changed(line.product());
+    }
+
+    /**
+     * Removes every line with the given SKU and reprices.
+     * @return The updated summary
+     */
+    public PriceSummary removeLines(Sku sku) {
+        if (sku == null) {
+            throw new IllegalArgumentException("SKU cannot be null");
+        }
+        Product removed = null;
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            LineItem line = lines.get(i);
+            if (line.product().sku().equals(sku)) {
+                lines.remove(i);
+                count(line.product(), -1);
+                subtotal = subtotal.subtract(line.subtotal());
+                removed = line.product();
+            }
+        }
+        if (removed == null) {
+            throw new IllegalArgumentException("No line with SKU: " + sku);
+        }
+        return changed(removed);
+    }
+
+    /**
+     * Changes the quantity of the single line with the given SKU and reprices.
+     * @return The updated summary
+     */
+    public PriceSummary changeQuantity(Sku sku, Quantity quantity) {
+        if (sku == null) {
+            throw new IllegalArgumentException("SKU cannot be null");
+        }
+        if (quantity == null) {
+            throw new IllegalArgumentException("Quantity cannot be null");
+        }
+        int index = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).product().sku().equals(sku)) {
+                if (index >= 0) {
+                    throw new IllegalArgumentException("More than one line with SKU: " + sku);
+                }
+                index = i;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("No line with SKU: " + sku);
+        }
+        LineItem previous = lines.get(index);
+        LineItem updated = new LineItem(previous.product(), quantity, previous.unitPrice());
+        lines.set(index, updated);
+        subtotal = subtotal.subtract(previous.subtotal()).add(updated.subtotal());
+        return changed(updated.product());
+    }
+
+    public PriceSummary summary() {
+        return summary;
+    }
+
+    public Cart cart() {
+        return cart;
+    }
+
+    private PriceSummary changed(Product product) {
+        cart = new Cart(lines);
+        analysis = CartAnalysis.of(cart);
+        BitSet affected = new BitSet(results.size());
+        snapshot.index().collectAffected(product.sku(), product.category(), context.channel(), affected);
+        affected.and(active);
+        for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+            reevaluate(i);
+        }
+        summary = buildSummary();
+        return summary;
+    }
+
+    private void reevaluate(int position) {
+        List<AppliedDiscount> previous = results.get(position);
+        List<AppliedDiscount> current = isReachable(snapshot.promotionAt(position))
+            ? engine.evaluate(snapshot, position, analysis, context)
+            : null;
+        if (current != null && current.isEmpty()) {
+            current = null;
+        }
+
+        if (previous != null) {
+            discountTotal = discountTotal.subtract(sum(previous));
+        }
+        if (current != null) {
+            discountTotal = discountTotal.add(sum(current));
+        }
+        results.set(position, current);
+        applied.set(position, current != null);
+    }
+
+    private boolean isReachable(Promotion promotion) {
+        if (promotion.targetSkus().isEmpty() && promotion.targetCategories().isEmpty()) {
+            return true;
+        }
+        for (Sku sku : promotion.targetSkus()) {
+            if (linesPerSku.containsKey(sku)) {
+                return true;
+            }
+        }
+        for (String category : promotion.targetCategories()) {
+            if (linesPerCategory.containsKey(category)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(Product product, int delta) {
+        linesPerSku.merge(product.sku(), delta, (a, b) -> a + b == 0 ? null : a + b);
+        linesPerCategory.merge(product.category(), delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private PriceSummary buildSummary() {
+        List<AppliedDiscount> discounts = new ArrayList<>();
+        if (engine.policy() == StackingPolicy.STACK) {
+            for (int i = applied.nextSetBit(0); i >= 0; i = applied.nextSetBit(i + 1)) {
+                discounts.addAll(results.get(i));
+            }
+            return new PriceSummary(
+                subtotal, discountTotal, subtotal.subtract(discountTotal), discounts, snapshot.version());
+        }
+
+        // Exclusive policies choose among all applicable promotions again
+        PromotionResults current = new PromotionResults();
+        for (int i = applied.nextSetBit(0); i >= 0; i = applied.nextSetBit(i + 1)) {
+            current.put(i, results.get(i));
+        }
+        engine.select(snapshot, current, discounts);
+        Money selectedTotal = sum(discounts);
+        return new PriceSummary(
+            subtotal, selectedTotal, subtotal.subtract(selectedTotal), discounts, snapshot.version());
+    }
+
+    private static Money sum(List<AppliedDiscount> discounts) {
+        Money total = Money.ZERO;
+        for (AppliedDiscount discount : discounts) {
+            total = total.add(discount.amount());
+        }
+        return total;
+    }
+}
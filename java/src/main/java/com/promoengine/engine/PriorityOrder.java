@@ -0,0 +1,107 @@
+// ABOUTME: The slot positions of a catalog snapshot ranked by promotion priority, highest first.
+// ABOUTME: Lets EXCLUSIVE_PRIORITY pricing visit a cart's candidates in priority order without sorting them.
+package com.promoengine.engine;
+
+import com.promoengine.promotions.Promotion;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * Ranks break ties between equal priorities by position, so a catalog whose promotions all
+ * have the same priority ranks them in slot order; it is then kept as the identity and costs
+ * nothing to build or apply. Empty slots have no rank, since they are never candidates.
+ */
+final class PriorityOrder {
+
+    private static final int NO_RANK = -1;
+
+    // Both null when every promotion has the same priority and ranks are positions
+    private final int[] positionsByRank;
+    private final int[] ranksByPosition;
+    // Meaningful only when ranks are positions and some slot is filled
+    private final int uniformPriority;
+    private final boolean empty;
+
+    private PriorityOrder(int[] positionsByRank, int[] ranksByPosition, int uniformPriority, boolean empty) {
+        this.positionsByRank = positionsByRank;
+        this.ranksByPosition = ranksByPosition;
+        this.uniformPriority = uniformPriority;
+        this.empty = empty;
+    }
+
+    /**
+     * Ranks the filled slots among the first slotCount positions.
+     * @param priorityAt Priority of the promotion at a position, or null for an empty slot
+     */
+    static PriorityOrder of(int slotCount, IntFunction<Integer> priorityAt) {
+        long[] keys = new long[slotCount];
+        int count = 0;
+        boolean uniform = true;
+        int first = 0;
+        for (int position = 0; position < slotCount; position++) {
+            Integer priority = priorityAt.apply(position);
+            if (priority == null) {
+                continue;
+            }
+            if (count == 0) {
+                first = priority;
+            } else if (priority != first) {
+                uniform = false;
+            }
+            // The high word sorts by descending priority, the low word by ascending position
+            keys[count++] = ((long) ~priority << 32) | position;
+        }
+        if (uniform) {
+            return new PriorityOrder(null, null, first, count == 0);
+        }
+        Arrays.sort(keys, 0, count);
+        int[] positionsByRank = new int[count];
+        int[] ranksByPosition = new int[slotCount];
+        Arrays.fill(ranksByPosition, NO_RANK);
+        for (int rank = 0; rank < count; rank++) {
+            int position = (int) keys[rank];
+            positionsByRank[rank] = position;
+            ranksByPosition[position] = rank;
+        }
+        return new PriorityOrder(positionsByRank, ranksByPosition, 0, false);
+    }
+
+    /**
+     * Returns the candidates as ranks, written to the target unless ranks are positions.
+     */
+    BitSet ranked(BitSet candidates, BitSet target) {
+        if (ranksByPosition == null) {
+            return candidates;
+        }
+        target.clear();
+        for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+            target.set(ranksByPosition[position]);
+        }
+        return target;
+    }
+
+    int positionAt(int rank) {
+        return positionsByRank == null ? rank : positionsByRank[rank];
+    }
+
+    int rankOf(int position) {
+        return ranksByPosition == null ? position : ranksByPosition[position];
+    }
+
+    /**
+     * Returns this order if it still ranks the snapshot after the promotion in the slot
+     * changes from previous to next, either possibly null; null if it must be rebuilt.
+     */
+    PriorityOrder afterEdit(Promotion previous, Promotion next) {
+        if (next == null) {
+            // The emptied slot is never a candidate again, so its stale rank is never read
+            return this;
+        }
+        if (ranksByPosition == null) {
+            return !empty && next.priority() == uniformPriority ? this : null;
+        }
+        return previous != null && previous.priority() == next.priority() ? this : null;
+    }
+}
@@ -0,0 +1,292 @@
+// ABOUTME: Spend caps per promotion, reserved when discounts are applied at checkout.
+// ABOUTME: Striped counters keep concurrent reservations off a shared lock; each budget drains them only near exhaustion.
+package com.promoengine.engine;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Each budget's unspent amount is split between a central pool and a handful of stripes,
+ * one per processor or so. A reservation takes from its thread's stripe with a single
+ * compare-and-set; an empty stripe refills itself with a share of the central pool.
+ * Only when the pool cannot cover a reservation does the budget take its own lock and
+ * drain every stripe back into the pool, so the last cents of a budget are handed out
+ * exactly. Money only ever moves between pool, stripes and reservations, never appears,
+ * so reservations never exceed the cap; near exhaustion a reservation may be refused
+ * while another thread is moving a share into its stripe.
+ *
+ * Promotions without a budget are not limited. Budgets are safe for concurrent use.
+ */
+public final class PromotionBudgets {
+
+    private final Map<PromotionId, Budget> budgets = new ConcurrentHashMap<>();
+    // Budgets are never removed, so this only ever turns false; read for every priced candidate
+    private volatile boolean empty = true;
+
+    /**
+     * Caps the total discount the promotion may give.
+     * @throws IllegalArgumentException if the promotion already has a budget
+     */
+    public void define(PromotionId id, Money cap) {
+        if (id == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        if (cap == null) {
+            throw new IllegalArgumentException("Cap cannot be null");
+        }
+        long cents = cap.toCents();
+        if (cents < 0) {
+            throw new IllegalArgumentException("Cap cannot be negative, got: " + cap);
+        }
+        if (budgets.putIfAbsent(id, new Budget(cents)) != null) {
+            throw new IllegalArgumentException("Budget already defined for: " + id);
+        }
+        empty = false;
+    }
+
+    public boolean hasBudget(PromotionId id) {
+        return budgets.containsKey(id);
+    }
+
+    /**
+     * Returns true if no promotion has a budget. A single volatile read.
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Returns true if the promotion has a budget with nothing left to reserve.
+     * Engines skip such promotions when pricing.
+     */
+    public boolean isExhausted(PromotionId id) {
+        Budget budget = budgets.get(id);
+        return budget != null && budget.isExhausted();
+    }
+
+    /**
+     * Reserves the discounts of the summary against the budgets of their promotions.
+     * Either every budgeted promotion's total is reserved, or nothing is and the
+     * reservation lists the promotions whose budget could not cover their discounts.
+     */
+    public BudgetReservation reserve(PriceSummary summary) {
+        if (summary == null) {
+            throw new IllegalArgumentException("Summary cannot be null");
+        }
+        // Carts rarely carry more than a few budgeted promotions, so linear merging beats hashing
+        List<AppliedDiscount> discounts = summary.appliedDiscounts();
+        Budget[] found = new Budget[discounts.size()];
+        PromotionId[] ids = new PromotionId[discounts.size()];
+        long[] amounts = new long[discounts.size()];
+        int count = 0;
+        for (AppliedDiscount discount : discounts) {
+            Budget budget = budgets.get(discount.promotionId());
+            if (budget == null) {
+                continue;
+            }
+            int i = 0;
+            while (i < count && found[i] != budget) {
+                i++;
+            }
+            if (i == count) {
+                found[count] = budget;
+                ids[count++] = discount.promotionId();
+            }
+            amounts[i] = Math.addExact(amounts[i], discount.amount().toCents());
+        }
+
+        Set<PromotionId> rejected = null;
+        boolean[] reserved = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            if (found[i].tryReserve(amounts[i])) {
+                reserved[i] = true;
+            } else {
+                if (rejected == null) {
+                    rejected = new LinkedHashSet<>();
+                }
+                rejected.add(ids[i]);
+            }
+        }
+
+        if (rejected != null) {
+            for (int i = 0; i < count; i++) {
+                if (reserved[i]) {
+                    found[i].release(amounts[i]);
+                }
+            }
+            return BudgetReservation.rejected(rejected);
+        }
+        return BudgetReservation.accepted(Arrays.copyOf(found, count), Arrays.copyOf(amounts, count));
+    }
+
+    /**
+     * Returns a point-in-time view of the promotion's budget; amounts reserved or
+     * committed concurrently may be partly reflected.
+     * @throws IllegalArgumentException if the promotion has no budget
+     */
+    public Stats stats(PromotionId id) {
+        Budget budget = budgets.get(id);
+        if (budget == null) {
+            throw new IllegalArgumentException("No budget defined for: " + id);
+        }
+        long remaining = budget.remaining();
+        long committed = budget.committed.sum();
+        return new Stats(
+            Money.cents(budget.cap),
+            Money.cents(remaining),
+            Money.cents(Math.max(0, budget.cap - remaining - committed)),
+            Money.cents(committed),
+            budget.reservations.sum(),
+            budget.rejections.sum()
+        );
+    }
+
+    /**
+     * @param cap Total the promotion may give
+     * @param remaining Not yet reserved
+     * @param pending Reserved but neither committed nor released
+     * @param committed Spent by committed reservations
+     * @param reservations Successful reservations
+     * @param rejections Reservations refused for lack of budget
+     */
+    public record Stats(Money cap, Money remaining, Money pending, Money committed,
+                        long reservations, long rejections) {
+    }
+
+    static final class Budget {
+
+        // Stripe slots are spaced a cache line apart so neighbouring stripes do not false-share
+        private static final int PADDING = 8;
+        private static final int STRIPES = stripeCount();
+        // Share of the pool a stripe takes on refill, as a divisor: pool / (stripes * REFILL_DIVISOR)
+        private static final int REFILL_DIVISOR = 2;
+
+        final long cap;
+        final LongAdder committed = new LongAdder();
+        final LongAdder reservations = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+        private final AtomicLong pool;
+        private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING);
+        private final ReentrantLock drainLock = new ReentrantLock();
+
+        Budget(long cap) {
+            this.cap = cap;
+            this.pool = new AtomicLong(cap);
+        }
+
+        boolean tryReserve(long amount) {
+            if (amount < 0) {
+                throw new IllegalArgumentException("Amount cannot be negative, got: " + amount);
+            }
+            int stripe = stripeIndex();
+            while (true) {
+                long local = stripes.get(stripe);
+                if (local >= amount) {
+                    if (stripes.compareAndSet(stripe, local, local - amount)) {
+                        reservations.increment();
+                        return true;
+                    }
+                } else if (!refill(stripe, amount - local)) {
+                    break;
+                }
+            }
+            if (reserveFromDrainedPool(amount)) {
+                reservations.increment();
+                return true;
+            }
+            rejections.increment();
+            return false;
+        }
+
+        void release(long amount) {
+            pool.addAndGet(amount);
+        }
+
+        void commit(long amount) {
+            committed.add(amount);
+        }
+
+        boolean isExhausted() {
+            if (pool.get() > 0) {
+                return false;
+            }
+            for (int i = 0; i < STRIPES; i++) {
+                if (stripes.get(i * PADDING) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long remaining() {
+            long remaining = pool.get();
+            for (int i = 0; i < STRIPES; i++) {
+                remaining += stripes.get(i * PADDING);
+            }
+            return remaining;
+        }
+
+        /**
+         * Moves at least the shortfall from the pool to the stripe.
+         * @return false if the pool cannot cover the shortfall
+         */
+        private boolean refill(int stripe, long shortfall) {
+            while (true) {
+                long available = pool.get();
+                if (available < shortfall) {
+                    return false;
+                }
+                long share = Math.min(available, Math.max(shortfall, available / (STRIPES * REFILL_DIVISOR)));
+                if (pool.compareAndSet(available, available - share)) {
+                    stripes.addAndGet(stripe, share);
+                    return true;
+                }
+            }
+        }
+
+        private boolean reserveFromDrainedPool(long amount) {
+            drainLock.lock();
+            try {
+                long drained = 0;
+                for (int i = 0; i < STRIPES; i++) {
+                    drained += stripes.getAndSet(i * PADDING, 0);
+                }
+                long available = pool.addAndGet(drained);
+                // Other threads may still refill from the pool while we hold the lock
+                while (available >= amount) {
+                    if (pool.compareAndSet(available, available - amount)) {
+                        return true;
+                    }
+                    available = pool.get();
+                }
+                return false;
+            } finally {
+                drainLock.unlock();
+            }
+        }
+
+        private static int stripeIndex() {
+            long id = Thread.currentThread().getId();
+            int h = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+            return (h & (STRIPES - 1)) * PADDING;
+        }
+
+        private static int stripeCount() {
+            int processors = Runtime.getRuntime().availableProcessors();
+            return Math.min(64, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+// ABOUTME: Versioned, hot-reloadable set of promotions published as immutable snapshots.
+// ABOUTME: Readers take the current snapshot without locking; writers publish copy-on-write edits.
+package com.promoengine.engine;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.promotions.Promotion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The current {@link CatalogSnapshot} is held in a single atomic reference. Pricing reads
+ * it once per call and works on that snapshot throughout, so it never blocks and never
+ * sees a half-applied edit, however many edits are published meanwhile.
+ *
+ * Writers are serialized with each other. An edit derives the next snapshot from the
+ * current one, rebuilding only the index partitions that hold the changed promotions'
+ * SKUs and categories, then publishes it with a new version. Removed promotions leave
+ * empty slots; once those outnumber the promotions, the next edit compacts the catalog
+ * with a full rebuild, keeping evaluation order.
+ */
+public final class PromotionCatalog {
+
+    // Empty slots tolerated before compacting, regardless of catalog size
+    private static final int MIN_EMPTY_SLOTS_TO_COMPACT = 64;
+
+    private final AtomicReference<CatalogSnapshot> current;
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates a catalog at version 1 holding the promotions in evaluation order.
+     */
+    public PromotionCatalog(List<Promotion> promotions) {
+        this(CatalogSnapshot.of(1, promotions));
+    }
+
+    private PromotionCatalog(CatalogSnapshot snapshot) {
+        this.current = new AtomicReference<>(snapshot);
+    }
+
+    /**
+     * Opens a catalog image written by {@link CatalogImage#write} as a catalog at version 1.
+     * Pricing reads the mapped image directly; the first edit builds an in-memory catalog
+     * from all of its promotions.
+     */
+    public static PromotionCatalog open(Path path) throws IOException {
+        return new PromotionCatalog(CatalogSnapshot.of(1, CatalogImage.open(path)));
+    }
+
+    /**
+     * Returns the latest published snapshot.
+     */
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    public long version() {
+        return current.get().version();
+    }
+
+    public long add(Promotion promotion) {
+        return publish(List.of(CatalogChange.add(promotion)));
+    }
+
+    public long remove(PromotionId id) {
+        return publish(List.of(CatalogChange.remove(id)));
+    }
+
+    public long replace(Promotion promotion) {
+        return publish(List.of(CatalogChange.replace(promotion)));
+    }
+
+    /**
+     * Applies the changes in order and publishes the result as one new version. If any
+     * change is invalid, such as adding a duplicate ID or removing an unknown one,
+     * nothing is published.
+     *
+     * @return The version of the published snapshot
+     */
+    public long publish(List<CatalogChange> changes) {
+        if (changes == null) {
+            throw new IllegalArgumentException("Changes cannot be null");
+        }
+        synchronized (writeLock) {
+            CatalogSnapshot base = current.get();
+            CatalogSnapshot next = base;
+            for (CatalogChange change : changes) {
+                next = applied(next, change);
+            }
+            int emptySlots = next.slotCount() - next.size();
+            if (emptySlots >= MIN_EMPTY_SLOTS_TO_COMPACT && emptySlots > next.size()) {
+                next = CatalogSnapshot.of(base.version() + 1, next.promotions());
+            } else {
+                next = next.withVersion(base.version() + 1);
+            }
+            current.set(next);
+            return next.version();
+        }
+    }
+
+    /**
+     * Replaces the whole catalog, e.g. when reloading it from its source of record.
+     *
+     * @return The version of the published snapshot
+     */
+    public long reload(List<Promotion> promotions) {
+        synchronized (writeLock) {
+            CatalogSnapshot next = CatalogSnapshot.of(current.get().version() + 1, promotions);
+            current.set(next);
+            return next.version();
+        }
+    }
+
+    private static CatalogSnapshot applied(CatalogSnapshot snapshot, CatalogChange change) {
+        if (change instanceof CatalogChange.Add add) {
+            return snapshot.withAdded(add.promotion());
+        }
+        if (change instanceof CatalogChange.Remove remove) {
+            return snapshot.withRemoved(remove.id());
+        }
+        if (change instanceof CatalogChange.Replace replace) {
+            return snapshot.withReplaced(replace.promotion());
+        }
+        throw new IllegalArgumentException("Change cannot be null");
+    }
+}
@@ -3,25 +3,190 @@
 package com.promoengine.engine;
 
 import com.promoengine.domain.Cart;
+import com.promoengine.domain.CartAnalysis;
 import com.promoengine.domain.Money;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.metrics.EngineInstrumentation;
+import com.promoengine.pricing.Allocations;
 import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.DecisionReason;
+import com.promoengine.pricing.EvaluationTrace;
 import com.promoengine.pricing.PriceSummary;
 import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.PricingRequest;
+import com.promoengine.pricing.ProportionalAllocator;
+import com.promoengine.pricing.TraceBuffer;
+import com.promoengine.pricing.TraceLevel;
 import com.promoengine.promotions.Promotion;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Engines price against a {@link PromotionCatalog}. Every pricing call, batch or session
+ * reads the catalog's current snapshot once and uses it throughout, so promotions can be
+ * added, removed or replaced while carts are being priced, without pausing them; each
+ * summary records the catalog version it was priced with.
+ *
+ * Snapshots are immutable, and the only mutable state they hold, the cached validity
+ * segment, is an immutable value published through a volatile field. One engine can
+ * therefore price carts from any number of threads at once, provided its promotions
+ * are themselves safe for concurrent use.
+ */
 public class PromotionEngine {
 
-    private final List<Promotion> promotions;
+    // Chunks per available processor when splitting a batch without an explicit chunk size
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+    // Target of discounts on the whole order rather than on particular lines
+    private static final String ORDER_TARGET = "cart";
+
+    /**
+     * Time the exclusive-best search may take per cart before settling for the best combination found.
+     */
+    public static final Duration DEFAULT_SEARCH_BUDGET = Duration.ofMillis(5);
+
+    private final PromotionCatalog catalog;
+    private final StackingPolicy policy;
+    private final ExclusiveBestOptimizer optimizer;
+    private final PromotionBudgets budgets;
+    private final TraceLevel traceLevel;
+    private final double sampleRate;
+    private final EngineInstrumentation instrumentation;
+    // Lets uninstrumented engines skip reading the clock
+    private final boolean instrumented;
 
     public PromotionEngine(List<Promotion> promotions) {
+        this(promotions, StackingPolicy.STACK);
+    }
+
+    public PromotionEngine(List<Promotion> promotions, StackingPolicy policy) {
+        this(promotions, policy, DEFAULT_SEARCH_BUDGET);
+    }
+
+    /**
+     * @param promotions Promotions to evaluate, in evaluation order
+     * @param policy How discounts of several applicable promotions combine
+     * @param searchBudget Time limit per cart for the EXCLUSIVE_BEST_FOR_CUSTOMER search
+     */
+    public PromotionEngine(List<Promotion> promotions, StackingPolicy policy, Duration searchBudget) {
+        this(catalogOf(promotions), policy, searchBudget);
+    }
+
+    public PromotionEngine(PromotionCatalog catalog, StackingPolicy policy) {
+        this(catalog, policy, DEFAULT_SEARCH_BUDGET);
+    }
+
+    /**
+     * @param catalog Catalog to price against; edits published to it apply to later pricing calls
+     * @param policy How discounts of several applicable promotions combine
+     * @param searchBudget Time limit per cart for the EXCLUSIVE_BEST_FOR_CUSTOMER search
+     */
+    public PromotionEngine(PromotionCatalog catalog, StackingPolicy policy, Duration searchBudget) {
+        this(catalog, policy, searchBudget, new PromotionBudgets());
+    }
+
+    /**
+     * @param catalog Catalog to price against; edits published to it apply to later pricing calls
+     * @param policy How discounts of several applicable promotions combine
+     * @param searchBudget Time limit per cart for the EXCLUSIVE_BEST_FOR_CUSTOMER search
+     * @param budgets Spend caps, possibly shared with other engines; exhausted promotions are skipped
+     */
+    public PromotionEngine(PromotionCatalog catalog, StackingPolicy policy, Duration searchBudget,
+                           PromotionBudgets budgets) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Stacking policy cannot be null");
+        }
+        if (budgets == null) {
+            throw new IllegalArgumentException("Budgets cannot be null");
+        }
+        this.catalog = catalog;
+        this.policy = policy;
+        this.optimizer = new ExclusiveBestOptimizer(searchBudget);
+        this.budgets = budgets;
+        this.traceLevel = TraceLevel.OFF;
+        this.sampleRate = 0.0;
+        this.instrumentation = EngineInstrumentation.NOOP;
+        this.instrumented = false;
+    }
+
+    private PromotionEngine(PromotionEngine engine, TraceLevel traceLevel, double sampleRate,
+                            EngineInstrumentation instrumentation) {
+        this.catalog = engine.catalog;
+        this.policy = engine.policy;
+        this.optimizer = engine.optimizer;
+        this.budgets = engine.budgets;
+        this.traceLevel = traceLevel;
+        this.sampleRate = sampleRate;
+        this.instrumentation = instrumentation;
+        this.instrumented = instrumentation != EngineInstrumentation.NOOP;
+    }
+
+    /**
+     * Returns an engine like this one that attaches an {@link EvaluationTrace} to the
+     * summaries of the given share of pricing calls. Traces are recorded as reason codes
+     * and amounts and only turned into messages when read; with tracing off, pricing
+     * records nothing at all. Sessions are never traced.
+     *
+     * @param level OFF, SAMPLED or ALWAYS
+     * @param sampleRate Fraction of calls traced at level SAMPLED, between 0 and 1; ignored otherwise
+     */
+    public PromotionEngine withTracing(TraceLevel level, double sampleRate) {
+        if (level == null) {
+            throw new IllegalArgumentException("Trace level cannot be null");
+        }
+        if (!(sampleRate >= 0.0 && sampleRate <= 1.0)) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1, got: " + sampleRate);
+        }
+        return new PromotionEngine(this, level, sampleRate, instrumentation);
+    }
+
+    public TraceLevel traceLevel() {
+        return traceLevel;
+    }
+
+    /**
+     * Returns an engine like this one that reports every isApplicable and apply call, and
+     * every priced cart, to the instrumentation, with the time each took. Sessions report
+     * their promotion calls but not their carts. With {@link EngineInstrumentation#NOOP},
+     * the default, nothing is timed.
+     */
+    public PromotionEngine withInstrumentation(EngineInstrumentation instrumentation) {
+        if (instrumentation == null) {
+            throw new IllegalArgumentException("Instrumentation cannot be null");
+        }
+        return new PromotionEngine(this, traceLevel, sampleRate, instrumentation);
+    }
+
+    public EngineInstrumentation instrumentation() {
+        return instrumentation;
+    }
+
+    private static PromotionCatalog catalogOf(List<Promotion> promotions) {
         if (promotions == null) {
             throw new IllegalArgumentException("Promotions cannot be null");
         }
-        this.promotions = List.copyOf(promotions);
+        return new PromotionCatalog(promotions);
+    }
+
+    public PromotionCatalog catalog() {
+        return catalog;
+    }
+
+    public PromotionBudgets budgets() {
+        return budgets;
     }
 
     /**
@@ -29,8 +194,10 @@ public class PromotionEngine {
      *
      * Algorithm:
      * 1. Calculate cart subtotal
-     * 2. Filter promotions by applicability
-     * 3. Collect discounts from applicable promotions
+     * 2. Look up candidate promotions of the context's channel for the cart's SKUs and
+     *    categories that are valid at context.now, whose required tags the customer has and whose budget is not
+     *    exhausted, then filter by applicability
+     * 3. Collect discounts from applicable promotions, keeping those the stacking policy selects
      * 4. Sum all discounts
      * 5. Calculate final total (subtotal - discountTotal)
      * 6. Return comprehensive summary
@@ -46,33 +213,507 @@ public class PromotionEngine {
         if (context == null) {
             throw new IllegalArgumentException("Context cannot be null");
         }
+        CatalogSnapshot snapshot = catalog.snapshot();
+        return price(snapshot, cart, context, new PricingScratch(snapshot.slotCount()));
+    }
 
-        // 1. Calculate cart subtotal
-        Money subtotal = cart.subtotal();
+    /**
+     * Prices a cart like {@link #price} and always attaches an {@link EvaluationTrace},
+     * whatever the engine's trace level.
+     */
+    public PriceSummary explain(Cart cart, PricingContext context) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+        CatalogSnapshot snapshot = catalog.snapshot();
+        return price(snapshot, cart, context, new PricingScratch(snapshot.slotCount()), true);
+    }
 
-        // 2-3. Find applicable promotions and collect their discounts
-        List<AppliedDiscount> allDiscounts = new ArrayList<>();
-        for (Promotion promotion : promotions) {
-            if (promotion.isApplicable(cart, context)) {
-                List<AppliedDiscount> discounts = promotion.apply(cart, context);
-                allDiscounts.addAll(discounts);
+    /**
+     * Prices a cart for checkout and reserves its discounts against their promotion budgets.
+     * If a budget cannot cover its promotion's discounts, that promotion is left out and the
+     * cart is priced again, so the result only uses promotions whose discounts were reserved.
+     *
+     * @param cart The shopping cart to price
+     * @param context The pricing context (time, channel, customer)
+     * @return The price with an accepted reservation, to commit when the order is placed
+     *         or release when it is abandoned
+     * @throws IllegalStateException if a rejected budget belongs to no promotion that can
+     *         still be left out, as when a promotion attributes its discounts to another id
+     */
+    public ReservedPrice priceAndReserve(Cart cart, PricingContext context) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+        CatalogSnapshot snapshot = catalog.snapshot();
+        PricingScratch scratch = new PricingScratch(snapshot.slotCount());
+        // Each round must exclude a promotion not excluded before, so this terminates
+        while (true) {
+            PriceSummary summary = price(snapshot, cart, context, scratch);
+            BudgetReservation reservation = budgets.reserve(summary);
+            if (reservation.isAccepted()) {
+                return new ReservedPrice(summary, reservation);
+            }
+            boolean progressed = false;
+            for (PromotionId id : reservation.rejected()) {
+                int slot = snapshot.slotOf(id);
+                if (slot >= 0 && !scratch.excluded.get(slot)) {
+                    scratch.excluded.set(slot);
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                throw new IllegalStateException(
+                    "No promotion left to leave out for rejected budgets: " + reservation.rejected());
+            }
+        }
+    }
+
+    /**
+     * Prices many carts in one call, returning one summary per request in request order.
+     * Each summary equals what price would return for the same cart and context, but work
+     * that does not depend on the cart, such as resolving the promotions active at a given
+     * time, is done once per batch and working buffers are reused across carts.
+     *
+     * @param requests The carts to price with their contexts
+     * @return Pricing summaries, in the same order as the requests
+     */
+    public List<PriceSummary> priceAll(List<PricingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests cannot be null");
+        }
+        CatalogSnapshot snapshot = catalog.snapshot();
+        PricingScratch scratch = new PricingScratch(snapshot.slotCount());
+        List<PriceSummary> summaries = new ArrayList<>(requests.size());
+        for (PricingRequest request : requests) {
+            if (request == null) {
+                throw new IllegalArgumentException("Request cannot be null");
+            }
+            summaries.add(price(snapshot, request.cart(), request.context(), scratch));
+        }
+        return summaries;
+    }
+
+    /**
+     * Prices many carts in parallel on the given executor. The batch is split into
+     * contiguous chunks, a few per available processor, and each chunk is priced like
+     * {@link #priceAll(List)} with its own working buffers.
+     *
+     * @param requests The carts to price with their contexts
+     * @param executor Executor running the chunks, e.g. from {@link PricingExecutors}; not shut down
+     * @return Pricing summaries, in the same order as the requests and identical to sequential pricing
+     */
+    public List<PriceSummary> priceAll(List<PricingRequest> requests, ExecutorService executor) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests cannot be null");
+        }
+        int chunks = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_PROCESSOR;
+        return priceAll(requests, executor, Math.max(1, (requests.size() + chunks - 1) / chunks));
+    }
+
+    /**
+     * Prices many carts in parallel on the given executor, in chunks of the given size.
+     * Smaller chunks suit promotions that block, larger ones reduce scheduling overhead.
+     *
+     * @param requests The carts to price with their contexts
+     * @param executor Executor running the chunks; not shut down
+     * @param chunkSize Number of consecutive requests priced by one task
+     * @return Pricing summaries, in the same order as the requests and identical to sequential pricing
+     */
+    public List<PriceSummary> priceAll(List<PricingRequest> requests, ExecutorService executor, int chunkSize) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Requests cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        for (PricingRequest request : requests) {
+            if (request == null) {
+                throw new IllegalArgumentException("Request cannot be null");
+            }
+        }
+
+        // The whole batch is priced against one snapshot
+        CatalogSnapshot snapshot = catalog.snapshot();
+        // Each task writes a disjoint range; Future.get orders those writes before the read below
+        PriceSummary[] summaries = new PriceSummary[requests.size()];
+        List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < summaries.length; start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, summaries.length);
+            futures.add(executor.submit(() -> {
+                PricingScratch scratch = new PricingScratch(snapshot.slotCount());
+                for (int i = from; i < to; i++) {
+                    PricingRequest request = requests.get(i);
+                    summaries[i] = price(snapshot, request.cart(), request.context(), scratch);
+                }
+            }));
+        }
+        awaitAll(futures);
+        return Arrays.asList(summaries);
+    }
+
+    /**
+     * Starts an incremental pricing session for a cart that will change line by line.
+     * The session re-evaluates only the promotions affected by each change.
+     *
+     * @param cart The initial cart
+     * @param context The pricing context, fixed for the whole session
+     * @return A session whose summary equals price(cart, context), priced against the
+     *         catalog snapshot current when it starts for its whole lifetime
+     */
+    public PricingSession startSession(Cart cart, PricingContext context) {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+        return new PricingSession(this, catalog.snapshot(), cart, context);
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while pricing batch", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Batch pricing failed", cause);
+        }
+    }
+
+    /**
+     * Prices a cart against the given snapshot, as {@link PriceCache} does on a miss.
+     */
+    PriceSummary price(CatalogSnapshot snapshot, Cart cart, PricingContext context) {
+        return price(snapshot, cart, context, new PricingScratch(snapshot.slotCount()));
+    }
+
+    private PriceSummary price(CatalogSnapshot snapshot, Cart cart, PricingContext context, PricingScratch scratch) {
+        return price(snapshot, cart, context, scratch, shouldTrace());
+    }
+
+    private PriceSummary price(CatalogSnapshot snapshot, Cart cart, PricingContext context, PricingScratch scratch,
+                               boolean traced) {
+        long start = instrumented ? System.nanoTime() : 0L;
+        scratch.reset();
+        TraceBuffer trace = traced ? scratch.traceBuffer() : null;
+
+        // 1. Calculate cart subtotal; the line subtotals are kept for the promotions
+        CartAnalysis analysis = CartAnalysis.of(cart);
+        Money subtotal = analysis.subtotal();
+
+        // 2-3. Find applicable promotions and collect the discounts the policy selects
+        BitSet candidates = scratch.candidates;
+        snapshot.index().collectCandidates(analysis, context.channel(), candidates);
+        BitSet active = scratch.activeAt(snapshot.validity(), context.now());
+        int targeted = 0;
+        if (trace == null) {
+            candidates.and(active);
+            if (!scratch.excluded.isEmpty()) {
+                candidates.andNot(scratch.excluded);
+            }
+        } else {
+            // Tracing visits inactive and excluded candidates too, to record why they were skipped
+            targeted = candidates.cardinality();
+        }
+        // Under EXCLUSIVE_PRIORITY candidates are visited by priority rank, and a candidate
+        // whose conflict group already has an applied promotion is skipped unevaluated
+        boolean byPriority = policy == StackingPolicy.EXCLUSIVE_PRIORITY;
+        PriorityOrder order = byPriority ? snapshot.priorityOrder() : null;
+        BitSet visited = byPriority ? order.ranked(candidates, scratch.ranked) : candidates;
+        for (int next = visited.nextSetBit(0); next >= 0; next = visited.nextSetBit(next + 1)) {
+            int i = byPriority ? order.positionAt(next) : next;
+            if (trace != null && isFilteredOut(snapshot, i, active, scratch.excluded, trace)) {
+                continue;
+            }
+            long[] conflictMask = byPriority ? snapshot.slotAt(i).conflictMask() : null;
+            if (byPriority && scratch.isTaken(conflictMask)) {
+                if (trace != null) {
+                    trace.record(snapshot.promotionAt(i).id(), DecisionReason.OUTRANKED, 0);
+                }
+                continue;
+            }
+            List<AppliedDiscount> discounts = evaluate(snapshot, i, analysis, context, trace);
+            if (discounts != null && !discounts.isEmpty()) {
+                if (byPriority) {
+                    scratch.take(conflictMask);
+                }
+                if (trace != null) {
+                    int decision = trace.record(
+                        snapshot.promotionAt(i).id(), DecisionReason.APPLIED, totalOf(discounts));
+                    scratch.recordDecision(scratch.results.size(), decision);
+                }
+                scratch.results.put(i, discounts);
+            } else if (trace != null && discounts != null) {
+                trace.record(snapshot.promotionAt(i).id(), DecisionReason.NO_DISCOUNT, 0);
+            }
+        }
+        List<AppliedDiscount> allDiscounts = scratch.discounts;
+        BitSet chosen = select(snapshot, scratch.results, allDiscounts);
+        if (trace != null && chosen != null) {
+            for (int i = chosen.nextClearBit(0); i < scratch.results.size(); i = chosen.nextClearBit(i + 1)) {
+                trace.update(scratch.decisionOf(i), DecisionReason.NOT_SELECTED);
             }
         }
 
         // 4. Sum all discount amounts
-        Money discountTotal = allDiscounts.stream()
-            .map(AppliedDiscount::amount)
-            .reduce(Money.euros(BigDecimal.ZERO), Money::add);
+        Money discountTotal = Money.ZERO;
+        for (AppliedDiscount discount : allDiscounts) {
+            discountTotal = discountTotal.add(discount.amount());
+        }
 
         // 5. Calculate final total
         Money total = subtotal.subtract(discountTotal);
 
         // 6. Return summary
-        return new PriceSummary(subtotal, discountTotal, total, allDiscounts);
+        EvaluationTrace evaluationTrace = trace != null
+            ? trace.freeze(allDiscounts, snapshot.size() - targeted)
+            : null;
+        PriceSummary summary = new PriceSummary(
+            subtotal, discountTotal, total, allDiscounts, snapshot.version(), evaluationTrace);
+        if (instrumented) {
+            instrumentation.cartPriced(summary, System.nanoTime() - start);
+        }
+        return summary;
+    }
+
+    private boolean shouldTrace() {
+        if (traceLevel == TraceLevel.OFF) {
+            return false;
+        }
+        return traceLevel == TraceLevel.ALWAYS || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static boolean isFilteredOut(CatalogSnapshot snapshot, int position, BitSet active, BitSet excluded,
+                                         TraceBuffer trace) {
+        if (!active.get(position)) {
+            trace.record(snapshot.promotionAt(position).id(), DecisionReason.OUTSIDE_VALIDITY_WINDOW, 0);
+            return true;
+        }
+        if (excluded.get(position)) {
+            trace.record(snapshot.promotionAt(position).id(), DecisionReason.BUDGET_INSUFFICIENT, 0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates one candidate promotion, already known to be reachable from the cart and
+     * valid at context.now.
+     * @return The promotion's discounts, or null if it does not apply
+     */
+    List<AppliedDiscount> evaluate(CatalogSnapshot snapshot, int position, CartAnalysis analysis,
+                                   PricingContext context) {
+        return evaluate(snapshot, position, analysis, context, null);
+    }
+
+    private List<AppliedDiscount> evaluate(CatalogSnapshot snapshot, int position, CartAnalysis analysis,
+                                           PricingContext context, TraceBuffer trace) {
+        CatalogSnapshot.Slot slot = snapshot.slotAt(position);
+        Promotion promotion = slot.promotion();
+        if (!context.hasAllTags(slot.requiredTags())) {
+            if (trace != null) {
+                trace.record(promotion.id(), DecisionReason.CUSTOMER_NOT_ELIGIBLE, 0);
+            }
+            return null;
+        }
+        // Engines without budgets skip hashing the promotion id
+        if (!budgets.isEmpty() && budgets.isExhausted(promotion.id())) {
+            if (trace != null) {
+                trace.record(promotion.id(), DecisionReason.BUDGET_EXHAUSTED, 0);
+            }
+            return null;
+        }
+        if (instrumented) {
+            return evaluateTimed(promotion, analysis, context, trace);
+        }
+        if (!promotion.isApplicable(analysis, context)) {
+            if (trace != null) {
+                trace.record(promotion.id(), DecisionReason.CONDITIONS_NOT_MET, 0);
+            }
+            return null;
+        }
+        return allocated(promotion, analysis, promotion.apply(analysis, context));
     }
 
-    // TODO: Add promotion priority/ordering support
-    // TODO: Add promotion combination rules (STACK, EXCLUSIVE_BEST, EXCLUSIVE_PRIORITY)
-    // TODO: Consider tracking which promotions were evaluated but not applicable
-    // TODO: Consider promotion budget tracking
+    private List<AppliedDiscount> evaluateTimed(Promotion promotion, CartAnalysis analysis, PricingContext context,
+                                                TraceBuffer trace) {
+        long start = System.nanoTime();
+        boolean applicable = promotion.isApplicable(analysis, context);
+        long checked = System.nanoTime();
+        instrumentation.applicabilityChecked(promotion.id(), applicable, checked - start);
+        if (!applicable) {
+            if (trace != null) {
+                trace.record(promotion.id(), DecisionReason.CONDITIONS_NOT_MET, 0);
+            }
+            return null;
+        }
+        List<AppliedDiscount> discounts = promotion.apply(analysis, context);
+        instrumentation.discountsComputed(promotion.id(), discounts, System.nanoTime() - checked);
+        return allocated(promotion, analysis, discounts);
+    }
+
+    /**
+     * Spreads each order-level discount the promotion left unallocated across the cart lines
+     * it targets, in proportion to their subtotals, so every line knows its share on returns.
+     * Discounts with allocations and line discounts are kept as they are.
+     */
+    private static List<AppliedDiscount> allocated(Promotion promotion, CartAnalysis analysis,
+                                                   List<AppliedDiscount> discounts) {
+        List<AppliedDiscount> result = discounts;
+        int[] lines = null;
+        for (int i = 0; i < discounts.size(); i++) {
+            AppliedDiscount discount = discounts.get(i);
+            if (!ORDER_TARGET.equals(discount.target()) || !discount.allocations().isEmpty()
+                || !discount.amount().isCompact() || !analysis.subtotal().isCompact()) {
+                continue;
+            }
+            if (lines == null) {
+                lines = targetedLines(promotion, analysis);
+            }
+            Allocations allocations = ProportionalAllocator.allocate(discount.amount(), analysis, lines);
+            if (allocations.isEmpty()) {
+                continue;
+            }
+            if (result == discounts) {
+                result = new ArrayList<>(discounts);
+            }
+            result.set(i, new AppliedDiscount(
+                discount.promotionId(), discount.amount(), discount.target(), discount.details(), allocations));
+        }
+        return result;
+    }
+
+    private static int[] targetedLines(Promotion promotion, CartAnalysis analysis) {
+        Set<Sku> skus = promotion.targetSkus();
+        Set<String> categories = promotion.targetCategories();
+        int[] lines = new int[analysis.lineCount()];
+        int count = 0;
+        for (int i = 0; i < lines.length; i++) {
+            Product product = analysis.line(i).product();
+            if ((skus.isEmpty() && categories.isEmpty())
+                || skus.contains(product.sku()) || categories.contains(product.category())) {
+                lines[count++] = i;
+            }
+        }
+        return count == lines.length ? lines : Arrays.copyOf(lines, count);
+    }
+
+    /**
+     * Adds the discounts of the results the stacking policy selects, in position order.
+     * @return The indexes of the selected results, or null if all were selected
+     */
+    BitSet select(CatalogSnapshot snapshot, PromotionResults results, List<AppliedDiscount> selected) {
+        if (policy == StackingPolicy.STACK || results.size() <= 1) {
+            results.addAllTo(selected);
+            return null;
+        }
+        if (policy == StackingPolicy.EXCLUSIVE_PRIORITY) {
+            return selectByPriority(snapshot, results, selected);
+        }
+        long[] amounts = new long[results.size()];
+        long[][] groups = new long[results.size()][];
+        for (int i = 0; i < results.size(); i++) {
+            amounts[i] = saturatedCents(results.discountsAt(i));
+            groups[i] = snapshot.slotAt(results.positionAt(i)).conflictMask();
+        }
+        BitSet chosen = optimizer.optimize(amounts, groups).chosen();
+        for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) {
+            selected.addAll(results.discountsAt(i));
+        }
+        return chosen;
+    }
+
+    /**
+     * Keeps results from the highest priority down, skipping any that shares a conflict group
+     * with one kept, and adds the kept discounts in position order. Results are sorted here
+     * because pricing adds them by priority while pricing sessions add them by position.
+     */
+    private static BitSet selectByPriority(CatalogSnapshot snapshot, PromotionResults results,
+                                           List<AppliedDiscount> selected) {
+        PriorityOrder order = snapshot.priorityOrder();
+        int count = results.size();
+        // High word: the sort key; low word: the result index
+        long[] byRank = new long[count];
+        for (int i = 0; i < count; i++) {
+            byRank[i] = ((long) order.rankOf(results.positionAt(i)) << 32) | i;
+        }
+        Arrays.sort(byRank);
+        BitSet chosen = new BitSet(count);
+        long[] taken = new long[0];
+        for (long entry : byRank) {
+            int i = (int) entry;
+            long[] mask = snapshot.slotAt(results.positionAt(i)).conflictMask();
+            if (!ConflictGroups.intersect(mask, taken)) {
+                chosen.set(i);
+                taken = ConflictGroups.union(taken, mask);
+            }
+        }
+        long[] byPosition = new long[chosen.cardinality()];
+        int kept = 0;
+        for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) {
+            byPosition[kept++] = ((long) results.positionAt(i) << 32) | i;
+        }
+        Arrays.sort(byPosition);
+        for (long entry : byPosition) {
+            selected.addAll(results.discountsAt((int) entry));
+        }
+        return kept == count ? null : chosen;
+    }
+
+    StackingPolicy policy() {
+        return policy;
+    }
+
+    private static Money totalOf(List<AppliedDiscount> discounts) {
+        Money total = Money.ZERO;
+        for (AppliedDiscount discount : discounts) {
+            total = total.add(discount.amount());
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total in cents, clamped to the long range for amounts beyond it.
+     */
+    private static long saturatedCents(List<AppliedDiscount> discounts) {
+        long total = 0;
+        for (AppliedDiscount discount : discounts) {
+            Money amount = discount.amount();
+            long sum = amount.isCompact() ? total + amount.toCents() : 0;
+            // Overflow iff both operands have the same sign and the result has the other one
+            if (!amount.isCompact() || ((total ^ sum) & (amount.toCents() ^ sum)) < 0) {
+                // Rare enough to redo exactly
+                Money exact = totalOf(discounts);
+                if (exact.isCompact()) {
+                    return exact.toCents();
+                }
+                return exact.amount().signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+            }
+            total = sum;
+        }
+        return total;
+    }
 }
@@ -0,0 +1,220 @@
+// ABOUTME: Inverted index from SKU and product category to the promotions that target them.
+// ABOUTME: Narrows the promotions evaluated for a cart to those reachable from its lines plus cart-wide ones.
+package com.promoengine.engine;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.IdDictionary;
+import com.promoengine.domain.Sku;
+import com.promoengine.promotions.Promotion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index over a list of promotion slots. Promotions are referred to by their
+ * slot position, so candidate sets are returned as bit sets whose iteration order
+ * matches registration order. Empty slots, left behind by removed promotions, are
+ * never candidates.
+ *
+ * SKUs and categories are looked up by their {@link IdDictionary} id in dense tables,
+ * with the ids of a cart's lines taken from its analysis. The tables are chunked, so
+ * {@link #with} derives the index for a changed slot by copying only the chunks holding
+ * that slot's targets.
+ */
+final class PromotionIndex {
+
+    private final int size;
+    private final DenseTable<int[]> bySku;
+    private final DenseTable<int[]> byCategory;
+    private final int[] cartWide;
+
+    PromotionIndex(List<Promotion> promotions) {
+        Map<Integer, List<Integer>> skuPositions = new HashMap<>();
+        Map<Integer, List<Integer>> categoryPositions = new HashMap<>();
+        List<Integer> cartWidePositions = new ArrayList<>();
+
+        for (int position = 0; position < promotions.size(); position++) {
+            Promotion promotion = promotions.get(position);
+            if (promotion == null) {
+                continue;
+            }
+            if (isCartWide(promotion)) {
+                cartWidePositions.add(position);
+                continue;
+            }
+            for (Sku sku : promotion.targetSkus()) {
+                skuPositions.computeIfAbsent(IdDictionary.skus().idOf(sku), key -> new ArrayList<>()).add(position);
+            }
+            for (String category : promotion.targetCategories()) {
+                categoryPositions.computeIfAbsent(IdDictionary.categories().idOf(category), key -> new ArrayList<>())
+                    .add(position);
+            }
+        }
+
+        this.size = promotions.size();
+        this.bySku = DenseTable.of(freeze(skuPositions));
+        this.byCategory = DenseTable.of(freeze(categoryPositions));
+        this.cartWide = toArray(cartWidePositions);
+    }
+
+    private PromotionIndex(int size, DenseTable<int[]> bySku, DenseTable<int[]> byCategory, int[] cartWide) {
+        this.size = size;
+        this.bySku = bySku;
+        this.byCategory = byCategory;
+        this.cartWide = cartWide;
+    }
+
+    /**
+     * Returns the index with the slot at the position changed from one promotion to another.
+     * Either may be null for an empty slot; a position equal to size appends a slot.
+     */
+    PromotionIndex with(int position, Promotion previous, Promotion next) {
+        Set<Integer> previousSkus = previous != null ? skuIds(previous) : Set.of();
+        Set<Integer> nextSkus = next != null ? skuIds(next) : Set.of();
+        Set<Integer> previousCategories = previous != null ? categoryIds(previous) : Set.of();
+        Set<Integer> nextCategories = next != null ? categoryIds(next) : Set.of();
+        boolean wasCartWide = previous != null && isCartWide(previous);
+        boolean isCartWide = next != null && isCartWide(next);
+
+        int[] updatedCartWide = cartWide;
+        if (wasCartWide && !isCartWide) {
+            updatedCartWide = without(cartWide, position);
+        } else if (isCartWide && !wasCartWide) {
+            updatedCartWide = with(cartWide, position);
+        }
+        return new PromotionIndex(
+            Math.max(size, position + 1),
+            bySku.withAll(changes(bySku, position, previousSkus, nextSkus)),
+            byCategory.withAll(changes(byCategory, position, previousCategories, nextCategories)),
+            updatedCartWide
+        );
+    }
+
+    /**
+     * Returns the positions of the promotions that may apply to the cart: those targeting
+     * a SKU or category of one of its lines, plus every cart-wide promotion.
+     */
+    BitSet candidatesFor(CartAnalysis cart) {
+        BitSet candidates = new BitSet(size);
+        collectCandidates(cart, candidates);
+        return candidates;
+    }
+
+    /**
+     * Sets the candidate positions for the cart in the given bit set.
+     */
+    void collectCandidates(CartAnalysis cart, BitSet candidates) {
+        for (int position : cartWide) {
+            candidates.set(position);
+        }
+        for (int line = 0; line < cart.lineCount(); line++) {
+            mark(candidates, bySku.get(cart.skuId(line)));
+            mark(candidates, byCategory.get(cart.categoryId(line)));
+        }
+    }
+
+    /**
+     * Sets the positions of the promotions whose outcome may change when a line with the
+     * given SKU and category is added, removed or changed: those targeting the SKU or the
+     * category, plus every cart-wide promotion.
+     */
+    void collectAffected(Sku sku, String category, BitSet affected) {
+        for (int position : cartWide) {
+            affected.set(position);
+        }
+        mark(affected, bySku.get(IdDictionary.skus().find(sku)));
+        mark(affected, byCategory.get(IdDictionary.categories().find(category)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    DenseTable<int[]> bySku() {
+        return bySku;
+    }
+
+    private static boolean isCartWide(Promotion promotion) {
+        return promotion.targetSkus().isEmpty() && promotion.targetCategories().isEmpty();
+    }
+
+    private static Set<Integer> skuIds(Promotion promotion) {
+        Set<Integer> ids = new HashSet<>();
+        for (Sku sku : promotion.targetSkus()) {
+            ids.add(IdDictionary.skus().idOf(sku));
+        }
+        return ids;
+    }
+
+    private static Set<Integer> categoryIds(Promotion promotion) {
+        Set<Integer> ids = new HashSet<>();
+        for (String category : promotion.targetCategories()) {
+            ids.add(IdDictionary.categories().idOf(category));
+        }
+        return ids;
+    }
+
+    private static Map<Integer, int[]> changes(DenseTable<int[]> table, int position,
+                                               Set<Integer> previous, Set<Integer> next) {
+        Map<Integer, int[]> changes = new HashMap<>();
+        for (Integer key : previous) {
+            if (!next.contains(key)) {
+                int[] remaining = without(table.get(key), position);
+                changes.put(key, remaining.length == 0 ? null : remaining);
+            }
+        }
+        for (Integer key : next) {
+            if (!previous.contains(key)) {
+                int[] positions = table.get(key);
+                changes.put(key, with(positions != null ? positions : new int[0], position));
+            }
+        }
+        return changes;
+    }
+
+    private static int[] with(int[] positions, int position) {
+        int[] updated = Arrays.copyOf(positions, positions.length + 1);
+        updated[positions.length] = position;
+        return updated;
+    }
+
+    private static int[] without(int[] positions, int position) {
+        int[] updated = new int[positions.length - 1];
+        int count = 0;
+        for (int candidate : positions) {
+            if (candidate != position) {
+                updated[count++] = candidate;
+            }
+        }
+        return updated;
+    }
+
+    private static void mark(BitSet candidates, int[] positions) {
+        if (positions == null) {
+            return;
+        }
+        for (int position : positions) {
+            candidates.set(position);
+        }
+    }
+
+    private static Map<Integer, int[]> freeze(Map<Integer, List<Integer>> positions) {
+        Map<Integer, int[]> frozen = new HashMap<>(positions.size() * 2);
+        positions.forEach((key, list) -> frozen.put(key, toArray(list)));
+        return frozen;
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = positions.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,50 @@
+// ABOUTME: The discounts produced by each applicable promotion during one pricing call.
+// ABOUTME: Kept per promotion so the stacking policy can choose among whole promotions.
+package com.promoengine.engine;
+
+import com.promoengine.pricing.AppliedDiscount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable: cleared between pricing calls. Positions are added in increasing order, except
+ * under EXCLUSIVE_PRIORITY, where they are added in priority order.
+ */
+final class PromotionResults {
+
+    private int[] positions = new int[16];
+    private final List<List<AppliedDiscount>> discounts = new ArrayList<>();
+
+    void put(int position, List<AppliedDiscount> promotionDiscounts) {
+        int size = discounts.size();
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        positions[size] = position;
+        discounts.add(promotionDiscounts);
+    }
+
+    int size() {
+        return discounts.size();
+    }
+
+    int positionAt(int i) {
+        return positions[i];
+    }
+
+    List<AppliedDiscount> discountsAt(int i) {
+        return discounts.get(i);
+    }
+
+    void addAllTo(List<AppliedDiscount> target) {
+        for (List<AppliedDiscount> promotionDiscounts : discounts) {
+            target.addAll(promotionDiscounts);
+        }
+    }
+
+    void clear() {
+        discounts.clear();
+    }
+}
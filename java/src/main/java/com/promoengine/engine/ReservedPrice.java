@@ -0,0 +1,21 @@
+// ABOUTME: A cart price whose discounts are reserved against their promotion budgets.
+// ABOUTME: Returned by PromotionEngine.priceAndReserve for checkout.
+package com.promoengine.engine;
+
+import com.promoengine.pricing.PriceSummary;
+
+/**
+ * @param summary Price of the cart, using only promotions whose budgets covered their discounts
+ * @param reservation Accepted reservation of the summary's budgeted discounts, to commit or release
+ */
+public record ReservedPrice(PriceSummary summary, BudgetReservation reservation) {
+
+    public ReservedPrice {
+        if (summary == null) {
+            throw new IllegalArgumentException("Summary cannot be null");
+        }
+        if (reservation == null) {
+            throw new IllegalArgumentException("Reservation cannot be null");
+        }
+    }
+}
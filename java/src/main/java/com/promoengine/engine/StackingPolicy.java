@@ -0,0 +1,23 @@
+// ABOUTME: Policies deciding which applicable promotions' discounts end up in the price.
+// ABOUTME: Exclusive policies use the promotions' conflict groups to decide what may combine.
+package com.promoengine.engine;
+
+public enum StackingPolicy {
+    /**
+     * Every applicable promotion applies.
+     */
+    STACK,
+
+    /**
+     * Applies the combination of applicable promotions with the largest total discount
+     * in which no two promotions share a conflict group.
+     */
+    EXCLUSIVE_BEST_FOR_CUSTOMER,
+
+    /**
+     * Applies applicable promotions from the highest priority down, skipping any that shares
+     * a conflict group with one already applied. A conflict group's lower-priority promotions
+     * are not evaluated once one of it applies.
+     */
+    EXCLUSIVE_PRIORITY
+}
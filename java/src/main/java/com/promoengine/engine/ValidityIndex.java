@@ -0,0 +1,337 @@
+// ABOUTME: Interval index over promotion validity windows answering "which promotions are active at t".
+// ABOUTME: Caches the active set until the next window boundary is crossed.
+package com.promoengine.engine;
+
+import com.promoengine.domain.ValidityWindow;
+import com.promoengine.promotions.Promotion;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Promotions with an unbounded window are always active. The others are stored as an
+ * implicit interval tree: windows sorted by start, where each node of the implicit
+ * binary tree over the sorted array also records the greatest end in its subtree.
+ * A stabbing query visits O(log n + k) nodes for k active windows.
+ *
+ * All window boundaries are also kept sorted, so the segment between two consecutive
+ * boundaries can be found by binary search. The active set is constant within a segment,
+ * which is what makes caching the last answer safe.
+ */
+final class ValidityIndex {
+
+    private final int size;
+    private final BitSet alwaysActive;
+    private final Instant[] starts;
+    private final Instant[] ends;
+    private final int[] positions;
+    private final Instant[] maxEnds;
+    private final Instant[] boundaries;
+
+    private volatile Segment cached;
+
+    ValidityIndex(List<Promotion> promotions) {
+        this.size = promotions.size();
+        this.alwaysActive = new BitSet(size);
+
+        List<Integer> bounded = new ArrayList<>();
+        for (int position = 0; position < size; position++) {
+            Promotion promotion = promotions.get(position);
+            if (promotion == null) {
+                continue;
+            }
+            if (promotion.validity().isUnbounded()) {
+                alwaysActive.set(position);
+            } else {
+                bounded.add(position);
+            }
+        }
+
+        Integer[] sorted = bounded.toArray(new Integer[0]);
+        Arrays.sort(sorted, Comparator.comparing(position -> startOf(promotions.get(position).validity())));
+
+        int count = sorted.length;
+        this.starts = new Instant[count];
+        this.ends = new Instant[count];
+        this.positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            ValidityWindow window = promotions.get(sorted[i]).validity();
+            starts[i] = startOf(window);
+            ends[i] = endOf(window);
+            positions[i] = sorted[i];
+        }
+        this.maxEnds = new Instant[count];
+        computeMaxEnds(0, count - 1);
+        this.boundaries = boundariesOf(starts, ends);
+    }
+
+    private ValidityIndex(int size, BitSet alwaysActive, Instant[] starts, Instant[] ends, int[] positions) {
+        this.size = size;
+        this.alwaysActive = alwaysActive;
+        this.starts = starts;
+        this.ends = ends;
+        this.positions = positions;
+        this.maxEnds = new Instant[starts.length];
+        computeMaxEnds(0, starts.length - 1);
+        this.boundaries = boundariesOf(starts, ends);
+    }
+
+    private ValidityIndex(int size, BitSet alwaysActive, Instant[] starts, Instant[] ends, int[] positions,
+                          Instant[] boundaries) {
+        this.size = size;
+        this.alwaysActive = alwaysActive;
+        this.starts = starts;
+        this.ends = ends;
+        this.positions = positions;
+        this.maxEnds = new Instant[starts.length];
+        computeMaxEnds(0, starts.length - 1);
+        this.boundaries = boundaries;
+    }
+
+    private ValidityIndex(ValidityIndex bounded, int size, BitSet alwaysActive) {
+        this.size = size;
+        this.alwaysActive = alwaysActive;
+        this.starts = bounded.starts;
+        this.ends = bounded.ends;
+        this.positions = bounded.positions;
+        this.maxEnds = bounded.maxEnds;
+        this.boundaries = bounded.boundaries;
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo}. The windows and boundaries are stored
+     * sorted, so only the per-node maximum ends are recomputed.
+     */
+    static ValidityIndex read(ByteBuffer image, int offset) {
+        int at = offset;
+        int size = image.getInt(at);
+        long[] words = new long[image.getInt(at + 4)];
+        at += 8;
+        for (int i = 0; i < words.length; i++, at += 8) {
+            words[i] = image.getLong(at);
+        }
+        int count = image.getInt(at);
+        at += 4;
+        Instant[] starts = new Instant[count];
+        Instant[] ends = new Instant[count];
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = CatalogImage.instantAt(image, at);
+            ends[i] = CatalogImage.instantAt(image, at + CatalogImage.INSTANT_BYTES);
+            positions[i] = image.getInt(at + 2 * CatalogImage.INSTANT_BYTES);
+            at += 2 * CatalogImage.INSTANT_BYTES + 4;
+        }
+        Instant[] boundaries = new Instant[image.getInt(at)];
+        at += 4;
+        for (int i = 0; i < boundaries.length; i++, at += CatalogImage.INSTANT_BYTES) {
+            boundaries[i] = CatalogImage.instantAt(image, at);
+        }
+        return new ValidityIndex(size, BitSet.valueOf(words), starts, ends, positions, boundaries);
+    }
+
+    /**
+     * Writes the always-active set, the windows in start order and the sorted boundaries.
+     */
+    void writeTo(CatalogImage.Output out) {
+        out.putInt(size);
+        long[] words = alwaysActive.toLongArray();
+        out.putInt(words.length);
+        for (long word : words) {
+            out.putLong(word);
+        }
+        out.putInt(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            out.putInstant(starts[i]);
+            out.putInstant(ends[i]);
+            out.putInt(positions[i]);
+        }
+        out.putInt(boundaries.length);
+        for (Instant boundary : boundaries) {
+            out.putInstant(boundary);
+        }
+    }
+
+    /**
+     * Returns the index with the slot at the position changed from one window to another.
+     * Either may be null for an empty slot; a position equal to size appends a slot.
+     * The interval tree is shared unless a bounded window is involved, and this index
+     * itself, with its cached segment, is returned when nothing changes.
+     */
+    ValidityIndex with(int position, ValidityWindow previous, ValidityWindow next) {
+        int updatedSize = Math.max(size, position + 1);
+        if (previous != null && previous.equals(next) && updatedSize == size) {
+            return this;
+        }
+        BitSet updatedAlwaysActive = (BitSet) alwaysActive.clone();
+        updatedAlwaysActive.set(position, next != null && next.isUnbounded());
+
+        boolean previousBounded = previous != null && !previous.isUnbounded();
+        boolean nextBounded = next != null && !next.isUnbounded();
+        if (!previousBounded && !nextBounded) {
+            return new ValidityIndex(this, updatedSize, updatedAlwaysActive);
+        }
+
+        // Rebuild the sorted bounded windows with the slot removed and reinserted
+        int count = starts.length - (previousBounded ? 1 : 0) + (nextBounded ? 1 : 0);
+        Instant[] updatedStarts = new Instant[count];
+        Instant[] updatedEnds = new Instant[count];
+        int[] updatedPositions = new int[count];
+        Instant nextStart = nextBounded ? startOf(next) : null;
+        int j = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (positions[i] == position) {
+                continue;
+            }
+            if (nextStart != null && starts[i].isAfter(nextStart)) {
+                updatedStarts[j] = nextStart;
+                updatedEnds[j] = endOf(next);
+                updatedPositions[j++] = position;
+                nextStart = null;
+            }
+            updatedStarts[j] = starts[i];
+            updatedEnds[j] = ends[i];
+            updatedPositions[j++] = positions[i];
+        }
+        if (nextStart != null) {
+            updatedStarts[j] = nextStart;
+            updatedEnds[j] = endOf(next);
+            updatedPositions[j] = position;
+        }
+        return new ValidityIndex(updatedSize, updatedAlwaysActive, updatedStarts, updatedEnds, updatedPositions);
+    }
+
+    /**
+     * Returns the positions of the promotions whose window contains the instant.
+     * The returned set is shared and must not be modified.
+     */
+    BitSet activeAt(Instant now) {
+        return segmentAt(now).active();
+    }
+
+    /**
+     * Returns the segment between window boundaries that contains the instant.
+     */
+    Segment segmentAt(Instant now) {
+        Segment segment = cached;
+        if (segment == null || !segment.contains(now)) {
+            segment = computeSegment(now);
+            cached = segment;
+        }
+        return segment;
+    }
+
+    /**
+     * Numbers the segments between window boundaries in time order; two instants with the
+     * same number have the same active set.
+     */
+    int segmentNumberAt(Instant now) {
+        return firstBoundaryAfter(now);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Segment computeSegment(Instant now) {
+        // Index of the first boundary strictly after now
+        int upper = firstBoundaryAfter(now);
+        Instant segmentStart = upper > 0 ? boundaries[upper - 1] : null;
+        Instant segmentEnd = upper < boundaries.length ? boundaries[upper] : null;
+
+        BitSet active = (BitSet) alwaysActive.clone();
+        stab(0, starts.length - 1, now, active);
+        return new Segment(segmentStart, segmentEnd, active);
+    }
+
+    private int firstBoundaryAfter(Instant now) {
+        int lo = 0;
+        int hi = boundaries.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (boundaries[mid].isAfter(now)) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private void stab(int lo, int hi, Instant now, BitSet active) {
+        if (lo > hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        // No window in this subtree ends after now
+        if (!maxEnds[mid].isAfter(now)) {
+            return;
+        }
+        stab(lo, mid - 1, now, active);
+        // Windows right of mid start no earlier than mid does
+        if (starts[mid].isAfter(now)) {
+            return;
+        }
+        if (ends[mid].isAfter(now)) {
+            active.set(positions[mid]);
+        }
+        stab(mid + 1, hi, now, active);
+    }
+
+    private Instant computeMaxEnds(int lo, int hi) {
+        if (lo > hi) {
+            return Instant.MIN;
+        }
+        int mid = (lo + hi) >>> 1;
+        Instant max = ends[mid];
+        Instant left = computeMaxEnds(lo, mid - 1);
+        Instant right = computeMaxEnds(mid + 1, hi);
+        if (left.isAfter(max)) {
+            max = left;
+        }
+        if (right.isAfter(max)) {
+            max = right;
+        }
+        maxEnds[mid] = max;
+        return max;
+    }
+
+    private static Instant[] boundariesOf(Instant[] starts, Instant[] ends) {
+        TreeSet<Instant> boundaries = new TreeSet<>();
+        for (int i = 0; i < starts.length; i++) {
+            // Open ends are stored as MIN and MAX and are not boundaries
+            if (!starts[i].equals(Instant.MIN)) {
+                boundaries.add(starts[i]);
+            }
+            if (!ends[i].equals(Instant.MAX)) {
+                boundaries.add(ends[i]);
+            }
+        }
+        return boundaries.toArray(new Instant[0]);
+    }
+
+    private static Instant startOf(ValidityWindow window) {
+        return window.validFrom() != null ? window.validFrom() : Instant.MIN;
+    }
+
+    private static Instant endOf(ValidityWindow window) {
+        return window.validTo() != null ? window.validTo() : Instant.MAX;
+    }
+
+    /**
+     * The active set for [start, end); a null bound is open.
+     * The active set is shared and must not be modified.
+     */
+    record Segment(Instant start, Instant end, BitSet active) {
+
+        boolean contains(Instant now) {
+            return (start == null || !now.isBefore(start))
+                && (end == null || now.isBefore(end));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// ABOUTME: Source of carts read one at a time from a feed, such as a CSV export.
+// ABOUTME: Implementations parse lazily so feeds larger than memory can be priced.
+package com.promoengine.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Read from a single thread; implementations need not be thread-safe.
+ */
+public interface CartReader extends Closeable {
+
+    /**
+     * Reads the next cart.
+     * @return The cart, or null at the end of the feed
+     * @throws IllegalArgumentException if the feed is malformed
+     */
+    CartRecord next() throws IOException;
+}
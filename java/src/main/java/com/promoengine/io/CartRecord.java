@@ -0,0 +1,17 @@
+// ABOUTME: One cart read from a feed, with the identifier it carries in the export.
+// ABOUTME: The identifier is echoed in the output so priced results can be joined back to their source.
+package com.promoengine.io;
+
+import com.promoengine.pricing.PricingRequest;
+
+public record CartRecord(String id, PricingRequest request) {
+
+    public CartRecord {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Cart ID cannot be null or empty");
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("Request cannot be null");
+        }
+    }
+}
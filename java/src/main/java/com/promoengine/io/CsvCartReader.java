@@ -0,0 +1,202 @@
+// ABOUTME: Reads carts lazily from a CSV export with one row per cart line.
+// ABOUTME: Consecutive rows with the same cart ID form one cart; the context comes from its first row.
+package com.promoengine.io;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Product;
+import com.promoengine.domain.Quantity;
+import com.promoengine.domain.Sku;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.PricingRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Columns, in order:
+ * <pre>
+ * cart_id,timestamp,channel,customer_id,customer_tags,sku,name,category,quantity,unit_price
+ * </pre>
+ * The timestamp is ISO-8601, customer tags are separated by '|', and the unit price is in
+ * euros, e.g. 19.99. A first row starting with the column name cart_id is skipped as a header.
+ * Fields may be double-quoted, with "" for a quote inside; quoted fields cannot span lines.
+ * Only one row is held in memory beyond the cart being assembled.
+ */
+public final class CsvCartReader implements CartReader {
+
+    static final String HEADER = "cart_id,timestamp,channel,customer_id,customer_tags,sku,name,category,quantity,unit_price";
+
+    private static final int COLUMNS = 10;
+
+    private final BufferedReader in;
+    private String[] pending;
+    private int lineNumber;
+    private boolean started;
+    // Consecutive carts of one customer usually repeat the tags, so the parsed set is reused
+    private String lastTags;
+    private Set<String> lastTagSet = Set.of();
+
+    public CsvCartReader(Reader in) {
+        if (in == null) {
+            throw new IllegalArgumentException("Reader cannot be null");
+        }
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in, 1 << 16);
+    }
+
+    public static CsvCartReader open(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        return new CsvCartReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public CartRecord next() throws IOException {
+        String[] first = pending != null ? pending : readRow();
+        pending = null;
+        if (first == null) {
+            return null;
+        }
+        String id = first[0];
+        int firstLine = lineNumber;
+        PricingContext context = contextOf(first);
+        List<LineItem> lines = new ArrayList<>();
+        lines.add(lineOf(first));
+        String[] row;
+        while ((row = readRow()) != null) {
+            if (!row[0].equals(id)) {
+                pending = row;
+                break;
+            }
+            lines.add(lineOf(row));
+        }
+        try {
+            return new CartRecord(id, new PricingRequest(new Cart(lines), context));
+        } catch (IllegalArgumentException e) {
+            throw malformed(firstLine, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String[] readRow() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isEmpty());
+        String[] fields = split(line);
+        if (!started) {
+            started = true;
+            if (fields[0].equals("cart_id")) {
+                return readRow();
+            }
+        }
+        return fields;
+    }
+
+    private String[] split(String line) {
+        String[] fields = new String[COLUMNS];
+        int field = 0;
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            if (field == COLUMNS) {
+                throw malformed(lineNumber, "expected " + COLUMNS + " fields");
+            }
+            if (i < length && line.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw malformed(lineNumber, "unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            value.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        value.append(c);
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw malformed(lineNumber, "unexpected character after quoted field");
+                }
+                fields[field++] = value.toString();
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields[field++] = line.substring(i, end);
+                i = end;
+            }
+            if (i >= length) {
+                break;
+            }
+            i++;
+        }
+        if (field != COLUMNS) {
+            throw malformed(lineNumber, "expected " + COLUMNS + " fields, got " + field);
+        }
+        return fields;
+    }
+
+    private PricingContext contextOf(String[] row) {
+        try {
+            return new PricingContext(Instant.parse(row[1]), row[2], row[3], tagsOf(row[4]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw malformed(lineNumber, e.getMessage());
+        }
+    }
+
+    private Set<String> tagsOf(String field) {
+        if (!field.equals(lastTags)) {
+            Set<String> tags = new HashSet<>();
+            for (String tag : field.split("\\|")) {
+                if (!tag.isEmpty()) {
+                    tags.add(tag);
+                }
+            }
+            lastTags = field;
+            lastTagSet = Set.copyOf(tags);
+        }
+        return lastTagSet;
+    }
+
+    private LineItem lineOf(String[] row) {
+        try {
+            Product product = new Product(new Sku(row[5]), row[6], row[7]);
+            return new LineItem(product, new Quantity(Integer.parseInt(row[8])), Money.euros(row[9]));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException from the quantity and the price
+            throw malformed(lineNumber, e.getMessage());
+        }
+    }
+
+    private static IllegalArgumentException malformed(int lineNumber, String reason) {
+        return new IllegalArgumentException("Malformed cart row at line " + lineNumber + ": " + reason);
+    }
+}
@@ -0,0 +1,108 @@
+// ABOUTME: Writes priced carts as CSV rows of totals, catalog version and applied promotions.
+// ABOUTME: One row per cart, after a header row, in the order the carts were priced.
+package com.promoengine.io;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Columns, in order:
+ * <pre>
+ * cart_id,subtotal,discount_total,total,catalog_version,promotions
+ * </pre>
+ * Amounts are in euros with two decimals; promotions lists the IDs of the promotions whose
+ * discounts were applied, each once, separated by '|'.
+ */
+public final class CsvSummaryWriter implements SummaryWriter {
+
+    static final String HEADER = "cart_id,subtotal,discount_total,total,catalog_version,promotions";
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(128);
+    private boolean started;
+
+    public CsvSummaryWriter(Writer out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+    }
+
+    public static CsvSummaryWriter create(Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path cannot be null");
+        }
+        return new CsvSummaryWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(PricedCart pricedCart) throws IOException {
+        if (pricedCart == null) {
+            throw new IllegalArgumentException("Priced cart cannot be null");
+        }
+        if (!started) {
+            started = true;
+            out.write(HEADER);
+            out.write('\n');
+        }
+        PriceSummary summary = pricedCart.summary();
+        row.setLength(0);
+        appendField(pricedCart.id());
+        row.append(',').append(summary.subtotal().amount().toPlainString());
+        row.append(',').append(summary.discountTotal().amount().toPlainString());
+        row.append(',').append(summary.total().amount().toPlainString());
+        row.append(',').append(summary.catalogVersion());
+        row.append(',');
+        appendField(promotionsOf(summary.appliedDiscounts()));
+        row.append('\n');
+        out.append(row);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static String promotionsOf(List<AppliedDiscount> discounts) {
+        if (discounts.isEmpty()) {
+            return "";
+        }
+        StringBuilder promotions = new StringBuilder();
+        PromotionId previous = null;
+        for (AppliedDiscount discount : discounts) {
+            PromotionId id = discount.promotionId();
+            // A promotion's discounts are adjacent, so comparing with the previous one deduplicates
+            if (id.equals(previous)) {
+                continue;
+            }
+            if (previous != null) {
+                promotions.append('|');
+            }
+            promotions.append(id.value());
+            previous = id;
+        }
+        return promotions.toString();
+    }
+
+    private void appendField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            row.append(value);
+            return;
+        }
+        row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,17 @@
+// ABOUTME: Pricing result for one cart of a feed, keyed by the cart's identifier in the export.
+// ABOUTME: Unit of output written by a SummaryWriter.
+package com.promoengine.io;
+
+import com.promoengine.pricing.PriceSummary;
+
+public record PricedCart(String id, PriceSummary summary) {
+
+    public PricedCart {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Cart ID cannot be null or empty");
+        }
+        if (summary == null) {
+            throw new IllegalArgumentException("Summary cannot be null");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+// ABOUTME: Prices a feed of carts too large for memory: reads, prices and writes in overlapping stages.
+// ABOUTME: A bounded queue of in-flight batches applies back-pressure to the reader; results keep input order.
+package com.promoengine.io;
+
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The calling thread reads carts and groups them into batches. Each batch is priced on the
+ * executor with {@link PromotionEngine#priceAll(List)}, so batches reuse working buffers and
+ * several are priced in parallel. A dedicated writer thread waits for the batches in the order
+ * they were read and writes their results. At most maxBatchesInFlight batches are read but not
+ * yet written: once that many are queued the reader blocks until the writer catches up, so
+ * memory stays bounded however large the feed is and however slow the sink.
+ *
+ * The first failure of any stage stops reading; batches already priced are written unless the
+ * writer itself failed, and the failure is rethrown from {@link #run}. The reader and writer
+ * are not closed.
+ */
+public final class StreamingPricer {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    // Marks the end of the feed in the queue of in-flight batches
+    private static final Future<List<PricedCart>> END = CompletableFuture.completedFuture(List.of());
+
+    private final PromotionEngine engine;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+
+    /**
+     * Uses batches of {@link #DEFAULT_BATCH_SIZE} carts and allows two batches in flight per processor.
+     */
+    public StreamingPricer(PromotionEngine engine, ExecutorService executor) {
+        this(engine, executor, DEFAULT_BATCH_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param executor Executor pricing the batches, e.g. from PricingExecutors; not shut down
+     * @param batchSize Number of consecutive carts priced by one task
+     * @param maxBatchesInFlight Batches read but not yet written before the reader waits
+     */
+    public StreamingPricer(PromotionEngine engine, ExecutorService executor, int batchSize, int maxBatchesInFlight) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, got: " + batchSize);
+        }
+        if (maxBatchesInFlight < 1) {
+            throw new IllegalArgumentException("Batches in flight must be positive, got: " + maxBatchesInFlight);
+        }
+        this.engine = engine;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = maxBatchesInFlight;
+    }
+
+    /**
+     * Prices every cart of the reader and writes the results in read order, then flushes the writer.
+     * @return The number of carts and lines priced and the time taken
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if the feed is malformed
+     */
+    public StreamingReport run(CartReader reader, SummaryWriter writer) throws IOException {
+        if (reader == null) {
+            throw new IllegalArgumentException("Reader cannot be null");
+        }
+        if (writer == null) {
+            throw new IllegalArgumentException("Writer cannot be null");
+        }
+        long start = System.nanoTime();
+        BlockingQueue<Future<List<PricedCart>>> inFlight = new ArrayBlockingQueue<>(maxBatchesInFlight);
+        WriterStage stage = new WriterStage(inFlight, writer);
+        Thread writerThread = new Thread(stage, "streaming-pricer-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        long carts = 0;
+        long lines = 0;
+        Throwable readFailure = null;
+        try {
+            try {
+                List<CartRecord> batch = new ArrayList<>(batchSize);
+                CartRecord record;
+                while (stage.failure == null && (record = reader.next()) != null) {
+                    batch.add(record);
+                    carts++;
+                    lines += record.request().cart().lines().size();
+                    if (batch.size() == batchSize) {
+                        inFlight.put(submit(batch));
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty() && stage.failure == null) {
+                    inFlight.put(submit(batch));
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                readFailure = e;
+            }
+            inFlight.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            for (Future<List<PricedCart>> batch : inFlight) {
+                batch.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while streaming carts", e);
+        }
+
+        Throwable failure = readFailure != null ? readFailure : stage.failure;
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new IllegalStateException("Streaming pricing failed", failure);
+        }
+        return new StreamingReport(carts, lines, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private Future<List<PricedCart>> submit(List<CartRecord> batch) {
+        return executor.submit(() -> {
+            List<PricingRequest> requests = new ArrayList<>(batch.size());
+            for (CartRecord record : batch) {
+                requests.add(record.request());
+            }
+            List<PriceSummary> summaries = engine.priceAll(requests);
+            List<PricedCart> priced = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                priced.add(new PricedCart(batch.get(i).id(), summaries.get(i)));
+            }
+            return priced;
+        });
+    }
+
+    private static final class WriterStage implements Runnable {
+
+        private final BlockingQueue<Future<List<PricedCart>>> inFlight;
+        private final SummaryWriter writer;
+        // Set once by the writer thread, read by the reader to stop early
+        volatile Throwable failure;
+
+        WriterStage(BlockingQueue<Future<List<PricedCart>>> inFlight, SummaryWriter writer) {
+            this.inFlight = inFlight;
+            this.writer = writer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Future<List<PricedCart>> batch;
+                while ((batch = inFlight.take()) != END) {
+                    if (failure != null) {
+                        // Keep draining so the reader never blocks on a full queue
+                        batch.cancel(true);
+                        continue;
+                    }
+                    write(batch);
+                }
+                if (failure == null) {
+                    writer.flush();
+                }
+            } catch (InterruptedException | IOException | RuntimeException | Error e) {
+                failure = e;
+            }
+        }
+
+        private void write(Future<List<PricedCart>> batch) throws InterruptedException {
+            try {
+                for (PricedCart pricedCart : batch.get()) {
+                    writer.write(pricedCart);
+                }
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } catch (IOException | RuntimeException | Error e) {
+                failure = e;
+            }
+        }
+    }
+}
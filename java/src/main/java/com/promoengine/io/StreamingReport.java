@@ -0,0 +1,36 @@
+// ABOUTME: Outcome of streaming a feed through the engine: how many carts and lines, and how fast.
+// ABOUTME: Returned by StreamingPricer once every cart has been written.
+package com.promoengine.io;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * @param carts Carts read, priced and written
+ * @param lines Cart lines across those carts
+ * @param elapsed Wall-clock time from the first read to the last write
+ */
+public record StreamingReport(long carts, long lines, Duration elapsed) {
+
+    public StreamingReport {
+        if (elapsed == null) {
+            throw new IllegalArgumentException("Elapsed cannot be null");
+        }
+    }
+
+    public double cartsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0.0 : carts * 1e9 / nanos;
+    }
+
+    public double linesPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0.0 : lines * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d carts (%d lines) in %d ms: %.0f carts/s", carts, lines, elapsed.toMillis(),
+            cartsPerSecond());
+    }
+}
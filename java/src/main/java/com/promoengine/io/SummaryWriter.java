@@ -0,0 +1,12 @@
+// ABOUTME: Sink for priced carts, such as a CSV file of totals per cart.
+// ABOUTME: Written from a single thread, in the order the carts were read.
+package com.promoengine.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+public interface SummaryWriter extends Closeable, Flushable {
+
+    void write(PricedCart pricedCart) throws IOException;
+}
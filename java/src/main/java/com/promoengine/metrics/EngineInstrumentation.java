@@ -0,0 +1,45 @@
+// ABOUTME: Service provider interface for observing promotion evaluation and pricing calls.
+// ABOUTME: Every callback defaults to doing nothing; NOOP makes the engine skip timing altogether.
+package com.promoengine.metrics;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+
+import java.util.List;
+
+/**
+ * Implementations are called from every pricing thread at once, so they must be
+ * thread-safe and should not block. {@link PromotionMetrics} is the bundled
+ * implementation; others can forward to any metrics library.
+ */
+public interface EngineInstrumentation {
+
+    /**
+     * Instrumentation that records nothing. An engine using it does not even read the clock.
+     */
+    EngineInstrumentation NOOP = new EngineInstrumentation() {
+    };
+
+    /**
+     * Called after a promotion's isApplicable returned.
+     * @param nanos Time the call took
+     */
+    default void applicabilityChecked(PromotionId promotionId, boolean applicable, long nanos) {
+    }
+
+    /**
+     * Called after a promotion's apply returned.
+     * @param nanos Time the call took
+     */
+    default void discountsComputed(PromotionId promotionId, List<AppliedDiscount> discounts, long nanos) {
+    }
+
+    /**
+     * Called once per priced cart, including each cart of a batch.
+     * @param summary The result, whose applied discounts are those the stacking policy kept
+     * @param nanos Time pricing the cart took
+     */
+    default void cartPriced(PriceSummary summary, long nanos) {
+    }
+}
@@ -0,0 +1,111 @@
+// ABOUTME: Immutable copy of a LatencyHistogram's counts with percentile and bucket export.
+// ABOUTME: Percentiles are reported as the highest value of the bucket they fall in, as HdrHistogram does.
+package com.promoengine.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class HistogramSnapshot {
+
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.OCTAVES][], 0, 0);
+
+    private final long[][] octaves;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[][] octaves, long sum, long max) {
+        this.octaves = octaves;
+        long total = 0;
+        for (long[] buckets : octaves) {
+            if (buckets != null) {
+                for (long bucketCount : buckets) {
+                    total += bucketCount;
+                }
+            }
+        }
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Sum of all recorded values.
+     */
+    public long sum() {
+        return sum;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Returns a value at least as large as the given share of recorded values, within the
+     * histogram's precision; 0 if nothing was recorded.
+     * @param percentile Between 0 and 100
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, got: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int o = 0; o < octaves.length; o++) {
+            long[] buckets = octaves[o];
+            if (buckets == null) {
+                continue;
+            }
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) {
+                    return Math.min(max, LatencyHistogram.highestValue(o, b));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the non-empty buckets in ascending order, for export to bucketed metric types.
+     */
+    public List<Bucket> buckets() {
+        List<Bucket> buckets = new ArrayList<>();
+        for (int o = 0; o < octaves.length; o++) {
+            long[] counts = octaves[o];
+            if (counts == null) {
+                continue;
+            }
+            for (int b = 0; b < counts.length; b++) {
+                if (counts[b] > 0) {
+                    buckets.add(new Bucket(
+                        LatencyHistogram.lowestValue(o, b), LatencyHistogram.highestValue(o, b), counts[b]));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Values from lowest to highest, both inclusive, were recorded count times.
+     */
+    public record Bucket(long lowest, long highest, long count) {
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot[count=" + count + ", p50=" + valueAtPercentile(50)
+            + ", p99=" + valueAtPercentile(99) + ", max=" + max + "]";
+    }
+}
@@ -0,0 +1,158 @@
+// ABOUTME: Concurrent log-linear latency histogram in the style of HdrHistogram.
+// ABOUTME: Buckets are allocated per power of two on first use and striped across threads only under contention.
+package com.promoengine.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Values below 2^SUB_BUCKET_BITS are counted exactly. Above that, every power-of-two
+ * range ("octave") is split into HALF equal sub-buckets, so a recorded value is known
+ * to within 1/HALF, about 3%, of its size. Octaves are allocated when first hit, which
+ * keeps the histogram of a promotion whose calls take similar time to a few hundred bytes.
+ *
+ * Recording starts on one set of buckets; the first time a compare-and-set on them
+ * fails, the histogram grows per-thread stripes, much as LongAdder does, so threads
+ * timing the same promotion stop contending for the same cache lines.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int LINEAR = 1 << SUB_BUCKET_BITS;
+    static final int HALF = LINEAR / 2;
+    // Octave 0 holds the linear range; octave k >= 1 holds values whose top bit is k + SUB_BUCKET_BITS - 1
+    static final int OCTAVES = Long.SIZE - SUB_BUCKET_BITS + 1;
+
+    private static final int STRIPES = stripeCount();
+
+    private final Shard base = new Shard();
+    private volatile Shard[] stripes;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one value; negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        int octave = octaveOf(v);
+        int bucket = bucketOf(v, octave);
+        Shard[] current = stripes;
+        if (current == null) {
+            if (base.tryIncrement(octave, bucket)) {
+                sum.add(v);
+                max.accumulate(v);
+                return;
+            }
+            current = grow();
+        }
+        current[stripeIndex()].increment(octave, bucket);
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Returns the counts recorded so far; values recorded concurrently may be partly included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[][] octaves = new long[OCTAVES][];
+        base.addTo(octaves);
+        Shard[] current = stripes;
+        if (current != null) {
+            for (Shard shard : current) {
+                shard.addTo(octaves);
+            }
+        }
+        return new HistogramSnapshot(octaves, sum.sum(), max.get());
+    }
+
+    private synchronized Shard[] grow() {
+        Shard[] current = stripes;
+        if (current == null) {
+            current = new Shard[STRIPES];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = new Shard();
+            }
+            stripes = current;
+        }
+        return current;
+    }
+
+    static int octaveOf(long value) {
+        if (value < LINEAR) {
+            return 0;
+        }
+        int topBit = 63 - Long.numberOfLeadingZeros(value);
+        return topBit - SUB_BUCKET_BITS + 1;
+    }
+
+    static int bucketOf(long value, int octave) {
+        if (octave == 0) {
+            return (int) value;
+        }
+        return (int) (value >>> octave) - HALF;
+    }
+
+    static int bucketsIn(int octave) {
+        return octave == 0 ? LINEAR : HALF;
+    }
+
+    static long lowestValue(int octave, int bucket) {
+        return octave == 0 ? bucket : (long) (HALF + bucket) << octave;
+    }
+
+    static long highestValue(int octave, int bucket) {
+        return octave == 0 ? bucket : ((long) (HALF + bucket + 1) << octave) - 1;
+    }
+
+    private static int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        return (int) (id * 0x9E3779B97F4A7C15L >>> 32) & (STRIPES - 1);
+    }
+
+    private static int stripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Math.min(64, Integer.highestOneBit(Math.max(1, processors - 1)) << 1);
+    }
+
+    private static final class Shard {
+
+        private final AtomicReferenceArray<AtomicLongArray> octaves = new AtomicReferenceArray<>(OCTAVES);
+
+        boolean tryIncrement(int octave, int bucket) {
+            AtomicLongArray buckets = octave(octave);
+            long current = buckets.get(bucket);
+            return buckets.compareAndSet(bucket, current, current + 1);
+        }
+
+        void increment(int octave, int bucket) {
+            octave(octave).getAndIncrement(bucket);
+        }
+
+        void addTo(long[][] totals) {
+            for (int o = 0; o < OCTAVES; o++) {
+                AtomicLongArray buckets = octaves.get(o);
+                if (buckets == null) {
+                    continue;
+                }
+                if (totals[o] == null) {
+                    totals[o] = new long[buckets.length()];
+                }
+                for (int b = 0; b < buckets.length(); b++) {
+                    totals[o][b] += buckets.get(b);
+                }
+            }
+        }
+
+        private AtomicLongArray octave(int octave) {
+            AtomicLongArray buckets = octaves.get(octave);
+            if (buckets == null) {
+                octaves.compareAndSet(octave, null, new AtomicLongArray(bucketsIn(octave)));
+                buckets = octaves.get(octave);
+            }
+            return buckets;
+        }
+    }
+}
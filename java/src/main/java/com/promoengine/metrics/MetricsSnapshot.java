@@ -0,0 +1,59 @@
+// ABOUTME: Point-in-time engine statistics: pricing latency, total discount and per-promotion figures.
+// ABOUTME: Immutable, so exporters can read it at leisure while pricing continues.
+package com.promoengine.metrics;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * @param pricingLatency Time taken per priced cart, in nanoseconds; its count is the number of carts priced
+ * @param discountTotal Sum of the discount totals of all priced carts
+ * @param promotions Statistics of every promotion evaluated at least once
+ */
+public record MetricsSnapshot(
+    HistogramSnapshot pricingLatency,
+    Money discountTotal,
+    Map<PromotionId, PromotionMetricsSnapshot> promotions
+) {
+
+    public MetricsSnapshot {
+        if (pricingLatency == null) {
+            throw new IllegalArgumentException("Pricing latency cannot be null");
+        }
+        if (discountTotal == null) {
+            throw new IllegalArgumentException("Discount total cannot be null");
+        }
+        if (promotions == null) {
+            throw new IllegalArgumentException("Promotions cannot be null");
+        }
+        promotions = Map.copyOf(promotions);
+    }
+
+    public long cartsPriced() {
+        return pricingLatency.count();
+    }
+
+    public Optional<PromotionMetricsSnapshot> promotion(PromotionId id) {
+        return Optional.ofNullable(promotions.get(id));
+    }
+
+    /**
+     * Returns up to limit promotions with the highest total isApplicable and apply time,
+     * slowest first; the usual starting point when pricing gets slower.
+     */
+    public List<PromotionMetricsSnapshot> mostExpensive(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative, got: " + limit);
+        }
+        return promotions.values().stream()
+            .sorted(Comparator.comparingLong(
+                (PromotionMetricsSnapshot p) -> p.applicabilityLatency().sum() + p.applyLatency().sum()).reversed())
+            .limit(limit)
+            .toList();
+    }
+}
@@ -0,0 +1,153 @@
+// ABOUTME: Bundled EngineInstrumentation collecting evaluation counts, hit rates, discounts and latencies per promotion.
+// ABOUTME: Counters are LongAdders and histograms stripe under contention, so recording never serializes pricing threads.
+package com.promoengine.metrics;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attach to an engine with {@link com.promoengine.engine.PromotionEngine#withInstrumentation}
+ * and read it with {@link #snapshot()}, for example from a scheduled exporter. Statistics
+ * accumulate from creation; use a new instance to start over.
+ *
+ * Promotions are tracked from their first evaluation, and removing a promotion from the
+ * catalog does not remove its statistics.
+ */
+public final class PromotionMetrics implements EngineInstrumentation {
+
+    private final Map<PromotionId, PromotionStats> promotions = new ConcurrentHashMap<>();
+    private final LatencyHistogram pricingLatency = new LatencyHistogram();
+    private final DiscountTotal discountTotal = new DiscountTotal();
+
+    @Override
+    public void applicabilityChecked(PromotionId promotionId, boolean applicable, long nanos) {
+        PromotionStats stats = statsOf(promotionId);
+        if (applicable) {
+            stats.applicable.increment();
+        }
+        stats.applicabilityLatency.record(nanos);
+    }
+
+    @Override
+    public void discountsComputed(PromotionId promotionId, List<AppliedDiscount> discounts, long nanos) {
+        statsOf(promotionId).applyLatency.record(nanos);
+    }
+
+    @Override
+    public void cartPriced(PriceSummary summary, long nanos) {
+        pricingLatency.record(nanos);
+        List<AppliedDiscount> discounts = summary.appliedDiscounts();
+        // Discounts of one promotion are adjacent, so each promotion is looked up once per cart
+        PromotionId current = null;
+        long cents = 0;
+        // The promotion's amount so far once it no longer fits in long cents, otherwise null
+        Money spilled = null;
+        for (AppliedDiscount discount : discounts) {
+            if (!discount.promotionId().equals(current)) {
+                addApplied(current, cents, spilled);
+                current = discount.promotionId();
+                cents = 0;
+                spilled = null;
+            }
+            Money amount = discount.amount();
+            if (spilled == null && amount.isCompact()) {
+                long sum = cents + amount.toCents();
+                // Overflow iff both operands have the same sign and the result has the other one
+                if (((cents ^ sum) & (amount.toCents() ^ sum)) >= 0) {
+                    cents = sum;
+                    continue;
+                }
+            }
+            spilled = (spilled != null ? spilled : Money.cents(cents)).add(amount);
+        }
+        addApplied(current, cents, spilled);
+        discountTotal.add(summary.discountTotal());
+    }
+
+    /**
+     * Returns the statistics gathered so far. Calls recorded while the snapshot is taken
+     * may be partly included, so related counts can briefly disagree by a few calls.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<PromotionId, PromotionMetricsSnapshot> byPromotion = new HashMap<>();
+        for (Map.Entry<PromotionId, PromotionStats> entry : promotions.entrySet()) {
+            PromotionStats stats = entry.getValue();
+            // Every isApplicable call is timed, so the histogram's count is the evaluation count
+            HistogramSnapshot applicability = stats.applicabilityLatency.snapshot();
+            byPromotion.put(entry.getKey(), new PromotionMetricsSnapshot(
+                entry.getKey(),
+                applicability.count(),
+                stats.applicable.sum(),
+                stats.selected.sum(),
+                stats.discountTotal.sum(),
+                applicability,
+                stats.applyLatency.snapshot()
+            ));
+        }
+        return new MetricsSnapshot(pricingLatency.snapshot(), discountTotal.sum(), byPromotion);
+    }
+
+    private void addApplied(PromotionId promotionId, long cents, Money spilled) {
+        if (promotionId == null) {
+            return;
+        }
+        PromotionStats stats = statsOf(promotionId);
+        stats.selected.increment();
+        if (spilled != null) {
+            stats.discountTotal.add(spilled);
+        } else {
+            stats.discountTotal.add(cents);
+        }
+    }
+
+    private PromotionStats statsOf(PromotionId promotionId) {
+        PromotionStats stats = promotions.get(promotionId);
+        return stats != null ? stats : promotions.computeIfAbsent(promotionId, id -> new PromotionStats());
+    }
+
+    private static final class PromotionStats {
+        final LongAdder applicable = new LongAdder();
+        final LongAdder selected = new LongAdder();
+        final DiscountTotal discountTotal = new DiscountTotal();
+        final LatencyHistogram applicabilityLatency = new LatencyHistogram();
+        final LatencyHistogram applyLatency = new LatencyHistogram();
+    }
+
+    /**
+     * A sum of money that never fails to record. Amounts in long cents go to a LongAdder;
+     * amounts beyond it, which pricing supports through BigDecimal, go to a rarely touched
+     * exact overflow total.
+     */
+    private static final class DiscountTotal {
+        private final LongAdder cents = new LongAdder();
+        private final AtomicReference<BigDecimal> overflow = new AtomicReference<>(BigDecimal.ZERO);
+
+        void add(long amount) {
+            cents.add(amount);
+        }
+
+        void add(Money amount) {
+            if (amount.isCompact()) {
+                cents.add(amount.toCents());
+            } else {
+                overflow.accumulateAndGet(amount.amount(), BigDecimal::add);
+            }
+        }
+
+        Money sum() {
+            Money compact = Money.cents(cents.sum());
+            BigDecimal beyond = overflow.get();
+            return beyond.signum() == 0 ? compact : compact.add(Money.euros(beyond));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// ABOUTME: Point-in-time statistics of one promotion, as collected by PromotionMetrics.
+// ABOUTME: Latencies are in nanoseconds; the discount total counts only discounts that reached a price.
+package com.promoengine.metrics;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+/**
+ * @param promotionId The promotion
+ * @param evaluations Calls to isApplicable
+ * @param applicable Calls to isApplicable that returned true
+ * @param selected Priced carts whose summary includes a discount of the promotion
+ * @param discountTotal Sum of the promotion's discounts in those summaries
+ * @param applicabilityLatency Time taken by isApplicable
+ * @param applyLatency Time taken by apply
+ */
+public record PromotionMetricsSnapshot(
+    PromotionId promotionId,
+    long evaluations,
+    long applicable,
+    long selected,
+    Money discountTotal,
+    HistogramSnapshot applicabilityLatency,
+    HistogramSnapshot applyLatency
+) {
+
+    public PromotionMetricsSnapshot {
+        if (promotionId == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        if (discountTotal == null) {
+            throw new IllegalArgumentException("Discount total cannot be null");
+        }
+        if (applicabilityLatency == null || applyLatency == null) {
+            throw new IllegalArgumentException("Latency histograms cannot be null");
+        }
+    }
+
+    /**
+     * Share of evaluations that found the promotion applicable, or 0 if it was never evaluated.
+     */
+    public double hitRate() {
+        return evaluations == 0 ? 0.0 : (double) applicable / evaluations;
+    }
+}
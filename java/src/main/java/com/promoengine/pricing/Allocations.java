@@ -0,0 +1,374 @@
+// ABOUTME: Immutable per-SKU split of a discount, stored as parallel SKU and long-cents arrays.
+// ABOUTME: Viewable as a Map<Sku, Money>; Money values and entries are only created when read through the map view.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Sku;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Entries keep the order in which they were added. Lookups go through an open-addressing
+ * table of entry positions, so allocating an order-level discount across hundreds of lines
+ * costs two arrays and a table instead of a boxed map of Money records. Code on the hot
+ * path reads the primitive accessors: {@link #sku}, {@link #centsAt} and {@link #centsOf}.
+ *
+ * Amounts that do not fit in a long number of cents, which Money supports, are kept as Money
+ * in a side array that exists only if there are any. The map view returns them as they are;
+ * the cent accessors throw ArithmeticException for them, as {@link Money#toCents} does.
+ */
+public final class Allocations extends AbstractMap<Sku, Money> {
+
+    public static final Allocations EMPTY = new Allocations(new Sku[0], new long[0], null, 0, null);
+
+    // Maps with at most this many entries are searched linearly and get no table
+    private static final int LINEAR_SCAN_LIMIT = 8;
+
+    private final Sku[] skus;
+    private final long[] cents;
+    // Amounts beyond long cents where non-null, their cents unused; null if there are none
+    private final Money[] large;
+    private final int size;
+    // Positions plus one, indexed by spread SKU hash; 0 marks an empty slot. Null for small maps
+    private final int[] table;
+    private Set<Entry<Sku, Money>> entrySet;
+
+    private Allocations(Sku[] skus, long[] cents, Money[] large, int size, int[] table) {
+        this.skus = skus;
+        this.cents = cents;
+        this.large = large;
+        this.size = size;
+        this.table = table;
+    }
+
+    public static Allocations of(Sku sku, Money amount) {
+        return builder(1).add(sku, amount).build();
+    }
+
+    /**
+     * Returns the allocations of the map; an Allocations is returned as is.
+     * @throws IllegalArgumentException if a SKU or amount is null
+     */
+    public static Allocations copyOf(Map<Sku, Money> allocations) {
+        if (allocations == null) {
+            throw new IllegalArgumentException("Allocations cannot be null");
+        }
+        if (allocations instanceof Allocations compact) {
+            return compact;
+        }
+        if (allocations.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = builder(allocations.size());
+        for (Entry<Sku, Money> entry : allocations.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative, got: " + expectedSize);
+        }
+        return new Builder(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the SKU of the entry at the position, in insertion order.
+     */
+    public Sku sku(int index) {
+        checkIndex(index);
+        return skus[index];
+    }
+
+    /**
+     * Returns the amount of the entry at the position, in cents.
+     * @throws ArithmeticException if the amount does not fit in a long number of cents
+     */
+    public long centsAt(int index) {
+        checkIndex(index);
+        return centsOfEntry(index);
+    }
+
+    /**
+     * Returns the amount allocated to the SKU in cents; 0 if it has no allocation.
+     * @throws ArithmeticException if the amount does not fit in a long number of cents
+     */
+    public long centsOf(Sku sku) {
+        int index = indexOf(sku);
+        return index < 0 ? 0L : centsOfEntry(index);
+    }
+
+    /**
+     * Sum of all allocated amounts, in cents.
+     * @throws ArithmeticException if the sum does not fit in a long number of cents
+     */
+    public long totalCents() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total = Math.addExact(total, centsOfEntry(i));
+        }
+        return total;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Money get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : amountAt(index);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Sku, ? super Money> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(skus[i], amountAt(i));
+        }
+    }
+
+    @Override
+    public Set<Entry<Sku, Money>> entrySet() {
+        Set<Entry<Sku, Money>> view = entrySet;
+        if (view == null) {
+            view = new EntrySet();
+            entrySet = view;
+        }
+        return view;
+    }
+
+    private Money amountAt(int index) {
+        return large != null && large[index] != null ? large[index] : Money.cents(cents[index]);
+    }
+
+    private long centsOfEntry(int index) {
+        return large != null && large[index] != null ? large[index].toCents() : cents[index];
+    }
+
+    private int indexOf(Object key) {
+        if (!(key instanceof Sku)) {
+            return -1;
+        }
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (skus[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return find(skus, table, (Sku) key);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No allocation at index " + index);
+        }
+    }
+
+    private static int find(Sku[] skus, int[] table, Sku sku) {
+        int mask = table.length - 1;
+        for (int slot = spread(sku.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int position = table[slot];
+            if (position == 0) {
+                return -1;
+            }
+            if (skus[position - 1].equals(sku)) {
+                return position - 1;
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    private static int[] tableFor(Sku[] skus, int size) {
+        // At most half full, so probe sequences stay short
+        int[] table = new int[Integer.highestOneBit(Math.max(size, 1) * 4 - 1)];
+        int mask = table.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = spread(skus[i].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<Sku, Money>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<Entry<Sku, Money>> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Entry<Sku, Money> next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    int index = next++;
+                    return new SimpleImmutableEntry<>(skus[index], amountAt(index));
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects allocations; adding to a SKU that already has one adds up the amounts.
+     * Not thread-safe.
+     */
+    public static final class Builder {
+
+        private Sku[] skus;
+        private long[] cents;
+        private Money[] large;
+        private int size;
+        private int[] table;
+
+        private Builder(int expectedSize) {
+            this.skus = new Sku[expectedSize];
+            this.cents = new long[expectedSize];
+        }
+
+        public Builder add(Sku sku, Money amount) {
+            if (amount == null) {
+                throw new IllegalArgumentException("Allocation amount cannot be null");
+            }
+            if (amount.isCompact()) {
+                return add(sku, amount.toCents());
+            }
+            if (sku == null) {
+                throw new IllegalArgumentException("Allocation SKU cannot be null");
+            }
+            int index = indexOf(sku);
+            if (index < 0) {
+                index = append(sku, 0L);
+                setLarge(index, amount);
+            } else {
+                setLarge(index, amountAt(index).add(amount));
+            }
+            return this;
+        }
+
+        public Builder add(Sku sku, long amountCents) {
+            if (sku == null) {
+                throw new IllegalArgumentException("Allocation SKU cannot be null");
+            }
+            int index = indexOf(sku);
+            if (index < 0) {
+                append(sku, amountCents);
+                return this;
+            }
+            long sum = cents[index] + amountCents;
+            // Overflow iff both operands have the same sign and the result has the other one
+            if (!isLarge(index) && ((cents[index] ^ sum) & (amountCents ^ sum)) >= 0) {
+                cents[index] = sum;
+            } else {
+                setLarge(index, amountAt(index).add(Money.cents(amountCents)));
+            }
+            return this;
+        }
+
+        private int append(Sku sku, long amountCents) {
+            if (size == skus.length) {
+                int capacity = Math.max(4, size * 2);
+                skus = Arrays.copyOf(skus, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                if (large != null) {
+                    large = Arrays.copyOf(large, capacity);
+                }
+            }
+            skus[size] = sku;
+            cents[size] = amountCents;
+            size++;
+            if (table != null) {
+                if (size * 2 > table.length) {
+                    table = tableFor(skus, size);
+                } else {
+                    int mask = table.length - 1;
+                    int slot = spread(sku.hashCode()) & mask;
+                    while (table[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = size;
+                }
+            } else if (size > LINEAR_SCAN_LIMIT) {
+                table = tableFor(skus, size);
+            }
+            return size - 1;
+        }
+
+        // A sum that fits in long cents again goes back to the primitive array
+        private void setLarge(int index, Money amount) {
+            if (amount.isCompact()) {
+                cents[index] = amount.toCents();
+                if (large != null) {
+                    large[index] = null;
+                }
+                return;
+            }
+            if (large == null) {
+                large = new Money[skus.length];
+            }
+            cents[index] = 0L;
+            large[index] = amount;
+        }
+
+        private boolean isLarge(int index) {
+            return large != null && large[index] != null;
+        }
+
+        private Money amountAt(int index) {
+            return isLarge(index) ? large[index] : Money.cents(cents[index]);
+        }
+
+        public Allocations build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Later adds must not show through, so the built map gets its own arrays
+            Sku[] builtSkus = Arrays.copyOf(skus, size);
+            return new Allocations(builtSkus, Arrays.copyOf(cents, size),
+                large == null ? null : Arrays.copyOf(large, size), size, table == null ? null : table.clone());
+        }
+
+        private int indexOf(Sku sku) {
+            if (table != null) {
+                return find(skus, table, sku);
+            }
+            for (int i = 0; i < size; i++) {
+                if (skus[i].equals(sku)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
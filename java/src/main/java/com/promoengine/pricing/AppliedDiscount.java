@@ -1,5 +1,5 @@
 // ABOUTME: Represents a discount that has been applied to a cart with full explainability.
-// ABOUTME: Captures promotion ID, amount, target scope, details, and optional per-SKU allocations.
+// ABOUTME: Captures promotion ID, amount, target scope, details, and optional per-SKU allocations held as compact Allocations.
 package com.promoengine.pricing;
 
 import com.promoengine.domain.Money;
@@ -8,6 +8,10 @@ import com.promoengine.domain.Sku;
 
 import java.util.Map;
 
+/**
+ * Only discounts that were applied appear here; why each promotion was applied or skipped
+ * is recorded by the {@link EvaluationTrace} of a traced {@link PriceSummary}.
+ */
 public record AppliedDiscount(
     PromotionId promotionId,
     Money amount,
@@ -29,19 +33,19 @@ public record AppliedDiscount(
         if (details == null) {
             throw new IllegalArgumentException("Details cannot be null");
         }
-        if (allocations == null) {
-            allocations = Map.of();
-        } else {
-            // Defensive copy to ensure immutability
-            allocations = Map.copyOf(allocations);
-        }
+        // Allocations are immutable, so promotions that build them directly are not copied
+        allocations = allocations == null ? Allocations.EMPTY : Allocations.copyOf(allocations);
     }
 
     // Convenience constructor without allocations
     public AppliedDiscount(PromotionId promotionId, Money amount, String target, String details) {
-        this(promotionId, amount, target, details, Map.of());
+        this(promotionId, amount, target, details, Allocations.EMPTY);
     }
 
-    // TODO: Consider adding "reason" field for why promotion was not applied
-    // TODO: Consider adding "evaluationTrace" for detailed decision logging
+    /**
+     * Returns the allocations in their compact form, for reading amounts as cents.
+     */
+    public Allocations compactAllocations() {
+        return (Allocations) allocations;
+    }
 }
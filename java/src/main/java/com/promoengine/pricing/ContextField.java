@@ -0,0 +1,17 @@
+// ABOUTME: The PricingContext fields a promotion can read when deciding and computing its discounts.
+// ABOUTME: Promotions declare the fields they read so cached prices can be shared between contexts.
+package com.promoengine.pricing;
+
+import java.util.Set;
+
+public enum ContextField {
+    NOW,
+    CHANNEL,
+    CUSTOMER_ID,
+    CUSTOMER_TAGS;
+
+    /**
+     * Every field; what a promotion that declares nothing is assumed to read.
+     */
+    public static final Set<ContextField> ALL = Set.of(values());
+}
@@ -0,0 +1,40 @@
+// ABOUTME: Why a promotion was applied or skipped during one pricing call.
+// ABOUTME: Recorded as a code while pricing; turned into a message only when a trace is read.
+package com.promoengine.pricing;
+
+public enum DecisionReason {
+    APPLIED("Applied", true),
+    NOT_SELECTED("Skipped: a better combination of promotions was chosen", true),
+    OUTRANKED("Skipped: a higher-priority promotion of its conflict group applied", false),
+    OUTSIDE_VALIDITY_WINDOW("Skipped: outside validity window", false),
+    CUSTOMER_NOT_ELIGIBLE("Skipped: customer not eligible", false),
+    BUDGET_EXHAUSTED("Skipped: budget exhausted", false),
+    BUDGET_INSUFFICIENT("Skipped: budget cannot cover discount", false),
+    CONDITIONS_NOT_MET("Skipped: conditions not met", false),
+    NO_DISCOUNT("Skipped: no discount computed", false);
+
+    private static final DecisionReason[] VALUES = values();
+
+    private final String message;
+    private final boolean computesDiscount;
+
+    DecisionReason(String message, boolean computesDiscount) {
+        this.message = message;
+        this.computesDiscount = computesDiscount;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    /**
+     * Returns true if the promotion's discount was computed before this decision was made.
+     */
+    public boolean computesDiscount() {
+        return computesDiscount;
+    }
+
+    static DecisionReason ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,116 @@
+// ABOUTME: Immutable record of every promotion decision made while pricing one cart.
+// ABOUTME: Holds reason codes and amounts; PromotionDecisions with messages are built only when read.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decisions appear in evaluation order and cover every promotion that targets the cart
+ * or is cart-wide. Promotions targeting only other SKUs and categories are never looked
+ * at by the engine and are only counted, see {@link #notTargeted()}.
+ */
+public final class EvaluationTrace {
+
+    private final PromotionId[] promotionIds;
+    private final byte[] reasons;
+    private final long[] amounts;
+    // Amounts beyond long cents where non-null; null if there are none
+    private final Money[] largeAmounts;
+    private final List<AppliedDiscount> appliedDiscounts;
+    private final int notTargeted;
+
+    // Rendered on first read; racing readers render equal lists
+    private volatile List<PromotionDecision> decisions;
+
+    EvaluationTrace(PromotionId[] promotionIds, byte[] reasons, long[] amounts, Money[] largeAmounts,
+                    List<AppliedDiscount> appliedDiscounts, int notTargeted) {
+        this.promotionIds = promotionIds;
+        this.reasons = reasons;
+        this.amounts = amounts;
+        this.largeAmounts = largeAmounts;
+        this.appliedDiscounts = List.copyOf(appliedDiscounts);
+        this.notTargeted = notTargeted;
+    }
+
+    /**
+     * Number of decisions recorded.
+     */
+    public int size() {
+        return reasons.length;
+    }
+
+    public PromotionId promotionIdAt(int index) {
+        return promotionIds[index];
+    }
+
+    public DecisionReason reasonAt(int index) {
+        return DecisionReason.ofOrdinal(reasons[index]);
+    }
+
+    /**
+     * Number of promotions skipped without evaluation because they target no line of the cart.
+     */
+    public int notTargeted() {
+        return notTargeted;
+    }
+
+    /**
+     * Returns the decisions in evaluation order, with their messages.
+     */
+    public List<PromotionDecision> decisions() {
+        List<PromotionDecision> rendered = decisions;
+        if (rendered == null) {
+            List<PromotionDecision> list = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                list.add(render(i));
+            }
+            rendered = List.copyOf(list);
+            decisions = rendered;
+        }
+        return rendered;
+    }
+
+    public Optional<PromotionDecision> decisionFor(PromotionId promotionId) {
+        for (int i = 0; i < size(); i++) {
+            if (promotionIds[i].equals(promotionId)) {
+                return Optional.of(decisions().get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private PromotionDecision render(int index) {
+        DecisionReason reason = reasonAt(index);
+        PromotionId promotionId = promotionIds[index];
+        Money computed = reason.computesDiscount() ? amountAt(index) : null;
+        if (reason != DecisionReason.APPLIED) {
+            return new PromotionDecision(promotionId, false, reason.message(), computed);
+        }
+        StringBuilder message = new StringBuilder(reason.message());
+        String separator = ": ";
+        for (AppliedDiscount discount : appliedDiscounts) {
+            if (discount.promotionId().equals(promotionId)) {
+                message.append(separator).append(discount.details());
+                separator = "; ";
+            }
+        }
+        return new PromotionDecision(promotionId, true, message.toString(), computed);
+    }
+
+    private Money amountAt(int index) {
+        if (largeAmounts != null && largeAmounts[index] != null) {
+            return largeAmounts[index];
+        }
+        return Money.cents(amounts[index]);
+    }
+
+    @Override
+    public String toString() {
+        return "EvaluationTrace[decisions=" + size() + ", notTargeted=" + notTargeted + "]";
+    }
+}
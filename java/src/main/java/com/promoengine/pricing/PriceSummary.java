@@ -6,11 +6,18 @@ import com.promoengine.domain.Money;
 
 import java.util.List;
 
+/**
+ * @param catalogVersion Version of the promotion catalog snapshot the cart was priced with;
+ *                       0 if the summary was not produced by an engine
+ * @param trace Why each promotion was applied or skipped; null if the call was not traced
+ */
 public record PriceSummary(
     Money subtotal,
     Money discountTotal,
     Money total,
-    List<AppliedDiscount> appliedDiscounts
+    List<AppliedDiscount> appliedDiscounts,
+    long catalogVersion,
+    EvaluationTrace trace
 ) {
 
     public PriceSummary {
@@ -26,7 +33,25 @@ public record PriceSummary(
         if (appliedDiscounts == null) {
             throw new IllegalArgumentException("Applied discounts cannot be null");
         }
+        if (catalogVersion < 0) {
+            throw new IllegalArgumentException("Catalog version cannot be negative, got: " + catalogVersion);
+        }
         // Defensive copy to ensure immutability
         appliedDiscounts = List.copyOf(appliedDiscounts);
     }
+
+    // Convenience constructor for untraced summaries
+    public PriceSummary(Money subtotal, Money discountTotal, Money total, List<AppliedDiscount> appliedDiscounts,
+                        long catalogVersion) {
+        this(subtotal, discountTotal, total, appliedDiscounts, catalogVersion, null);
+    }
+
+    // Convenience constructor for summaries not tied to a catalog version
+    public PriceSummary(Money subtotal, Money discountTotal, Money total, List<AppliedDiscount> appliedDiscounts) {
+        this(subtotal, discountTotal, total, appliedDiscounts, 0L, null);
+    }
+
+    public boolean isTraced() {
+        return trace != null;
+    }
 }
@@ -3,16 +3,27 @@
 package com.promoengine.pricing;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
 
-public record PricingContext(
-    Instant now,
-    String channel,
-    String customerId,
-    Set<String> customerTags
-) {
+/**
+ * The customer tag mask is derived from the tags rather than supplied, so it always agrees
+ * with them and takes no part in equality. Tags are looked up in the shared dictionary
+ * without interning them: only tags some promotion requires get bits, and a tag no promotion
+ * requires cannot be missing from a requirement. A tag interned after the context was created
+ * is picked up by re-deriving the mask the first time a requirement holds an id the mask
+ * was derived without.
+ */
+public final class PricingContext {
 
-    public PricingContext {
+    private final Instant now;
+    private final String channel;
+    private final String customerId;
+    private final Set<String> customerTags;
+    private volatile TagBits tagBits;
+
+    public PricingContext(Instant now, String channel, String customerId, Set<String> customerTags) {
         if (now == null) {
             throw new IllegalArgumentException("Now cannot be null");
         }
@@ -25,11 +36,116 @@ public record PricingContext(
         if (customerTags == null) {
             throw new IllegalArgumentException("Customer tags cannot be null");
         }
+        this.now = now;
+        this.channel = channel;
+        this.customerId = customerId;
         // Defensive copy to ensure immutability
-        customerTags = Set.copyOf(customerTags);
+        this.customerTags = Set.copyOf(customerTags);
+        this.tagBits = TagBits.of(this.customerTags);
+    }
+
+    public Instant now() {
+        return now;
+    }
+
+    public String channel() {
+        return channel;
+    }
+
+    public String customerId() {
+        return customerId;
+    }
+
+    public Set<String> customerTags() {
+        return customerTags;
+    }
+
+    /**
+     * Returns the mask of the customer tags that the shared dictionary knows.
+     */
+    public TagMask customerTagMask() {
+        TagBits bits = tagBits;
+        if (!bits.complete && bits.knownIds != TagDictionary.shared().size()) {
+            bits = refreshTagBits();
+        }
+        return bits.mask;
     }
 
     public boolean hasTag(String tag) {
         return customerTags.contains(tag);
     }
+
+    /**
+     * Returns true if the customer has every tag in the mask. Reads no shared state unless
+     * the mask holds a tag interned after the customer's mask was derived.
+     */
+    public boolean hasAllTags(TagMask required) {
+        if (required.isEmpty()) {
+            return true;
+        }
+        TagBits bits = tagBits;
+        if (!bits.complete && required.length() > bits.knownIds) {
+            bits = refreshTagBits();
+        }
+        return bits.mask.containsAll(required);
+    }
+
+    private TagBits refreshTagBits() {
+        // Racing threads derive equal masks, so either may win
+        TagBits bits = TagBits.of(customerTags);
+        tagBits = bits;
+        return bits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PricingContext)) {
+            return false;
+        }
+        PricingContext other = (PricingContext) o;
+        return now.equals(other.now)
+            && channel.equals(other.channel)
+            && customerId.equals(other.customerId)
+            && customerTags.equals(other.customerTags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(now, channel, customerId, customerTags);
+    }
+
+    @Override
+    public String toString() {
+        return "PricingContext[now=" + now + ", channel=" + channel + ", customerId=" + customerId
+            + ", customerTags=" + customerTags + "]";
+    }
+
+    /**
+     * The mask of the customer tags among the first knownIds ids of the dictionary; complete
+     * when every tag was known, so the mask can never change.
+     */
+    private record TagBits(TagMask mask, int knownIds, boolean complete) {
+
+        static TagBits of(Set<String> tags) {
+            TagDictionary dictionary = TagDictionary.shared();
+            // Read first: every id below it is found, later ones are at worst looked up again
+            int knownIds = dictionary.size();
+            if (tags.isEmpty()) {
+                return new TagBits(TagMask.EMPTY, knownIds, true);
+            }
+            int[] ids = new int[tags.size()];
+            int known = 0;
+            for (String tag : tags) {
+                int id = dictionary.find(tag);
+                if (id >= 0) {
+                    ids[known++] = id;
+                }
+            }
+            TagMask mask = TagMask.ofIds(Arrays.copyOf(ids, known));
+            return new TagBits(mask, knownIds, known == tags.size());
+        }
+    }
 }
@@ -0,0 +1,17 @@
+// ABOUTME: A cart paired with the context it should be priced in.
+// ABOUTME: Unit of work for batch pricing.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Cart;
+
+public record PricingRequest(Cart cart, PricingContext context) {
+
+    public PricingRequest {
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Context cannot be null");
+        }
+    }
+}
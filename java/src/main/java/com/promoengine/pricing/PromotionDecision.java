@@ -0,0 +1,29 @@
+// ABOUTME: Explanation of what happened to one promotion during a traced pricing call.
+// ABOUTME: Rendered from an EvaluationTrace on demand.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+/**
+ * @param promotionId The promotion decided on
+ * @param applicable True if the promotion's discounts are part of the price
+ * @param reason Human-readable reason, e.g. "Applied: 10% off SKU-A" or "Skipped: customer not eligible"
+ * @param computedDiscount Discount the promotion computed, or null if it was skipped before computing one
+ */
+public record PromotionDecision(
+    PromotionId promotionId,
+    boolean applicable,
+    String reason,
+    Money computedDiscount
+) {
+
+    public PromotionDecision {
+        if (promotionId == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        if (reason == null) {
+            throw new IllegalArgumentException("Reason cannot be null");
+        }
+    }
+}
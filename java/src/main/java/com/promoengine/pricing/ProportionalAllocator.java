@@ -0,0 +1,199 @@
+// ABOUTME: Splits an order-level discount across cart lines in proportion to their subtotals.
+// ABOUTME: Largest-remainder rounding in whole cents, so the shares always add up to the discount exactly.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.Money;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Each line first gets the floor of its exact share, amount * weight / total weight, computed
+ * in long arithmetic. The cents this leaves over, fewer than the number of lines, go one
+ * each to the lines with the largest remainders. Among equal remainders lines go in SKU
+ * order, so a split does not depend on the order of the cart's lines.
+ * The threshold remainder is found by selection rather than sorting, so a split is linear in
+ * the number of lines. Only amounts and totals whose products overflow a long fall back to
+ * BigInteger arithmetic.
+ */
+public final class ProportionalAllocator {
+
+    private ProportionalAllocator() {
+    }
+
+    /**
+     * Splits the discount across the given lines of the cart, weighted by line subtotal.
+     * Lines with a negative subtotal get no share; if no line has a positive subtotal the
+     * allocations are empty. Lines of the same SKU are combined into one allocation.
+     * @param lines Indexes of the lines sharing the discount
+     * @throws ArithmeticException if the amount or a line subtotal does not fit in long cents
+     */
+    public static Allocations allocate(Money amount, CartAnalysis cart, int[] lines) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount cannot be null");
+        }
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        if (lines == null) {
+            throw new IllegalArgumentException("Lines cannot be null");
+        }
+        long[] weights = new long[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            weights[i] = Math.max(0L, cart.lineSubtotal(lines[i]).toCents());
+        }
+        long[] shares = split(amount.toCents(), weights,
+            (a, b) -> cart.line(lines[a]).product().sku().value().compareTo(cart.line(lines[b]).product().sku().value()));
+        if (shares == null) {
+            return Allocations.EMPTY;
+        }
+        Allocations.Builder allocations = Allocations.builder(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            allocations.add(cart.line(lines[i]).product().sku(), shares[i]);
+        }
+        return allocations.build();
+    }
+
+    /**
+     * Splits the amount in proportion to the weights, earlier shares first among equal remainders.
+     * @param weights Non-negative weights, one per share
+     * @return The shares, summing to the amount; null if the weights sum to zero
+     */
+    public static long[] split(long amountCents, long[] weights) {
+        return split(amountCents, weights, null);
+    }
+
+    /**
+     * Splits the amount in proportion to the weights.
+     * @param weights Non-negative weights, one per share
+     * @param tieOrder Orders share indexes with equal remainders, earlier first; ties it leaves and
+     *        a null order fall back to index order. Only consulted when a tie decides a cent.
+     * @return The shares, summing to the amount; null if the weights sum to zero
+     */
+    public static long[] split(long amountCents, long[] weights, Comparator<Integer> tieOrder) {
+        if (weights == null) {
+            throw new IllegalArgumentException("Weights cannot be null");
+        }
+        long total = 0;
+        long maxWeight = 0;
+        for (long weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights cannot be negative, got: " + weight);
+            }
+            total = Math.addExact(total, weight);
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        if (total == 0) {
+            return null;
+        }
+        boolean negative = amountCents < 0;
+        long amount = Math.absExact(amountCents);
+
+        long[] shares = new long[weights.length];
+        long[] remainders = new long[weights.length];
+        long distributed = 0;
+        if (maxWeight == 0 || amount <= Long.MAX_VALUE / maxWeight) {
+            for (int i = 0; i < weights.length; i++) {
+                long product = amount * weights[i];
+                shares[i] = product / total;
+                remainders[i] = product % total;
+                distributed += shares[i];
+            }
+        } else {
+            BigInteger bigAmount = BigInteger.valueOf(amount);
+            BigInteger bigTotal = BigInteger.valueOf(total);
+            for (int i = 0; i < weights.length; i++) {
+                BigInteger[] quotient = bigAmount.multiply(BigInteger.valueOf(weights[i])).divideAndRemainder(bigTotal);
+                shares[i] = quotient[0].longValueExact();
+                remainders[i] = quotient[1].longValueExact();
+                distributed += shares[i];
+            }
+        }
+
+        // Fewer cents are left over than there are weights, since each floor loses less than one
+        int leftover = (int) (amount - distributed);
+        if (leftover > 0) {
+            long threshold = kthLargest(remainders.clone(), leftover);
+            for (int i = 0; i < weights.length && leftover > 0; i++) {
+                if (remainders[i] > threshold) {
+                    shares[i]++;
+                    leftover--;
+                }
+            }
+            int tied = 0;
+            for (long remainder : remainders) {
+                if (remainder == threshold) {
+                    tied++;
+                }
+            }
+            if (tieOrder == null || tied == leftover) {
+                for (int i = 0; i < weights.length && leftover > 0; i++) {
+                    if (remainders[i] == threshold) {
+                        shares[i]++;
+                        leftover--;
+                    }
+                }
+            } else {
+                // Rare, and only the tied shares are sorted
+                Integer[] candidates = new Integer[tied];
+                int count = 0;
+                for (int i = 0; i < weights.length; i++) {
+                    if (remainders[i] == threshold) {
+                        candidates[count++] = i;
+                    }
+                }
+                Arrays.sort(candidates, tieOrder);
+                for (int i = 0; i < leftover; i++) {
+                    shares[candidates[i]]++;
+                }
+            }
+        }
+        if (negative) {
+            for (int i = 0; i < shares.length; i++) {
+                shares[i] = -shares[i];
+            }
+        }
+        return shares;
+    }
+
+    /**
+     * Returns the k-th largest value, 1-based, reordering the array. Expected linear time.
+     */
+    private static long kthLargest(long[] values, int k) {
+        int target = values.length - k;
+        int low = 0;
+        int high = values.length - 1;
+        while (low < high) {
+            long pivot = medianOfThree(values[low], values[(low + high) >>> 1], values[high]);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+            if (target <= j) {
+                high = j;
+            } else if (target >= i) {
+                low = i;
+            } else {
+                return values[target];
+            }
+        }
+        return values[target];
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
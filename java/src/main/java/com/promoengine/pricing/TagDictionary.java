@@ -0,0 +1,89 @@
+// ABOUTME: Interns customer tag strings to small dense integer ids.
+// ABOUTME: Lets tag sets be represented as bit masks so segment checks are word-wide ANDs.
+package com.promoengine.pricing;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Thread-safe, append-only mapping from tag to id. Ids are assigned in first-seen order
+ * starting at zero and never change, so a mask built at any time stays valid.
+ */
+public final class TagDictionary {
+
+    private static final TagDictionary SHARED = new TagDictionary();
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile int size;
+
+    /**
+     * Returns the dictionary promotions intern their required tags into and PricingContext
+     * looks customer tags up in.
+     */
+    public static TagDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the id of the tag, assigning the next free id on first use.
+     */
+    public int idOf(String tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag cannot be null");
+        }
+        Integer id = ids.get(tag);
+        if (id != null) {
+            return id;
+        }
+        // Only promotions intern, so contention here is rare
+        synchronized (this) {
+            id = ids.get(tag);
+            if (id == null) {
+                id = size;
+                ids.put(tag, id);
+                // Published after the mapping, so a reader of the size finds every smaller id
+                size = id + 1;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the id of the tag, or -1 if it was never interned. Never assigns an id, so
+     * looking up customer-supplied tags cannot grow the dictionary.
+     */
+    public int find(String tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag cannot be null");
+        }
+        Integer id = ids.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Builds the mask with the bits of all given tags set, interning any new ones.
+     */
+    public TagMask maskOf(Collection<String> tags) {
+        if (tags == null) {
+            throw new IllegalArgumentException("Tags cannot be null");
+        }
+        if (tags.isEmpty()) {
+            return TagMask.EMPTY;
+        }
+        int[] tagIds = new int[tags.size()];
+        int i = 0;
+        for (String tag : tags) {
+            tagIds[i++] = idOf(tag);
+        }
+        return TagMask.ofIds(tagIds);
+    }
+
+    /**
+     * Returns the number of interned tags; every id below it can be found. A single volatile
+     * read, cheap enough for callers to poll.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,136 @@
+// ABOUTME: Immutable bit set of interned customer tag ids.
+// ABOUTME: Checks whether one tag set contains another with a few word-wide AND operations.
+package com.promoengine.pricing;
+
+import java.util.Arrays;
+
+public final class TagMask {
+
+    public static final TagMask EMPTY = new TagMask(new long[0]);
+
+    // Trailing zero words are trimmed so equal masks have equal arrays
+    private final long[] words;
+
+    private TagMask(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Builds a mask for the given tags using the shared dictionary.
+     * Promotions should call this once and keep the result.
+     */
+    public static TagMask of(String... tags) {
+        return TagDictionary.shared().maskOf(Arrays.asList(tags));
+    }
+
+    static TagMask ofIds(int... ids) {
+        int max = -1;
+        for (int id : ids) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Tag id cannot be negative, got: " + id);
+            }
+            max = Math.max(max, id);
+        }
+        if (max < 0) {
+            return EMPTY;
+        }
+        long[] words = new long[(max >>> 6) + 1];
+        for (int id : ids) {
+            words[id >>> 6] |= 1L << id;
+        }
+        return new TagMask(words);
+    }
+
+    /**
+     * Returns true if every bit set in {@code required} is also set in this mask.
+     */
+    public boolean containsAll(TagMask required) {
+        long[] requiredWords = required.words;
+        if (requiredWords.length > words.length) {
+            return false;
+        }
+        for (int i = 0; i < requiredWords.length; i++) {
+            if ((words[i] & requiredWords[i]) != requiredWords[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the tags in either mask.
+     */
+    public TagMask or(TagMask other) {
+        long[] longer = words.length >= other.words.length ? words : other.words;
+        long[] shorter = longer == words ? other.words : words;
+        if (shorter.length == 0) {
+            return longer == words ? this : other;
+        }
+        long[] union = longer.clone();
+        for (int i = 0; i < shorter.length; i++) {
+            union[i] |= shorter[i];
+        }
+        return new TagMask(union);
+    }
+
+    /**
+     * Returns the tags in both masks.
+     */
+    public TagMask and(TagMask other) {
+        int length = Math.min(words.length, other.words.length);
+        long[] intersection = new long[length];
+        for (int i = 0; i < length; i++) {
+            intersection[i] = words[i] & other.words[i];
+        }
+        while (length > 0 && intersection[length - 1] == 0) {
+            length--;
+        }
+        return length == 0 ? EMPTY : new TagMask(Arrays.copyOf(intersection, length));
+    }
+
+    public boolean contains(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns one more than the highest id in the mask, or 0 if it is empty.
+     */
+    public int length() {
+        if (words.length == 0) {
+            return 0;
+        }
+        return (words.length - 1) * 64 + 64 - Long.numberOfLeadingZeros(words[words.length - 1]);
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof TagMask && Arrays.equals(words, ((TagMask) o).words));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("TagMask{");
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                if (builder.length() > "TagMask{".length()) {
+                    builder.append(',');
+                }
+                builder.append(word * 64 + bit);
+                bits &= bits - 1;
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
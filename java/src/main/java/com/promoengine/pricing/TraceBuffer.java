@@ -0,0 +1,96 @@
+// ABOUTME: Reusable recorder of promotion decisions made during a traced pricing call.
+// ABOUTME: Stores reason codes and primitive amounts in growable arrays; nothing is formatted while pricing.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Written by the engine while pricing, then frozen into an immutable {@link EvaluationTrace}.
+ * One buffer serves many calls: {@link #reset} keeps the arrays. Not thread-safe.
+ */
+public final class TraceBuffer {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private PromotionId[] promotionIds = new PromotionId[INITIAL_CAPACITY];
+    private byte[] reasons = new byte[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    // Amounts beyond long cents, by decision index; null until one is recorded
+    private Money[] largeAmounts;
+    private int size;
+
+    /**
+     * Records a decision.
+     * @param amountCents Discount computed by the promotion, for reasons that compute one; otherwise ignored
+     * @return Index of the decision, for {@link #update}
+     */
+    public int record(PromotionId promotionId, DecisionReason reason, long amountCents) {
+        if (size == reasons.length) {
+            int capacity = size * 2;
+            promotionIds = Arrays.copyOf(promotionIds, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        promotionIds[size] = promotionId;
+        reasons[size] = (byte) reason.ordinal();
+        amounts[size] = amountCents;
+        return size++;
+    }
+
+    /**
+     * Records a decision with the discount computed by the promotion, which may exceed long cents.
+     * @return Index of the decision, for {@link #update}
+     */
+    public int record(PromotionId promotionId, DecisionReason reason, Money amount) {
+        if (amount.isCompact()) {
+            return record(promotionId, reason, amount.toCents());
+        }
+        int index = record(promotionId, reason, 0L);
+        if (largeAmounts == null || largeAmounts.length < reasons.length) {
+            largeAmounts = largeAmounts == null ? new Money[reasons.length] : Arrays.copyOf(largeAmounts, reasons.length);
+        }
+        largeAmounts[index] = amount;
+        return index;
+    }
+
+    /**
+     * Changes the reason of a recorded decision, e.g. once the stacking policy has chosen.
+     */
+    public void update(int index, DecisionReason reason) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No decision at index " + index);
+        }
+        reasons[index] = (byte) reason.ordinal();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        // Drop references so promotions removed from the catalog can be collected
+        Arrays.fill(promotionIds, 0, size, null);
+        largeAmounts = null;
+        size = 0;
+    }
+
+    /**
+     * Copies the recorded decisions into an immutable trace.
+     * @param appliedDiscounts Discounts of the priced cart, used to describe applied promotions
+     * @param notTargeted Number of promotions not evaluated because they target nothing in the cart
+     */
+    public EvaluationTrace freeze(List<AppliedDiscount> appliedDiscounts, int notTargeted) {
+        return new EvaluationTrace(
+            Arrays.copyOf(promotionIds, size),
+            Arrays.copyOf(reasons, size),
+            Arrays.copyOf(amounts, size),
+            largeAmounts == null ? null : Arrays.copyOf(largeAmounts, size),
+            appliedDiscounts,
+            notTargeted
+        );
+    }
+}
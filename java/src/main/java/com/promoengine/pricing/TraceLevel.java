@@ -0,0 +1,9 @@
+// ABOUTME: How often pricing calls record an EvaluationTrace of their promotion decisions.
+// ABOUTME: OFF costs next to nothing; SAMPLED traces a fraction of calls; ALWAYS traces every call.
+package com.promoengine.pricing;
+
+public enum TraceLevel {
+    OFF,
+    SAMPLED,
+    ALWAYS
+}
@@ -0,0 +1,306 @@
+// ABOUTME: Executable form of a PromotionDefinition produced by PromotionCompiler.
+// ABOUTME: One final subclass per reward kind, with targets and constants resolved at compile time.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.Cart;
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.domain.ValidityWindow;
+import com.promoengine.pricing.Allocations;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ContextField;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.TagMask;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+abstract class CompiledPromotion implements Promotion {
+
+    private final PromotionDefinition definition;
+    private final TagMask requiredTags;
+    private final Condition[] conditions;
+    final PromotionId id;
+    final LineMatcher matcher;
+
+    CompiledPromotion(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions) {
+        this.definition = definition;
+        this.id = definition.id();
+        this.requiredTags = TagMask.of(definition.requiredTags().toArray(String[]::new));
+        this.matcher = matcher;
+        this.conditions = conditions;
+    }
+
+    @Override
+    public PromotionId id() {
+        return id;
+    }
+
+    @Override
+    public boolean isApplicable(Cart cart, PricingContext context) {
+        return isApplicable(CartAnalysis.of(cart), context);
+    }
+
+    @Override
+    public boolean isApplicable(CartAnalysis cart, PricingContext context) {
+        for (Condition condition : conditions) {
+            if (!condition.test(cart, context)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<Sku> targetSkus() {
+        return definition.targetSkus();
+    }
+
+    @Override
+    public Set<String> targetCategories() {
+        return definition.targetCategories();
+    }
+
+    @Override
+    public ValidityWindow validity() {
+        return definition.validity();
+    }
+
+    @Override
+    public TagMask requiredTags() {
+        return requiredTags;
+    }
+
+    @Override
+    public Set<String> conflictGroups() {
+        return definition.conflictGroups();
+    }
+
+    @Override
+    public Set<String> channels() {
+        return definition.channels();
+    }
+
+    @Override
+    public int priority() {
+        return definition.priority();
+    }
+
+    /**
+     * Conditions only read the cart; channels, validity and tags are checked by the engine.
+     */
+    @Override
+    public Set<ContextField> contextReads() {
+        return Set.of();
+    }
+
+    PromotionDefinition definition() {
+        return definition;
+    }
+
+    Condition[] conditions() {
+        return conditions.clone();
+    }
+
+    @Override
+    public final List<AppliedDiscount> apply(Cart cart, PricingContext context) {
+        return apply(CartAnalysis.of(cart), context);
+    }
+
+    @Override
+    public abstract List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + id + "]";
+    }
+
+    static final class PercentOff extends CompiledPromotion {
+
+        private final BigDecimal fraction;
+        private final String label;
+
+        PercentOff(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions,
+                   Reward.PercentOff reward) {
+            super(definition, matcher, conditions);
+            this.fraction = reward.percentage().asDecimal();
+            this.label = reward.percentage() + " off ";
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context) {
+            int[] lines = matcher.matchingLines(cart);
+            List<AppliedDiscount> discounts = new ArrayList<>(lines.length);
+            for (int line : lines) {
+                Sku sku = cart.line(line).product().sku();
+                Money amount = cart.lineSubtotal(line).multiply(fraction);
+                discounts.add(new AppliedDiscount(id, amount, "line", label + sku, Allocations.of(sku, amount)));
+            }
+            return discounts;
+        }
+    }
+
+    static final class BuyXPayY extends CompiledPromotion {
+
+        private final int buy;
+        private final int free;
+        private final String label;
+
+        BuyXPayY(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions,
+                 Reward.BuyXPayY reward) {
+            super(definition, matcher, conditions);
+            this.buy = reward.buy();
+            this.free = reward.buy() - reward.pay();
+            this.label = reward.buy() + "x" + reward.pay() + " on ";
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context) {
+            List<AppliedDiscount> discounts = new ArrayList<>();
+            for (int index : matcher.matchingLines(cart)) {
+                LineItem line = cart.line(index);
+                int groups = line.quantity().intValue() / buy;
+                if (groups > 0) {
+                    Sku sku = line.product().sku();
+                    // Closed form: free units never exceed the quantity, so they fit in an int
+                    // and the discount is one multiply of the unit price in long cents
+                    Money amount = line.unitPrice().multiply(groups * free);
+                    discounts.add(new AppliedDiscount(id, amount, "line", label + sku, Allocations.of(sku, amount)));
+                }
+            }
+            return discounts;
+        }
+    }
+
+    /**
+     * Pools the units of the targeted lines, so only the line count is sorted and a line of
+     * thousands of units costs the same as a line of one.
+     */
+    static final class CheapestFree extends CompiledPromotion {
+
+        private final int buy;
+        private final int free;
+        private final String label;
+
+        CheapestFree(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions,
+                     Reward.CheapestFree reward) {
+            super(definition, matcher, conditions);
+            this.buy = reward.buy();
+            this.free = reward.buy() - reward.pay();
+            this.label = reward.buy() + "x" + reward.pay() + " cheapest free on ";
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context) {
+            int[] lines = matcher.matchingLines(cart);
+            long quantity = 0;
+            for (int index : lines) {
+                quantity += cart.line(index).quantity().intValue();
+            }
+            long remaining = quantity / buy * free;
+            if (remaining == 0) {
+                return List.of();
+            }
+            // Lines with the same unit price give their units away in SKU order, so the result
+            // does not depend on the order of the cart's lines
+            Integer[] cheapestFirst = new Integer[lines.length];
+            for (int i = 0; i < lines.length; i++) {
+                cheapestFirst[i] = lines[i];
+            }
+            Arrays.sort(cheapestFirst, Comparator.<Integer, Money>comparing(index -> cart.line(index).unitPrice())
+                .thenComparing(index -> cart.line(index).product().sku().value()));
+
+            List<AppliedDiscount> discounts = new ArrayList<>();
+            for (int i = 0; i < cheapestFirst.length && remaining > 0; i++) {
+                LineItem line = cart.line(cheapestFirst[i]);
+                int units = (int) Math.min(remaining, line.quantity().intValue());
+                if (units > 0) {
+                    remaining -= units;
+                    Sku sku = line.product().sku();
+                    Money amount = line.unitPrice().multiply(units);
+                    discounts.add(new AppliedDiscount(id, amount, "line", label + sku + " (" + units + " free)",
+                        Allocations.of(sku, amount)));
+                }
+            }
+            return discounts;
+        }
+    }
+
+    static final class SpendThreshold extends CompiledPromotion {
+
+        private final Money discount;
+        private final String details;
+
+        SpendThreshold(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions,
+                       Reward.SpendThreshold reward) {
+            super(definition, matcher, conditions);
+            this.discount = reward.discount();
+            this.details = "Spend " + reward.threshold() + " save " + reward.discount();
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context) {
+            Money spend = matcher.sharedSpendOn(cart);
+            // Never discount more than the eligible spend
+            Money amount = discount.isGreaterThan(spend) ? spend : discount;
+            return List.of(new AppliedDiscount(id, amount, "cart", details));
+        }
+    }
+
+    /**
+     * Finds the tier by binary search over the thresholds in long cents, so the number of
+     * tiers barely matters, and reads the eligible spend shared with the condition and with
+     * other promotions of the same targets.
+     */
+    static final class SpendTiers extends CompiledPromotion {
+
+        private final long[] thresholds;
+        private final Money[] discounts;
+        private final String[] details;
+
+        SpendTiers(PromotionDefinition definition, LineMatcher matcher, Condition[] conditions,
+                   Reward.SpendTiers reward) {
+            super(definition, matcher, conditions);
+            List<Reward.SpendTiers.Tier> tiers = reward.tiers();
+            this.thresholds = new long[tiers.size()];
+            this.discounts = new Money[tiers.size()];
+            this.details = new String[tiers.size()];
+            for (int i = 0; i < thresholds.length; i++) {
+                Reward.SpendTiers.Tier tier = tiers.get(i);
+                thresholds[i] = tier.threshold().toCents();
+                discounts[i] = tier.discount();
+                details[i] = "Spend " + tier.threshold() + " save " + tier.discount();
+            }
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(CartAnalysis cart, PricingContext context) {
+            Money spend = matcher.sharedSpendOn(cart);
+            int tier = tierFor(spend);
+            if (tier < 0) {
+                return List.of();
+            }
+            Money amount = discounts[tier].isGreaterThan(spend) ? spend : discounts[tier];
+            return List.of(new AppliedDiscount(id, amount, "cart", details[tier]));
+        }
+
+        /**
+         * Returns the index of the highest tier the spend reaches, or -1 if it reaches none.
+         */
+        int tierFor(Money spend) {
+            if (!spend.isCompact()) {
+                // Beyond long cents, so above every threshold
+                return thresholds.length - 1;
+            }
+            int found = Arrays.binarySearch(thresholds, spend.toCents());
+            return found >= 0 ? found : -found - 2;
+        }
+    }
+}
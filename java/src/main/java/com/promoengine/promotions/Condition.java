@@ -0,0 +1,71 @@
+// ABOUTME: One applicability check of a compiled promotion, with a relative evaluation cost.
+// ABOUTME: Compiled promotions run their conditions cheapest first and stop at the first failure.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.Money;
+import com.promoengine.pricing.PricingContext;
+
+interface Condition {
+
+    // Relative cost used to order conditions
+    int CART_SCAN = 10;
+
+    Condition NEVER = new Condition() {
+        @Override
+        public boolean test(CartAnalysis cart, PricingContext context) {
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return 0;
+        }
+    };
+
+    boolean test(CartAnalysis cart, PricingContext context);
+
+    int cost();
+
+    /**
+     * Some targeted line has at least the given quantity; 1 means some targeted line is present.
+     */
+    record AnyLineWithQuantity(LineMatcher matcher, int minimumQuantity) implements Condition {
+        @Override
+        public boolean test(CartAnalysis cart, PricingContext context) {
+            return matcher.anyLineWithQuantity(cart, minimumQuantity);
+        }
+
+        @Override
+        public int cost() {
+            return CART_SCAN;
+        }
+    }
+
+    /**
+     * The targeted lines together have at least the given quantity.
+     */
+    record QuantityAtLeast(LineMatcher matcher, long minimumQuantity) implements Condition {
+        @Override
+        public boolean test(CartAnalysis cart, PricingContext context) {
+            return matcher.quantityOn(cart) >= minimumQuantity;
+        }
+
+        @Override
+        public int cost() {
+            return CART_SCAN;
+        }
+    }
+
+    record SpendAtLeast(LineMatcher matcher, Money threshold) implements Condition {
+        @Override
+        public boolean test(CartAnalysis cart, PricingContext context) {
+            return matcher.sharedSpendOn(cart).isGreaterThanOrEqual(threshold);
+        }
+
+        @Override
+        public int cost() {
+            return CART_SCAN;
+        }
+    }
+}
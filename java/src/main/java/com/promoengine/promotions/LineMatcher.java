@@ -0,0 +1,311 @@
+// ABOUTME: Decides whether a cart line is targeted by a compiled promotion.
+// ABOUTME: Specialized per target shape; targets are interned ids, so matching a line compares ints.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.CartAnalysis;
+import com.promoengine.domain.IdDictionary;
+import com.promoengine.domain.LineItem;
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Sku;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+interface LineMatcher {
+
+    LineMatcher ALL = new All();
+
+    boolean matches(LineItem line);
+
+    /**
+     * Returns true if the line at the index of the analyzed cart is targeted.
+     */
+    default boolean matches(CartAnalysis cart, int line) {
+        return matches(cart.line(line));
+    }
+
+    /**
+     * Returns the indexes of the targeted lines, in cart order.
+     */
+    default int[] matchingLines(CartAnalysis cart) {
+        int[] lines = new int[cart.lineCount()];
+        int count = 0;
+        for (int i = 0; i < lines.length; i++) {
+            if (matches(cart, i)) {
+                lines[count++] = i;
+            }
+        }
+        return count == lines.length ? lines : Arrays.copyOf(lines, count);
+    }
+
+    /**
+     * Returns the sum of the subtotals of the targeted lines.
+     */
+    default Money spendOn(CartAnalysis cart) {
+        Money spend = Money.ZERO;
+        for (int i = 0; i < cart.lineCount(); i++) {
+            if (matches(cart, i)) {
+                spend = spend.add(cart.lineSubtotal(i));
+            }
+        }
+        return spend;
+    }
+
+    /**
+     * Same as spendOn, computed once per cart for every promotion compiled with this matcher.
+     * The compiler hands promotions with the same targets the same matcher, so threshold
+     * promotions sharing an eligible-spend base sum it once between them.
+     */
+    default Money sharedSpendOn(CartAnalysis cart) {
+        return cart.memoized(this, this::spendOn);
+    }
+
+    /**
+     * Returns the sum of the quantities of the targeted lines.
+     */
+    default long quantityOn(CartAnalysis cart) {
+        long quantity = 0;
+        for (int i = 0; i < cart.lineCount(); i++) {
+            if (matches(cart, i)) {
+                quantity += cart.line(i).quantity().intValue();
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Returns true if some targeted line has at least the given quantity.
+     */
+    default boolean anyLineWithQuantity(CartAnalysis cart, int minimumQuantity) {
+        for (int i = 0; i < cart.lineCount(); i++) {
+            if (cart.line(i).quantity().intValue() >= minimumQuantity && matches(cart, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cheapest matcher for the given targets; empty targets match every line.
+     */
+    static LineMatcher of(Set<Sku> skus, Set<String> categories) {
+        if (skus.isEmpty() && categories.isEmpty()) {
+            return ALL;
+        }
+        if (categories.isEmpty()) {
+            return skus.size() == 1 ? new SingleSku(skus.iterator().next()) : new SkuIn(skus);
+        }
+        if (skus.isEmpty()) {
+            return categories.size() == 1 ? new SingleCategory(categories.iterator().next()) : new CategoryIn(categories);
+        }
+        return new SkuOrCategoryIn(skus, categories);
+    }
+
+    record All() implements LineMatcher {
+        @Override
+        public boolean matches(LineItem line) {
+            return true;
+        }
+
+        @Override
+        public Money spendOn(CartAnalysis cart) {
+            return cart.subtotal();
+        }
+
+        @Override
+        public Money sharedSpendOn(CartAnalysis cart) {
+            return cart.subtotal();
+        }
+
+        @Override
+        public long quantityOn(CartAnalysis cart) {
+            return cart.totalQuantity();
+        }
+    }
+
+    record SingleSku(Sku sku, int skuId) implements LineMatcher {
+
+        SingleSku(Sku sku) {
+            this(sku, IdDictionary.skus().idOf(sku));
+        }
+
+        @Override
+        public boolean matches(LineItem line) {
+            return sku.equals(line.product().sku());
+        }
+
+        @Override
+        public boolean matches(CartAnalysis cart, int line) {
+            return cart.skuId(line) == skuId;
+        }
+
+        @Override
+        public int[] matchingLines(CartAnalysis cart) {
+            return cart.linesOfSkuId(skuId);
+        }
+
+        @Override
+        public Money spendOn(CartAnalysis cart) {
+            return cart.subtotalOfSkuId(skuId);
+        }
+
+        @Override
+        public Money sharedSpendOn(CartAnalysis cart) {
+            return cart.subtotalOfSkuId(skuId);
+        }
+
+        @Override
+        public long quantityOn(CartAnalysis cart) {
+            return cart.quantityOfSkuId(skuId);
+        }
+
+        @Override
+        public boolean anyLineWithQuantity(CartAnalysis cart, int minimumQuantity) {
+            if (minimumQuantity <= 1) {
+                return cart.containsSkuId(skuId);
+            }
+            for (int line : cart.linesOfSkuId(skuId)) {
+                if (cart.line(line).quantity().intValue() >= minimumQuantity) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record SkuIn(Set<Sku> skus, BitSet skuIds) implements LineMatcher {
+
+        SkuIn(Set<Sku> skus) {
+            this(skus, idsOf(skus, IdDictionary.skus()));
+        }
+
+        @Override
+        public boolean matches(LineItem line) {
+            return skus.contains(line.product().sku());
+        }
+
+        @Override
+        public boolean matches(CartAnalysis cart, int line) {
+            return contains(skuIds, cart.skuId(line));
+        }
+
+        @Override
+        public Money spendOn(CartAnalysis cart) {
+            if (skus.size() >= cart.lineCount()) {
+                return LineMatcher.super.spendOn(cart);
+            }
+            // Lines of distinct SKUs are disjoint, so the per-SKU subtotals add up
+            Money spend = Money.ZERO;
+            for (int id = skuIds.nextSetBit(0); id >= 0; id = skuIds.nextSetBit(id + 1)) {
+                spend = spend.add(cart.subtotalOfSkuId(id));
+            }
+            return spend;
+        }
+    }
+
+    record SingleCategory(String category, int categoryId) implements LineMatcher {
+
+        SingleCategory(String category) {
+            this(category, IdDictionary.categories().idOf(category));
+        }
+
+        @Override
+        public boolean matches(LineItem line) {
+            return category.equals(line.product().category());
+        }
+
+        @Override
+        public boolean matches(CartAnalysis cart, int line) {
+            return cart.categoryId(line) == categoryId;
+        }
+
+        @Override
+        public int[] matchingLines(CartAnalysis cart) {
+            return cart.linesInCategoryId(categoryId);
+        }
+
+        @Override
+        public Money spendOn(CartAnalysis cart) {
+            return cart.subtotalInCategoryId(categoryId);
+        }
+
+        @Override
+        public Money sharedSpendOn(CartAnalysis cart) {
+            return cart.subtotalInCategoryId(categoryId);
+        }
+
+        @Override
+        public long quantityOn(CartAnalysis cart) {
+            return cart.quantityInCategoryId(categoryId);
+        }
+
+        @Override
+        public boolean anyLineWithQuantity(CartAnalysis cart, int minimumQuantity) {
+            if (minimumQuantity <= 1) {
+                return cart.containsCategoryId(categoryId);
+            }
+            return LineMatcher.super.anyLineWithQuantity(cart, minimumQuantity);
+        }
+    }
+
+    record CategoryIn(Set<String> categories, BitSet categoryIds) implements LineMatcher {
+
+        CategoryIn(Set<String> categories) {
+            this(categories, idsOf(categories, IdDictionary.categories()));
+        }
+
+        @Override
+        public boolean matches(LineItem line) {
+            return categories.contains(line.product().category());
+        }
+
+        @Override
+        public boolean matches(CartAnalysis cart, int line) {
+            return contains(categoryIds, cart.categoryId(line));
+        }
+
+        @Override
+        public Money spendOn(CartAnalysis cart) {
+            if (categories.size() >= cart.lineCount()) {
+                return LineMatcher.super.spendOn(cart);
+            }
+            Money spend = Money.ZERO;
+            for (int id = categoryIds.nextSetBit(0); id >= 0; id = categoryIds.nextSetBit(id + 1)) {
+                spend = spend.add(cart.subtotalInCategoryId(id));
+            }
+            return spend;
+        }
+    }
+
+    record SkuOrCategoryIn(Set<Sku> skus, Set<String> categories, BitSet skuIds, BitSet categoryIds)
+        implements LineMatcher {
+
+        SkuOrCategoryIn(Set<Sku> skus, Set<String> categories) {
+            this(skus, categories, idsOf(skus, IdDictionary.skus()), idsOf(categories, IdDictionary.categories()));
+        }
+
+        @Override
+        public boolean matches(LineItem line) {
+            return skus.contains(line.product().sku()) || categories.contains(line.product().category());
+        }
+
+        @Override
+        public boolean matches(CartAnalysis cart, int line) {
+            return contains(skuIds, cart.skuId(line)) || contains(categoryIds, cart.categoryId(line));
+        }
+    }
+
+    // A line's id is -1 when no promotion targets its SKU or category, so no matcher does either
+    private static boolean contains(BitSet ids, int id) {
+        return id >= 0 && ids.get(id);
+    }
+
+    private static <K> BitSet idsOf(Set<K> keys, IdDictionary<K> dictionary) {
+        BitSet ids = new BitSet();
+        for (K key : keys) {
+            ids.set(dictionary.idOf(key));
+        }
+        return ids;
+    }
+}
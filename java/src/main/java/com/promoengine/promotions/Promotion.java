@@ -3,13 +3,28 @@
 package com.promoengine.promotions;
 
 import com.promoengine.domain.Cart;
+import com.promoengine.domain.CartAnalysis;
 import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.domain.ValidityWindow;
 import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.ContextField;
 import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.TagMask;
 
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Implementations must be safe to call from several threads at once, since one engine
+ * may price many carts concurrently. Immutable promotions satisfy this trivially.
+ */
 public interface Promotion {
+
+    /**
+     * The conflict group every promotion belongs to unless it declares otherwise.
+     */
+    String DEFAULT_CONFLICT_GROUP = "default";
     /**
      * Returns the unique identifier for this promotion.
      */
@@ -32,9 +47,111 @@ public interface Promotion {
      */
     List<AppliedDiscount> apply(Cart cart, PricingContext context);
 
-    // TODO: Add time-based applicability (validFrom, validUntil)
-    // TODO: Add customer segment targeting using context.customerTags
-    // TODO: Consider PercentOffProductPromotion implementation
-    // TODO: Consider BuyXGetYPromotion for quantity-based discounts
-    // TODO: Consider ThresholdPromotion (spend $X, save $Y)
+    /**
+     * Same as isApplicable(Cart, PricingContext), given the cart's analysis. The engine
+     * calls this overload with one analysis shared by every promotion it evaluates for the
+     * cart; override it to look up quantities and spend there instead of scanning the lines.
+     * @param analysis The cart to evaluate with its aggregates
+     * @param context The pricing context
+     * @return true if the promotion should be applied
+     */
+    default boolean isApplicable(CartAnalysis analysis, PricingContext context) {
+        return isApplicable(analysis.cart(), context);
+    }
+
+    /**
+     * Same as apply(Cart, PricingContext), given the cart's analysis.
+     * @param analysis The cart with its aggregates
+     * @param context The pricing context
+     * @return List of applied discounts with explainability
+     * @see #isApplicable(CartAnalysis, PricingContext)
+     */
+    default List<AppliedDiscount> apply(CartAnalysis analysis, PricingContext context) {
+        return apply(analysis.cart(), context);
+    }
+
+    /**
+     * Returns the SKUs this promotion targets.
+     * The engine only evaluates a promotion for carts containing at least one line
+     * whose SKU or category it targets. A promotion that targets neither SKUs nor
+     * categories is cart-wide and is evaluated for every cart.
+     * The outcome of a promotion that declares targets must depend only on the lines
+     * it targets, which lets pricing sessions skip it when other lines change.
+     * @return Targeted SKUs, empty by default
+     */
+    default Set<Sku> targetSkus() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the product categories this promotion targets.
+     * @return Targeted categories, empty by default
+     * @see #targetSkus()
+     */
+    default Set<String> targetCategories() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the time window during which this promotion is valid.
+     * The engine never evaluates a promotion when PricingContext.now is outside it.
+     * @return Validity window, unbounded by default
+     */
+    default ValidityWindow validity() {
+        return ValidityWindow.ALWAYS;
+    }
+
+    /**
+     * Returns the customer tags a customer must all have for this promotion to apply.
+     * Build the mask once, e.g. with TagMask.of("gold"), rather than on every call.
+     * The engine never evaluates a promotion for a context lacking any of them.
+     * @return Required tags, empty by default
+     */
+    default TagMask requiredTags() {
+        return TagMask.EMPTY;
+    }
+
+    /**
+     * Returns the conflict groups of this promotion. Under exclusive stacking policies two
+     * promotions sharing a group never both apply, while promotions with disjoint groups
+     * may combine. By default every promotion is in the same group, so exclusive policies
+     * apply a single promotion. A promotion with no groups combines with anything.
+     * @return Conflict groups, {@value #DEFAULT_CONFLICT_GROUP} by default
+     */
+    default Set<String> conflictGroups() {
+        return Set.of(DEFAULT_CONFLICT_GROUP);
+    }
+
+    /**
+     * Returns the priority of this promotion; higher priorities win. Under EXCLUSIVE_PRIORITY
+     * the engine evaluates candidates from the highest priority down and applies the first
+     * applicable promotion of each conflict group without evaluating the rest of the group.
+     * Promotions of equal priority are evaluated in catalog order.
+     * @return Priority, 0 by default
+     */
+    default int priority() {
+        return 0;
+    }
+
+    /**
+     * Returns the sales channels this promotion is offered in, matched exactly against
+     * PricingContext.channel. The engine never evaluates a promotion for a context whose
+     * channel is not listed, and keeps each channel's promotions in their own index so
+     * pricing for one channel does not look at another's.
+     * @return Channels, empty by default for a promotion offered in every channel
+     */
+    default Set<String> channels() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the context fields isApplicable and apply read. The validity window and the
+     * required tags are checked by the engine and need not be declared. Cached prices are
+     * shared between contexts that differ only in fields no promotion reads, so a promotion
+     * must not read a field it does not declare.
+     * @return Fields read, all of them by default
+     */
+    default Set<ContextField> contextReads() {
+        return ContextField.ALL;
+    }
 }
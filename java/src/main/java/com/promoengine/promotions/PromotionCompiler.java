@@ -0,0 +1,109 @@
+// ABOUTME: Compiles declarative PromotionDefinitions into specialized Promotion instances.
+// ABOUTME: Resolves targets to the cheapest matcher, folds constants, and orders conditions by cost.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Sku;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compilation does all the work that does not depend on the cart once:
+ * <ul>
+ *   <li>targets become a matcher specialized for their shape, e.g. a single SKU equality, shared by
+ *   every promotion the compiler compiles with the same targets so figures such as their eligible
+ *   spend are computed once per cart;</li>
+ *   <li>reward constants are precomputed, e.g. the percentage as a decimal fraction;</li>
+ *   <li>rewards that can never give anything, such as 0% off, compile to a promotion that is never applicable;</li>
+ *   <li>the remaining conditions run cheapest first, so context checks reject before cart scans.</li>
+ * </ul>
+ * Validity and required tags are declared on the compiled promotion and checked by the engine.
+ */
+public final class PromotionCompiler {
+
+    private final ConcurrentMap<Targets, LineMatcher> matchers = new ConcurrentHashMap<>();
+
+    public Promotion compile(PromotionDefinition definition) {
+        if (definition == null) {
+            throw new IllegalArgumentException("Definition cannot be null");
+        }
+        LineMatcher matcher = matchers.computeIfAbsent(
+            new Targets(definition.targetSkus(), definition.targetCategories()),
+            targets -> LineMatcher.of(targets.skus(), targets.categories()));
+        Condition[] conditions = conditions(definition, matcher);
+
+        Reward reward = definition.reward();
+        if (reward instanceof Reward.PercentOff percentOff) {
+            return new CompiledPromotion.PercentOff(definition, matcher, conditions, percentOff);
+        }
+        if (reward instanceof Reward.BuyXPayY buyXPayY) {
+            return new CompiledPromotion.BuyXPayY(definition, matcher, conditions, buyXPayY);
+        }
+        if (reward instanceof Reward.CheapestFree cheapestFree) {
+            return new CompiledPromotion.CheapestFree(definition, matcher, conditions, cheapestFree);
+        }
+        if (reward instanceof Reward.SpendThreshold threshold) {
+            return new CompiledPromotion.SpendThreshold(definition, matcher, conditions, threshold);
+        }
+        if (reward instanceof Reward.SpendTiers tiers) {
+            return new CompiledPromotion.SpendTiers(definition, matcher, conditions, tiers);
+        }
+        throw new IllegalArgumentException("Unsupported reward: " + reward);
+    }
+
+    public List<Promotion> compileAll(List<PromotionDefinition> definitions) {
+        if (definitions == null) {
+            throw new IllegalArgumentException("Definitions cannot be null");
+        }
+        List<Promotion> promotions = new ArrayList<>(definitions.size());
+        for (PromotionDefinition definition : definitions) {
+            promotions.add(compile(definition));
+        }
+        return promotions;
+    }
+
+    private static Condition[] conditions(PromotionDefinition definition, LineMatcher matcher) {
+        if (givesNothing(definition.reward())) {
+            return new Condition[]{Condition.NEVER};
+        }
+
+        // Channels are not checked here: the engine only evaluates a promotion for its own channels
+        List<Condition> conditions = new ArrayList<>();
+        Reward reward = definition.reward();
+        if (reward instanceof Reward.PercentOff) {
+            conditions.add(new Condition.AnyLineWithQuantity(matcher, 1));
+        } else if (reward instanceof Reward.BuyXPayY buyXPayY) {
+            conditions.add(new Condition.AnyLineWithQuantity(matcher, buyXPayY.buy()));
+        } else if (reward instanceof Reward.CheapestFree cheapestFree) {
+            conditions.add(new Condition.QuantityAtLeast(matcher, cheapestFree.buy()));
+        } else if (reward instanceof Reward.SpendThreshold threshold) {
+            conditions.add(new Condition.SpendAtLeast(matcher, threshold.threshold()));
+        } else if (reward instanceof Reward.SpendTiers tiers) {
+            conditions.add(new Condition.SpendAtLeast(matcher, tiers.tiers().get(0).threshold()));
+        }
+
+        conditions.sort(Comparator.comparingInt(Condition::cost));
+        return conditions.toArray(new Condition[0]);
+    }
+
+    private static boolean givesNothing(Reward reward) {
+        if (reward instanceof Reward.PercentOff percentOff) {
+            return percentOff.percentage().value().signum() == 0;
+        }
+        if (reward instanceof Reward.SpendThreshold threshold) {
+            return threshold.discount().equals(Money.ZERO);
+        }
+        if (reward instanceof Reward.SpendTiers tiers) {
+            return tiers.tiers().stream().allMatch(tier -> tier.discount().equals(Money.ZERO));
+        }
+        return false;
+    }
+
+    private record Targets(Set<Sku> skus, Set<String> categories) {
+    }
+}
@@ -0,0 +1,122 @@
+// ABOUTME: Declarative description of a promotion: targets, reward, validity, channels, customer tags and priority.
+// ABOUTME: Turned into an executable Promotion by PromotionCompiler.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.domain.ValidityWindow;
+
+import java.util.Set;
+
+/**
+ * Empty target sets make the promotion cart-wide, an empty channel set means every
+ * channel, and an empty tag set means every customer.
+ */
+public record PromotionDefinition(
+    PromotionId id,
+    Set<Sku> targetSkus,
+    Set<String> targetCategories,
+    Reward reward,
+    ValidityWindow validity,
+    Set<String> channels,
+    Set<String> requiredTags,
+    Set<String> conflictGroups,
+    int priority
+) {
+
+    public PromotionDefinition {
+        if (id == null) {
+            throw new IllegalArgumentException("Promotion ID cannot be null");
+        }
+        if (targetSkus == null || targetCategories == null) {
+            throw new IllegalArgumentException("Targets cannot be null");
+        }
+        if (reward == null) {
+            throw new IllegalArgumentException("Reward cannot be null");
+        }
+        if (validity == null) {
+            throw new IllegalArgumentException("Validity cannot be null");
+        }
+        if (channels == null) {
+            throw new IllegalArgumentException("Channels cannot be null");
+        }
+        if (requiredTags == null) {
+            throw new IllegalArgumentException("Required tags cannot be null");
+        }
+        if (conflictGroups == null) {
+            throw new IllegalArgumentException("Conflict groups cannot be null");
+        }
+        // Defensive copies to ensure immutability
+        targetSkus = Set.copyOf(targetSkus);
+        targetCategories = Set.copyOf(targetCategories);
+        channels = Set.copyOf(channels);
+        requiredTags = Set.copyOf(requiredTags);
+        conflictGroups = Set.copyOf(conflictGroups);
+    }
+
+    public static Builder builder(PromotionId id, Reward reward) {
+        return new Builder(id, reward);
+    }
+
+    public boolean isCartWide() {
+        return targetSkus.isEmpty() && targetCategories.isEmpty();
+    }
+
+    public static final class Builder {
+
+        private final PromotionId id;
+        private final Reward reward;
+        private Set<Sku> targetSkus = Set.of();
+        private Set<String> targetCategories = Set.of();
+        private ValidityWindow validity = ValidityWindow.ALWAYS;
+        private Set<String> channels = Set.of();
+        private Set<String> requiredTags = Set.of();
+        private Set<String> conflictGroups = Set.of(Promotion.DEFAULT_CONFLICT_GROUP);
+        private int priority;
+
+        private Builder(PromotionId id, Reward reward) {
+            this.id = id;
+            this.reward = reward;
+        }
+
+        public Builder targetSkus(Set<Sku> skus) {
+            this.targetSkus = skus;
+            return this;
+        }
+
+        public Builder targetCategories(Set<String> categories) {
+            this.targetCategories = categories;
+            return this;
+        }
+
+        public Builder validity(ValidityWindow window) {
+            this.validity = window;
+            return this;
+        }
+
+        public Builder channels(Set<String> channels) {
+            this.channels = channels;
+            return this;
+        }
+
+        public Builder requiredTags(Set<String> tags) {
+            this.requiredTags = tags;
+            return this;
+        }
+
+        public Builder conflictGroups(Set<String> groups) {
+            this.conflictGroups = groups;
+            return this;
+        }
+
+        public Builder priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public PromotionDefinition build() {
+            return new PromotionDefinition(id, targetSkus, targetCategories, reward, validity,
+                channels, requiredTags, conflictGroups, priority);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+// ABOUTME: What a declaratively defined promotion gives the customer once it applies.
+// ABOUTME: Percentage off, buy X pay Y per line or across lines, or fixed discounts above spend thresholds.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Percentage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public sealed interface Reward permits Reward.PercentOff, Reward.BuyXPayY, Reward.CheapestFree,
+    Reward.SpendThreshold, Reward.SpendTiers {
+
+    /**
+     * Percentage off every targeted line, rounded per line.
+     */
+    record PercentOff(Percentage percentage) implements Reward {
+
+        public PercentOff {
+            if (percentage == null) {
+                throw new IllegalArgumentException("Percentage cannot be null");
+            }
+        }
+    }
+
+    /**
+     * For every group of {@code buy} units of a targeted line, {@code buy - pay} units are free.
+     */
+    record BuyXPayY(int buy, int pay) implements Reward {
+
+        public BuyXPayY {
+            if (buy < 1) {
+                throw new IllegalArgumentException("Buy quantity must be positive, got: " + buy);
+            }
+            if (pay < 0 || pay >= buy) {
+                throw new IllegalArgumentException("Pay quantity must be between 0 and " + (buy - 1) + ", got: " + pay);
+            }
+        }
+    }
+
+    /**
+     * Mixed bundle across the targeted lines: their units are pooled regardless of SKU, and for
+     * every group of {@code buy} units the {@code buy - pay} cheapest units of the cart are free,
+     * e.g. "any 3 of these SKUs, cheapest free".
+     */
+    record CheapestFree(int buy, int pay) implements Reward {
+
+        public CheapestFree {
+            if (buy < 1) {
+                throw new IllegalArgumentException("Buy quantity must be positive, got: " + buy);
+            }
+            if (pay < 0 || pay >= buy) {
+                throw new IllegalArgumentException("Pay quantity must be between 0 and " + (buy - 1) + ", got: " + pay);
+            }
+        }
+    }
+
+    /**
+     * A fixed discount once the spend on targeted lines reaches the threshold.
+     */
+    record SpendThreshold(Money threshold, Money discount) implements Reward {
+
+        public SpendThreshold {
+            if (threshold == null) {
+                throw new IllegalArgumentException("Threshold cannot be null");
+            }
+            if (discount == null) {
+                throw new IllegalArgumentException("Discount cannot be null");
+            }
+            if (threshold.isLessThan(Money.ZERO) || discount.isLessThan(Money.ZERO)) {
+                throw new IllegalArgumentException("Threshold and discount cannot be negative");
+            }
+        }
+    }
+
+    /**
+     * Tiered spend threshold, e.g. "spend 50 save 5, spend 100 save 12": the discount of the
+     * highest tier whose threshold the spend on targeted lines reaches. Tiers are kept sorted
+     * by threshold whatever order they are given in.
+     */
+    record SpendTiers(List<Tier> tiers) implements Reward {
+
+        public SpendTiers {
+            if (tiers == null) {
+                throw new IllegalArgumentException("Tiers cannot be null");
+            }
+            if (tiers.isEmpty()) {
+                throw new IllegalArgumentException("Tiers cannot be empty");
+            }
+            List<Tier> sorted = new ArrayList<>(tiers.size());
+            for (Tier tier : tiers) {
+                if (tier == null) {
+                    throw new IllegalArgumentException("Tier cannot be null");
+                }
+                sorted.add(tier);
+            }
+            sorted.sort(Comparator.comparing(Tier::threshold));
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i).threshold().equals(sorted.get(i - 1).threshold())) {
+                    throw new IllegalArgumentException("Duplicate tier threshold: " + sorted.get(i).threshold());
+                }
+            }
+            tiers = List.copyOf(sorted);
+        }
+
+        /**
+         * Thresholds are compared in long cents, so they must fit in one.
+         */
+        public record Tier(Money threshold, Money discount) {
+
+            public Tier {
+                if (threshold == null) {
+                    throw new IllegalArgumentException("Threshold cannot be null");
+                }
+                if (discount == null) {
+                    throw new IllegalArgumentException("Discount cannot be null");
+                }
+                if (threshold.isLessThan(Money.ZERO) || discount.isLessThan(Money.ZERO)) {
+                    throw new IllegalArgumentException("Threshold and discount cannot be negative");
+                }
+                if (!threshold.isCompact()) {
+                    throw new IllegalArgumentException("Threshold out of range: " + threshold);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+// ABOUTME: Unit tests for CartAnalysis.
+// ABOUTME: Verifies totals and per-SKU and per-category groups match what scanning the cart lines gives.
+package com.promoengine.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CartAnalysisTest {
+
+    private static final Product PHONE = new Product(new Sku("SKU-PHONE"), "Phone", "electronics");
+    private static final Product CABLE = new Product(new Sku("SKU-CABLE"), "Cable", "electronics");
+    private static final Product SHIRT = new Product(new Sku("SKU-SHIRT"), "Shirt", "clothing");
+
+    @Test
+    void shouldComputeTotalsOfTheCart() {
+        Cart cart = new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")),
+            new LineItem(CABLE, new Quantity(3), Money.euros("9.99"))));
+
+        CartAnalysis analysis = CartAnalysis.of(cart);
+
+        assertThat(analysis.lineCount()).isEqualTo(2);
+        assertThat(analysis.lineSubtotal(1)).isEqualTo(Money.euros("29.97"));
+        assertThat(analysis.subtotal()).isEqualTo(cart.subtotal());
+        assertThat(analysis.totalQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldGroupLinesBySkuAndCategory() {
+        Cart cart = new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")),
+            new LineItem(SHIRT, new Quantity(2), Money.euros("20.00")),
+            new LineItem(PHONE, new Quantity(2), Money.euros("280.00"))));
+
+        CartAnalysis analysis = CartAnalysis.of(cart);
+
+        assertThat(analysis.contains(PHONE.sku())).isTrue();
+        assertThat(analysis.contains(CABLE.sku())).isFalse();
+        assertThat(analysis.quantityOf(PHONE.sku())).isEqualTo(3);
+        assertThat(analysis.subtotalOf(PHONE.sku())).isEqualTo(Money.euros("860.00"));
+        assertThat(analysis.linesOf(PHONE.sku())).containsExactly(0, 2);
+        assertThat(analysis.containsCategory("clothing")).isTrue();
+        assertThat(analysis.quantityIn("electronics")).isEqualTo(3);
+        assertThat(analysis.subtotalIn("clothing")).isEqualTo(Money.euros("40.00"));
+        assertThat(analysis.linesIn("clothing")).containsExactly(1);
+    }
+
+    @Test
+    void shouldLookUpLinesByInternedIds() {
+        Cart cart = new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")),
+            new LineItem(SHIRT, new Quantity(2), Money.euros("20.00")),
+            new LineItem(PHONE, new Quantity(2), Money.euros("280.00"))));
+
+        CartAnalysis analysis = CartAnalysis.of(cart);
+        int phone = IdDictionary.skus().idOf(PHONE.sku());
+        int clothing = IdDictionary.categories().idOf("clothing");
+
+        assertThat(analysis.skuId(0)).isEqualTo(phone).isEqualTo(analysis.skuId(2));
+        assertThat(analysis.categoryId(1)).isEqualTo(clothing);
+        assertThat(analysis.containsSkuId(phone)).isTrue();
+        assertThat(analysis.linesOfSkuId(phone)).containsExactly(0, 2);
+        assertThat(analysis.subtotalOfSkuId(phone)).isEqualTo(Money.euros("860.00"));
+        assertThat(analysis.linesInCategoryId(clothing)).containsExactly(1);
+        assertThat(analysis.subtotalInCategoryId(clothing)).isEqualTo(Money.euros("40.00"));
+        assertThat(analysis.containsSkuId(-1)).isFalse();
+    }
+
+    @Test
+    void shouldLookUpSkusAndCategoriesNoPromotionInterned() {
+        Product unknown = new Product(new Sku("SKU-NEVER-TARGETED"), "Unknown", "never-targeted");
+        Cart cart = new Cart(List.of(
+            new LineItem(unknown, new Quantity(2), Money.euros("5.00")),
+            new LineItem(unknown, new Quantity(1), Money.euros("5.00"))));
+
+        CartAnalysis analysis = CartAnalysis.of(cart);
+
+        assertThat(analysis.skuId(0)).isEqualTo(-1);
+        assertThat(analysis.categoryId(1)).isEqualTo(-1);
+        assertThat(analysis.linesOf(unknown.sku())).containsExactly(0, 1);
+        assertThat(analysis.quantityIn("never-targeted")).isEqualTo(3);
+        assertThat(IdDictionary.skus().find(unknown.sku())).isEqualTo(-1);
+        assertThat(IdDictionary.categories().find("never-targeted")).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldComputeMemoizedFiguresOncePerKey() {
+        CartAnalysis analysis = CartAnalysis.of(new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")))));
+        Object key = new Object();
+        AtomicInteger computed = new AtomicInteger();
+
+        Money first = analysis.memoized(key, cart -> {
+            computed.incrementAndGet();
+            return cart.subtotal();
+        });
+        Money second = analysis.memoized(key, cart -> Money.ZERO);
+
+        assertThat(first).isEqualTo(Money.euros("300.00"));
+        assertThat(second).isSameAs(first);
+        assertThat(computed).hasValue(1);
+        assertThat(analysis.<Money>memoized(new Object(), cart -> Money.ZERO)).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void shouldComputeMemoizedFiguresOncePerKeyBeyondTheFirstFew() {
+        CartAnalysis analysis = CartAnalysis.of(new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")))));
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(new Object());
+        }
+        AtomicInteger computed = new AtomicInteger();
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < keys.size(); i++) {
+                long cents = i;
+                Money figure = analysis.memoized(keys.get(i), cart -> {
+                    computed.incrementAndGet();
+                    return Money.cents(cents);
+                });
+                assertThat(figure).isEqualTo(Money.cents(i));
+            }
+        }
+
+        assertThat(computed).hasValue(keys.size());
+    }
+
+    @Test
+    void shouldReturnEmptyGroupsForAbsentKeys() {
+        CartAnalysis analysis = CartAnalysis.of(new Cart(List.of()));
+
+        assertThat(analysis.subtotal()).isEqualTo(Money.ZERO);
+        assertThat(analysis.quantityOf(PHONE.sku())).isZero();
+        assertThat(analysis.subtotalIn("electronics")).isEqualTo(Money.ZERO);
+        assertThat(analysis.linesIn("electronics")).isEmpty();
+    }
+
+    @Test
+    void shouldNotExposeInternalLineIndexes() {
+        CartAnalysis analysis = CartAnalysis.of(new Cart(List.of(
+            new LineItem(PHONE, new Quantity(1), Money.euros("300.00")))));
+
+        analysis.linesOf(PHONE.sku())[0] = 7;
+
+        assertThat(analysis.linesOf(PHONE.sku())).containsExactly(0);
+    }
+
+    @Test
+    void shouldRejectNullCart() {
+        assertThatThrownBy(() -> CartAnalysis.of(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cart cannot be null");
+    }
+}
@@ -0,0 +1,46 @@
+// ABOUTME: Unit tests for IdDictionary.
+// ABOUTME: Verifies stable dense ids, lookups that never assign, and null handling.
+package com.promoengine.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdDictionaryTest {
+
+    @Test
+    void shouldAssignDenseIdsInFirstSeenOrder() {
+        IdDictionary<Sku> dictionary = new IdDictionary<>("SKU");
+
+        assertThat(dictionary.idOf(new Sku("SKU-B"))).isEqualTo(0);
+        assertThat(dictionary.idOf(new Sku("SKU-A"))).isEqualTo(1);
+        assertThat(dictionary.idOf(new Sku("SKU-B"))).isEqualTo(0);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFindWithoutAssigning() {
+        IdDictionary<String> dictionary = new IdDictionary<>("Category");
+        dictionary.idOf("books");
+
+        assertThat(dictionary.find("books")).isEqualTo(0);
+        assertThat(dictionary.find("garden")).isEqualTo(-1);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShareOneDictionaryPerKind() {
+        int id = IdDictionary.skus().idOf(new Sku("SKU-SHARED"));
+
+        assertThat(IdDictionary.skus().find(new Sku("SKU-SHARED"))).isEqualTo(id);
+    }
+
+    @Test
+    void shouldRejectNullKeys() {
+        IdDictionary<PromotionId> dictionary = new IdDictionary<>("Promotion ID");
+
+        assertThatThrownBy(() -> dictionary.idOf(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Promotion ID cannot be null");
+    }
+}
@@ -169,6 +169,82 @@ class MoneyTest {
         }
     }
 
+    @Nested
+    class LongCentsRepresentation {
+        @Test
+        void shouldKeepOrdinaryAmountsAsLongCents() {
+            Money money = Money.euros("10.50");
+            assertThat(money.isCompact()).isTrue();
+            assertThat(money.toCents()).isEqualTo(1050);
+        }
+
+        @Test
+        void shouldEqualRegardlessOfHowItWasBuilt() {
+            Money fromCents = Money.cents(1050);
+            Money fromString = Money.euros("10.50");
+            Money fromArithmetic = Money.euros("10.00").add(Money.euros("0.50"));
+
+            assertThat(fromCents).isEqualTo(fromString).isEqualTo(fromArithmetic);
+            assertThat(fromCents.hashCode()).isEqualTo(fromString.hashCode());
+        }
+
+        @Test
+        void shouldRoundNegativeHalvesAwayFromZero() {
+            assertThat(Money.euros("-1.225").toCents()).isEqualTo(-123);
+            assertThat(Money.euros("-1.224").toCents()).isEqualTo(-122);
+        }
+
+        @Test
+        void shouldMultiplyByWholeBigDecimalOnLongPath() {
+            Money result = Money.euros("1.50").multiply(new BigDecimal("3"));
+            assertThat(result.isCompact()).isTrue();
+            assertThat(result).isEqualTo(Money.euros("4.50"));
+        }
+
+        @Test
+        void shouldFallBackToBigDecimalOnAdditionOverflow() {
+            Money max = Money.cents(Long.MAX_VALUE);
+            Money result = max.add(Money.cents(1));
+
+            assertThat(result.isCompact()).isFalse();
+            assertThat(result.amount())
+                .isEqualByComparingTo(BigDecimal.valueOf(Long.MAX_VALUE, 2).add(new BigDecimal("0.01")));
+        }
+
+        @Test
+        void shouldFallBackToBigDecimalOnSubtractionOverflow() {
+            Money result = Money.cents(Long.MIN_VALUE).subtract(Money.cents(1));
+
+            assertThat(result.isCompact()).isFalse();
+            assertThat(result.isLessThan(Money.cents(Long.MIN_VALUE))).isTrue();
+        }
+
+        @Test
+        void shouldFallBackToBigDecimalOnMultiplicationOverflow() {
+            Money result = Money.cents(Long.MAX_VALUE / 2 + 1).multiply(2);
+
+            assertThat(result.isCompact()).isFalse();
+            assertThat(result.amount())
+                .isEqualByComparingTo(BigDecimal.valueOf(Long.MAX_VALUE / 2 + 1, 2).multiply(BigDecimal.valueOf(2)));
+        }
+
+        @Test
+        void shouldReturnToLongCentsWhenResultFitsAgain() {
+            Money overflowed = Money.cents(Long.MAX_VALUE).add(Money.cents(1));
+            Money back = overflowed.subtract(Money.cents(2));
+
+            assertThat(back.isCompact()).isTrue();
+            assertThat(back).isEqualTo(Money.cents(Long.MAX_VALUE - 1));
+        }
+
+        @Test
+        void shouldRefuseCentsConversionOutsideLongRange() {
+            Money huge = Money.euros("1E+30");
+            assertThatThrownBy(huge::toCents)
+                .isInstanceOf(ArithmeticException.class);
+        }
+    }
+
     @Test
     void shouldFormatAsEuros() {
         Money m = Money.euros("42.50");
@@ -0,0 +1,57 @@
+// ABOUTME: Unit tests for ValidityWindow value type.
+// ABOUTME: Verifies inclusive start, exclusive end, open bounds, and validation.
+package com.promoengine.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ValidityWindowTest {
+
+    private static final Instant JAN_1 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant FEB_1 = Instant.parse("2026-02-01T00:00:00Z");
+
+    @Test
+    void shouldIncludeStartInstant() {
+        assertThat(ValidityWindow.between(JAN_1, FEB_1).contains(JAN_1)).isTrue();
+    }
+
+    @Test
+    void shouldExcludeEndInstant() {
+        ValidityWindow window = ValidityWindow.between(JAN_1, FEB_1);
+
+        assertThat(window.contains(FEB_1.minusNanos(1))).isTrue();
+        assertThat(window.contains(FEB_1)).isFalse();
+    }
+
+    @Test
+    void shouldExcludeInstantsBeforeStart() {
+        assertThat(ValidityWindow.between(JAN_1, FEB_1).contains(JAN_1.minusNanos(1))).isFalse();
+    }
+
+    @Test
+    void shouldSupportOpenEnds() {
+        assertThat(ValidityWindow.from(JAN_1).contains(Instant.parse("2100-01-01T00:00:00Z"))).isTrue();
+        assertThat(ValidityWindow.until(FEB_1).contains(Instant.parse("1900-01-01T00:00:00Z"))).isTrue();
+        assertThat(ValidityWindow.ALWAYS.contains(JAN_1)).isTrue();
+        assertThat(ValidityWindow.ALWAYS.isUnbounded()).isTrue();
+    }
+
+    @Test
+    void shouldRejectEmptyWindow() {
+        assertThatThrownBy(() -> ValidityWindow.between(FEB_1, JAN_1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Valid from must be before valid to");
+        assertThatThrownBy(() -> ValidityWindow.between(JAN_1, JAN_1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectNullBoundsInFactories() {
+        assertThatThrownBy(() -> ValidityWindow.between(null, FEB_1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Window bounds cannot be null");
+    }
+}
@@ -4,6 +4,10 @@ package com.promoengine.engine;
 
 import com.promoengine.domain.*;
 import com.promoengine.pricing.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
 import com.promoengine.promotions.StubPromotion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -206,4 +210,236 @@ class AcceptanceTest {
         assertThat(appliedDiscount.allocations().get(new Sku("SKU-A"))).isEqualTo(Money.euros("1.50"));
         assertThat(appliedDiscount.allocations().get(new Sku("SKU-B"))).isEqualTo(Money.euros("2.50"));
     }
+
+    @Test
+    void shouldOnlyApplyPromotionsWithinTheirValidityWindow() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(2), Money.euros("10.00"))
+        ));
+
+        AppliedDiscount discount = new AppliedDiscount(
+            new PromotionId("PROMO-JANUARY"),
+            Money.euros("2.00"),
+            "line",
+            "January sale"
+        );
+
+        StubPromotion january = new StubPromotion(
+            new PromotionId("PROMO-JANUARY"),
+            true,
+            List.of(discount)
+        ) {
+            @Override
+            public ValidityWindow validity() {
+                return ValidityWindow.between(
+                    Instant.parse("2026-01-01T00:00:00Z"),
+                    Instant.parse("2026-02-01T00:00:00Z")
+                );
+            }
+        };
+
+        PromotionEngine engine = new PromotionEngine(List.of(january));
+
+        assertThat(engine.price(cart, contextAt("2026-01-10T12:00:00Z")).discountTotal())
+            .isEqualTo(Money.euros("2.00"));
+        assertThat(engine.price(cart, contextAt("2026-01-01T00:00:00Z")).discountTotal())
+            .isEqualTo(Money.euros("2.00"));
+        assertThat(engine.price(cart, contextAt("2026-02-01T00:00:00Z")).discountTotal())
+            .isEqualTo(Money.euros("0.00"));
+        assertThat(engine.price(cart, contextAt("2025-12-31T23:59:59Z")).discountTotal())
+            .isEqualTo(Money.euros("0.00"));
+    }
+
+    private PricingContext contextAt(String instant) {
+        return new PricingContext(Instant.parse(instant), "online", "CUST001", Set.of("regular"));
+    }
+
+    @Test
+    void shouldOnlyApplySegmentPromotionsToEligibleCustomers() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(2), Money.euros("10.00"))
+        ));
+
+        StubPromotion goldOnly = new StubPromotion(
+            new PromotionId("PROMO-GOLD"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-GOLD"), Money.euros("3.00"), "cart", "Gold discount"))
+        ) {
+            private final TagMask gold = TagMask.of("gold");
+
+            @Override
+            public TagMask requiredTags() {
+                return gold;
+            }
+        };
+
+        PromotionEngine engine = new PromotionEngine(List.of(goldOnly));
+        PricingContext goldCustomer = new PricingContext(
+            Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST002", Set.of("gold", "regular"));
+
+        assertThat(engine.price(cart, goldCustomer).discountTotal()).isEqualTo(Money.euros("3.00"));
+        assertThat(engine.price(cart, context).discountTotal()).isEqualTo(Money.euros("0.00"));
+        assertThat(goldOnly.applicabilityChecks()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplyOnlyTheBestPromotionForTheCustomer() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(3), Money.euros("10.00"))
+        ));
+
+        StubPromotion tenPercent = new StubPromotion(
+            new PromotionId("PROMO-10-PERCENT"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-10-PERCENT"), Money.euros("3.00"), "line", "10% off SKU-A"))
+        );
+        StubPromotion threeForTwo = new StubPromotion(
+            new PromotionId("PROMO-3X2"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-3X2"), Money.euros("10.00"), "line", "3x2 on SKU-A"))
+        );
+
+        PriceSummary best = new PromotionEngine(List.of(tenPercent, threeForTwo), StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER)
+            .price(cart, context);
+        PriceSummary stacked = new PromotionEngine(List.of(tenPercent, threeForTwo), StackingPolicy.STACK)
+            .price(cart, context);
+
+        assertThat(best.discountTotal()).isEqualTo(Money.euros("10.00"));
+        assertThat(best.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-3X2"));
+        assertThat(stacked.discountTotal()).isEqualTo(Money.euros("13.00"));
+        assertThat(stacked.appliedDiscounts()).hasSize(2);
+    }
+
+    @Test
+    void shouldCombinePromotionsFromDifferentConflictGroupsUnderBestForCustomer() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(3), Money.euros("10.00")),
+            new LineItem(productC, new Quantity(1), Money.euros("20.00"))
+        ));
+
+        StubPromotion electronics = inGroups("PROMO-ELECTRONICS", "4.00", Set.of("electronics"));
+        StubPromotion books = inGroups("PROMO-BOOKS", "4.00", Set.of("books"));
+        StubPromotion everything = inGroups("PROMO-EVERYTHING", "7.00", Set.of("electronics", "books"));
+
+        PromotionEngine engine = new PromotionEngine(
+            List.of(electronics, books, everything), StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("8.00"));
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-ELECTRONICS"), new PromotionId("PROMO-BOOKS"));
+    }
+
+    @Test
+    void shouldApplyHighestPriorityPromotionOfEachConflictGroup() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(3), Money.euros("10.00")),
+            new LineItem(productC, new Quantity(1), Money.euros("20.00"))
+        ));
+
+        StubPromotion bigButLow = prioritized("PROMO-BIG", "9.00", Set.of("default"), 1);
+        StubPromotion smallButHigh = prioritized("PROMO-SMALL", "1.00", Set.of("default"), 5);
+        StubPromotion books = prioritized("PROMO-BOOKS", "2.00", Set.of("books"), 0);
+        StubPromotion anywhere = prioritized("PROMO-ANYWHERE", "0.50", Set.of(), -1);
+
+        PromotionEngine engine = new PromotionEngine(
+            List.of(bigButLow, smallButHigh, books, anywhere), StackingPolicy.EXCLUSIVE_PRIORITY);
+        PriceSummary summary = engine.explain(cart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("3.50"));
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-SMALL"), new PromotionId("PROMO-BOOKS"),
+                new PromotionId("PROMO-ANYWHERE"));
+        assertThat(bigButLow.applicabilityChecks()).isZero();
+        assertThat(summary.trace().decisions())
+            .extracting(PromotionDecision::reason)
+            .contains("Skipped: a higher-priority promotion of its conflict group applied");
+    }
+
+    @Test
+    void shouldPriceCartWithCompiledPercentOffPromotion() {
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(2), Money.euros("10.00")),
+            new LineItem(productC, new Quantity(1), Money.euros("5.00"))
+        ));
+        Promotion tenPercentOffA = new PromotionCompiler().compile(
+            PromotionDefinition.builder(new PromotionId("PROMO-10-A"), new Reward.PercentOff(Percentage.of("10")))
+                .targetSkus(Set.of(productA.sku()))
+                .build());
+
+        PromotionEngine engine = new PromotionEngine(List.of(tenPercentOffA));
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(summary.subtotal()).isEqualTo(Money.euros("25.00"));
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("2.00"));
+        assertThat(summary.total()).isEqualTo(Money.euros("23.00"));
+        AppliedDiscount discount = summary.appliedDiscounts().get(0);
+        assertThat(discount.promotionId()).isEqualTo(new PromotionId("PROMO-10-A"));
+        assertThat(discount.details()).contains("10%").contains("SKU-A");
+        assertThat(discount.allocations()).containsOnlyKeys(productA.sku());
+    }
+
+    @Test
+    void shouldExplainWhyPromotionsWereAppliedOrSkipped() {
+        Cart cart = new Cart(List.of(new LineItem(productA, new Quantity(2), Money.euros("10.00"))));
+        PromotionCompiler compiler = new PromotionCompiler();
+        Reward tenPercent = new Reward.PercentOff(Percentage.of("10"));
+        PromotionEngine engine = new PromotionEngine(compiler.compileAll(List.of(
+            PromotionDefinition.builder(new PromotionId("PROMO-EXPIRED"), tenPercent)
+                .validity(ValidityWindow.until(Instant.parse("2025-12-01T00:00:00Z")))
+                .build(),
+            PromotionDefinition.builder(new PromotionId("PROMO-VIP"), tenPercent)
+                .requiredTags(Set.of("vip"))
+                .build(),
+            PromotionDefinition.builder(new PromotionId("PROMO-10-A"), tenPercent)
+                .targetSkus(Set.of(productA.sku()))
+                .build()
+        )));
+
+        List<PromotionDecision> decisions = engine.explain(cart, context).trace().decisions();
+
+        assertThat(decisions)
+            .extracting(PromotionDecision::reason)
+            .containsExactly(
+                "Skipped: outside validity window",
+                "Skipped: customer not eligible",
+                "Applied: 10% off SKU-A");
+        assertThat(decisions.get(2).applicable()).isTrue();
+        assertThat(decisions.get(2).computedDiscount()).isEqualTo(Money.euros("2.00"));
+    }
+
+    private static StubPromotion prioritized(String id, String amount, Set<String> groups, int priority) {
+        return new StubPromotion(
+            new PromotionId(id),
+            true,
+            List.of(new AppliedDiscount(new PromotionId(id), Money.euros(amount), "line", id))
+        ) {
+            @Override
+            public Set<String> conflictGroups() {
+                return groups;
+            }
+
+            @Override
+            public int priority() {
+                return priority;
+            }
+        };
+    }
+
+    private static StubPromotion inGroups(String id, String amount, Set<String> groups) {
+        return new StubPromotion(
+            new PromotionId(id),
+            true,
+            List.of(new AppliedDiscount(new PromotionId(id), Money.euros(amount), "line", id))
+        ) {
+            @Override
+            public Set<String> conflictGroups() {
+                return groups;
+            }
+        };
+    }
 }
@@ -0,0 +1,224 @@
+// ABOUTME: Unit tests for CatalogImage and catalogs opened from an image.
+// ABOUTME: Verifies round trips, pricing parity with in-memory catalogs, lazy decoding and edits.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.PriceSummary;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CatalogImageTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-18T10:00:00Z");
+    private static final Product LAPTOP = new Product(new Sku("SKU-LAPTOP"), "Laptop", "electronics");
+    private static final Product NOVEL = new Product(new Sku("SKU-NOVEL"), "Novel", "books");
+    private static final Product COFFEE = new Product(new Sku("SKU-CAFÉ"), "Café", "épicerie");
+
+    private static final List<PromotionDefinition> DEFINITIONS = List.of(
+        PromotionDefinition.builder(new PromotionId("LAPTOP-10"), new Reward.PercentOff(Percentage.of("10")))
+            .targetSkus(Set.of(LAPTOP.sku()))
+            .build(),
+        PromotionDefinition.builder(new PromotionId("BOOKS-3-FOR-2"), new Reward.BuyXPayY(3, 2))
+            .targetCategories(Set.of("books"))
+            .channels(Set.of("web"))
+            .conflictGroups(Set.of("books", "seasonal"))
+            .build(),
+        PromotionDefinition.builder(new PromotionId("SPEND-100"),
+                new Reward.SpendThreshold(Money.euros("100.00"), Money.euros("7.50")))
+            .validity(ValidityWindow.between(NOW.minusSeconds(3600), NOW.plusSeconds(3600)))
+            .requiredTags(Set.of("member"))
+            .priority(10)
+            .build(),
+        PromotionDefinition.builder(new PromotionId("CAFÉ-5"), new Reward.PercentOff(Percentage.of("5.5")))
+            .targetCategories(Set.of("épicerie"))
+            .validity(ValidityWindow.from(NOW.plusSeconds(60)))
+            .build(),
+        PromotionDefinition.builder(new PromotionId("ANY-3-CHEAPEST-FREE"), new Reward.CheapestFree(3, 2))
+            .targetSkus(Set.of(NOVEL.sku(), COFFEE.sku()))
+            .build(),
+        PromotionDefinition.builder(new PromotionId("SPEND-TIERS"), new Reward.SpendTiers(List.of(
+                new Reward.SpendTiers.Tier(Money.euros("50.00"), Money.euros("5.00")),
+                new Reward.SpendTiers.Tier(Money.euros("100.00"), Money.euros("12.00")))))
+            .targetCategories(Set.of("electronics", "books"))
+            .build()
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRoundTripDefinitions() throws IOException {
+        CatalogImage image = written(DEFINITIONS);
+
+        assertThat(image.size()).isEqualTo(DEFINITIONS.size());
+        for (int position = 0; position < DEFINITIONS.size(); position++) {
+            assertThat(image.definitionAt(position)).isEqualTo(DEFINITIONS.get(position));
+        }
+    }
+
+    @Test
+    void shouldPriceLikeCatalogBuiltFromDefinitions() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        PromotionEngine mapped = new PromotionEngine(PromotionCatalog.open(path), StackingPolicy.STACK);
+        PromotionEngine built = new PromotionEngine(
+            new PromotionCatalog(new PromotionCompiler().compileAll(DEFINITIONS)), StackingPolicy.STACK);
+        Cart cart = new Cart(List.of(
+            new LineItem(LAPTOP, new Quantity(1), Money.euros("899.00")),
+            new LineItem(NOVEL, new Quantity(3), Money.euros("12.00")),
+            new LineItem(COFFEE, new Quantity(2), Money.euros("4.20"))
+        ));
+
+        for (String channel : List.of("web", "store")) {
+            for (Instant now : List.of(NOW, NOW.plusSeconds(120), NOW.plusSeconds(7200))) {
+                PricingContext context = new PricingContext(now, channel, "CUST001", Set.of("member"));
+                PriceSummary expected = built.price(cart, context);
+                PriceSummary actual = mapped.price(cart, context);
+
+                assertThat(actual.total()).isEqualTo(expected.total());
+                assertThat(actual.appliedDiscounts()).isEqualTo(expected.appliedDiscounts());
+            }
+        }
+    }
+
+    @Test
+    void shouldDecodeOnlyThePromotionsACartReaches() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        PromotionCatalog catalog = PromotionCatalog.open(path);
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+        Cart cart = new Cart(List.of(new LineItem(LAPTOP, new Quantity(1), Money.euros("20.00"))));
+
+        engine.price(cart, new PricingContext(NOW, "store", "CUST001", Set.of()));
+
+        CatalogImage image = catalog.snapshot().image();
+        assertThat(image.isDecoded(0)).isTrue();
+        assertThat(image.isDecoded(1)).isFalse();
+        assertThat(image.isDecoded(3)).isFalse();
+    }
+
+    @Test
+    void shouldFindPromotionsById() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        CatalogSnapshot snapshot = PromotionCatalog.open(path).snapshot();
+
+        assertThat(snapshot.find(new PromotionId("CAFÉ-5"))).get()
+            .extracting(promotion -> promotion.id().value()).isEqualTo("CAFÉ-5");
+        assertThat(snapshot.slotOf(new PromotionId("SPEND-100"))).isEqualTo(2);
+        assertThat(snapshot.find(new PromotionId("UNKNOWN"))).isEmpty();
+    }
+
+    @Test
+    void shouldBuildInMemoryCatalogOnFirstEdit() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        PromotionCatalog catalog = PromotionCatalog.open(path);
+        CatalogSnapshot opened = catalog.snapshot();
+
+        long version = catalog.remove(new PromotionId("LAPTOP-10"));
+
+        assertThat(version).isEqualTo(2);
+        assertThat(catalog.snapshot().image()).isNull();
+        assertThat(catalog.snapshot().promotions()).extracting(promotion -> promotion.id().value())
+            .containsExactly("BOOKS-3-FOR-2", "SPEND-100", "CAFÉ-5", "ANY-3-CHEAPEST-FREE", "SPEND-TIERS");
+        assertThat(opened.size()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldKeepOpenImageWhenFileIsReplaced() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        CatalogImage image = CatalogImage.open(path);
+
+        CatalogImage.write(DEFINITIONS.subList(0, 1), path);
+
+        assertThat(image.definitionAt(3)).isEqualTo(DEFINITIONS.get(3));
+        assertThat(CatalogImage.open(path).size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldWriteEmptyCatalog() throws IOException {
+        CatalogImage image = written(List.of());
+
+        assertThat(image.size()).isZero();
+        assertThat(CatalogSnapshot.of(1, image).promotions()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectDuplicateIds() {
+        assertThatThrownBy(() -> written(List.of(DEFINITIONS.get(0), DEFINITIONS.get(0))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Duplicate promotion ID: LAPTOP-10");
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotAnImage() throws IOException {
+        Path path = directory.resolve("catalog.csv");
+        Files.writeString(path, "promotion_id,reward\nLAPTOP-10,10%\n");
+
+        assertThatThrownBy(() -> CatalogImage.open(path))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Not a promotion catalog image");
+    }
+
+    @Test
+    void shouldRankByPriorityWithoutDecodingPromotions() throws IOException {
+        CatalogImage image = written(DEFINITIONS);
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, image);
+
+        PriorityOrder order = snapshot.priorityOrder();
+
+        assertThat(order.positionAt(0)).isEqualTo(2);
+        assertThat(order.rankOf(0)).isEqualTo(1);
+        for (int position = 0; position < DEFINITIONS.size(); position++) {
+            assertThat(image.isDecoded(position)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectUnsupportedFormatVersion() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> CatalogImage.open(path))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unsupported catalog image format version 99");
+    }
+
+    @Test
+    void shouldRejectTruncatedImage() throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(DEFINITIONS, path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 8));
+
+        assertThatThrownBy(() -> CatalogImage.open(path))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Truncated catalog image");
+    }
+
+    private CatalogImage written(List<PromotionDefinition> definitions) throws IOException {
+        Path path = directory.resolve("catalog.img");
+        CatalogImage.write(definitions, path);
+        return CatalogImage.open(path);
+    }
+}
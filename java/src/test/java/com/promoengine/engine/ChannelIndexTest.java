@@ -0,0 +1,75 @@
+// ABOUTME: Unit tests for ChannelIndex.
+// ABOUTME: Verifies channel partitions, the shared partition, and incremental updates that move promotions between channels.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ChannelIndexTest {
+
+    private static final Product PRODUCT_A = new Product(new Sku("SKU-A"), "Product A", "electronics");
+    private static final CartAnalysis CART = CartAnalysis.of(
+        new Cart(List.of(new LineItem(PRODUCT_A, new Quantity(1), Money.euros("10.00")))));
+
+    @Test
+    void shouldOfferEachChannelItsOwnAndSharedPromotions() {
+        ChannelIndex index = new ChannelIndex(List.of(
+            inChannels(),
+            inChannels("web"),
+            inChannels("pos"),
+            inChannels("web", "app")
+        ));
+
+        assertThat(index.candidatesFor(CART, "web").stream()).containsExactly(0, 1, 3);
+        assertThat(index.candidatesFor(CART, "app").stream()).containsExactly(0, 3);
+        assertThat(index.candidatesFor(CART, "marketplace").stream()).containsExactly(0);
+        assertThat(index.channels()).containsExactlyInAnyOrder("web", "pos", "app");
+    }
+
+    @Test
+    void shouldMovePromotionsBetweenPartitionsOnUpdate() {
+        Promotion webOnly = inChannels("web");
+        Promotion shared = inChannels();
+        ChannelIndex index = new ChannelIndex(List.of(webOnly, shared, inChannels("pos")));
+
+        ChannelIndex updated = index
+            .with(0, webOnly, inChannels("app"))
+            .with(1, shared, inChannels("web"))
+            .with(3, null, inChannels("marketplace"));
+
+        assertThat(updated.candidatesFor(CART, "web").stream()).containsExactly(1);
+        assertThat(updated.candidatesFor(CART, "app").stream()).containsExactly(0);
+        assertThat(updated.candidatesFor(CART, "marketplace").stream()).containsExactly(3);
+        assertThat(updated.forChannel("pos")).isSameAs(index.forChannel("pos"));
+        // The original index is unchanged
+        assertThat(index.candidatesFor(CART, "web").stream()).containsExactly(0, 1);
+    }
+
+    @Test
+    void shouldLeaveChannelPartitionsAloneWhenSharedPromotionsChange() {
+        Promotion shared = inChannels();
+        ChannelIndex index = new ChannelIndex(List.of(shared, inChannels("web")));
+
+        ChannelIndex updated = index.with(0, shared, null);
+
+        assertThat(updated.forChannel("web")).isSameAs(index.forChannel("web"));
+        assertThat(updated.candidatesFor(CART, "web").stream()).containsExactly(1);
+    }
+
+    private static Promotion inChannels(String... channels) {
+        Set<String> restrictedTo = Set.of(channels);
+        return new StubPromotion(new PromotionId("PROMO"), true, List.of(), Set.of(PRODUCT_A.sku()), Set.of()) {
+            @Override
+            public Set<String> channels() {
+                return restrictedTo;
+            }
+        };
+    }
+}
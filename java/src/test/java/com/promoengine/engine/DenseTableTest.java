@@ -0,0 +1,67 @@
+// ABOUTME: Unit tests for DenseTable.
+// ABOUTME: Verifies id lookups, copy-on-write updates and chunk sharing.
+package com.promoengine.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class DenseTableTest {
+
+    @Test
+    void shouldLookUpValuesById() {
+        DenseTable<String> table = DenseTable.of(Map.of(0, "zero", 300, "three hundred"));
+
+        assertThat(table.get(0)).isEqualTo("zero");
+        assertThat(table.get(300)).isEqualTo("three hundred");
+        assertThat(table.get(1)).isNull();
+        assertThat(table.get(-1)).isNull();
+        assertThat(table.get(1_000_000)).isNull();
+    }
+
+    @Test
+    void shouldLeaveOriginalUnchangedOnUpdate() {
+        DenseTable<String> table = DenseTable.of(Map.of(5, "five"));
+
+        DenseTable<String> updated = table.with(5, null).with(7, "seven");
+
+        assertThat(updated.get(5)).isNull();
+        assertThat(updated.get(7)).isEqualTo("seven");
+        assertThat(table.get(5)).isEqualTo("five");
+        assertThat(table.get(7)).isNull();
+    }
+
+    @Test
+    void shouldCopyOnlyTheChunksOfChangedIds() {
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int id = 0; id < 2_000; id++) {
+            entries.put(id, id);
+        }
+        DenseTable<Integer> table = DenseTable.of(entries);
+
+        DenseTable<Integer> updated = table.withAll(Map.of(3, -3, 4, -4));
+
+        assertThat(updated.sharesChunk(table, 0)).isFalse();
+        for (int chunk = 1; chunk < table.chunkCount(); chunk++) {
+            assertThat(updated.sharesChunk(table, chunk)).isTrue();
+        }
+        assertThat(updated.get(4)).isEqualTo(-4);
+    }
+
+    @Test
+    void shouldIgnoreRemovalOfIdsBeyondTheTable() {
+        DenseTable<String> table = DenseTable.of(Map.of(1, "one"));
+
+        assertThat(table.with(10_000, null).chunkCount()).isEqualTo(table.chunkCount());
+    }
+
+    @Test
+    void shouldRejectNegativeIds() {
+        assertThatThrownBy(() -> DenseTable.<String>empty().with(-1, "x"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Id cannot be negative");
+    }
+}
@@ -0,0 +1,157 @@
+// ABOUTME: Unit tests for ExclusiveBestOptimizer.
+// ABOUTME: Verifies optimal combinations against brute force and the time budget fallback.
+package com.promoengine.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ExclusiveBestOptimizerTest {
+
+    private final ExclusiveBestOptimizer optimizer = new ExclusiveBestOptimizer(Duration.ofSeconds(5));
+
+    @Test
+    void shouldPickSingleBestWhenAllShareOneGroup() {
+        ExclusiveBestOptimizer.Result result = optimizer.optimize(
+            new long[]{300, 1000, 500},
+            new long[][]{{1L}, {1L}, {1L}}
+        );
+
+        assertThat(result.chosen().stream()).containsExactly(1);
+        assertThat(result.total()).isEqualTo(1000);
+        assertThat(result.optimal()).isTrue();
+    }
+
+    @Test
+    void shouldBeatGreedyWhenTwoSmallerPromotionsCombine() {
+        // 0 conflicts with both 1 and 2, which do not conflict with each other
+        ExclusiveBestOptimizer.Result result = optimizer.optimize(
+            new long[]{1000, 600, 600},
+            new long[][]{{0b11L}, {0b01L}, {0b10L}}
+        );
+
+        assertThat(result.chosen().stream()).containsExactly(1, 2);
+        assertThat(result.total()).isEqualTo(1200);
+    }
+
+    @Test
+    void shouldSaturateTotalsInsteadOfOverflowing() {
+        long big = Long.MAX_VALUE / 2 + 1;
+        ExclusiveBestOptimizer.Result result = optimizer.optimize(
+            new long[]{big, big, 100, Long.MAX_VALUE},
+            new long[][]{{0b01L}, {0b10L}, {0b11L}, {}}
+        );
+
+        assertThat(result.chosen().stream()).containsExactly(0, 1, 3);
+        assertThat(result.total()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void shouldAlwaysIncludeCandidatesWithoutGroups() {
+        ExclusiveBestOptimizer.Result result = optimizer.optimize(
+            new long[]{100, 200, 50},
+            new long[][]{{1L}, {1L}, {}}
+        );
+
+        assertThat(result.chosen().stream()).containsExactly(1, 2);
+        assertThat(result.total()).isEqualTo(250);
+    }
+
+    @Test
+    void shouldIgnoreCandidatesWithoutDiscount() {
+        ExclusiveBestOptimizer.Result result = optimizer.optimize(
+            new long[]{0, 0},
+            new long[][]{{1L}, {}}
+        );
+
+        assertThat(result.chosen().isEmpty()).isTrue();
+        assertThat(result.total()).isZero();
+    }
+
+    @Test
+    void shouldMatchBruteForceOnRandomInstances() {
+        Random random = new Random(11);
+        for (int instance = 0; instance < 200; instance++) {
+            int n = 1 + random.nextInt(14);
+            long[] amounts = new long[n];
+            long[][] groups = new long[n][];
+            for (int i = 0; i < n; i++) {
+                amounts[i] = random.nextInt(2_000);
+                long mask = 0;
+                int groupCount = random.nextInt(3);
+                for (int g = 0; g < groupCount; g++) {
+                    mask |= 1L << random.nextInt(6);
+                }
+                groups[i] = mask == 0 ? new long[0] : new long[]{mask};
+            }
+
+            ExclusiveBestOptimizer.Result result = optimizer.optimize(amounts, groups);
+
+            assertThat(result.total()).as("instance %d", instance).isEqualTo(bruteForce(amounts, groups));
+            assertThat(isConflictFree(result.chosen(), groups)).isTrue();
+        }
+    }
+
+    @Test
+    void shouldReturnBestSoFarWhenBudgetRunsOut() {
+        ExclusiveBestOptimizer hurried = new ExclusiveBestOptimizer(Duration.ofNanos(1));
+        Random random = new Random(5);
+        int n = 60;
+        long[] amounts = new long[n];
+        long[][] groups = new long[n][];
+        for (int i = 0; i < n; i++) {
+            amounts[i] = 1 + random.nextInt(1_000);
+            groups[i] = new long[]{(1L << random.nextInt(40)) | (1L << random.nextInt(40))};
+        }
+
+        ExclusiveBestOptimizer.Result result = hurried.optimize(amounts, groups);
+
+        assertThat(result.optimal()).isFalse();
+        assertThat(result.total()).isPositive();
+        assertThat(isConflictFree(result.chosen(), groups)).isTrue();
+    }
+
+    @Test
+    void shouldRejectNonPositiveBudget() {
+        assertThatThrownBy(() -> new ExclusiveBestOptimizer(Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Search budget must be positive");
+    }
+
+    private static long bruteForce(long[] amounts, long[][] groups) {
+        long best = 0;
+        for (int subset = 0; subset < 1 << amounts.length; subset++) {
+            long used = 0;
+            long total = 0;
+            boolean valid = true;
+            for (int i = 0; i < amounts.length && valid; i++) {
+                if ((subset & (1 << i)) != 0) {
+                    long mask = groups[i].length == 0 ? 0 : groups[i][0];
+                    valid = (used & mask) == 0;
+                    used |= mask;
+                    total += amounts[i];
+                }
+            }
+            if (valid) {
+                best = Math.max(best, total);
+            }
+        }
+        return best;
+    }
+
+    private static boolean isConflictFree(BitSet chosen, long[][] groups) {
+        long used = 0;
+        for (int i = chosen.nextSetBit(0); i >= 0; i = chosen.nextSetBit(i + 1)) {
+            long mask = groups[i].length == 0 ? 0 : groups[i][0];
+            if ((used & mask) != 0) {
+                return false;
+            }
+            used |= mask;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,346 @@
+// ABOUTME: Tests for PriceCache in front of a PromotionEngine.
+// ABOUTME: Verifies key normalization, invalidation on catalog and validity changes, bypasses, and eviction.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PriceCacheTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-18T10:00:00Z");
+
+    private PricingContext context;
+    private Product productA;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(NOW, "online", "CUST001", Set.of("regular"));
+        productA = new Product(new Sku("SKU-A"), "Product A", "electronics");
+        cart = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("50.00"))));
+    }
+
+    @Test
+    void shouldAnswerRepeatedCartsFromTheCache() {
+        StubPromotion promotion = promotion("PROMO-1", "5.00", Set.of());
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(promotion)), 1_000);
+
+        PriceSummary first = cache.price(cart, context);
+        PriceSummary second = cache.price(new Cart(List.copyOf(cart.lines())), context);
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.total()).isEqualTo(Money.euros("45.00"));
+        assertThat(promotion.applicabilityChecks()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+        assertThat(cache.stats().hitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldAnswerCartsWithReorderedLinesFromTheCache() {
+        StubPromotion promotion = promotion("PROMO-1", "5.00", Set.of());
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(promotion)), 1_000);
+        LineItem a = cart.lines().get(0);
+        LineItem b = new LineItem(new Product(new Sku("SKU-B"), "Product B", "books"), new Quantity(2), Money.euros("10.00"));
+        LineItem c = new LineItem(new Product(new Sku("SKU-C"), "Product C", "books"), new Quantity(1), Money.euros("5.00"));
+
+        PriceSummary first = cache.price(new Cart(List.of(c, a, b)), context);
+        PriceSummary reordered = cache.price(new Cart(List.of(b, c, a)), context);
+
+        assertThat(reordered).isSameAs(first);
+        assertThat(promotion.applicabilityChecks()).isEqualTo(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAnswerLikeTheEngineForShuffledCarts() {
+        PromotionEngine engine = new PromotionEngine(new PromotionCompiler().compileAll(List.of(
+            PromotionDefinition.builder(new PromotionId("SPEND-5"),
+                    new Reward.SpendThreshold(Money.euros("10.00"), Money.euros("5.00")))
+                .conflictGroups(Set.of())
+                .build(),
+            PromotionDefinition.builder(new PromotionId("CHEAPEST-FREE"), new Reward.CheapestFree(6, 5))
+                .conflictGroups(Set.of())
+                .build())), StackingPolicy.STACK);
+        PriceCache cache = new PriceCache(engine, 10_000);
+        // Equal subtotals, so allocation cents and the cheapest free unit are decided by ties
+        List<LineItem> lines = new ArrayList<>();
+        for (String sku : List.of("SKU-P", "SKU-Q", "SKU-R")) {
+            lines.add(new LineItem(new Product(new Sku(sku), sku, "books"), new Quantity(1), Money.euros("5.00")));
+            lines.add(new LineItem(new Product(new Sku(sku + "-TOY"), sku, "toys"), new Quantity(1), Money.euros("5.00")));
+        }
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20; i++) {
+            List<LineItem> shuffled = new ArrayList<>(lines);
+            Collections.shuffle(shuffled, random);
+            Cart cart = new Cart(shuffled);
+
+            assertThat(cache.price(cart, context)).isEqualTo(engine.price(cart, context));
+        }
+        assertThat(cache.stats().hits()).isEqualTo(19);
+    }
+
+    @Test
+    void shouldShareOnlyPricesThatCannotReflectLineOrder() {
+        PromotionEngine engine = new PromotionEngine(new PromotionCompiler().compileAll(List.of(
+            PromotionDefinition.builder(new PromotionId("LINES-10"), new Reward.PercentOff(Percentage.of("10")))
+                .build())));
+        PriceCache cache = new PriceCache(engine, 1_000);
+        LineItem b = new LineItem(new Product(new Sku("SKU-B"), "Product B", "books"), new Quantity(1), Money.euros("10.00"));
+        Cart forward = new Cart(List.of(cart.lines().get(0), b));
+        Cart backward = new Cart(List.of(b, cart.lines().get(0)));
+
+        PriceSummary first = cache.price(forward, context);
+        PriceSummary reversed = cache.price(backward, context);
+        PriceSummary reversedAgain = cache.price(backward, context);
+
+        assertThat(reversed).isEqualTo(engine.price(backward, context)).isNotEqualTo(first);
+        assertThat(reversedAgain).isSameAs(reversed);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIgnoreProductNamesButNotOtherLineFields() {
+        StubPromotion promotion = promotion("PROMO-1", "5.00", Set.of());
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(promotion)), 1_000);
+        Product renamed = new Product(productA.sku(), "Renamed A", productA.category());
+        Product recategorized = new Product(productA.sku(), productA.name(), "books");
+
+        cache.price(cart, context);
+        cache.price(new Cart(List.of(new LineItem(renamed, new Quantity(1), Money.euros("50.00")))), context);
+        cache.price(new Cart(List.of(new LineItem(recategorized, new Quantity(1), Money.euros("50.00")))), context);
+        cache.price(new Cart(List.of(new LineItem(productA, new Quantity(2), Money.euros("50.00")))), context);
+        cache.price(new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("40.00")))), context);
+
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldShareEntriesBetweenContextsDifferingOnlyInUnreadFields() {
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(promotion("PROMO-1", "5.00", Set.of()))), 1_000);
+
+        cache.price(cart, context);
+        cache.price(cart, new PricingContext(NOW.plusSeconds(60), "store", "CUST002", Set.of("regular", "newsletter")));
+
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeyOnFieldsPromotionsRead() {
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(
+            promotion("PROMO-1", "5.00", Set.of(ContextField.CUSTOMER_ID)))), 1_000);
+
+        cache.price(cart, context);
+        cache.price(cart, new PricingContext(NOW, "store", "CUST002", Set.of("regular")));
+        cache.price(cart, new PricingContext(NOW, "store", "CUST001", Set.of("regular")));
+
+        assertThat(cache.stats().misses()).isEqualTo(2);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeyOnRequiredTagsOnly() {
+        TagMask gold = TagMask.of("gold");
+        Promotion goldOnly = new StubPromotion(new PromotionId("PROMO-1"), true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-1"), Money.euros("5.00"), "cart", "gold"))) {
+            @Override
+            public TagMask requiredTags() {
+                return gold;
+            }
+
+            @Override
+            public Set<ContextField> contextReads() {
+                return Set.of();
+            }
+        };
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(goldOnly)), 1_000);
+
+        PriceSummary regular = cache.price(cart, context);
+        PriceSummary goldCustomer = cache.price(cart, new PricingContext(NOW, "online", "CUST002", Set.of("gold")));
+        PriceSummary otherGoldCustomer = cache.price(cart,
+            new PricingContext(NOW, "online", "CUST003", Set.of("gold", "newsletter")));
+
+        assertThat(regular.discountTotal()).isEqualTo(Money.ZERO);
+        assertThat(goldCustomer.discountTotal()).isEqualTo(Money.euros("5.00"));
+        assertThat(otherGoldCustomer).isSameAs(goldCustomer);
+    }
+
+    @Test
+    void shouldNotServePricesAcrossValidityBoundaries() {
+        Instant start = NOW.plus(Duration.ofHours(1));
+        Promotion later = new StubPromotion(new PromotionId("PROMO-1"), true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-1"), Money.euros("5.00"), "cart", "later"))) {
+            @Override
+            public ValidityWindow validity() {
+                return ValidityWindow.between(start, start.plus(Duration.ofDays(1)));
+            }
+
+            @Override
+            public Set<ContextField> contextReads() {
+                return Set.of();
+            }
+        };
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(later)), 1_000);
+
+        PriceSummary before = cache.price(cart, context);
+        PriceSummary stillBefore = cache.price(cart, new PricingContext(NOW.plusSeconds(60), "online", "CUST001", Set.of()));
+        PriceSummary during = cache.price(cart, new PricingContext(start, "online", "CUST001", Set.of()));
+
+        assertThat(stillBefore).isSameAs(before);
+        assertThat(before.discountTotal()).isEqualTo(Money.ZERO);
+        assertThat(during.discountTotal()).isEqualTo(Money.euros("5.00"));
+    }
+
+    @Test
+    void shouldKeyOnExactTimeWhenPromotionsDeclareNothing() {
+        StubPromotion undeclared = new StubPromotion(new PromotionId("PROMO-1"), true, List.of());
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(undeclared)), 1_000);
+
+        cache.price(cart, context);
+        cache.price(cart, new PricingContext(NOW.plusSeconds(1), "online", "CUST001", Set.of("regular")));
+        cache.price(cart, context);
+
+        assertThat(cache.stats().misses()).isEqualTo(2);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInvalidateOnCatalogPublication() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00", Set.of())));
+        PriceCache cache = new PriceCache(new PromotionEngine(catalog, StackingPolicy.STACK), 1_000);
+
+        cache.price(cart, context);
+        catalog.add(promotion("PROMO-2", "3.00", Set.of()));
+        PriceSummary summary = cache.price(cart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("8.00"));
+        assertThat(summary.catalogVersion()).isEqualTo(2);
+        assertThat(cache.stats().invalidations()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBypassTheCacheWhileBudgetsAreDefined() {
+        PromotionEngine engine = new PromotionEngine(List.of(promotion("PROMO-1", "5.00", Set.of())));
+        engine.budgets().define(new PromotionId("PROMO-1"), Money.euros("5.00"));
+        PriceCache cache = new PriceCache(engine, 1_000);
+
+        engine.priceAndReserve(cart, context).reservation().commit();
+        PriceSummary summary = cache.price(cart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.ZERO);
+        assertThat(cache.stats().bypasses()).isEqualTo(1);
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    @Test
+    void shouldNotCacheTracedPrices() {
+        PromotionEngine engine = new PromotionEngine(List.of(promotion("PROMO-1", "5.00", Set.of())))
+            .withTracing(TraceLevel.ALWAYS, 0.0);
+        PriceCache cache = new PriceCache(engine, 1_000);
+
+        assertThat(cache.price(cart, context).isTraced()).isTrue();
+        assertThat(cache.price(cart, context).isTraced()).isTrue();
+        assertThat(cache.stats().bypasses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStayWithinMaximumWeightAndKeepFrequentCarts() {
+        PriceCache cache = new PriceCache(new PromotionEngine(List.of(promotion("PROMO-1", "0.01", Set.of()))), 300);
+        for (int i = 0; i < 20; i++) {
+            cache.price(cart, context);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.price(cartOf(i), context);
+        }
+        cache.price(cart, context);
+
+        PriceCache.Stats stats = cache.stats();
+        assertThat(stats.weight()).isLessThanOrEqualTo(300);
+        assertThat(stats.evictions()).isPositive();
+        assertThat(stats.hits()).isEqualTo(20);
+    }
+
+    @Test
+    void shouldMatchTheEngineUnderConcurrentUse() throws Exception {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            promotions.add(new StubPromotion(new PromotionId("PROMO-" + i), i % 3 != 0,
+                List.of(new AppliedDiscount(new PromotionId("PROMO-" + i), Money.cents(10 + i), "line", "promo")),
+                Set.of(new Sku("SKU-" + i % 10)), Set.of()) {
+                @Override
+                public Set<ContextField> contextReads() {
+                    return Set.of();
+                }
+            });
+        }
+        PromotionEngine engine = new PromotionEngine(promotions, StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+        PriceCache cache = new PriceCache(engine, 200);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long seed = t;
+                workers.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 2_000; i++) {
+                        Cart randomCart = cartOf(random.nextInt(100));
+                        assertThat(cache.price(randomCart, context)).isEqualTo(engine.price(randomCart, context));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.stats().hits()).isPositive();
+        assertThat(cache.stats().weight()).isLessThanOrEqualTo(200);
+    }
+
+    private static Cart cartOf(int i) {
+        return new Cart(List.of(
+            new LineItem(new Product(new Sku("SKU-" + i % 10), "Product", "category"),
+                new Quantity(1 + i / 10), Money.euros("10.00")),
+            new LineItem(new Product(new Sku("SKU-" + (i + 3) % 10), "Product", "category"),
+                new Quantity(1), Money.euros("20.00"))
+        ));
+    }
+
+    private static StubPromotion promotion(String id, String amount, Set<ContextField> reads) {
+        PromotionId promotionId = new PromotionId(id);
+        return new StubPromotion(promotionId, true, List.of(new AppliedDiscount(promotionId, Money.euros(amount), "cart", id))) {
+            @Override
+            public Set<ContextField> contextReads() {
+                return reads;
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+// ABOUTME: Unit tests for PricingSession.
+// ABOUTME: Verifies incremental repricing matches full pricing and only re-evaluates affected promotions.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PricingSessionTest {
+
+    private PricingContext context;
+    private Product productA;
+    private Product productB;
+    private Product productC;
+    private CountingPercentOff tenOffA;
+    private CountingPercentOff fiveOffBooks;
+    private CountingPercentOff oneOffCart;
+    private PromotionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(
+            Instant.parse("2025-12-18T10:00:00Z"),
+            "online",
+            "CUST001",
+            Set.of("regular")
+        );
+        productA = new Product(new Sku("SKU-A"), "Product A", "electronics");
+        productB = new Product(new Sku("SKU-B"), "Product B", "electronics");
+        productC = new Product(new Sku("SKU-C"), "Product C", "books");
+
+        tenOffA = new CountingPercentOff("PROMO-A", "10", Set.of(new Sku("SKU-A")), Set.of());
+        fiveOffBooks = new CountingPercentOff("PROMO-BOOKS", "5", Set.of(), Set.of("books"));
+        oneOffCart = new CountingPercentOff("PROMO-CART", "1", Set.of(), Set.of());
+        engine = new PromotionEngine(List.of(tenOffA, fiveOffBooks, oneOffCart));
+    }
+
+    @Test
+    void shouldStartWithFullPriceSummary() {
+        Cart cart = new Cart(List.of(line(productA, 2, "10.00"), line(productC, 1, "8.00")));
+
+        PricingSession session = engine.startSession(cart, context);
+
+        assertThat(session.summary()).isEqualTo(engine.price(cart, context));
+    }
+
+    @Test
+    void shouldRepriceWhenLineIsAdded() {
+        PricingSession session = engine.startSession(new Cart(List.of(line(productB, 1, "5.00"))), context);
+
+        PriceSummary summary = session.addLine(line(productA, 2, "10.00"));
+
+        assertThat(summary).isEqualTo(engine.price(session.cart(), context));
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("2.25"));
+    }
+
+    @Test
+    void shouldRepriceWhenQuantityChanges() {
+        PricingSession session = engine.startSession(new Cart(List.of(line(productA, 2, "10.00"))), context);
+
+        PriceSummary summary = session.changeQuantity(new Sku("SKU-A"), new Quantity(5));
+
+        assertThat(summary).isEqualTo(engine.price(session.cart(), context));
+        assertThat(summary.subtotal()).isEqualTo(Money.euros("50.00"));
+    }
+
+    @Test
+    void shouldDropPromotionsNoLongerReachableWhenLinesAreRemoved() {
+        PricingSession session = engine.startSession(
+            new Cart(List.of(line(productA, 2, "10.00"), line(productC, 1, "8.00"))), context);
+
+        PriceSummary summary = session.removeLines(new Sku("SKU-C"));
+
+        assertThat(summary).isEqualTo(engine.price(session.cart(), context));
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .doesNotContain(new PromotionId("PROMO-BOOKS"));
+    }
+
+    @Test
+    void shouldOnlyReevaluatePromotionsAffectedByTheChange() {
+        PricingSession session = engine.startSession(
+            new Cart(List.of(line(productA, 2, "10.00"), line(productC, 1, "8.00"))), context);
+        int booksChecks = fiveOffBooks.checks;
+        int skuAChecks = tenOffA.checks;
+        int cartChecks = oneOffCart.checks;
+
+        session.changeQuantity(new Sku("SKU-A"), new Quantity(3));
+
+        assertThat(tenOffA.checks).isEqualTo(skuAChecks + 1);
+        assertThat(oneOffCart.checks).isEqualTo(cartChecks + 1);
+        assertThat(fiveOffBooks.checks).isEqualTo(booksChecks);
+    }
+
+    @Test
+    void shouldMatchFullPricingAcrossRandomEdits() {
+        List<Product> products = List.of(productA, productB, productC,
+            new Product(new Sku("SKU-D"), "Product D", "books"));
+        Random random = new Random(3);
+        PricingSession session = engine.startSession(new Cart(List.of()), context);
+
+        for (int step = 0; step < 300; step++) {
+            Product product = products.get(random.nextInt(products.size()));
+            boolean present = session.cart().lines().stream()
+                .anyMatch(line -> line.product().equals(product));
+            int operation = random.nextInt(3);
+            if (!present) {
+                session.addLine(line(product, 1 + random.nextInt(4), (1 + random.nextInt(30)) + ".99"));
+            } else if (operation == 0) {
+                session.removeLines(product.sku());
+            } else {
+                session.changeQuantity(product.sku(), new Quantity(random.nextInt(6)));
+            }
+
+            assertThat(session.summary()).as("step %d", step).isEqualTo(engine.price(session.cart(), context));
+        }
+    }
+
+    @Test
+    void shouldApplyExclusiveBestPolicyAfterEachChange() {
+        PromotionEngine exclusive = new PromotionEngine(
+            List.of(tenOffA, fiveOffBooks, oneOffCart), StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+        PricingSession session = exclusive.startSession(new Cart(List.of(line(productC, 1, "100.00"))), context);
+        assertThat(session.summary().discountTotal()).isEqualTo(Money.euros("5.00"));
+
+        PriceSummary summary = session.addLine(line(productA, 10, "10.00"));
+
+        assertThat(summary).isEqualTo(exclusive.price(session.cart(), context));
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("10.00"));
+    }
+
+    @Test
+    void shouldApplyExclusivePriorityPolicyAfterEachChange() {
+        PromotionCompiler compiler = new PromotionCompiler();
+        PromotionEngine byPriority = new PromotionEngine(compiler.compileAll(List.of(
+            PromotionDefinition.builder(new PromotionId("PROMO-A"), new Reward.PercentOff(Percentage.of("10")))
+                .targetSkus(Set.of(productA.sku()))
+                .priority(1)
+                .build(),
+            PromotionDefinition.builder(new PromotionId("PROMO-BOOKS"), new Reward.PercentOff(Percentage.of("5")))
+                .targetCategories(Set.of("books"))
+                .priority(5)
+                .build())), StackingPolicy.EXCLUSIVE_PRIORITY);
+        PricingSession session = byPriority.startSession(new Cart(List.of(line(productA, 10, "10.00"))), context);
+        assertThat(session.summary().discountTotal()).isEqualTo(Money.euros("10.00"));
+
+        PriceSummary summary = session.addLine(line(productC, 1, "100.00"));
+
+        assertThat(summary).isEqualTo(byPriority.price(session.cart(), context));
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-BOOKS"));
+    }
+
+    @Test
+    void shouldRejectChangesToMissingLines() {
+        PricingSession session = engine.startSession(new Cart(List.of()), context);
+
+        assertThatThrownBy(() -> session.removeLines(new Sku("SKU-A")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("No line with SKU: SKU-A");
+        assertThatThrownBy(() -> session.changeQuantity(new Sku("SKU-A"), new Quantity(1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("No line with SKU: SKU-A");
+    }
+
+    @Test
+    void shouldRejectQuantityChangeForAmbiguousSku() {
+        PricingSession session = engine.startSession(
+            new Cart(List.of(line(productA, 1, "10.00"), line(productA, 2, "9.00"))), context);
+
+        assertThatThrownBy(() -> session.changeQuantity(new Sku("SKU-A"), new Quantity(1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("More than one line with SKU: SKU-A");
+    }
+
+    private static LineItem line(Product product, int quantity, String unitPrice) {
+        return new LineItem(product, new Quantity(quantity), Money.euros(unitPrice));
+    }
+
+    /**
+     * Takes a percentage off every targeted line (every line when cart-wide) and counts evaluations.
+     */
+    private static final class CountingPercentOff implements Promotion {
+
+        private final PromotionId id;
+        private final BigDecimal fraction;
+        private final Set<Sku> skus;
+        private final Set<String> categories;
+        private int checks;
+
+        CountingPercentOff(String id, String percent, Set<Sku> skus, Set<String> categories) {
+            this.id = new PromotionId(id);
+            this.fraction = Percentage.of(percent).asDecimal();
+            this.skus = skus;
+            this.categories = categories;
+        }
+
+        @Override
+        public PromotionId id() {
+            return id;
+        }
+
+        @Override
+        public boolean isApplicable(Cart cart, PricingContext context) {
+            checks++;
+            return cart.lines().stream().anyMatch(this::targets);
+        }
+
+        @Override
+        public List<AppliedDiscount> apply(Cart cart, PricingContext context) {
+            List<AppliedDiscount> discounts = new ArrayList<>();
+            for (LineItem line : cart.lines()) {
+                if (targets(line)) {
+                    Money amount = line.subtotal().multiply(fraction);
+                    discounts.add(new AppliedDiscount(id, amount, "line", "Discount on " + line.product().sku(),
+                        Map.of(line.product().sku(), amount)));
+                }
+            }
+            return discounts;
+        }
+
+        @Override
+        public Set<Sku> targetSkus() {
+            return skus;
+        }
+
+        @Override
+        public Set<String> targetCategories() {
+            return categories;
+        }
+
+        private boolean targets(LineItem line) {
+            return (skus.isEmpty() && categories.isEmpty())
+                || skus.contains(line.product().sku())
+                || categories.contains(line.product().category());
+        }
+    }
+}
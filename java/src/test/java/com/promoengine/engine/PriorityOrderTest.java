@@ -0,0 +1,73 @@
+// ABOUTME: Unit tests for PriorityOrder.
+// ABOUTME: Verifies ranking by descending priority, the slot-order shortcut, and reuse across catalog edits.
+package com.promoengine.engine;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PriorityOrderTest {
+
+    @Test
+    void shouldRankByDescendingPriorityThenPosition() {
+        Integer[] priorities = {0, 5, null, 5, -3};
+
+        PriorityOrder order = PriorityOrder.of(priorities.length, position -> priorities[position]);
+
+        assertThat(List.of(order.positionAt(0), order.positionAt(1), order.positionAt(2), order.positionAt(3)))
+            .containsExactly(1, 3, 0, 4);
+        assertThat(order.rankOf(4)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldTranslateCandidatesToRanks() {
+        Integer[] priorities = {0, 5, 1};
+        PriorityOrder order = PriorityOrder.of(priorities.length, position -> priorities[position]);
+        BitSet candidates = new BitSet();
+        candidates.set(0);
+        candidates.set(2);
+
+        BitSet ranked = order.ranked(candidates, new BitSet());
+
+        assertThat(ranked.stream()).containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldUseSlotOrderWhenPrioritiesAreEqual() {
+        PriorityOrder order = PriorityOrder.of(3, position -> 7);
+        BitSet candidates = new BitSet();
+        candidates.set(1);
+
+        assertThat(order.ranked(candidates, new BitSet())).isSameAs(candidates);
+        assertThat(order.positionAt(2)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSurviveEditsThatKeepTheRanking() {
+        PriorityOrder uniform = PriorityOrder.of(2, position -> 0);
+        Integer[] priorities = {0, 5};
+        PriorityOrder ranked = PriorityOrder.of(priorities.length, position -> priorities[position]);
+
+        assertThat(uniform.afterEdit(null, withPriority(0))).isSameAs(uniform);
+        assertThat(uniform.afterEdit(null, withPriority(1))).isNull();
+        assertThat(ranked.afterEdit(withPriority(5), null)).isSameAs(ranked);
+        assertThat(ranked.afterEdit(withPriority(5), withPriority(5))).isSameAs(ranked);
+        assertThat(ranked.afterEdit(withPriority(5), withPriority(1))).isNull();
+        assertThat(ranked.afterEdit(null, withPriority(5))).isNull();
+    }
+
+    private static Promotion withPriority(int priority) {
+        return new StubPromotion(new PromotionId("PROMO"), true, List.of()) {
+            @Override
+            public int priority() {
+                return priority;
+            }
+        };
+    }
+}
@@ -0,0 +1,262 @@
+// ABOUTME: Tests for PromotionBudgets, BudgetReservation, and budget-aware pricing.
+// ABOUTME: Verifies the reserve/commit/release protocol, exact caps under contention, and engine integration.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionBudgetsTest {
+
+    private static final PromotionId PROMO_1 = new PromotionId("PROMO-1");
+    private static final PromotionId PROMO_2 = new PromotionId("PROMO-2");
+
+    private PromotionBudgets budgets;
+    private PricingContext context;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        budgets = new PromotionBudgets();
+        context = new PricingContext(Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST001", Set.of("regular"));
+        cart = new Cart(List.of(new LineItem(
+            new Product(new Sku("SKU-A"), "Product A", "electronics"), new Quantity(1), Money.euros("50.00"))));
+    }
+
+    @Test
+    void shouldBeEmptyUntilFirstBudgetIsDefined() {
+        assertThat(budgets.isEmpty()).isTrue();
+        assertThat(budgets.isExhausted(PROMO_1)).isFalse();
+
+        budgets.define(PROMO_1, Money.ZERO);
+
+        assertThat(budgets.isEmpty()).isFalse();
+        assertThat(budgets.isExhausted(PROMO_1)).isTrue();
+    }
+
+    @Test
+    void shouldReserveWithinCap() {
+        budgets.define(PROMO_1, Money.euros("10.00"));
+
+        BudgetReservation reservation = budgets.reserve(summaryOf(discount(PROMO_1, "4.00")));
+
+        assertThat(reservation.isAccepted()).isTrue();
+        assertThat(reservation.amount()).isEqualTo(Money.euros("4.00"));
+        assertThat(budgets.stats(PROMO_1).remaining()).isEqualTo(Money.euros("6.00"));
+        assertThat(budgets.stats(PROMO_1).pending()).isEqualTo(Money.euros("4.00"));
+    }
+
+    @Test
+    void shouldRejectReservationsBeyondCapAndReserveNothing() {
+        budgets.define(PROMO_1, Money.euros("10.00"));
+        budgets.define(PROMO_2, Money.euros("1.00"));
+
+        BudgetReservation reservation = budgets.reserve(summaryOf(
+            discount(PROMO_1, "4.00"), discount(PROMO_2, "2.00")));
+
+        assertThat(reservation.isAccepted()).isFalse();
+        assertThat(reservation.rejected()).containsExactly(PROMO_2);
+        assertThat(budgets.stats(PROMO_1).remaining()).isEqualTo(Money.euros("10.00"));
+        assertThat(budgets.stats(PROMO_2).rejections()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSumDiscountsOfTheSamePromotion() {
+        budgets.define(PROMO_1, Money.euros("5.00"));
+
+        BudgetReservation reservation = budgets.reserve(summaryOf(
+            discount(PROMO_1, "3.00"), discount(PROMO_1, "3.00")));
+
+        assertThat(reservation.rejected()).containsExactly(PROMO_1);
+    }
+
+    @Test
+    void shouldIgnorePromotionsWithoutBudget() {
+        BudgetReservation reservation = budgets.reserve(summaryOf(discount(PROMO_1, "4.00")));
+
+        assertThat(reservation.isAccepted()).isTrue();
+        assertThat(reservation.amount()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void shouldSpendOnCommitAndReturnOnRelease() {
+        budgets.define(PROMO_1, Money.euros("10.00"));
+        BudgetReservation committed = budgets.reserve(summaryOf(discount(PROMO_1, "4.00")));
+        BudgetReservation released = budgets.reserve(summaryOf(discount(PROMO_1, "5.00")));
+
+        committed.commit();
+        released.release();
+        released.release();
+
+        PromotionBudgets.Stats stats = budgets.stats(PROMO_1);
+        assertThat(stats.committed()).isEqualTo(Money.euros("4.00"));
+        assertThat(stats.remaining()).isEqualTo(Money.euros("6.00"));
+        assertThat(stats.pending()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void shouldSettleReservationsOnlyOnce() {
+        budgets.define(PROMO_1, Money.euros("10.00"));
+        BudgetReservation reservation = budgets.reserve(summaryOf(discount(PROMO_1, "4.00")));
+        BudgetReservation rejected = budgets.reserve(summaryOf(discount(PROMO_1, "40.00")));
+
+        reservation.commit();
+
+        assertThatThrownBy(reservation::commit).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(reservation::release).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(rejected::commit).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRejectDuplicateAndInvalidBudgets() {
+        budgets.define(PROMO_1, Money.euros("10.00"));
+
+        assertThatThrownBy(() -> budgets.define(PROMO_1, Money.euros("5.00")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("already defined");
+        assertThatThrownBy(() -> budgets.define(PROMO_2, Money.euros("-1.00")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> budgets.stats(PROMO_2))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldNeverExceedCapUnderContention() throws Exception {
+        long capCents = 1_000_000;
+        budgets.define(PROMO_1, Money.cents(capCents));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                workers.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    long committed = 0;
+                    long released = 0;
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        long cents = 1 + random.nextInt(200);
+                        BudgetReservation reservation = budgets.reserve(summaryOf(
+                            new AppliedDiscount(PROMO_1, Money.cents(cents), "cart", "test")));
+                        if (!reservation.isAccepted()) {
+                            continue;
+                        }
+                        if (random.nextInt(4) == 0) {
+                            reservation.release();
+                            released += cents;
+                        } else {
+                            reservation.commit();
+                            committed += cents;
+                        }
+                    }
+                    return new long[]{committed, released};
+                }));
+            }
+            start.countDown();
+            long committed = 0;
+            for (Future<long[]> worker : workers) {
+                committed += worker.get(30, TimeUnit.SECONDS)[0];
+            }
+
+            PromotionBudgets.Stats stats = budgets.stats(PROMO_1);
+            assertThat(committed).isLessThanOrEqualTo(capCents);
+            assertThat(stats.committed()).isEqualTo(Money.cents(committed));
+            assertThat(stats.remaining()).isEqualTo(Money.cents(capCents - committed));
+            assertThat(stats.pending()).isEqualTo(Money.ZERO);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldSkipPromotionsWithExhaustedBudgetWhenPricing() {
+        PromotionEngine engine = engineWith(promotion(PROMO_1, "5.00"), promotion(PROMO_2, "3.00"));
+        engine.budgets().define(PROMO_1, Money.euros("5.00"));
+
+        engine.priceAndReserve(cart, context).reservation().commit();
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(engine.budgets().isExhausted(PROMO_1)).isTrue();
+        assertThat(summary.appliedDiscounts()).extracting(AppliedDiscount::promotionId).containsExactly(PROMO_2);
+    }
+
+    @Test
+    void shouldRepriceWithoutPromotionsWhoseBudgetCannotCoverTheDiscount() {
+        PromotionEngine engine = engineWith(promotion(PROMO_1, "5.00"), promotion(PROMO_2, "3.00"));
+        engine.budgets().define(PROMO_1, Money.euros("4.00"));
+
+        ReservedPrice reserved = engine.priceAndReserve(cart, context);
+
+        assertThat(engine.budgets().isExhausted(PROMO_1)).isFalse();
+        assertThat(reserved.reservation().isAccepted()).isTrue();
+        assertThat(reserved.summary().appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(PROMO_2);
+        assertThat(reserved.summary().total()).isEqualTo(Money.euros("47.00"));
+    }
+
+    @Test
+    void shouldFailRatherThanRepriceForeverWhenRejectedBudgetIsOutsideTheCatalog() {
+        PromotionId elsewhere = new PromotionId("PROMO-ELSEWHERE");
+        PromotionEngine engine = engineWith(
+            new StubPromotion(PROMO_1, true, List.of(discount(elsewhere, "5.00"))));
+        engine.budgets().define(elsewhere, Money.euros("1.00"));
+
+        assertThatThrownBy(() -> engine.priceAndReserve(cart, context))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("PROMO-ELSEWHERE");
+        assertThat(engine.budgets().stats(elsewhere).pending()).isEqualTo(Money.ZERO);
+    }
+
+    @Test
+    void shouldShareBudgetsBetweenEngines() {
+        PromotionBudgets shared = new PromotionBudgets();
+        shared.define(PROMO_1, Money.euros("5.00"));
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion(PROMO_1, "5.00")));
+        PromotionEngine stacking = new PromotionEngine(catalog, StackingPolicy.STACK, Duration.ofMillis(5), shared);
+        PromotionEngine exclusive = new PromotionEngine(
+            catalog, StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER, Duration.ofMillis(5), shared);
+
+        stacking.priceAndReserve(cart, context).reservation().commit();
+
+        assertThat(exclusive.price(cart, context).appliedDiscounts()).isEmpty();
+    }
+
+    private PromotionEngine engineWith(StubPromotion... promotions) {
+        return new PromotionEngine(List.of(promotions));
+    }
+
+    private static StubPromotion promotion(PromotionId id, String amount) {
+        return new StubPromotion(id, true, List.of(discount(id, amount)));
+    }
+
+    private static AppliedDiscount discount(PromotionId id, String amount) {
+        return new AppliedDiscount(id, Money.euros(amount), "cart", id.value());
+    }
+
+    private static PriceSummary summaryOf(AppliedDiscount... discounts) {
+        Money total = Money.ZERO;
+        for (AppliedDiscount discount : discounts) {
+            total = total.add(discount.amount());
+        }
+        return new PriceSummary(Money.euros("100.00"), total, Money.euros("100.00").subtract(total), List.of(discounts));
+    }
+}
@@ -0,0 +1,281 @@
+// ABOUTME: Tests for PromotionCatalog snapshots and incremental edits.
+// ABOUTME: Verifies versioning, edit semantics, equivalence with full rebuilds, and pricing during edits.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionCatalogTest {
+
+    private static final int SKUS = 40;
+
+    private PricingContext context;
+    private Product productA;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST001", Set.of("regular"));
+        productA = new Product(new Sku("SKU-A"), "Product A", "electronics");
+        cart = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("50.00"))));
+    }
+
+    @Test
+    void shouldStartAtVersionOneAndRecordItOnSummaries() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00")));
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+
+        assertThat(catalog.version()).isEqualTo(1);
+        assertThat(engine.price(cart, context).catalogVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplyAddedPromotionsFromTheNextVersion() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00")));
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+
+        long version = catalog.add(promotion("PROMO-2", "3.00"));
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(version).isEqualTo(2);
+        assertThat(summary.catalogVersion()).isEqualTo(2);
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("8.00"));
+    }
+
+    @Test
+    void shouldStopApplyingRemovedPromotions() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00"), promotion("PROMO-2", "3.00")));
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+
+        catalog.remove(new PromotionId("PROMO-1"));
+
+        assertThat(engine.price(cart, context).appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-2"));
+        assertThat(catalog.snapshot().find(new PromotionId("PROMO-1"))).isEmpty();
+    }
+
+    @Test
+    void shouldKeepEvaluationOrderOfReplacedPromotions() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00"), promotion("PROMO-2", "3.00")));
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+
+        catalog.replace(promotion("PROMO-1", "7.00"));
+
+        assertThat(engine.price(cart, context).appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId, AppliedDiscount::amount)
+            .containsExactly(
+                tuple(new PromotionId("PROMO-1"), Money.euros("7.00")),
+                tuple(new PromotionId("PROMO-2"), Money.euros("3.00")));
+    }
+
+    @Test
+    void shouldPublishNothingWhenAnyChangeIsInvalid() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00")));
+        CatalogSnapshot before = catalog.snapshot();
+
+        assertThatThrownBy(() -> catalog.publish(List.of(
+            CatalogChange.add(promotion("PROMO-2", "3.00")),
+            CatalogChange.add(promotion("PROMO-1", "1.00")))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Duplicate promotion ID");
+        assertThatThrownBy(() -> catalog.remove(new PromotionId("PROMO-404")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Unknown promotion ID");
+
+        assertThat(catalog.snapshot()).isSameAs(before);
+    }
+
+    @Test
+    void shouldRejectDuplicateIdsInInitialCatalog() {
+        assertThatThrownBy(() -> new PromotionCatalog(List.of(promotion("PROMO-1", "5.00"), promotion("PROMO-1", "3.00"))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Duplicate promotion ID");
+    }
+
+    @Test
+    void shouldLeaveEarlierSnapshotsUnchanged() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00")));
+        CatalogSnapshot before = catalog.snapshot();
+
+        catalog.publish(List.of(
+            CatalogChange.add(promotion("PROMO-2", "3.00")),
+            CatalogChange.remove(new PromotionId("PROMO-1"))));
+
+        assertThat(before.version()).isEqualTo(1);
+        assertThat(before.promotions()).extracting(Promotion::id).containsExactly(new PromotionId("PROMO-1"));
+        assertThat(catalog.snapshot().promotions()).extracting(Promotion::id).containsExactly(new PromotionId("PROMO-2"));
+        assertThat(catalog.version()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldCompactEmptySlotsKeepingOrder() {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            promotions.add(promotion("PROMO-" + i, "0.01"));
+        }
+        PromotionCatalog catalog = new PromotionCatalog(promotions);
+
+        List<CatalogChange> removals = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            if (i % 4 != 0) {
+                removals.add(CatalogChange.remove(new PromotionId("PROMO-" + i)));
+            }
+        }
+        catalog.publish(removals);
+
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertThat(snapshot.size()).isEqualTo(50);
+        assertThat(snapshot.slotCount()).isEqualTo(50);
+        assertThat(snapshot.promotions()).extracting(Promotion::id)
+            .startsWith(new PromotionId("PROMO-0"), new PromotionId("PROMO-4"), new PromotionId("PROMO-8"));
+    }
+
+    @Test
+    void shouldPriceLikeAFreshEngineAfterRandomEdits() {
+        Random random = new Random(11);
+        List<Promotion> initial = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            initial.add(randomPromotion("PROMO-" + i, random));
+        }
+        PromotionCatalog catalog = new PromotionCatalog(initial);
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+
+        int next = initial.size();
+        for (int edit = 0; edit < 300; edit++) {
+            List<Promotion> live = catalog.snapshot().promotions();
+            int kind = random.nextInt(3);
+            if (kind == 0 || live.isEmpty()) {
+                catalog.add(randomPromotion("PROMO-" + next++, random));
+            } else if (kind == 1) {
+                catalog.remove(live.get(random.nextInt(live.size())).id());
+            } else {
+                catalog.replace(randomPromotion(live.get(random.nextInt(live.size())).id().value(), random));
+            }
+        }
+
+        PromotionEngine fresh = new PromotionEngine(
+            catalog.snapshot().promotions(), StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+        for (int i = 0; i < 200; i++) {
+            Cart randomCart = randomCart(random);
+            PriceSummary incremental = engine.price(randomCart, context);
+            PriceSummary rebuilt = fresh.price(randomCart, context);
+            assertThat(incremental.appliedDiscounts()).isEqualTo(rebuilt.appliedDiscounts());
+            assertThat(incremental.total()).isEqualTo(rebuilt.total());
+        }
+    }
+
+    @Test
+    void shouldPriceSessionsAgainstTheSnapshotTheyStartedWith() {
+        PromotionCatalog catalog = new PromotionCatalog(List.of(promotion("PROMO-1", "5.00")));
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+        PricingSession session = engine.startSession(cart, context);
+
+        catalog.add(promotion("PROMO-2", "3.00"));
+        PriceSummary summary = session.changeQuantity(productA.sku(), new Quantity(2));
+
+        assertThat(summary.catalogVersion()).isEqualTo(1);
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("5.00"));
+    }
+
+    @Test
+    void shouldKeepPricingWhileEditsArePublished() throws Exception {
+        Random random = new Random(5);
+        List<Promotion> initial = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            initial.add(randomPromotion("PROMO-" + i, random));
+        }
+        PromotionCatalog catalog = new PromotionCatalog(initial);
+        PromotionEngine engine = new PromotionEngine(catalog, StackingPolicy.STACK);
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            carts.add(randomCart(random));
+        }
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 3; reader++) {
+                readers.add(executor.submit(() -> {
+                    long lastVersion = 0;
+                    long priced = 0;
+                    // At least one pass, in case the writer finishes before this reader starts
+                    do {
+                        for (Cart each : carts) {
+                            PriceSummary summary = engine.price(each, context);
+                            assertThat(summary.catalogVersion()).isGreaterThanOrEqualTo(lastVersion);
+                            assertThat(summary.total()).isEqualTo(summary.subtotal().subtract(summary.discountTotal()));
+                            lastVersion = summary.catalogVersion();
+                            priced++;
+                        }
+                    } while (writing.get());
+                    return priced;
+                }));
+            }
+            Random writerRandom = new Random(9);
+            for (int edit = 0; edit < 500; edit++) {
+                catalog.replace(randomPromotion("PROMO-" + writerRandom.nextInt(100), writerRandom));
+            }
+            writing.set(false);
+            for (Future<Long> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isPositive();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(catalog.version()).isEqualTo(501);
+    }
+
+    private static StubPromotion promotion(String id, String amount) {
+        PromotionId promotionId = new PromotionId(id);
+        return new StubPromotion(promotionId, true,
+            List.of(new AppliedDiscount(promotionId, Money.euros(amount), "cart", id)));
+    }
+
+    private static Promotion randomPromotion(String id, Random random) {
+        PromotionId promotionId = new PromotionId(id);
+        AppliedDiscount discount = new AppliedDiscount(promotionId, Money.cents(1 + random.nextInt(500)), "line", id);
+        Set<Sku> targets = random.nextInt(8) == 0 ? Set.of() : Set.of(sku(random.nextInt(SKUS)));
+        Set<String> groups = Set.of("group-" + random.nextInt(4));
+        return new StubPromotion(promotionId, random.nextInt(4) != 0, List.of(discount), targets, Set.of()) {
+            @Override
+            public Set<String> conflictGroups() {
+                return groups;
+            }
+        };
+    }
+
+    private static Cart randomCart(Random random) {
+        List<LineItem> lines = new ArrayList<>();
+        for (int line = 0; line < 1 + random.nextInt(6); line++) {
+            lines.add(new LineItem(
+                new Product(sku(random.nextInt(SKUS)), "Product", "category"),
+                new Quantity(1 + random.nextInt(3)),
+                Money.cents(100 + random.nextInt(10_000))
+            ));
+        }
+        return new Cart(lines);
+    }
+
+    private static Sku sku(int i) {
+        return new Sku("SKU-" + i);
+    }
+}
@@ -0,0 +1,148 @@
+// ABOUTME: Concurrency tests for PromotionEngine.
+// ABOUTME: Verifies parallel batch pricing matches sequential pricing and that engines can be shared across threads.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionEngineConcurrencyTest {
+
+    private static final int SKUS = 50;
+
+    private PromotionEngine engine;
+    private List<PricingRequest> requests;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            PromotionId id = new PromotionId("PROMO-" + i);
+            AppliedDiscount discount = new AppliedDiscount(id, Money.cents(1 + random.nextInt(500)), "line", "Discount " + i);
+            Set<Sku> targets = i % 10 == 0 ? Set.of() : Set.of(sku(random.nextInt(SKUS)));
+            promotions.add(new StubPromotion(id, random.nextBoolean(), List.of(discount), targets, Set.of()));
+        }
+        engine = new PromotionEngine(promotions);
+
+        requests = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            List<LineItem> lines = new ArrayList<>();
+            for (int line = 0; line < 1 + random.nextInt(10); line++) {
+                lines.add(new LineItem(
+                    new Product(sku(random.nextInt(SKUS)), "Product", "category"),
+                    new Quantity(1 + random.nextInt(3)),
+                    Money.cents(100 + random.nextInt(10_000))
+                ));
+            }
+            PricingContext context = new PricingContext(
+                Instant.parse("2025-12-18T10:00:00Z").plusSeconds(i), "online", "CUST" + i, Set.of());
+            requests.add(new PricingRequest(new Cart(lines), context));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldMatchSequentialPricingOnForkJoinPool() {
+        List<PriceSummary> sequential = engine.priceAll(requests);
+
+        List<PriceSummary> parallel = engine.priceAll(requests, PricingExecutors.forkJoin());
+
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    void shouldMatchSequentialPricingWithSmallChunksOnFixedPool() {
+        executor = Executors.newFixedThreadPool(8);
+        List<PriceSummary> sequential = engine.priceAll(requests);
+
+        List<PriceSummary> parallel = engine.priceAll(requests, executor, 1);
+
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    void shouldMatchSequentialPricingOnExecutorForBlockingPromotions() {
+        executor = PricingExecutors.forBlockingPromotions();
+        List<PriceSummary> sequential = engine.priceAll(requests);
+
+        List<PriceSummary> parallel = engine.priceAll(requests, executor, 16);
+
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    void shouldPriceConcurrentlyFromManyThreads() throws Exception {
+        executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<PriceSummary>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 16; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<PriceSummary> summaries = new ArrayList<>();
+                for (PricingRequest request : requests) {
+                    summaries.add(engine.price(request.cart(), request.context()));
+                }
+                return summaries;
+            }));
+        }
+        start.countDown();
+
+        List<PriceSummary> sequential = engine.priceAll(requests);
+        for (Future<List<PriceSummary>> future : futures) {
+            assertThat(future.get()).containsExactlyElementsOf(sequential);
+        }
+    }
+
+    @Test
+    void shouldPropagatePromotionFailures() {
+        Promotion failing = new StubPromotion(new PromotionId("PROMO-FAIL"), true, List.of()) {
+            @Override
+            public boolean isApplicable(Cart cart, PricingContext context) {
+                throw new IllegalStateException("Lookup failed");
+            }
+        };
+        PromotionEngine failingEngine = new PromotionEngine(List.of(failing));
+
+        assertThatThrownBy(() -> failingEngine.priceAll(requests, PricingExecutors.forkJoin()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Lookup failed");
+    }
+
+    @Test
+    void shouldRejectInvalidParallelArguments() {
+        assertThatThrownBy(() -> engine.priceAll(requests, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Executor cannot be null");
+        assertThatThrownBy(() -> engine.priceAll(requests, PricingExecutors.forkJoin(), 0))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Chunk size must be positive");
+    }
+
+    private static Sku sku(int number) {
+        return new Sku("SKU-" + number);
+    }
+}
@@ -4,11 +4,15 @@ package com.promoengine.engine;
 
 import com.promoengine.domain.*;
 import com.promoengine.pricing.*;
+import com.promoengine.promotions.PromotionCompiler;
+import com.promoengine.promotions.PromotionDefinition;
+import com.promoengine.promotions.Reward;
 import com.promoengine.promotions.StubPromotion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -179,6 +183,262 @@ class PromotionEngineTest {
         assertThat(summary.total()).isEqualTo(Money.euros("0.00"));
     }
 
+    @Test
+    void shouldOnlyEvaluatePromotionsTargetingTheCart() {
+        StubPromotion targetingCart = new StubPromotion(
+            new PromotionId("PROMO-A"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-A"), Money.euros("1.00"), "line", "A")),
+            Set.of(new Sku("SKU-A")),
+            Set.of()
+        );
+        StubPromotion targetingOtherSku = new StubPromotion(
+            new PromotionId("PROMO-B"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-B"), Money.euros("1.00"), "line", "B")),
+            Set.of(new Sku("SKU-B")),
+            Set.of()
+        );
+        StubPromotion targetingOtherCategory = new StubPromotion(
+            new PromotionId("PROMO-BOOKS"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-BOOKS"), Money.euros("1.00"), "line", "Books")),
+            Set.of(),
+            Set.of("books")
+        );
+
+        PromotionEngine engine = new PromotionEngine(List.of(targetingCart, targetingOtherSku, targetingOtherCategory));
+        PriceSummary summary = engine.price(singleItemCart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("1.00"));
+        assertThat(targetingCart.applicabilityChecks()).isEqualTo(1);
+        assertThat(targetingOtherSku.applicabilityChecks()).isZero();
+        assertThat(targetingOtherCategory.applicabilityChecks()).isZero();
+    }
+
+    @Test
+    void shouldOnlyEvaluatePromotionsOfTheRequestChannel() {
+        StubPromotion webOnly = inChannel("PROMO-WEB", "web");
+        StubPromotion posOnly = inChannel("PROMO-POS", "pos");
+        PromotionEngine engine = new PromotionEngine(List.of(webOnly, posOnly));
+        PricingContext web = new PricingContext(context.now(), "web", "CUST001", Set.of());
+
+        PriceSummary summary = engine.price(singleItemCart, web);
+        PriceSummary session = engine.startSession(singleItemCart, web).changeQuantity(productA.sku(), new Quantity(2));
+
+        assertThat(summary.appliedDiscounts()).extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-WEB"));
+        assertThat(session.appliedDiscounts()).extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-WEB"));
+        assertThat(posOnly.applicabilityChecks()).isZero();
+        assertThat(engine.price(singleItemCart, context).appliedDiscounts()).isEmpty();
+    }
+
+    @Test
+    void shouldEvaluatePromotionsTargetingACategoryInTheCart() {
+        StubPromotion electronics = new StubPromotion(
+            new PromotionId("PROMO-ELECTRONICS"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-ELECTRONICS"), Money.euros("3.00"), "line", "Electronics")),
+            Set.of(),
+            Set.of("electronics")
+        );
+
+        PromotionEngine engine = new PromotionEngine(List.of(electronics));
+        PriceSummary summary = engine.price(singleItemCart, context);
+
+        assertThat(summary.discountTotal()).isEqualTo(Money.euros("3.00"));
+    }
+
+    @Test
+    void shouldShareOneCartAnalysisBetweenPromotions() {
+        List<CartAnalysis> seen = new ArrayList<>();
+        List<StubPromotion> promotions = new ArrayList<>();
+        for (String id : List.of("PROMO-1", "PROMO-2")) {
+            promotions.add(new StubPromotion(new PromotionId(id), true, List.of()) {
+                @Override
+                public boolean isApplicable(CartAnalysis analysis, PricingContext context) {
+                    seen.add(analysis);
+                    return super.isApplicable(analysis, context);
+                }
+            });
+        }
+
+        new PromotionEngine(List.copyOf(promotions)).price(singleItemCart, context);
+
+        assertThat(seen).hasSize(2);
+        assertThat(seen.get(0)).isSameAs(seen.get(1));
+        assertThat(seen.get(0).cart()).isSameAs(singleItemCart);
+    }
+
+    @Test
+    void shouldAllocateOrderDiscountsAcrossTargetedLines() {
+        Product productB = new Product(new Sku("SKU-B"), "Product B", "electronics");
+        Product book = new Product(new Sku("SKU-BOOK"), "Book", "books");
+        Cart cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(1), Money.euros("10.00")),
+            new LineItem(productB, new Quantity(2), Money.euros("10.00")),
+            new LineItem(book, new Quantity(1), Money.euros("30.00"))));
+        PromotionId id = new PromotionId("PROMO-ELECTRONICS");
+        StubPromotion electronics = new StubPromotion(id, true,
+            List.of(new AppliedDiscount(id, Money.euros("1.00"), "cart", "Order discount")), Set.of(), Set.of("electronics"));
+
+        PriceSummary summary = new PromotionEngine(List.of(electronics)).price(cart, context);
+
+        assertThat(summary.appliedDiscounts().get(0).allocations()).containsExactly(
+            entry(productA.sku(), Money.euros("0.33")),
+            entry(productB.sku(), Money.euros("0.67")));
+    }
+
+    @Test
+    void shouldPriceBatchLikeIndividualCalls() {
+        StubPromotion onSkuA = new StubPromotion(
+            new PromotionId("PROMO-A"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-A"), Money.euros("2.00"), "line", "A")),
+            Set.of(new Sku("SKU-A")),
+            Set.of()
+        );
+        StubPromotion january = new StubPromotion(
+            new PromotionId("PROMO-JANUARY"),
+            true,
+            List.of(new AppliedDiscount(new PromotionId("PROMO-JANUARY"), Money.euros("1.00"), "cart", "January"))
+        ) {
+            @Override
+            public ValidityWindow validity() {
+                return ValidityWindow.between(
+                    Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"));
+            }
+        };
+        PromotionEngine engine = new PromotionEngine(List.of(onSkuA, january));
+
+        PricingContext inJanuary = new PricingContext(
+            Instant.parse("2026-01-15T10:00:00Z"), "online", "CUST002", Set.of());
+        Cart otherCart = new Cart(List.of(
+            new LineItem(new Product(new Sku("SKU-B"), "Product B", "books"), new Quantity(1), Money.euros("7.00"))
+        ));
+        List<PricingRequest> requests = List.of(
+            new PricingRequest(singleItemCart, context),
+            new PricingRequest(singleItemCart, inJanuary),
+            new PricingRequest(otherCart, inJanuary),
+            new PricingRequest(emptyCart, context),
+            new PricingRequest(otherCart, context)
+        );
+
+        List<PriceSummary> summaries = engine.priceAll(requests);
+
+        assertThat(summaries).containsExactlyElementsOf(requests.stream()
+            .map(request -> engine.price(request.cart(), request.context()))
+            .toList());
+        assertThat(summaries.get(1).discountTotal()).isEqualTo(Money.euros("3.00"));
+    }
+
+    @Test
+    void shouldStopAtFirstApplicablePromotionByPriority() {
+        List<StubPromotion> fallbacks = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            fallbacks.add(prioritized("FALLBACK-" + i, true, 0));
+        }
+        StubPromotion notMet = prioritized("PROMO-NOT-MET", false, 10);
+        StubPromotion preferred = prioritized("PROMO-PREFERRED", true, 5);
+        List<StubPromotion> promotions = new ArrayList<>(fallbacks);
+        promotions.add(notMet);
+        promotions.add(preferred);
+
+        PriceSummary summary = new PromotionEngine(List.copyOf(promotions), StackingPolicy.EXCLUSIVE_PRIORITY)
+            .price(singleItemCart, context);
+
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-PREFERRED"));
+        assertThat(notMet.applicabilityChecks()).isEqualTo(1);
+        assertThat(preferred.applicabilityChecks()).isEqualTo(1);
+        assertThat(fallbacks).allSatisfy(fallback -> assertThat(fallback.applicabilityChecks()).isZero());
+    }
+
+    @Test
+    void shouldKeepCatalogOrderBetweenEqualPriorities() {
+        StubPromotion first = prioritized("PROMO-FIRST", true, 0);
+        StubPromotion second = prioritized("PROMO-SECOND", true, 0);
+
+        PriceSummary summary = new PromotionEngine(List.of(first, second), StackingPolicy.EXCLUSIVE_PRIORITY)
+            .price(singleItemCart, context);
+
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId)
+            .containsExactly(new PromotionId("PROMO-FIRST"));
+        assertThat(second.applicabilityChecks()).isZero();
+    }
+
+    @Test
+    void shouldNotInternSkusOrCategoriesOfPricedCarts() {
+        PromotionEngine engine = new PromotionEngine(List.of(new StubPromotion(new PromotionId("PROMO-A"), true,
+            List.of(), Set.of(productA.sku()), Set.of())));
+        int skus = IdDictionary.skus().size();
+        int categories = IdDictionary.categories().size();
+
+        for (int i = 0; i < 100; i++) {
+            Product unknown = new Product(new Sku("SKU-HISTORICAL-" + i), "Historical " + i, "archive-" + i);
+            engine.price(new Cart(List.of(new LineItem(unknown, new Quantity(1), Money.euros("1.00")))), context);
+        }
+
+        assertThat(IdDictionary.skus().size()).isEqualTo(skus);
+        assertThat(IdDictionary.categories().size()).isEqualTo(categories);
+    }
+
+    @Test
+    void shouldPriceLinesNoPromotionTargetsWithCompiledMultiTargetPromotions() {
+        Product other = new Product(new Sku("SKU-B"), "Product B", "books");
+        // Neither this SKU nor this category is used anywhere else, so neither is ever interned
+        Product untargeted = new Product(new Sku("SKU-UNTARGETED-MATCHER"), "Untargeted", "untargeted-matcher-category");
+        PromotionCompiler compiler = new PromotionCompiler();
+        PromotionEngine engine = new PromotionEngine(compiler.compileAll(List.of(
+            PromotionDefinition.builder(new PromotionId("CATEGORIES-10"), new Reward.PercentOff(Percentage.of("10")))
+                .targetCategories(Set.of("electronics", "books"))
+                .conflictGroups(Set.of())
+                .build(),
+            PromotionDefinition.builder(new PromotionId("SKUS-SPEND"),
+                    new Reward.SpendThreshold(Money.euros("10.00"), Money.euros("1.00")))
+                .targetSkus(Set.of(productA.sku(), other.sku()))
+                .conflictGroups(Set.of())
+                .build(),
+            PromotionDefinition.builder(new PromotionId("MIXED-5"), new Reward.PercentOff(Percentage.of("5")))
+                .targetSkus(Set.of(productA.sku()))
+                .targetCategories(Set.of("books"))
+                .conflictGroups(Set.of())
+                .build())), StackingPolicy.STACK);
+        Cart cart = new Cart(List.of(
+            new LineItem(untargeted, new Quantity(3), Money.euros("7.00")),
+            new LineItem(productA, new Quantity(1), Money.euros("20.00"))
+        ));
+
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(IdDictionary.skus().find(untargeted.sku())).isEqualTo(-1);
+        assertThat(IdDictionary.categories().find(untargeted.category())).isEqualTo(-1);
+        assertThat(summary.appliedDiscounts())
+            .extracting(AppliedDiscount::promotionId, AppliedDiscount::amount)
+            .containsExactlyInAnyOrder(
+                tuple(new PromotionId("CATEGORIES-10"), Money.euros("2.00")),
+                tuple(new PromotionId("SKUS-SPEND"), Money.euros("1.00")),
+                tuple(new PromotionId("MIXED-5"), Money.euros("1.00")));
+    }
+
+    @Test
+    void shouldPriceEmptyBatch() {
+        PromotionEngine engine = new PromotionEngine(List.of());
+
+        assertThat(engine.priceAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNullBatch() {
+        PromotionEngine engine = new PromotionEngine(List.of());
+        assertThatThrownBy(() -> engine.priceAll(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Requests cannot be null");
+    }
+
     @Test
     void shouldRejectNullPromotions() {
         assertThatThrownBy(() -> new PromotionEngine(null))
@@ -201,4 +461,26 @@ class PromotionEngineTest {
             .isInstanceOf(IllegalArgumentException.class)
             .hasMessageContaining("Context cannot be null");
     }
+
+    private static StubPromotion prioritized(String id, boolean applies, int priority) {
+        PromotionId promotionId = new PromotionId(id);
+        return new StubPromotion(promotionId, applies,
+            List.of(new AppliedDiscount(promotionId, Money.euros("1.00"), "line", id))) {
+            @Override
+            public int priority() {
+                return priority;
+            }
+        };
+    }
+
+    private StubPromotion inChannel(String id, String channel) {
+        PromotionId promotionId = new PromotionId(id);
+        return new StubPromotion(promotionId, true,
+            List.of(new AppliedDiscount(promotionId, Money.euros("1.00"), "line", id)), Set.of(productA.sku()), Set.of()) {
+            @Override
+            public Set<String> channels() {
+                return Set.of(channel);
+            }
+        };
+    }
 }
@@ -0,0 +1,168 @@
+// ABOUTME: Tests for evaluation tracing in PromotionEngine.
+// ABOUTME: Verifies trace levels and the reason recorded for each way a promotion can be skipped or applied.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionEngineTracingTest {
+
+    private static final Instant NOW = Instant.parse("2025-12-18T10:00:00Z");
+
+    private PricingContext context;
+    private Product productA;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(NOW, "online", "CUST001", Set.of("regular"));
+        productA = new Product(new Sku("SKU-A"), "Product A", "electronics");
+        cart = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("50.00"))));
+    }
+
+    @Test
+    void shouldNotTraceByDefault() {
+        PromotionEngine engine = new PromotionEngine(List.of(promotion("PROMO-1", true, "5.00")));
+
+        PriceSummary summary = engine.price(cart, context);
+
+        assertThat(engine.traceLevel()).isEqualTo(TraceLevel.OFF);
+        assertThat(summary.isTraced()).isFalse();
+        assertThat(summary.trace()).isNull();
+    }
+
+    @Test
+    void shouldTraceEveryCallAtLevelAlways() {
+        PromotionEngine engine = new PromotionEngine(List.of(promotion("PROMO-1", true, "5.00")))
+            .withTracing(TraceLevel.ALWAYS, 0.0);
+
+        assertThat(engine.price(cart, context).isTraced()).isTrue();
+        assertThat(engine.priceAll(List.of(new PricingRequest(cart, context))).get(0).isTraced()).isTrue();
+    }
+
+    @Test
+    void shouldTraceSampledShareOfCalls() {
+        PromotionEngine never = new PromotionEngine(List.of(promotion("PROMO-1", true, "5.00")))
+            .withTracing(TraceLevel.SAMPLED, 0.0);
+        PromotionEngine always = never.withTracing(TraceLevel.SAMPLED, 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(never.price(cart, context).isTraced()).isFalse();
+            assertThat(always.price(cart, context).isTraced()).isTrue();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidSampleRate() {
+        PromotionEngine engine = new PromotionEngine(List.of());
+
+        assertThatThrownBy(() -> engine.withTracing(TraceLevel.SAMPLED, 1.5))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> engine.withTracing(null, 0.5))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRecordWhyEachCandidateWasSkippedOrApplied() {
+        StubPromotion applied = promotion("PROMO-APPLIED", true, "5.00");
+        StubPromotion notApplicable = promotion("PROMO-CONDITIONS", false, "5.00");
+        StubPromotion noDiscount = new StubPromotion(new PromotionId("PROMO-NOTHING"), true, List.of());
+        StubPromotion expired = new StubPromotion(new PromotionId("PROMO-EXPIRED"), true, List.of()) {
+            @Override
+            public ValidityWindow validity() {
+                return ValidityWindow.until(NOW.minusSeconds(1));
+            }
+        };
+        StubPromotion vipOnly = new StubPromotion(new PromotionId("PROMO-VIP"), true, List.of()) {
+            @Override
+            public TagMask requiredTags() {
+                return TagMask.of("vip");
+            }
+        };
+        StubPromotion elsewhere = new StubPromotion(
+            new PromotionId("PROMO-ELSEWHERE"), true, List.of(), Set.of(new Sku("SKU-Z")), Set.of());
+        PromotionEngine engine = new PromotionEngine(
+            List.of(applied, notApplicable, noDiscount, expired, vipOnly, elsewhere));
+
+        EvaluationTrace trace = engine.explain(cart, context).trace();
+
+        assertThat(trace.decisions())
+            .extracting(decision -> decision.promotionId().value(), PromotionDecision::reason)
+            .containsExactly(
+                tuple("PROMO-APPLIED", "Applied: PROMO-APPLIED"),
+                tuple("PROMO-CONDITIONS", "Skipped: conditions not met"),
+                tuple("PROMO-NOTHING", "Skipped: no discount computed"),
+                tuple("PROMO-EXPIRED", "Skipped: outside validity window"),
+                tuple("PROMO-VIP", "Skipped: customer not eligible"));
+        assertThat(trace.notTargeted()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordPromotionsTheStackingPolicyDidNotSelect() {
+        PromotionEngine engine = new PromotionEngine(
+            List.of(promotion("PROMO-SMALL", true, "2.00"), promotion("PROMO-BIG", true, "8.00")),
+            StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+
+        EvaluationTrace trace = engine.explain(cart, context).trace();
+
+        assertThat(trace.decisions())
+            .extracting(PromotionDecision::applicable, PromotionDecision::reason, PromotionDecision::computedDiscount)
+            .containsExactly(
+                tuple(false, "Skipped: a better combination of promotions was chosen", Money.euros("2.00")),
+                tuple(true, "Applied: PROMO-BIG", Money.euros("8.00")));
+    }
+
+    @Test
+    void shouldExplainAndChooseDiscountsBeyondLongCents() {
+        Cart expensive = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("1000000000000000000000.00"))));
+        PromotionId overflowing = new PromotionId("PROMO-OVERFLOWING-SUM");
+        // Each amount fits in long cents, their sum does not
+        Money half = Money.euros("60000000000000000.00");
+        StubPromotion summing = new StubPromotion(overflowing, true, List.of(
+            new AppliedDiscount(overflowing, half, "cart", "first half"),
+            new AppliedDiscount(overflowing, half, "cart", "second half")));
+        Money huge = Money.euros("100000000000000000000.00");
+        PromotionEngine engine = new PromotionEngine(
+            List.of(promotion("PROMO-SMALL", true, "2.00"), summing,
+                new StubPromotion(new PromotionId("PROMO-HUGE"), true,
+                    List.of(new AppliedDiscount(new PromotionId("PROMO-HUGE"), huge, "cart", "huge")))),
+            StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER);
+
+        PriceSummary summary = engine.explain(expensive, context);
+
+        assertThat(summary.appliedDiscounts()).extracting(AppliedDiscount::promotionId).doesNotContain(new PromotionId("PROMO-SMALL"));
+        assertThat(summary.trace().decisions())
+            .extracting(PromotionDecision::computedDiscount)
+            .containsExactly(Money.euros("2.00"), half.add(half), huge);
+    }
+
+    @Test
+    void shouldRecordBudgetDecisions() {
+        PromotionEngine engine = new PromotionEngine(List.of(
+            promotion("PROMO-SPENT", true, "1.00"), promotion("PROMO-SHORT", true, "5.00")))
+            .withTracing(TraceLevel.ALWAYS, 0.0);
+        engine.budgets().define(new PromotionId("PROMO-SPENT"), Money.ZERO);
+        engine.budgets().define(new PromotionId("PROMO-SHORT"), Money.euros("4.00"));
+
+        EvaluationTrace trace = engine.priceAndReserve(cart, context).summary().trace();
+
+        assertThat(trace.decisions())
+            .extracting(PromotionDecision::reason)
+            .containsExactly("Skipped: budget exhausted", "Skipped: budget cannot cover discount");
+    }
+
+    private static StubPromotion promotion(String id, boolean applies, String amount) {
+        PromotionId promotionId = new PromotionId(id);
+        return new StubPromotion(promotionId, applies,
+            List.of(new AppliedDiscount(promotionId, Money.euros(amount), "cart", id)));
+    }
+}
@@ -0,0 +1,116 @@
+// ABOUTME: Unit tests for PromotionIndex.
+// ABOUTME: Verifies SKU and category lookups and that cart-wide promotions are always candidates.
+package com.promoengine.engine;
+
+import com.promoengine.domain.*;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionIndexTest {
+
+    private static final Product PRODUCT_A = new Product(new Sku("SKU-A"), "Product A", "electronics");
+    private static final Product PRODUCT_C = new Product(new Sku("SKU-C"), "Product C", "books");
+
+    @Test
+    void shouldFindPromotionsTargetingSkusInTheCart() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            targeting(Set.of(new Sku("SKU-A")), Set.of()),
+            targeting(Set.of(new Sku("SKU-B")), Set.of())
+        ));
+
+        BitSet candidates = index.candidatesFor(cartOf(PRODUCT_A));
+
+        assertThat(candidates.stream()).containsExactly(0);
+    }
+
+    @Test
+    void shouldFindPromotionsTargetingCategoriesInTheCart() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            targeting(Set.of(), Set.of("books")),
+            targeting(Set.of(), Set.of("garden"))
+        ));
+
+        BitSet candidates = index.candidatesFor(cartOf(PRODUCT_C));
+
+        assertThat(candidates.stream()).containsExactly(0);
+    }
+
+    @Test
+    void shouldAlwaysIncludeCartWidePromotions() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            targeting(Set.of(new Sku("SKU-B")), Set.of()),
+            targeting(Set.of(), Set.of())
+        ));
+
+        assertThat(index.candidatesFor(cartOf()).stream()).containsExactly(1);
+        assertThat(index.candidatesFor(cartOf(PRODUCT_A)).stream()).containsExactly(1);
+    }
+
+    @Test
+    void shouldReportEachPromotionOnceInRegistrationOrder() {
+        PromotionIndex index = new PromotionIndex(List.of(
+            targeting(Set.of(), Set.of()),
+            targeting(Set.of(new Sku("SKU-A"), new Sku("SKU-C")), Set.of("books")),
+            targeting(Set.of(), Set.of("electronics"))
+        ));
+
+        BitSet candidates = index.candidatesFor(cartOf(PRODUCT_A, PRODUCT_C));
+
+        assertThat(candidates.stream()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void shouldUpdateSlotsWithoutRebuilding() {
+        Promotion onA = targeting(Set.of(new Sku("SKU-A")), Set.of());
+        Promotion onBooks = targeting(Set.of(), Set.of("books"));
+        PromotionIndex index = new PromotionIndex(List.of(onA, onBooks));
+
+        PromotionIndex updated = index
+            .with(0, onA, targeting(Set.of(new Sku("SKU-C")), Set.of()))
+            .with(1, onBooks, null)
+            .with(2, null, targeting(Set.of(), Set.of()));
+
+        assertThat(updated.candidatesFor(cartOf(PRODUCT_A)).stream()).containsExactly(2);
+        assertThat(updated.candidatesFor(cartOf(PRODUCT_C)).stream()).containsExactly(0, 2);
+        assertThat(updated.size()).isEqualTo(3);
+        // The original index is unchanged
+        assertThat(index.candidatesFor(cartOf(PRODUCT_A, PRODUCT_C)).stream()).containsExactly(0, 1);
+    }
+
+    @Test
+    void shouldCopyOnlyChunksHoldingChangedTargets() {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            promotions.add(targeting(Set.of(new Sku("SKU-" + i)), Set.of()));
+        }
+        PromotionIndex index = new PromotionIndex(promotions);
+
+        PromotionIndex updated = index.with(1_000, null, targeting(Set.of(new Sku("SKU-NEW")), Set.of()));
+
+        int copied = 0;
+        for (int chunk = 0; chunk < updated.bySku().chunkCount(); chunk++) {
+            if (!updated.bySku().sharesChunk(index.bySku(), chunk)) {
+                copied++;
+            }
+        }
+        assertThat(copied).isEqualTo(1);
+    }
+
+    private static Promotion targeting(Set<Sku> skus, Set<String> categories) {
+        return new StubPromotion(new PromotionId("PROMO"), true, List.of(), skus, categories);
+    }
+
+    private static CartAnalysis cartOf(Product... products) {
+        return CartAnalysis.of(new Cart(List.of(products).stream()
+            .map(product -> new LineItem(product, new Quantity(1), Money.euros("10.00")))
+            .toList()));
+    }
+}
@@ -0,0 +1,125 @@
+// ABOUTME: Unit tests for ValidityIndex.
+// ABOUTME: Verifies stabbing queries, window boundaries, and the cached active set.
+package com.promoengine.engine;
+
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.ValidityWindow;
+import com.promoengine.promotions.Promotion;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ValidityIndexTest {
+
+    private static final Instant JAN_1 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant JAN_10 = Instant.parse("2026-01-10T00:00:00Z");
+    private static final Instant FEB_1 = Instant.parse("2026-02-01T00:00:00Z");
+
+    @Test
+    void shouldAlwaysIncludeUnboundedPromotions() {
+        ValidityIndex index = new ValidityIndex(List.of(valid(ValidityWindow.ALWAYS)));
+
+        assertThat(index.activeAt(JAN_1).stream()).containsExactly(0);
+    }
+
+    @Test
+    void shouldRespectWindowBoundaries() {
+        ValidityIndex index = new ValidityIndex(List.of(valid(ValidityWindow.between(JAN_1, FEB_1))));
+
+        assertThat(index.activeAt(JAN_1.minusNanos(1)).stream()).isEmpty();
+        assertThat(index.activeAt(JAN_1).stream()).containsExactly(0);
+        assertThat(index.activeAt(JAN_10).stream()).containsExactly(0);
+        assertThat(index.activeAt(FEB_1).stream()).isEmpty();
+    }
+
+    @Test
+    void shouldHandleOverlappingAndHalfOpenWindows() {
+        ValidityIndex index = new ValidityIndex(List.of(
+            valid(ValidityWindow.between(JAN_1, FEB_1)),
+            valid(ValidityWindow.from(JAN_10)),
+            valid(ValidityWindow.until(JAN_10)),
+            valid(ValidityWindow.ALWAYS)
+        ));
+
+        assertThat(index.activeAt(JAN_1).stream()).containsExactly(0, 2, 3);
+        assertThat(index.activeAt(JAN_10).stream()).containsExactly(0, 1, 3);
+        assertThat(index.activeAt(FEB_1).stream()).containsExactly(1, 3);
+    }
+
+    @Test
+    void shouldReuseActiveSetWithinTheSameSegment() {
+        ValidityIndex index = new ValidityIndex(List.of(valid(ValidityWindow.between(JAN_1, FEB_1))));
+
+        assertThat(index.activeAt(JAN_10)).isSameAs(index.activeAt(JAN_10.plusSeconds(60)));
+        assertThat(index.activeAt(FEB_1)).isNotSameAs(index.activeAt(JAN_10));
+    }
+
+    @Test
+    void shouldMatchLinearScanForManyShortWindows() {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Instant start = JAN_1.plus(Duration.ofMinutes(30L * i));
+            promotions.add(valid(ValidityWindow.between(start, start.plus(Duration.ofMinutes(20 + i % 25)))));
+        }
+        ValidityIndex index = new ValidityIndex(promotions);
+
+        for (int minute = -60; minute < 2_000 * 30 + 60; minute += 7) {
+            Instant now = JAN_1.plus(Duration.ofMinutes(minute));
+            List<Integer> expected = new ArrayList<>();
+            for (int position = 0; position < promotions.size(); position++) {
+                if (promotions.get(position).validity().contains(now)) {
+                    expected.add(position);
+                }
+            }
+            assertThat(index.activeAt(now).stream().boxed().toList()).as("at %s", now).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldMatchFullRebuildAfterSlotChanges() {
+        List<Promotion> promotions = new ArrayList<>(List.of(
+            valid(ValidityWindow.between(JAN_1, FEB_1)),
+            valid(ValidityWindow.ALWAYS),
+            valid(ValidityWindow.from(JAN_10))
+        ));
+        ValidityIndex index = new ValidityIndex(promotions);
+
+        // Bounded to unbounded, removal, and an appended bounded slot
+        index = index.with(0, promotions.get(0).validity(), ValidityWindow.ALWAYS);
+        promotions.set(0, valid(ValidityWindow.ALWAYS));
+        index = index.with(2, promotions.get(2).validity(), null);
+        promotions.set(2, null);
+        index = index.with(3, null, ValidityWindow.until(JAN_10));
+        promotions.add(valid(ValidityWindow.until(JAN_10)));
+
+        ValidityIndex rebuilt = new ValidityIndex(promotions);
+        for (Instant now : List.of(JAN_1.minusSeconds(1), JAN_1, JAN_10, FEB_1)) {
+            assertThat(index.activeAt(now)).as("at %s", now).isEqualTo(rebuilt.activeAt(now));
+        }
+        assertThat(index.activeAt(JAN_1).stream()).containsExactly(0, 1, 3);
+    }
+
+    @Test
+    void shouldKeepCachedSegmentWhenWindowIsUnchanged() {
+        ValidityIndex index = new ValidityIndex(List.of(valid(ValidityWindow.between(JAN_1, FEB_1))));
+
+        ValidityIndex updated = index.with(0, ValidityWindow.between(JAN_1, FEB_1), ValidityWindow.between(JAN_1, FEB_1));
+
+        assertThat(updated).isSameAs(index);
+    }
+
+    private static Promotion valid(ValidityWindow window) {
+        return new StubPromotion(new PromotionId("PROMO"), true, List.of()) {
+            @Override
+            public ValidityWindow validity() {
+                return window;
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+// ABOUTME: Unit tests for CsvCartReader.
+// ABOUTME: Verifies grouping of rows into carts, contexts, quoting, headers and errors with line numbers.
+package com.promoengine.io;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.PricingContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CsvCartReaderTest {
+
+    @Test
+    void shouldGroupConsecutiveRowsIntoCarts() throws IOException {
+        CsvCartReader reader = reader(CsvCartReader.HEADER + "\n"
+            + "C1,2025-12-18T10:00:00Z,online,CUST001,gold|regular,SKU-A,Phone,electronics,1,299.99\n"
+            + "C1,2025-12-18T10:00:00Z,online,CUST001,gold|regular,SKU-B,Cable,electronics,3,9.99\n"
+            + "\n"
+            + "C2,2025-12-19T08:30:00Z,store,CUST002,,SKU-C,Shirt,clothing,2,20.00\n");
+
+        CartRecord first = reader.next();
+        CartRecord second = reader.next();
+
+        assertThat(first.id()).isEqualTo("C1");
+        assertThat(first.request().cart().lines()).hasSize(2);
+        assertThat(first.request().cart().subtotal()).isEqualTo(Money.euros("329.96"));
+        PricingContext context = first.request().context();
+        assertThat(context.now()).isEqualTo(Instant.parse("2025-12-18T10:00:00Z"));
+        assertThat(context.channel()).isEqualTo("online");
+        assertThat(context.customerId()).isEqualTo("CUST001");
+        assertThat(context.customerTags()).containsExactlyInAnyOrder("gold", "regular");
+        assertThat(second.id()).isEqualTo("C2");
+        assertThat(second.request().context().customerTags()).isEmpty();
+        assertThat(second.request().cart().lines().get(0).product())
+            .isEqualTo(new Product(new Sku("SKU-C"), "Shirt", "clothing"));
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void shouldReadQuotedFields() throws IOException {
+        CsvCartReader reader = reader(
+            "C1,2025-12-18T10:00:00Z,online,CUST001,,SKU-A,\"Phone, 6\"\" screen\",electronics,1,299.99\n");
+
+        assertThat(reader.next().request().cart().lines().get(0).product().name()).isEqualTo("Phone, 6\" screen");
+    }
+
+    @Test
+    void shouldReadFeedWithoutHeader() throws IOException {
+        CsvCartReader reader = reader("C1,2025-12-18T10:00:00Z,online,CUST001,,SKU-A,Phone,electronics,1,1.00");
+
+        assertThat(reader.next().id()).isEqualTo("C1");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void shouldReportLineOfMalformedRow() {
+        CsvCartReader reader = reader(CsvCartReader.HEADER + "\n"
+            + "C1,2025-12-18T10:00:00Z,online,CUST001,,SKU-A,Phone,electronics,1,1.00\n"
+            + "C1,2025-12-18T10:00:00Z,online,CUST001,,SKU-B,Cable,electronics,many,1.00\n");
+
+        assertThatThrownBy(reader::next)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Malformed cart row at line 3");
+    }
+
+    @Test
+    void shouldRejectRowsWithWrongNumberOfFields() {
+        assertThatThrownBy(() -> reader("C1,2025-12-18T10:00:00Z,online\n").next())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("expected 10 fields");
+        assertThatThrownBy(() -> reader("C1,2025-12-18T10:00:00Z,online,CUST001,,SKU-A,Phone,electronics,1,1.00,x\n").next())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("expected 10 fields");
+    }
+
+    @Test
+    void shouldRejectInvalidTimestamp() {
+        assertThatThrownBy(() -> reader("C1,yesterday,online,CUST001,,SKU-A,Phone,electronics,1,1.00\n").next())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Malformed cart row at line 1");
+    }
+
+    private static CsvCartReader reader(String csv) {
+        return new CsvCartReader(new StringReader(csv));
+    }
+}
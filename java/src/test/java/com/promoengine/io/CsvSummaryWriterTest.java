@@ -0,0 +1,50 @@
+// ABOUTME: Unit tests for CsvSummaryWriter.
+// ABOUTME: Verifies the header, amounts, catalog version and the list of applied promotions.
+package com.promoengine.io;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PriceSummary;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CsvSummaryWriterTest {
+
+    @Test
+    void shouldWriteOneRowPerCartAfterHeader() throws IOException {
+        PromotionId a = new PromotionId("PROMO-A");
+        PromotionId b = new PromotionId("PROMO-B");
+        PriceSummary discounted = new PriceSummary(Money.euros("30.00"), Money.euros("4.50"), Money.euros("25.50"),
+            List.of(
+                new AppliedDiscount(a, Money.euros("1.50"), "line", "A on 1"),
+                new AppliedDiscount(a, Money.euros("1.00"), "line", "A on 2"),
+                new AppliedDiscount(b, Money.euros("2.00"), "cart", "B")),
+            7);
+        PriceSummary plain = new PriceSummary(Money.euros("5.00"), Money.ZERO, Money.euros("5.00"), List.of(), 7);
+        StringWriter out = new StringWriter();
+
+        try (CsvSummaryWriter writer = new CsvSummaryWriter(out)) {
+            writer.write(new PricedCart("C1", discounted));
+            writer.write(new PricedCart("C,2", plain));
+        }
+
+        assertThat(out.toString()).isEqualTo(CsvSummaryWriter.HEADER + "\n"
+            + "C1,30.00,4.50,25.50,7,PROMO-A|PROMO-B\n"
+            + "\"C,2\",5.00,0.00,5.00,7,\n");
+    }
+
+    @Test
+    void shouldWriteNothingForEmptyFeed() throws IOException {
+        StringWriter out = new StringWriter();
+
+        new CsvSummaryWriter(out).flush();
+
+        assertThat(out.toString()).isEmpty();
+    }
+}
@@ -0,0 +1,187 @@
+// ABOUTME: Tests for StreamingPricer.
+// ABOUTME: Verifies results match direct pricing in input order, back-pressure bounds, and failure propagation.
+package com.promoengine.io;
+
+import com.promoengine.domain.*;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class StreamingPricerTest {
+
+    private static final PricingContext CONTEXT =
+        new PricingContext(Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST001", Set.of());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final PromotionEngine engine = new PromotionEngine(List.of(new StubPromotion(
+        new PromotionId("PROMO-1"), true,
+        List.of(new AppliedDiscount(new PromotionId("PROMO-1"), Money.euros("1.00"), "cart", "One off")))));
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldPriceEveryCartInInputOrder() throws IOException {
+        ListReader reader = new ListReader(1000, -1);
+        ListWriter writer = new ListWriter();
+
+        StreamingReport report = new StreamingPricer(engine, executor, 7, 3).run(reader, writer);
+
+        assertThat(report.carts()).isEqualTo(1000);
+        assertThat(report.lines()).isEqualTo(3000);
+        assertThat(writer.written).extracting(PricedCart::id)
+            .containsExactlyElementsOf(reader.ids());
+        for (int i = 0; i < 1000; i++) {
+            CartRecord record = reader.records.get(i);
+            assertThat(writer.written.get(i).summary())
+                .isEqualTo(engine.price(record.request().cart(), record.request().context()));
+        }
+        assertThat(writer.flushes).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBoundCartsReadAheadOfTheWriter() throws IOException {
+        ListReader reader = new ListReader(500, -1);
+        int batchSize = 5;
+        int inFlight = 2;
+        ListWriter writer = new ListWriter() {
+            @Override
+            public void write(PricedCart pricedCart) throws IOException {
+                super.write(pricedCart);
+                // Batches queued, the one being written and the one the reader is assembling
+                assertThat(reader.read.get() - written.size()).isLessThanOrEqualTo((inFlight + 2) * batchSize);
+            }
+        };
+
+        new StreamingPricer(engine, executor, batchSize, inFlight).run(reader, writer);
+
+        assertThat(writer.written).hasSize(500);
+    }
+
+    @Test
+    void shouldRethrowReadFailureAfterWritingWhatWasRead() {
+        ListReader reader = new ListReader(100, 50);
+        ListWriter writer = new ListWriter();
+
+        assertThatThrownBy(() -> new StreamingPricer(engine, executor, 10, 2).run(reader, writer))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("disk gone");
+        assertThat(writer.written).hasSize(50);
+    }
+
+    @Test
+    void shouldStopReadingWhenWriterFails() {
+        ListReader reader = new ListReader(100_000, -1);
+        ListWriter writer = new ListWriter() {
+            @Override
+            public void write(PricedCart pricedCart) throws IOException {
+                throw new IOException("sink full");
+            }
+        };
+
+        assertThatThrownBy(() -> new StreamingPricer(engine, executor, 10, 2).run(reader, writer))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("sink full");
+        assertThat(reader.read.get()).isLessThan(100_000);
+        assertThat(writer.flushes).isZero();
+    }
+
+    @Test
+    void shouldRethrowPricingFailure() {
+        PromotionEngine failing = new PromotionEngine(List.of(new StubPromotion(new PromotionId("PROMO-BAD"), true, List.of()) {
+            @Override
+            public boolean isApplicable(Cart cart, PricingContext context) {
+                throw new IllegalStateException("promotion broke");
+            }
+        }));
+
+        assertThatThrownBy(() -> new StreamingPricer(failing, executor, 10, 2).run(new ListReader(30, -1), new ListWriter()))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("promotion broke");
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new StreamingPricer(engine, executor, 0, 2))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StreamingPricer(engine, executor, 10, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StreamingPricer(null, executor))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static class ListReader implements CartReader {
+
+        final List<CartRecord> records = new ArrayList<>();
+        final AtomicInteger read = new AtomicInteger();
+        private final int failAt;
+
+        ListReader(int carts, int failAt) {
+            this.failAt = failAt;
+            for (int i = 0; i < carts; i++) {
+                List<LineItem> lines = new ArrayList<>();
+                for (int j = 0; j < 3; j++) {
+                    Product product = new Product(new Sku("SKU-" + (i + j) % 17), "Product", "category-" + j);
+                    lines.add(new LineItem(product, new Quantity(1 + j), Money.cents(100 + i)));
+                }
+                records.add(new CartRecord("C" + i, new PricingRequest(new Cart(lines), CONTEXT)));
+            }
+        }
+
+        List<String> ids() {
+            return records.stream().map(CartRecord::id).toList();
+        }
+
+        @Override
+        public CartRecord next() throws IOException {
+            int index = read.get();
+            if (index == failAt) {
+                throw new IOException("disk gone");
+            }
+            if (index == records.size()) {
+                return null;
+            }
+            read.incrementAndGet();
+            return records.get(index);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class ListWriter implements SummaryWriter {
+
+        final List<PricedCart> written = new ArrayList<>();
+        int flushes;
+
+        @Override
+        public void write(PricedCart pricedCart) throws IOException {
+            written.add(pricedCart);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
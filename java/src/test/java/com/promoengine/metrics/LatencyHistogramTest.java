@@ -0,0 +1,106 @@
+// ABOUTME: Tests for LatencyHistogram and HistogramSnapshot.
+// ABOUTME: Verifies bucket precision, percentiles, bucket export and counting under concurrent recording.
+package com.promoengine.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldCountSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 64; value++) {
+            histogram.record(value);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count()).isEqualTo(64);
+        assertThat(snapshot.valueAtPercentile(50)).isEqualTo(31);
+        assertThat(snapshot.buckets()).hasSize(64).allMatch(bucket -> bucket.lowest() == bucket.highest());
+    }
+
+    @Test
+    void shouldPlaceEveryValueInABucketWithinThreePercent() {
+        long[] values = {64, 65, 127, 128, 1_000, 4_095, 4_096, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int octave = LatencyHistogram.octaveOf(value);
+            int bucket = LatencyHistogram.bucketOf(value, octave);
+            long lowest = LatencyHistogram.lowestValue(octave, bucket);
+            long highest = LatencyHistogram.highestValue(octave, bucket);
+
+            assertThat(bucket).isBetween(0, LatencyHistogram.bucketsIn(octave) - 1);
+            assertThat(value).isBetween(lowest, highest);
+            assertThat((double) (highest - lowest)).isLessThanOrEqualTo(lowest * 0.032);
+        }
+    }
+
+    @Test
+    void shouldReportPercentilesAndStatistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count()).isEqualTo(10_000);
+        assertThat(snapshot.max()).isEqualTo(10_000_000);
+        assertThat(snapshot.mean()).isEqualTo(5_000_500.0);
+        assertThat(snapshot.valueAtPercentile(50)).isBetween(5_000_000L, 5_160_000L);
+        assertThat(snapshot.valueAtPercentile(99)).isBetween(9_900_000L, 10_000_000L);
+        assertThat(snapshot.valueAtPercentile(100)).isEqualTo(10_000_000);
+        assertThat(snapshot.buckets().stream().mapToLong(HistogramSnapshot.Bucket::count).sum()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldReportZeroForEmptyHistograms() {
+        HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.count()).isZero();
+        assertThat(snapshot.valueAtPercentile(99)).isZero();
+        assertThat(snapshot.mean()).isZero();
+        assertThat(snapshot.buckets()).isEmpty();
+        assertThatThrownBy(() -> snapshot.valueAtPercentile(101))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldCountEveryValueRecordedConcurrently() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(100 + (i & 1023));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(histogram.snapshot().count()).isEqualTo((long) threads * perThread);
+    }
+}
@@ -0,0 +1,158 @@
+// ABOUTME: Tests for PromotionMetrics attached to a PromotionEngine.
+// ABOUTME: Verifies evaluation counts, hit rates, discount totals, latency recording and the no-op default.
+package com.promoengine.metrics;
+
+import com.promoengine.domain.*;
+import com.promoengine.engine.PromotionEngine;
+import com.promoengine.engine.StackingPolicy;
+import com.promoengine.pricing.*;
+import com.promoengine.promotions.StubPromotion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionMetricsTest {
+
+    private static final PromotionId PROMO_1 = new PromotionId("PROMO-1");
+    private static final PromotionId PROMO_2 = new PromotionId("PROMO-2");
+
+    private PricingContext context;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST001", Set.of("regular"));
+        cart = new Cart(List.of(new LineItem(
+            new Product(new Sku("SKU-A"), "Product A", "electronics"), new Quantity(1), Money.euros("50.00"))));
+    }
+
+    @Test
+    void shouldRecordDiscountsBeyondLongCents() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        Money huge = Money.euros("100000000000000000000.00");
+        AppliedDiscount first = new AppliedDiscount(PROMO_1, huge, "cart", "huge");
+        AppliedDiscount second = new AppliedDiscount(PROMO_1, Money.euros("1.50"), "cart", "small");
+        Money total = huge.add(Money.euros("1.50"));
+
+        metrics.cartPriced(new PriceSummary(total.add(total), total, total, List.of(first, second)), 1_000);
+        metrics.cartPriced(new PriceSummary(Money.euros("10.00"), Money.euros("2.00"), Money.euros("8.00"),
+            List.of(new AppliedDiscount(PROMO_1, Money.euros("2.00"), "cart", "small"))), 1_000);
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(huge.isCompact()).isFalse();
+        assertThat(snapshot.discountTotal()).isEqualTo(total.add(Money.euros("2.00")));
+        assertThat(snapshot.promotion(PROMO_1).orElseThrow().discountTotal()).isEqualTo(total.add(Money.euros("2.00")));
+    }
+
+    @Test
+    void shouldNotInstrumentByDefault() {
+        PromotionEngine engine = new PromotionEngine(List.of(promotion(PROMO_1, true, "5.00")));
+
+        assertThat(engine.instrumentation()).isSameAs(EngineInstrumentation.NOOP);
+        assertThat(engine.price(cart, context).discountTotal()).isEqualTo(Money.euros("5.00"));
+    }
+
+    @Test
+    void shouldCountEvaluationsHitsAndDiscounts() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        PromotionEngine engine = new PromotionEngine(List.of(
+            promotion(PROMO_1, true, "5.00"), promotion(PROMO_2, false, "3.00")))
+            .withInstrumentation(metrics);
+
+        for (int i = 0; i < 3; i++) {
+            engine.price(cart, context);
+        }
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.cartsPriced()).isEqualTo(3);
+        assertThat(snapshot.discountTotal()).isEqualTo(Money.euros("15.00"));
+        PromotionMetricsSnapshot applied = snapshot.promotion(PROMO_1).orElseThrow();
+        assertThat(applied.evaluations()).isEqualTo(3);
+        assertThat(applied.hitRate()).isEqualTo(1.0);
+        assertThat(applied.selected()).isEqualTo(3);
+        assertThat(applied.discountTotal()).isEqualTo(Money.euros("15.00"));
+        assertThat(applied.applicabilityLatency().count()).isEqualTo(3);
+        assertThat(applied.applyLatency().count()).isEqualTo(3);
+        PromotionMetricsSnapshot skipped = snapshot.promotion(PROMO_2).orElseThrow();
+        assertThat(skipped.evaluations()).isEqualTo(3);
+        assertThat(skipped.hitRate()).isZero();
+        assertThat(skipped.discountTotal()).isEqualTo(Money.ZERO);
+        assertThat(skipped.applyLatency().count()).isZero();
+    }
+
+    @Test
+    void shouldCountOnlySelectedDiscountsUnderExclusivePolicies() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        PromotionEngine engine = new PromotionEngine(
+            List.of(promotion(PROMO_1, true, "5.00"), promotion(PROMO_2, true, "3.00")),
+            StackingPolicy.EXCLUSIVE_BEST_FOR_CUSTOMER)
+            .withInstrumentation(metrics);
+
+        engine.price(cart, context);
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.promotion(PROMO_2).orElseThrow().hitRate()).isEqualTo(1.0);
+        assertThat(snapshot.promotion(PROMO_2).orElseThrow().selected()).isZero();
+        assertThat(snapshot.promotion(PROMO_1).orElseThrow().discountTotal()).isEqualTo(Money.euros("5.00"));
+    }
+
+    @Test
+    void shouldRecordEveryCartOfABatchAndKeepTracing() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        PromotionEngine engine = new PromotionEngine(List.of(promotion(PROMO_1, true, "5.00")))
+            .withInstrumentation(metrics)
+            .withTracing(TraceLevel.ALWAYS, 0.0);
+        List<PricingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(new PricingRequest(cart, context));
+        }
+
+        List<PriceSummary> summaries = engine.priceAll(requests);
+
+        assertThat(summaries).allMatch(PriceSummary::isTraced);
+        assertThat(engine.instrumentation()).isSameAs(metrics);
+        assertThat(metrics.snapshot().cartsPriced()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRecordTimeSpentInSlowPromotions() {
+        PromotionMetrics metrics = new PromotionMetrics();
+        StubPromotion slow = new StubPromotion(PROMO_1, true, List.of()) {
+            @Override
+            public boolean isApplicable(Cart cart, PricingContext context) {
+                long until = System.nanoTime() + 2_000_000;
+                while (System.nanoTime() < until) {
+                    Thread.onSpinWait();
+                }
+                return true;
+            }
+        };
+        PromotionEngine engine = new PromotionEngine(List.of(slow, promotion(PROMO_2, true, "3.00")))
+            .withInstrumentation(metrics);
+
+        engine.price(cart, context);
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.promotion(PROMO_1).orElseThrow().applicabilityLatency().max()).isGreaterThanOrEqualTo(2_000_000);
+        assertThat(snapshot.pricingLatency().max()).isGreaterThanOrEqualTo(2_000_000);
+        assertThat(snapshot.mostExpensive(1)).extracting(PromotionMetricsSnapshot::promotionId).containsExactly(PROMO_1);
+    }
+
+    @Test
+    void shouldRejectNullInstrumentation() {
+        PromotionEngine engine = new PromotionEngine(List.of());
+
+        assertThatThrownBy(() -> engine.withInstrumentation(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static StubPromotion promotion(PromotionId id, boolean applies, String amount) {
+        return new StubPromotion(id, applies, List.of(new AppliedDiscount(id, Money.euros(amount), "cart", id.value())));
+    }
+}
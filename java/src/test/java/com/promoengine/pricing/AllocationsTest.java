@@ -0,0 +1,144 @@
+// ABOUTME: Unit tests for Allocations.
+// ABOUTME: Verifies the primitive accessors, the Map view, merging of repeated SKUs and lookups in large maps.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Sku;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AllocationsTest {
+
+    private static final Sku SKU_A = new Sku("SKU-A");
+    private static final Sku SKU_B = new Sku("SKU-B");
+
+    @Test
+    void shouldReadAllocationsAsCents() {
+        Allocations allocations = Allocations.builder(2).add(SKU_A, 150).add(SKU_B, Money.euros("2.50")).build();
+
+        assertThat(allocations.size()).isEqualTo(2);
+        assertThat(allocations.sku(0)).isEqualTo(SKU_A);
+        assertThat(allocations.centsAt(1)).isEqualTo(250);
+        assertThat(allocations.centsOf(SKU_B)).isEqualTo(250);
+        assertThat(allocations.centsOf(new Sku("SKU-Z"))).isZero();
+        assertThat(allocations.totalCents()).isEqualTo(400);
+    }
+
+    @Test
+    void shouldBeViewableAsMap() {
+        Allocations allocations = Allocations.builder(2).add(SKU_A, 150).add(SKU_B, 250).build();
+
+        assertThat(allocations.get(SKU_A)).isEqualTo(Money.euros("1.50"));
+        assertThat(allocations.get("SKU-A")).isNull();
+        assertThat(allocations).containsExactly(entry(SKU_A, Money.euros("1.50")), entry(SKU_B, Money.euros("2.50")));
+        assertThat(allocations).isEqualTo(Map.of(SKU_A, Money.euros("1.50"), SKU_B, Money.euros("2.50")));
+        assertThat(allocations.hashCode())
+            .isEqualTo(Map.of(SKU_A, Money.euros("1.50"), SKU_B, Money.euros("2.50")).hashCode());
+    }
+
+    @Test
+    void shouldAddUpRepeatedSkus() {
+        Allocations allocations = Allocations.builder(0).add(SKU_A, 100).add(SKU_B, 10).add(SKU_A, 50).build();
+
+        assertThat(allocations.size()).isEqualTo(2);
+        assertThat(allocations.centsOf(SKU_A)).isEqualTo(150);
+    }
+
+    @Test
+    void shouldLookUpEveryEntryOfLargeAllocations() {
+        Allocations.Builder builder = Allocations.builder(4);
+        Map<Sku, Money> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            Sku sku = new Sku("SKU-" + i);
+            builder.add(sku, i);
+            expected.put(sku, Money.cents(i));
+        }
+        builder.add(new Sku("SKU-7"), 1);
+        expected.put(new Sku("SKU-7"), Money.cents(8));
+
+        Allocations allocations = builder.build();
+
+        assertThat(allocations).containsExactlyEntriesOf(expected);
+        for (Map.Entry<Sku, Money> entry : expected.entrySet()) {
+            assertThat(allocations.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        assertThat(allocations.containsKey(new Sku("SKU-300"))).isFalse();
+    }
+
+    @Test
+    void shouldKeepAmountsBeyondLongCentsAsMoney() {
+        Money huge = Money.euros("100000000000000000000.00");
+        Allocations allocations = Allocations.builder(2)
+            .add(SKU_A, huge)
+            .add(SKU_B, Long.MAX_VALUE)
+            .add(SKU_B, 1)
+            .add(SKU_A, Money.euros("0.50"))
+            .build();
+
+        assertThat(allocations.get(SKU_A)).isEqualTo(huge.add(Money.euros("0.50")));
+        assertThat(allocations.get(SKU_B)).isEqualTo(Money.cents(Long.MAX_VALUE).add(Money.cents(1)));
+        assertThat(allocations).containsExactly(
+            entry(SKU_A, huge.add(Money.euros("0.50"))), entry(SKU_B, Money.cents(Long.MAX_VALUE).add(Money.cents(1))));
+        assertThatThrownBy(() -> allocations.centsOf(SKU_A)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> allocations.centsAt(1)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldReturnToCentsWhenLargeSumComesBackInRange() {
+        Allocations allocations = Allocations.builder(1)
+            .add(SKU_A, Money.euros("100000000000000000000.00"))
+            .add(SKU_A, Money.euros("-99999999999999999999.00"))
+            .build();
+
+        assertThat(allocations.centsOf(SKU_A)).isEqualTo(100);
+        assertThat(allocations.totalCents()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldNotChangeWhenBuilderIsReused() {
+        Allocations.Builder builder = Allocations.builder(1).add(SKU_A, 100);
+        Allocations first = builder.build();
+
+        builder.add(SKU_A, 1).add(SKU_B, 1);
+
+        assertThat(first).containsExactly(entry(SKU_A, Money.cents(100)));
+    }
+
+    @Test
+    void shouldBeImmutable() {
+        Allocations allocations = Allocations.of(SKU_A, Money.euros("1.00"));
+
+        assertThatThrownBy(() -> allocations.put(SKU_B, Money.ZERO))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> allocations.entrySet().iterator().next().setValue(Money.ZERO))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldCopyMapsOnlyWhenNotAlreadyCompact() {
+        Allocations allocations = Allocations.of(SKU_A, Money.euros("1.00"));
+        Map<Sku, Money> map = new HashMap<>(Map.of(SKU_A, Money.euros("1.00")));
+
+        assertThat(Allocations.copyOf(allocations)).isSameAs(allocations);
+        assertThat(Allocations.copyOf(map)).isEqualTo(allocations);
+        assertThat(Allocations.copyOf(Map.of())).isSameAs(Allocations.EMPTY);
+    }
+
+    @Test
+    void shouldRejectNullEntries() {
+        Map<Sku, Money> withNullAmount = new HashMap<>();
+        withNullAmount.put(SKU_A, null);
+
+        assertThatThrownBy(() -> Allocations.copyOf(withNullAmount))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Allocation amount cannot be null");
+        assertThatThrownBy(() -> Allocations.builder(1).add(null, 1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Allocation SKU cannot be null");
+    }
+}
@@ -38,6 +38,16 @@ class AppliedDiscountTest {
         assertThat(discount.allocations().get(new Sku("SKU-A"))).isEqualTo(Money.euros("5.00"));
     }
 
+    @Test
+    void shouldAcceptAllocationsBeyondLongCents() {
+        Money huge = Money.euros("100000000000000000000.00");
+        Map<Sku, Money> allocations = Map.of(new Sku("SKU-A"), huge);
+
+        AppliedDiscount discount = new AppliedDiscount(new PromotionId("PROMO-123"), huge, "cart", "Huge", allocations);
+
+        assertThat(discount.allocations()).isEqualTo(allocations);
+    }
+
     @Test
     void shouldConstructWithoutAllocations() {
         PromotionId promotionId = new PromotionId("PROMO-123");
@@ -73,6 +83,22 @@ class AppliedDiscountTest {
         assertThat(discount.allocations()).isEmpty();
     }
 
+    @Test
+    void shouldKeepCompactAllocationsWithoutCopying() {
+        Allocations allocations = Allocations.of(new Sku("SKU-A"), Money.euros("10.00"));
+
+        AppliedDiscount discount = new AppliedDiscount(
+            new PromotionId("PROMO-123"),
+            Money.euros("10.00"),
+            "line",
+            "Test discount",
+            allocations
+        );
+
+        assertThat(discount.allocations()).isSameAs(allocations);
+        assertThat(discount.compactAllocations().centsOf(new Sku("SKU-A"))).isEqualTo(1000);
+    }
+
     @Test
     void shouldRejectNullPromotionId() {
         assertThatThrownBy(() -> new AppliedDiscount(
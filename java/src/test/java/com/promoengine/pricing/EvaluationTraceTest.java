@@ -0,0 +1,83 @@
+// ABOUTME: Unit tests for TraceBuffer and EvaluationTrace.
+// ABOUTME: Verifies recording, buffer reuse, and lazy rendering of promotion decisions.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.PromotionId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class EvaluationTraceTest {
+
+    private static final PromotionId PROMO_1 = new PromotionId("PROMO-1");
+    private static final PromotionId PROMO_2 = new PromotionId("PROMO-2");
+
+    @Test
+    void shouldRenderAppliedDecisionsFromDiscountDetails() {
+        TraceBuffer buffer = new TraceBuffer();
+        buffer.record(PROMO_1, DecisionReason.APPLIED, 200);
+        AppliedDiscount discount = new AppliedDiscount(PROMO_1, Money.euros("2.00"), "line", "10% off SKU-A");
+
+        EvaluationTrace trace = buffer.freeze(List.of(discount), 0);
+
+        assertThat(trace.decisions()).containsExactly(
+            new PromotionDecision(PROMO_1, true, "Applied: 10% off SKU-A", Money.euros("2.00")));
+    }
+
+    @Test
+    void shouldRenderSkippedDecisionsWithoutComputedDiscount() {
+        TraceBuffer buffer = new TraceBuffer();
+        buffer.record(PROMO_1, DecisionReason.CUSTOMER_NOT_ELIGIBLE, 0);
+        buffer.record(PROMO_2, DecisionReason.OUTSIDE_VALIDITY_WINDOW, 0);
+
+        EvaluationTrace trace = buffer.freeze(List.of(), 3);
+
+        assertThat(trace.decisions()).containsExactly(
+            new PromotionDecision(PROMO_1, false, "Skipped: customer not eligible", null),
+            new PromotionDecision(PROMO_2, false, "Skipped: outside validity window", null));
+        assertThat(trace.notTargeted()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldKeepComputedDiscountOfPromotionsNotSelected() {
+        TraceBuffer buffer = new TraceBuffer();
+        int decision = buffer.record(PROMO_1, DecisionReason.APPLIED, 500);
+        buffer.update(decision, DecisionReason.NOT_SELECTED);
+
+        PromotionDecision rendered = buffer.freeze(List.of(), 0).decisionFor(PROMO_1).orElseThrow();
+
+        assertThat(rendered.applicable()).isFalse();
+        assertThat(rendered.computedDiscount()).isEqualTo(Money.euros("5.00"));
+    }
+
+    @Test
+    void shouldGrowAndBeReusableAfterReset() {
+        TraceBuffer buffer = new TraceBuffer();
+        for (int i = 0; i < 100; i++) {
+            buffer.record(new PromotionId("PROMO-" + i), DecisionReason.CONDITIONS_NOT_MET, 0);
+        }
+        EvaluationTrace first = buffer.freeze(List.of(), 0);
+
+        buffer.reset();
+        buffer.record(PROMO_1, DecisionReason.NO_DISCOUNT, 0);
+        EvaluationTrace second = buffer.freeze(List.of(), 0);
+
+        assertThat(first.size()).isEqualTo(100);
+        assertThat(first.promotionIdAt(99)).isEqualTo(new PromotionId("PROMO-99"));
+        assertThat(second.size()).isEqualTo(1);
+        assertThat(second.reasonAt(0)).isEqualTo(DecisionReason.NO_DISCOUNT);
+    }
+
+    @Test
+    void shouldRenderDecisionsOnce() {
+        TraceBuffer buffer = new TraceBuffer();
+        buffer.record(PROMO_1, DecisionReason.CONDITIONS_NOT_MET, 0);
+        EvaluationTrace trace = buffer.freeze(List.of(), 0);
+
+        assertThat(trace.decisions()).isSameAs(trace.decisions());
+        assertThat(trace.decisionFor(PROMO_2)).isEmpty();
+    }
+}
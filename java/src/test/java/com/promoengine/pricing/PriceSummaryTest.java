@@ -94,6 +94,20 @@ class PriceSummaryTest {
             .hasMessageContaining("Applied discounts cannot be null");
     }
 
+    @Test
+    void shouldDefaultCatalogVersionToZero() {
+        PriceSummary summary = new PriceSummary(Money.euros("10.00"), Money.ZERO, Money.euros("10.00"), List.of());
+
+        assertThat(summary.catalogVersion()).isZero();
+    }
+
+    @Test
+    void shouldRejectNegativeCatalogVersion() {
+        assertThatThrownBy(() -> new PriceSummary(Money.euros("10.00"), Money.ZERO, Money.euros("10.00"), List.of(), -1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Catalog version");
+    }
+
     @Test
     void shouldBeImmutable() {
         AppliedDiscount discount = new AppliedDiscount(
@@ -41,6 +41,64 @@ class PricingContextTest {
         assertThat(context.hasTag("platinum")).isFalse();
     }
 
+    @Test
+    void shouldCheckRequiredTagMasks() {
+        PricingContext context = new PricingContext(
+            Instant.now(),
+            "online",
+            "CUST001",
+            Set.of("gold", "regular")
+        );
+
+        assertThat(context.hasAllTags(TagMask.of("gold"))).isTrue();
+        assertThat(context.hasAllTags(TagMask.of("gold", "regular"))).isTrue();
+        assertThat(context.hasAllTags(TagMask.of("gold", "platinum"))).isFalse();
+        assertThat(context.hasAllTags(TagMask.EMPTY)).isTrue();
+    }
+
+    @Test
+    void shouldNotInternCustomerTags() {
+        int interned = TagDictionary.shared().size();
+
+        PricingContext context = new PricingContext(
+            Instant.now(),
+            "online",
+            "CUST001",
+            Set.of("customer-tag-no-promotion-requires")
+        );
+
+        assertThat(context.customerTagMask()).isEqualTo(TagMask.EMPTY);
+        assertThat(TagDictionary.shared().size()).isEqualTo(interned);
+    }
+
+    @Test
+    void shouldMatchTagsInternedAfterContextWasCreated() {
+        PricingContext context = new PricingContext(
+            Instant.now(),
+            "online",
+            "CUST001",
+            Set.of("tag-interned-later")
+        );
+
+        TagMask required = TagMask.of("tag-interned-later");
+
+        assertThat(context.hasAllTags(required)).isTrue();
+        assertThat(context.customerTagMask()).isEqualTo(required);
+    }
+
+    @Test
+    void shouldBeEqualWhenFieldsAreEqual() {
+        Instant now = Instant.now();
+        PricingContext context = new PricingContext(now, "online", "CUST001", Set.of("late-tag"));
+        PricingContext beforeInterning = new PricingContext(now, "online", "CUST001", Set.of("late-tag"));
+        TagMask.of("late-tag");
+
+        assertThat(context.customerTagMask()).isNotEqualTo(TagMask.EMPTY);
+        assertThat(beforeInterning).isEqualTo(context);
+        assertThat(beforeInterning.hashCode()).isEqualTo(context.hashCode());
+        assertThat(context).isNotEqualTo(new PricingContext(now, "store", "CUST001", Set.of("late-tag")));
+    }
+
     @Test
     void shouldHandleEmptyCustomerTags() {
         PricingContext context = new PricingContext(
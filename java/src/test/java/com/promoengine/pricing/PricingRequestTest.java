@@ -0,0 +1,45 @@
+// ABOUTME: Unit tests for PricingRequest.
+// ABOUTME: Verifies construction and validation.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.Cart;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PricingRequestTest {
+
+    private final Cart cart = new Cart(List.of());
+    private final PricingContext context = new PricingContext(
+        Instant.parse("2025-12-18T10:00:00Z"),
+        "online",
+        "CUST001",
+        Set.of()
+    );
+
+    @Test
+    void shouldConstructWithValidFields() {
+        PricingRequest request = new PricingRequest(cart, context);
+
+        assertThat(request.cart()).isEqualTo(cart);
+        assertThat(request.context()).isEqualTo(context);
+    }
+
+    @Test
+    void shouldRejectNullCart() {
+        assertThatThrownBy(() -> new PricingRequest(null, context))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cart cannot be null");
+    }
+
+    @Test
+    void shouldRejectNullContext() {
+        assertThatThrownBy(() -> new PricingRequest(cart, null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Context cannot be null");
+    }
+}
@@ -0,0 +1,103 @@
+// ABOUTME: Unit tests for ProportionalAllocator.
+// ABOUTME: Verifies proportional shares, largest-remainder rounding to exact totals and allocation across cart lines.
+package com.promoengine.pricing;
+
+import com.promoengine.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProportionalAllocatorTest {
+
+    @Test
+    void shouldSplitInProportionToWeights() {
+        assertThat(ProportionalAllocator.split(600, new long[] {100, 200, 300})).containsExactly(100, 200, 300);
+    }
+
+    @Test
+    void shouldGiveLeftoverCentsToLargestRemainders() {
+        // Exact shares 33.33, 33.33, 33.33 for 100 cents, then 1/6, 2/6, 3/6 of 100
+        assertThat(ProportionalAllocator.split(100, new long[] {1, 1, 1})).containsExactly(34, 33, 33);
+        assertThat(ProportionalAllocator.split(100, new long[] {1, 2, 3})).containsExactly(17, 33, 50);
+    }
+
+    @Test
+    void shouldBreakTiesInTheGivenOrder() {
+        // All remainders tie; the two leftover cents go to the last shares in the order
+        long[] shares = ProportionalAllocator.split(5, new long[] {1, 1, 1}, (a, b) -> Integer.compare(b, a));
+        assertThat(shares).containsExactly(1, 2, 2);
+    }
+
+    @Test
+    void shouldAlwaysSumToTheAmount() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            long[] weights = new long[1 + random.nextInt(300)];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = random.nextInt(10) == 0 ? 0 : random.nextInt(100_000);
+            }
+            weights[0] = 1 + weights[0];
+            long amount = random.nextInt(1_000_000) - 1_000;
+
+            long[] shares = ProportionalAllocator.split(amount, weights);
+
+            assertThat(sum(shares)).isEqualTo(amount);
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] == 0) {
+                    assertThat(shares[i]).isZero();
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldSplitAmountsWhoseProductsOverflowLong() {
+        long amount = Long.MAX_VALUE / 2;
+
+        long[] shares = ProportionalAllocator.split(amount, new long[] {Long.MAX_VALUE / 4, Long.MAX_VALUE / 4});
+
+        assertThat(shares).containsExactly(amount - amount / 2, amount / 2);
+    }
+
+    @Test
+    void shouldReturnNullWhenWeightsSumToZero() {
+        assertThat(ProportionalAllocator.split(100, new long[] {0, 0})).isNull();
+        assertThat(ProportionalAllocator.split(100, new long[0])).isNull();
+    }
+
+    @Test
+    void shouldRejectNegativeWeights() {
+        assertThatThrownBy(() -> ProportionalAllocator.split(100, new long[] {1, -1}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Weights cannot be negative");
+    }
+
+    @Test
+    void shouldAllocateAcrossCartLinesByLineSubtotal() {
+        Product phone = new Product(new Sku("SKU-PHONE"), "Phone", "electronics");
+        Product cable = new Product(new Sku("SKU-CABLE"), "Cable", "electronics");
+        Product shirt = new Product(new Sku("SKU-SHIRT"), "Shirt", "clothing");
+        CartAnalysis cart = CartAnalysis.of(new Cart(List.of(
+            new LineItem(phone, new Quantity(1), Money.euros("20.00")),
+            new LineItem(cable, new Quantity(1), Money.euros("10.00")),
+            new LineItem(shirt, new Quantity(1), Money.euros("50.00")),
+            new LineItem(cable, new Quantity(1), Money.euros("10.00")))));
+
+        Allocations allocations = ProportionalAllocator.allocate(Money.euros("10.00"), cart, new int[] {0, 1, 3});
+
+        assertThat(allocations).containsExactly(
+            entry(phone.sku(), Money.euros("5.00")),
+            entry(cable.sku(), Money.euros("5.00")));
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,92 @@
+// ABOUTME: Unit tests for TagDictionary.
+// ABOUTME: Verifies stable dense ids and mask construction.
+package com.promoengine.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TagDictionaryTest {
+
+    @Test
+    void shouldAssignDenseIdsInFirstSeenOrder() {
+        TagDictionary dictionary = new TagDictionary();
+
+        assertThat(dictionary.idOf("gold")).isEqualTo(0);
+        assertThat(dictionary.idOf("new")).isEqualTo(1);
+        assertThat(dictionary.idOf("gold")).isEqualTo(0);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBuildMaskWithBitsOfAllTags() {
+        TagDictionary dictionary = new TagDictionary();
+        dictionary.idOf("gold");
+        dictionary.idOf("new");
+
+        TagMask mask = dictionary.maskOf(Set.of("new", "employee"));
+
+        assertThat(mask.contains(dictionary.idOf("new"))).isTrue();
+        assertThat(mask.contains(dictionary.idOf("employee"))).isTrue();
+        assertThat(mask.contains(dictionary.idOf("gold"))).isFalse();
+    }
+
+    @Test
+    void shouldFindTagsWithoutInterningThem() {
+        TagDictionary dictionary = new TagDictionary();
+        dictionary.idOf("gold");
+
+        assertThat(dictionary.find("gold")).isEqualTo(0);
+        assertThat(dictionary.find("new")).isEqualTo(-1);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAssignDistinctDenseIdsUnderContention() throws Exception {
+        TagDictionary dictionary = new TagDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int worker = 0; worker < 4; worker++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        dictionary.idOf("tag-" + i);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(dictionary.size()).isEqualTo(1_000);
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(dictionary.find("tag-" + i));
+        }
+        assertThat(ids).hasSize(1_000).allMatch(id -> id >= 0 && id < 1_000);
+    }
+
+    @Test
+    void shouldReturnEmptyMaskForNoTags() {
+        assertThat(new TagDictionary().maskOf(List.of())).isSameAs(TagMask.EMPTY);
+    }
+
+    @Test
+    void shouldRejectNullTag() {
+        assertThatThrownBy(() -> new TagDictionary().idOf(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Tag cannot be null");
+    }
+}
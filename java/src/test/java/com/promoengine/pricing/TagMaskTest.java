@@ -0,0 +1,63 @@
+// ABOUTME: Unit tests for TagMask.
+// ABOUTME: Verifies subset checks and set operations across word boundaries, and value equality.
+package com.promoengine.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TagMaskTest {
+
+    @Test
+    void shouldContainSubsets() {
+        TagMask customer = TagMask.ofIds(1, 5, 70, 200);
+
+        assertThat(customer.containsAll(TagMask.ofIds(5))).isTrue();
+        assertThat(customer.containsAll(TagMask.ofIds(1, 70, 200))).isTrue();
+        assertThat(customer.containsAll(TagMask.EMPTY)).isTrue();
+    }
+
+    @Test
+    void shouldNotContainMissingTags() {
+        TagMask customer = TagMask.ofIds(1, 5);
+
+        assertThat(customer.containsAll(TagMask.ofIds(1, 6))).isFalse();
+        assertThat(customer.containsAll(TagMask.ofIds(300))).isFalse();
+        assertThat(TagMask.EMPTY.containsAll(TagMask.ofIds(0))).isFalse();
+    }
+
+    @Test
+    void shouldCompareByBits() {
+        assertThat(TagMask.ofIds(3, 64)).isEqualTo(TagMask.ofIds(64, 3));
+        assertThat(TagMask.ofIds(3, 64).hashCode()).isEqualTo(TagMask.ofIds(64, 3).hashCode());
+        assertThat(TagMask.ofIds()).isEqualTo(TagMask.EMPTY);
+        assertThat(TagMask.ofIds(3)).isNotEqualTo(TagMask.ofIds(4));
+    }
+
+    @Test
+    void shouldCombineMasks() {
+        TagMask a = TagMask.ofIds(1, 70);
+        TagMask b = TagMask.ofIds(1, 5, 200);
+
+        assertThat(a.or(b)).isEqualTo(TagMask.ofIds(1, 5, 70, 200));
+        assertThat(a.and(b)).isEqualTo(TagMask.ofIds(1));
+        assertThat(TagMask.ofIds(70).and(TagMask.ofIds(1, 5))).isEqualTo(TagMask.EMPTY);
+        assertThat(a.or(TagMask.EMPTY)).isSameAs(a);
+    }
+
+    @Test
+    void shouldReportOneMoreThanHighestId() {
+        assertThat(TagMask.EMPTY.length()).isEqualTo(0);
+        assertThat(TagMask.ofIds(0).length()).isEqualTo(1);
+        assertThat(TagMask.ofIds(3, 63).length()).isEqualTo(64);
+        assertThat(TagMask.ofIds(1, 64).length()).isEqualTo(65);
+        assertThat(TagMask.ofIds(5, 200).and(TagMask.ofIds(5)).length()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldRejectNegativeIds() {
+        assertThatThrownBy(() -> TagMask.ofIds(-1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Tag id cannot be negative");
+    }
+}
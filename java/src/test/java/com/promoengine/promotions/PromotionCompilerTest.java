@@ -0,0 +1,285 @@
+// ABOUTME: Unit tests for PromotionCompiler and the promotions it produces.
+// ABOUTME: Covers each reward kind, target matching, channel metadata, and constant folding.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.*;
+import com.promoengine.pricing.AppliedDiscount;
+import com.promoengine.pricing.PricingContext;
+import com.promoengine.pricing.TagMask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionCompilerTest {
+
+    private static final PromotionId ID = new PromotionId("PROMO-1");
+
+    private final PromotionCompiler compiler = new PromotionCompiler();
+    private PricingContext context;
+    private Product productA;
+    private Product productB;
+    private Cart cart;
+
+    @BeforeEach
+    void setUp() {
+        context = new PricingContext(Instant.parse("2025-12-18T10:00:00Z"), "online", "CUST001", Set.of("regular"));
+        productA = new Product(new Sku("SKU-A"), "Product A", "electronics");
+        productB = new Product(new Sku("SKU-B"), "Product B", "books");
+        cart = new Cart(List.of(
+            new LineItem(productA, new Quantity(2), Money.euros("10.00")),
+            new LineItem(productB, new Quantity(1), Money.euros("5.00"))
+        ));
+    }
+
+    @Test
+    void shouldTakePercentageOffEachTargetedLine() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("10")))
+            .targetSkus(Set.of(productA.sku()))
+            .build());
+
+        assertThat(promotion.isApplicable(cart, context)).isTrue();
+        List<AppliedDiscount> discounts = promotion.apply(cart, context);
+
+        assertThat(discounts).hasSize(1);
+        assertThat(discounts.get(0).amount()).isEqualTo(Money.euros("2.00"));
+        assertThat(discounts.get(0).details()).isEqualTo("10% off SKU-A");
+        assertThat(discounts.get(0).allocations()).containsEntry(productA.sku(), Money.euros("2.00"));
+    }
+
+    @Test
+    void shouldMatchTargetedCategories() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("20")))
+            .targetCategories(Set.of("books"))
+            .build());
+
+        List<AppliedDiscount> discounts = promotion.apply(cart, context);
+
+        assertThat(discounts).extracting(AppliedDiscount::amount).containsExactly(Money.euros("1.00"));
+    }
+
+    @Test
+    void shouldNotApplyWhenNoTargetedLineIsInCart() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("10")))
+            .targetSkus(Set.of(new Sku("SKU-Z")))
+            .build());
+
+        assertThat(promotion.isApplicable(cart, context)).isFalse();
+    }
+
+    @Test
+    void shouldGiveFreeUnitsForEveryCompleteGroup() {
+        Cart sevenUnits = new Cart(List.of(new LineItem(productA, new Quantity(7), Money.euros("3.00"))));
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.BuyXPayY(3, 2))
+            .targetSkus(Set.of(productA.sku()))
+            .build());
+
+        assertThat(promotion.isApplicable(sevenUnits, context)).isTrue();
+        assertThat(promotion.apply(sevenUnits, context))
+            .extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("6.00"));
+    }
+
+    @Test
+    void shouldNotApplyBuyXPayYBelowGroupSize() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.BuyXPayY(3, 2))
+            .targetSkus(Set.of(productA.sku()))
+            .build());
+
+        assertThat(promotion.isApplicable(cart, context)).isFalse();
+    }
+
+    @Test
+    void shouldComputeBuyXPayYForLargeQuantitiesInClosedForm() {
+        Cart bulk = new Cart(List.of(new LineItem(productA, new Quantity(1_000_000), Money.euros("0.37"))));
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.BuyXPayY(3, 2))
+            .targetSkus(Set.of(productA.sku()))
+            .build());
+
+        // 333,333 groups of 3, one free unit each
+        assertThat(promotion.apply(bulk, context))
+            .extracting(AppliedDiscount::amount)
+            .containsExactly(Money.cents(333_333L * 37));
+    }
+
+    @Test
+    void shouldGiveCheapestUnitsAwayAcrossTargetedSkus() {
+        Product productC = new Product(new Sku("SKU-C"), "Product C", "books");
+        Cart mixed = new Cart(List.of(
+            new LineItem(productA, new Quantity(2), Money.euros("10.00")),
+            new LineItem(productB, new Quantity(3), Money.euros("4.00")),
+            new LineItem(productC, new Quantity(1), Money.euros("2.00"))
+        ));
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.CheapestFree(3, 2))
+            .targetSkus(Set.of(productA.sku(), productB.sku(), productC.sku()))
+            .build());
+
+        // Six units make two groups: the €2.00 unit and one €4.00 unit are free
+        assertThat(promotion.isApplicable(mixed, context)).isTrue();
+        assertThat(promotion.apply(mixed, context))
+            .extracting(AppliedDiscount::amount, discount -> discount.allocations().keySet())
+            .containsExactly(
+                tuple(Money.euros("2.00"), Set.of(productC.sku())),
+                tuple(Money.euros("4.00"), Set.of(productB.sku())));
+    }
+
+    @Test
+    void shouldPoolQuantitiesOfCheapestFreeWithoutExpandingUnits() {
+        Cart bulk = new Cart(List.of(
+            new LineItem(productA, new Quantity(4_000), Money.euros("10.00")),
+            new LineItem(productB, new Quantity(1_000), Money.euros("5.00"))
+        ));
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.CheapestFree(5, 4))
+            .build());
+
+        // 1,000 groups of 5: all 1,000 cheaper units are free
+        assertThat(promotion.apply(bulk, context))
+            .extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("5000.00"));
+    }
+
+    @Test
+    void shouldNotApplyCheapestFreeBelowGroupSizeAcrossLines() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.CheapestFree(4, 3))
+            .targetSkus(Set.of(productA.sku(), productB.sku()))
+            .build());
+
+        // Three targeted units in total
+        assertThat(promotion.isApplicable(cart, context)).isFalse();
+    }
+
+    @Test
+    void shouldApplyHighestSpendTierReached() {
+        List<Reward.SpendTiers.Tier> tiers = new ArrayList<>();
+        for (int tier = 50; tier >= 1; tier--) {
+            tiers.add(new Reward.SpendTiers.Tier(Money.euros(tier * 10), Money.euros(tier)));
+        }
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.SpendTiers(tiers)).build());
+        Cart exactly = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("120.00"))));
+        Cart between = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("129.99"))));
+        Cart above = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("9999.00"))));
+        Cart below = new Cart(List.of(new LineItem(productA, new Quantity(1), Money.euros("9.99"))));
+
+        assertThat(promotion.apply(exactly, context)).extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("12.00"));
+        assertThat(promotion.apply(between, context)).extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("12.00"));
+        assertThat(promotion.apply(above, context)).extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("50.00"));
+        assertThat(promotion.isApplicable(below, context)).isFalse();
+    }
+
+    @Test
+    void shouldShareEligibleSpendBetweenPromotionsWithTheSameTargets() {
+        Set<Sku> targets = Set.of(productA.sku(), productB.sku());
+        CompiledPromotion first = (CompiledPromotion) compiler.compile(PromotionDefinition.builder(ID,
+                new Reward.SpendThreshold(Money.euros("20.00"), Money.euros("3.00")))
+            .targetSkus(targets)
+            .build());
+        CompiledPromotion second = (CompiledPromotion) compiler.compile(PromotionDefinition.builder(new PromotionId("PROMO-2"),
+                new Reward.SpendTiers(List.of(new Reward.SpendTiers.Tier(Money.euros("20.00"), Money.euros("4.00")))))
+            .targetSkus(Set.of(productB.sku(), productA.sku()))
+            .build());
+        CartAnalysis analysis = CartAnalysis.of(cart);
+
+        assertThat(second.matcher).isSameAs(first.matcher);
+        Money spend = first.matcher.sharedSpendOn(analysis);
+        assertThat(spend).isEqualTo(Money.euros("25.00"));
+        assertThat(second.matcher.sharedSpendOn(analysis)).isSameAs(spend);
+    }
+
+    @Test
+    void shouldApplySpendThresholdOnEligibleSpendOnly() {
+        Promotion reached = compiler.compile(PromotionDefinition.builder(ID,
+                new Reward.SpendThreshold(Money.euros("20.00"), Money.euros("3.00")))
+            .targetCategories(Set.of("electronics"))
+            .build());
+        Promotion missed = compiler.compile(PromotionDefinition.builder(ID,
+                new Reward.SpendThreshold(Money.euros("25.00"), Money.euros("3.00")))
+            .targetCategories(Set.of("electronics"))
+            .build());
+
+        assertThat(reached.isApplicable(cart, context)).isTrue();
+        assertThat(reached.apply(cart, context))
+            .extracting(AppliedDiscount::amount, AppliedDiscount::target)
+            .containsExactly(tuple(Money.euros("3.00"), "cart"));
+        assertThat(missed.isApplicable(cart, context)).isFalse();
+    }
+
+    @Test
+    void shouldCapThresholdDiscountAtEligibleSpend() {
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID,
+                new Reward.SpendThreshold(Money.euros("1.00"), Money.euros("50.00")))
+            .build());
+
+        assertThat(promotion.apply(cart, context))
+            .extracting(AppliedDiscount::amount)
+            .containsExactly(Money.euros("25.00"));
+    }
+
+    @Test
+    void shouldLeaveChannelChecksToTheEngine() {
+        CompiledPromotion storeOnly = (CompiledPromotion) compiler.compile(
+            PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("10")))
+                .channels(Set.of("store"))
+                .requiredTags(Set.of("vip"))
+                .build());
+
+        assertThat(storeOnly.channels()).containsExactly("store");
+        assertThat(storeOnly.contextReads()).isEmpty();
+        assertThat(storeOnly.conditions()).hasOnlyElementsOfType(Condition.AnyLineWithQuantity.class);
+    }
+
+    @Test
+    void shouldOrderConditionsByCost() {
+        CompiledPromotion promotion = (CompiledPromotion) compiler.compile(
+            PromotionDefinition.builder(ID, new Reward.SpendThreshold(Money.euros("20.00"), Money.euros("3.00")))
+                .channels(Set.of("store"))
+                .build());
+
+        assertThat(promotion.conditions())
+            .extracting(Condition::cost)
+            .isSorted();
+    }
+
+    @Test
+    void shouldFoldZeroPercentToNeverApplicable() {
+        CompiledPromotion promotion = (CompiledPromotion) compiler.compile(
+            PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("0"))).build());
+
+        assertThat(promotion.conditions()).containsExactly(Condition.NEVER);
+        assertThat(promotion.isApplicable(cart, context)).isFalse();
+    }
+
+    @Test
+    void shouldExposeDefinitionMetadataToTheEngine() {
+        ValidityWindow window = ValidityWindow.between(
+            Instant.parse("2025-12-01T00:00:00Z"), Instant.parse("2026-01-01T00:00:00Z"));
+        Promotion promotion = compiler.compile(PromotionDefinition.builder(ID, new Reward.PercentOff(Percentage.of("10")))
+            .targetSkus(Set.of(productA.sku()))
+            .targetCategories(Set.of("books"))
+            .validity(window)
+            .requiredTags(Set.of("vip"))
+            .conflictGroups(Set.of("clearance"))
+            .build());
+
+        assertThat(promotion.id()).isEqualTo(ID);
+        assertThat(promotion.targetSkus()).containsExactly(productA.sku());
+        assertThat(promotion.targetCategories()).containsExactly("books");
+        assertThat(promotion.validity()).isEqualTo(window);
+        assertThat(promotion.requiredTags()).isEqualTo(TagMask.of("vip"));
+        assertThat(promotion.conflictGroups()).containsExactly("clearance");
+    }
+
+    @Test
+    void shouldRejectNullDefinition() {
+        assertThatThrownBy(() -> compiler.compile(null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("cannot be null");
+    }
+}
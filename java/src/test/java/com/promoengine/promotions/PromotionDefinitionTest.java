@@ -0,0 +1,101 @@
+// ABOUTME: Unit tests for PromotionDefinition and Reward validation.
+// ABOUTME: Verifies builder defaults, defensive copies, and rejection of invalid rewards.
+package com.promoengine.promotions;
+
+import com.promoengine.domain.Money;
+import com.promoengine.domain.Percentage;
+import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
+import com.promoengine.domain.ValidityWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PromotionDefinitionTest {
+
+    private static final PromotionId ID = new PromotionId("PROMO-1");
+    private static final Reward TEN_PERCENT = new Reward.PercentOff(Percentage.of("10"));
+
+    @Test
+    void shouldDefaultToCartWideAlwaysValidPromotionInDefaultConflictGroup() {
+        PromotionDefinition definition = PromotionDefinition.builder(ID, TEN_PERCENT).build();
+
+        assertThat(definition.isCartWide()).isTrue();
+        assertThat(definition.validity()).isEqualTo(ValidityWindow.ALWAYS);
+        assertThat(definition.channels()).isEmpty();
+        assertThat(definition.requiredTags()).isEmpty();
+        assertThat(definition.conflictGroups()).containsExactly(Promotion.DEFAULT_CONFLICT_GROUP);
+    }
+
+    @Test
+    void shouldCopyTargetSets() {
+        Set<Sku> skus = new HashSet<>(Set.of(new Sku("SKU-A")));
+        PromotionDefinition definition = PromotionDefinition.builder(ID, TEN_PERCENT)
+            .targetSkus(skus)
+            .build();
+
+        skus.add(new Sku("SKU-B"));
+
+        assertThat(definition.targetSkus()).containsExactly(new Sku("SKU-A"));
+        assertThat(definition.isCartWide()).isFalse();
+    }
+
+    @Test
+    void shouldRejectNullIdAndReward() {
+        assertThatThrownBy(() -> PromotionDefinition.builder(null, TEN_PERCENT).build())
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PromotionDefinition.builder(ID, null).build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectBuyXPayYThatGivesNothingAway() {
+        assertThatThrownBy(() -> new Reward.BuyXPayY(3, 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Reward.BuyXPayY(0, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Reward.BuyXPayY(3, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldSortSpendTiersByThreshold() {
+        Reward.SpendTiers tiers = new Reward.SpendTiers(List.of(
+            new Reward.SpendTiers.Tier(Money.euros("100.00"), Money.euros("12.00")),
+            new Reward.SpendTiers.Tier(Money.euros("50.00"), Money.euros("5.00"))));
+
+        assertThat(tiers.tiers()).extracting(Reward.SpendTiers.Tier::threshold)
+            .containsExactly(Money.euros("50.00"), Money.euros("100.00"));
+    }
+
+    @Test
+    void shouldRejectEmptyOrDuplicateSpendTiers() {
+        assertThatThrownBy(() -> new Reward.SpendTiers(List.of()))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Reward.SpendTiers(List.of(
+                new Reward.SpendTiers.Tier(Money.euros("50.00"), Money.euros("5.00")),
+                new Reward.SpendTiers.Tier(Money.euros("50.00"), Money.euros("6.00")))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Duplicate tier threshold");
+    }
+
+    @Test
+    void shouldRejectCheapestFreeThatGivesNothingAway() {
+        assertThatThrownBy(() -> new Reward.CheapestFree(3, 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Reward.CheapestFree(0, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectNegativeThresholdAmounts() {
+        assertThatThrownBy(() -> new Reward.SpendThreshold(Money.euros("-1.00"), Money.euros("5.00")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Reward.SpendThreshold(Money.euros("50.00"), Money.euros("-5.00")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -4,21 +4,34 @@ package com.promoengine.promotions;
 
 import com.promoengine.domain.Cart;
 import com.promoengine.domain.PromotionId;
+import com.promoengine.domain.Sku;
 import com.promoengine.pricing.AppliedDiscount;
 import com.promoengine.pricing.PricingContext;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class StubPromotion implements Promotion {
 
     private final PromotionId promotionId;
     private final boolean shouldApply;
     private final List<AppliedDiscount> discounts;
+    private final Set<Sku> targetSkus;
+    private final Set<String> targetCategories;
+    private final AtomicInteger applicabilityChecks = new AtomicInteger();
 
     public StubPromotion(PromotionId promotionId, boolean shouldApply, List<AppliedDiscount> discounts) {
+        this(promotionId, shouldApply, discounts, Set.of(), Set.of());
+    }
+
+    public StubPromotion(PromotionId promotionId, boolean shouldApply, List<AppliedDiscount> discounts,
+                         Set<Sku> targetSkus, Set<String> targetCategories) {
         this.promotionId = promotionId;
         this.shouldApply = shouldApply;
         this.discounts = discounts != null ? List.copyOf(discounts) : List.of();
+        this.targetSkus = Set.copyOf(targetSkus);
+        this.targetCategories = Set.copyOf(targetCategories);
     }
 
     @Override
@@ -28,6 +41,7 @@ public class StubPromotion implements Promotion {
 
     @Override
     public boolean isApplicable(Cart cart, PricingContext context) {
+        applicabilityChecks.incrementAndGet();
         return shouldApply;
     }
 
@@ -35,4 +49,21 @@ public class StubPromotion implements Promotion {
     public List<AppliedDiscount> apply(Cart cart, PricingContext context) {
         return discounts;
     }
+
+    @Override
+    public Set<Sku> targetSkus() {
+        return targetSkus;
+    }
+
+    @Override
+    public Set<String> targetCategories() {
+        return targetCategories;
+    }
+
+    /**
+     * Returns how many times the engine asked this promotion whether it is applicable.
+     */
+    public int applicabilityChecks() {
+        return applicabilityChecks.get();
+    }
 }